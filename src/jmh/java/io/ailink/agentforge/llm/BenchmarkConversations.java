@@ -0,0 +1,147 @@
+package io.ailink.agentforge.llm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.llm.dto.ChatRequest;
+import io.ailink.agentforge.tool.Tool;
+import io.ailink.agentforge.tool.ToolCall;
+import io.ailink.agentforge.tool.ToolDefinition;
+import io.ailink.agentforge.tool.builtin.CalculatorTool;
+
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 基准测试用的对话数据
+ *
+ * 按固定种子生成，每次运行内容一致。对话由若干轮组成：
+ * 用户提问（中英混合）→ 助手回答（Markdown 段落）；每 4 轮中有 1 轮先调用 1~2 个工具，
+ * 带上工具结果后再回答，与实际的 Agent 对话结构相近。
+ */
+public final class BenchmarkConversations {
+
+    private static final String[] QUESTIONS = {
+            "帮我计算一下这个季度的增长率，上季度营收 1280 万，本季度 1536 万。",
+            "Explain the difference between optimistic and pessimistic locking in JPA, with examples.",
+            "把下面这段话翻译成英文，并保持专业语气：我们将在下周发布新版本，届时请关注更新日志。",
+            "How should I size a Reactor Netty connection pool for a service calling two upstream APIs?",
+            "总结一下今天讨论的三个方案的优缺点，用表格输出。",
+            "What does the HTTP/2 SETTINGS_MAX_CONCURRENT_STREAMS parameter control?",
+    };
+
+    private static final String[] ANSWER_PARAGRAPHS = {
+            "根据你提供的数据，本季度相比上季度增长了 **20%**。计算方式为 (1536 - 1280) / 1280 = 0.2。"
+                    + "如果按同样的增速推算，下季度营收约为 1843 万。",
+            "Optimistic locking assumes conflicts are rare: each entity carries a `@Version` column and the "
+                    + "update fails with an `OptimisticLockException` if another transaction changed the row first. "
+                    + "Pessimistic locking acquires a database lock up front (`LockModeType.PESSIMISTIC_WRITE`).",
+            "| 方案 | 优点 | 缺点 |\n|------|------|------|\n| A | 实现简单，改动小 | 扩展性有限 |\n"
+                    + "| B | 性能最好 | 需要引入新组件 |\n| C | 兼容现有数据 | 迁移成本高 |",
+            "A good starting point is `maxConnections` ≈ peak concurrent requests per upstream, with a bounded "
+                    + "pending-acquire queue so callers fail fast instead of piling up. Enable pool metrics and watch "
+                    + "`pending.connections` under load before tuning further.",
+            "The translated text: \"We will release the new version next week; please keep an eye on the "
+                    + "changelog.\" 如需更正式的语气，可以把 keep an eye on 换成 refer to。",
+    };
+
+    private static final String[] EXPRESSIONS = {
+            "(1536 - 1280) / 1280", "Math.pow(1.2, 4)", "1843 * 0.85 + 120", "Math.sqrt(2048) / 3",
+    };
+
+    private BenchmarkConversations() {
+    }
+
+    /**
+     * 生成指定条数的对话历史
+     *
+     * @param size 消息条数（含工具调用与工具结果消息）
+     */
+    public static List<ChatMessage> conversation(int size, ObjectMapper objectMapper) {
+        Random random = new Random(42);
+        List<ChatMessage> messages = new ArrayList<>(size + 4);
+        int round = 0;
+        while (messages.size() < size) {
+            messages.add(ChatMessage.user(pick(QUESTIONS, random)));
+            if (round % 4 == 3) {
+                int calls = 1 + random.nextInt(2);
+                List<ToolCall> toolCalls = new ArrayList<>(calls);
+                for (int i = 0; i < calls; i++) {
+                    ObjectNode arguments = objectMapper.createObjectNode()
+                            .put("expression", pick(EXPRESSIONS, random));
+                    toolCalls.add(ToolCall.of("toolu_" + round + "_" + i, "calculator", arguments));
+                }
+                messages.add(ChatMessage.assistantWithTools("我先用计算器确认一下。", toolCalls));
+                for (ToolCall toolCall : toolCalls) {
+                    messages.add(ChatMessage.toolResult(toolCall.id(),
+                            "[calculator] " + random.nextInt(10_000) / 100.0));
+                }
+            }
+            messages.add(ChatMessage.assistant(answer(random)));
+            round++;
+        }
+        return List.copyOf(messages.subList(0, size));
+    }
+
+    /**
+     * 带系统提示词和工具定义的请求
+     */
+    public static ChatRequest request(int size, ObjectMapper objectMapper) {
+        return ChatRequest.builder()
+                .system("你是一个知识问答助手，回答准确、简洁，必要时使用工具。")
+                .messages(conversation(size, objectMapper))
+                .tools(tools(objectMapper))
+                .build();
+    }
+
+    /**
+     * 内置计算器加两个参数更复杂的工具定义
+     */
+    public static List<ToolDefinition> tools(ObjectMapper objectMapper) {
+        Tool calculator = new CalculatorTool();
+        return List.of(
+                ToolDefinition.from(calculator),
+                new ToolDefinition("web_search", "搜索互联网并返回摘要结果", readTree(objectMapper, """
+                        {"type":"object","properties":{
+                          "query":{"type":"string","description":"搜索关键词"},
+                          "max_results":{"type":"integer","minimum":1,"maximum":20,"default":5},
+                          "site":{"type":"string","description":"限定站点，如 docs.spring.io"},
+                          "freshness":{"type":"string","enum":["day","week","month","any"]}},
+                         "required":["query"]}""")),
+                new ToolDefinition("read_file", "读取工作区内的文本文件", readTree(objectMapper, """
+                        {"type":"object","properties":{
+                          "path":{"type":"string","description":"相对工作区的路径"},
+                          "offset":{"type":"integer","description":"起始行号"},
+                          "limit":{"type":"integer","description":"最多读取的行数"},
+                          "encoding":{"type":"string","default":"UTF-8"}},
+                         "required":["path"]}""")));
+    }
+
+    public static JsonNode readTree(ObjectMapper objectMapper, String json) {
+        try {
+            return objectMapper.readTree(json);
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private static String answer(Random random) {
+        int paragraphs = 1 + random.nextInt(3);
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < paragraphs; i++) {
+            if (i > 0) {
+                sb.append("\n\n");
+            }
+            sb.append(pick(ANSWER_PARAGRAPHS, random));
+        }
+        return sb.toString();
+    }
+
+    private static String pick(String[] values, Random random) {
+        return values[random.nextInt(values.length)];
+    }
+}
@@ -0,0 +1,215 @@
+package io.ailink.agentforge.llm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ailink.agentforge.llm.claude.ClaudeStreamAssembler;
+import io.ailink.agentforge.llm.claude.dto.ClaudeStreamEvent;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
+import io.ailink.agentforge.llm.openai.OpenAiStreamAssembler;
+import io.ailink.agentforge.llm.openai.dto.OpenAiStreamEvent;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.core.ResolvableType;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ReactiveHttpInputMessage;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.codec.ServerSentEventHttpMessageReader;
+import reactor.core.publisher.Flux;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * SSE 流解码基准测试
+ *
+ * 对比两条路径解码同一段流式响应（每个 SSE 帧一个 DataBuffer，与网络层逐帧 flush 一致）：
+ * <ul>
+ *   <li>legacy：ServerSentEventHttpMessageReader 把帧解码为 ServerSentEvent&lt;String&gt;，
+ *       再 readValue 为完整 DTO 后取出文本增量（改造前的路径）</li>
+ *   <li>streaming：{@link SseJsonDecoder} 直接扫描 DataBuffer，非阻塞解析器只读取需要的字段</li>
+ * </ul>
+ *
+ * 运行（-prof gc 输出每次操作的分配字节数 gc.alloc.rate.norm）：
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="SseDecodingBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SseDecodingBenchmark {
+
+    private static final ResolvableType SSE_TYPE =
+            ResolvableType.forClassWithGenerics(ServerSentEvent.class, String.class);
+
+    /**
+     * 一次响应中的文本增量数量
+     */
+    @Param({"50", "500"})
+    public int deltas;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ServerSentEventHttpMessageReader sseReader = new ServerSentEventHttpMessageReader();
+
+    private List<byte[]> claudeFrames;
+    private List<byte[]> openAiFrames;
+
+    @Setup
+    public void setup() {
+        claudeFrames = claudeStream(deltas);
+        openAiFrames = openAiStream(deltas);
+    }
+
+    @Benchmark
+    public void claudeLegacy(Blackhole blackhole) {
+        readSse(claudeFrames)
+                .doOnNext(sse -> {
+                    ClaudeStreamEvent event = readValue(sse.data(), ClaudeStreamEvent.class);
+                    if (event != null && event.delta() != null && event.delta().text() != null) {
+                        blackhole.consume(new ChatStreamEvent.TextDelta(event.delta().text()));
+                    }
+                })
+                .blockLast();
+    }
+
+    @Benchmark
+    public void claudeStreaming(Blackhole blackhole) {
+        decode(claudeFrames, new ClaudeStreamAssembler(objectMapper))
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    @Benchmark
+    public void openAiLegacy(Blackhole blackhole) {
+        readSse(openAiFrames)
+                .filter(sse -> !"[DONE]".equals(sse.data()))
+                .doOnNext(sse -> {
+                    OpenAiStreamEvent event = readValue(sse.data(), OpenAiStreamEvent.class);
+                    if (event != null && event.choices() != null && !event.choices().isEmpty()) {
+                        var delta = event.choices().getFirst().delta();
+                        if (delta != null && delta.content() != null) {
+                            blackhole.consume(new ChatStreamEvent.TextDelta(delta.content()));
+                        }
+                    }
+                })
+                .blockLast();
+    }
+
+    @Benchmark
+    public void openAiStreaming(Blackhole blackhole) {
+        decode(openAiFrames, new OpenAiStreamAssembler(objectMapper))
+                .doOnNext(blackhole::consume)
+                .blockLast();
+    }
+
+    private Flux<ChatStreamEvent> decode(List<byte[]> frames, StreamEventAssembler assembler) {
+        SseJsonDecoder decoder = new SseJsonDecoder(objectMapper.getFactory(), assembler);
+        return buffers(frames)
+                .concatMapIterable(decoder::decode)
+                .concatWith(Flux.defer(() -> Flux.fromIterable(decoder.complete())));
+    }
+
+    @SuppressWarnings("unchecked")
+    private Flux<ServerSentEvent<String>> readSse(List<byte[]> frames) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.setContentType(MediaType.TEXT_EVENT_STREAM);
+        ReactiveHttpInputMessage message = new ReactiveHttpInputMessage() {
+            @Override
+            public HttpHeaders getHeaders() {
+                return headers;
+            }
+
+            @Override
+            public Flux<DataBuffer> getBody() {
+                return buffers(frames);
+            }
+        };
+        return sseReader.read(SSE_TYPE, message, Map.of()).map(event -> (ServerSentEvent<String>) event);
+    }
+
+    private <T> T readValue(String data, Class<T> type) {
+        try {
+            return objectMapper.readValue(data, type);
+        } catch (JsonProcessingException e) {
+            return null;
+        }
+    }
+
+    private static Flux<DataBuffer> buffers(List<byte[]> frames) {
+        return Flux.fromIterable(frames).map(DefaultDataBufferFactory.sharedInstance::wrap);
+    }
+
+    // ==================== 测试数据 ====================
+
+    private static List<byte[]> claudeStream(int deltas) {
+        List<String> frames = new ArrayList<>();
+        frames.add(frame("message_start", """
+                {"type":"message_start","message":{"id":"msg_01XFDUDYJgAACzvnptvVoYEL","type":"message","role":"assistant",\
+                "content":[],"model":"claude-sonnet-4-20250514","stop_reason":null,"stop_sequence":null,\
+                "usage":{"input_tokens":1532,"output_tokens":1}}}"""));
+        frames.add(frame("content_block_start",
+                "{\"type\":\"content_block_start\",\"index\":0,\"content_block\":{\"type\":\"text\",\"text\":\"\"}}"));
+        frames.add(frame("ping", "{\"type\": \"ping\"}"));
+        for (int i = 0; i < deltas; i++) {
+            frames.add(frame("content_block_delta", "{\"type\":\"content_block_delta\",\"index\":0,"
+                    + "\"delta\":{\"type\":\"text_delta\",\"text\":\"" + token(i) + "\"}}"));
+        }
+        frames.add(frame("content_block_stop", "{\"type\":\"content_block_stop\",\"index\":0}"));
+        frames.add(frame("message_delta", "{\"type\":\"message_delta\",\"delta\":{\"stop_reason\":\"end_turn\","
+                + "\"stop_sequence\":null},\"usage\":{\"output_tokens\":" + deltas + "}}"));
+        frames.add(frame("message_stop", "{\"type\":\"message_stop\"}"));
+        return frames.stream().map(frame -> frame.getBytes(StandardCharsets.UTF_8)).toList();
+    }
+
+    private static List<byte[]> openAiStream(int deltas) {
+        String prefix = "{\"id\":\"chatcmpl-B9MBs8CjcvOU2jLn4n570S5qMJKcT\",\"object\":\"chat.completion.chunk\","
+                + "\"created\":1741569952,\"model\":\"gpt-4o-2024-08-06\",\"system_fingerprint\":\"fp_eb9dce56a8\","
+                + "\"choices\":[{\"index\":0,\"delta\":{";
+        List<String> frames = new ArrayList<>();
+        frames.add(frame(null, prefix + "\"role\":\"assistant\",\"content\":\"\",\"refusal\":null},"
+                + "\"logprobs\":null,\"finish_reason\":null}],\"usage\":null}"));
+        for (int i = 0; i < deltas; i++) {
+            frames.add(frame(null, prefix + "\"content\":\"" + token(i) + "\"},"
+                    + "\"logprobs\":null,\"finish_reason\":null}],\"usage\":null}"));
+        }
+        frames.add(frame(null, prefix + "},\"logprobs\":null,\"finish_reason\":\"stop\"}],\"usage\":null}"));
+        frames.add(frame(null, "{\"id\":\"chatcmpl-B9MBs8CjcvOU2jLn4n570S5qMJKcT\",\"object\":\"chat.completion.chunk\","
+                + "\"created\":1741569952,\"model\":\"gpt-4o-2024-08-06\",\"choices\":[],"
+                + "\"usage\":{\"prompt_tokens\":1532,\"completion_tokens\":" + deltas + ",\"total_tokens\":"
+                + (1532 + deltas) + "}}"));
+        frames.add(frame(null, "[DONE]"));
+        return frames.stream().map(frame -> frame.getBytes(StandardCharsets.UTF_8)).toList();
+    }
+
+    private static String frame(String event, String data) {
+        return (event != null ? "event: " + event + "\n" : "") + "data: " + data + "\n\n";
+    }
+
+    private static String token(int i) {
+        return switch (i % 4) {
+            case 0 -> "根据";
+            case 1 -> " the result";
+            case 2 -> "，结果是 ";
+            default -> String.valueOf(i);
+        };
+    }
+}
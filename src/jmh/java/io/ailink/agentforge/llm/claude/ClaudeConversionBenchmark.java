@@ -0,0 +1,127 @@
+package io.ailink.agentforge.llm.claude;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ailink.agentforge.llm.BenchmarkConversations;
+import io.ailink.agentforge.llm.MessageConversionCache;
+import io.ailink.agentforge.llm.RequestBodyWriter;
+import io.ailink.agentforge.llm.claude.dto.ClaudeRequest;
+import io.ailink.agentforge.llm.claude.dto.ClaudeResponse;
+import io.ailink.agentforge.llm.dto.ChatRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Claude 请求/响应转换基准测试
+ *
+ * <ul>
+ *   <li>convertRequest：通用请求 → ClaudeRequest（每轮对话都会对完整历史执行一次）</li>
+ *   <li>convertRequestCached：携带已预热的对话级转换缓存（稳态下每轮只有少量新消息）</li>
+ *   <li>serializeRequest：convertRequest 加序列化为请求体字节</li>
+ *   <li>serializeRequestCached：预热缓存下转换并生成分段请求体（只有新消息需要序列化）</li>
+ *   <li>parseResponse：响应体字节 → ClaudeResponse → ClaudeChatResponse（含工具调用提取）</li>
+ *   <li>wrapResponse：仅构造 ClaudeChatResponse 并读取文本与工具调用</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ClaudeConversionBenchmark {
+
+    private static final String RESPONSE = """
+            {"id":"msg_01Aq9w938a90dw8q","type":"message","role":"assistant","model":"claude-sonnet-4-20250514",
+             "content":[
+               {"type":"text","text":"我来分别计算这两个表达式。"},
+               {"type":"tool_use","id":"toolu_01A09q90qw90lq917835lq9","name":"calculator",
+                "input":{"expression":"(1536 - 1280) / 1280"}},
+               {"type":"tool_use","id":"toolu_01B19q90qw90lq917835lq9","name":"web_search",
+                "input":{"query":"2025 Q3 营收增长率 行业平均","max_results":5,"freshness":"month"}}],
+             "stop_reason":"tool_use","stop_sequence":null,
+             "usage":{"input_tokens":2095,"output_tokens":503}}""";
+
+    /**
+     * 对话历史的消息条数
+     */
+    @Param({"50", "200", "500"})
+    public int messages;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private ClaudeProvider provider;
+    private ChatRequest request;
+    private ChatRequest cachedRequest;
+    private RequestBodyWriter bodyWriter;
+    private byte[] responseBytes;
+    private ClaudeResponse response;
+
+    @Setup
+    public void setup() throws Exception {
+        ClaudeProperties properties = new ClaudeProperties()
+                .setBaseUrl("https://api.anthropic.com")
+                .setDefaultModel("claude-sonnet-4-20250514");
+        provider = new ClaudeProvider(WebClient.create(), properties, objectMapper);
+        request = BenchmarkConversations.request(messages, objectMapper);
+        cachedRequest = ChatRequest.builder()
+                .system(request.system())
+                .messages(request.messages())
+                .tools(request.tools())
+                .conversionCache(new MessageConversionCache())
+                .build();
+        bodyWriter = new RequestBodyWriter(objectMapper);
+        bodyWriter.segments(provider.convertRequest(cachedRequest, false), cachedRequest.conversionCache());
+        responseBytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        response = objectMapper.readValue(responseBytes, ClaudeResponse.class);
+    }
+
+    @Benchmark
+    public ClaudeRequest convertRequest() {
+        return provider.convertRequest(request, false);
+    }
+
+    @Benchmark
+    public ClaudeRequest convertRequestCached() {
+        return provider.convertRequest(cachedRequest, false);
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() throws Exception {
+        return objectMapper.writeValueAsBytes(provider.convertRequest(request, false));
+    }
+
+    @Benchmark
+    public List<byte[]> serializeRequestCached() throws Exception {
+        return bodyWriter.segments(provider.convertRequest(cachedRequest, false), cachedRequest.conversionCache());
+    }
+
+    @Benchmark
+    public void parseResponse(Blackhole blackhole) throws Exception {
+        ClaudeChatResponse chatResponse =
+                new ClaudeChatResponse(objectMapper.readValue(responseBytes, ClaudeResponse.class));
+        blackhole.consume(chatResponse.content());
+        blackhole.consume(chatResponse.toolCalls());
+    }
+
+    @Benchmark
+    public void wrapResponse(Blackhole blackhole) {
+        ClaudeChatResponse chatResponse = new ClaudeChatResponse(response);
+        blackhole.consume(chatResponse.content());
+        blackhole.consume(chatResponse.toolCalls());
+    }
+}
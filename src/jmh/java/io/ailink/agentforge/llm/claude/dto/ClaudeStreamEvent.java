@@ -0,0 +1,44 @@
+package io.ailink.agentforge.llm.claude.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record ClaudeStreamEvent(
+        String type,
+        Integer index,
+        Message message,
+        @JsonProperty("content_block") ContentBlock contentBlock,
+        Delta delta,
+        Usage usage,
+        Error error
+) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Message(String id, String model, Usage usage) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ContentBlock(String type, String id, String name, String text) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Delta(
+            String type,
+            String text,
+            @JsonProperty("partial_json") String partialJson,
+            @JsonProperty("stop_reason") String stopReason
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Usage(
+            @JsonProperty("input_tokens") Integer inputTokens,
+            @JsonProperty("output_tokens") Integer outputTokens
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Error(String type, String message) {
+    }
+}
@@ -0,0 +1,129 @@
+package io.ailink.agentforge.llm.openai;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ailink.agentforge.llm.BenchmarkConversations;
+import io.ailink.agentforge.llm.MessageConversionCache;
+import io.ailink.agentforge.llm.RequestBodyWriter;
+import io.ailink.agentforge.llm.openai.dto.OpenAiRequest;
+import io.ailink.agentforge.llm.openai.dto.OpenAiResponse;
+import io.ailink.agentforge.llm.dto.ChatRequest;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.reactive.function.client.WebClient;
+
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * OpenAI 请求/响应转换基准测试
+ *
+ * <ul>
+ *   <li>convertRequest：通用请求 → OpenAiRequest（每轮对话都会对完整历史执行一次）</li>
+ *   <li>convertRequestCached：携带已预热的对话级转换缓存（稳态下每轮只有少量新消息）</li>
+ *   <li>serializeRequest：convertRequest 加序列化为请求体字节</li>
+ *   <li>serializeRequestCached：预热缓存下转换并生成分段请求体（只有新消息需要序列化）</li>
+ *   <li>parseResponse：响应体字节 → OpenAiResponse → OpenAiChatResponse（含工具调用提取）</li>
+ *   <li>wrapResponse：仅构造 OpenAiChatResponse 并读取文本与工具调用</li>
+ * </ul>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OpenAiConversionBenchmark {
+
+    private static final String RESPONSE = """
+            {"id":"chatcmpl-B9MHDbslfkBeAs8l4bebGdFOJ6PeG","object":"chat.completion","created":1741570283,
+             "model":"gpt-4o-2024-08-06",
+             "choices":[{"index":0,"message":{"role":"assistant","content":"我来分别计算这两个表达式。",
+               "tool_calls":[
+                 {"id":"call_DdmO9pD3xa9XTPNJ32zg2hcA","type":"function",
+                  "function":{"name":"calculator","arguments":"{\\"expression\\":\\"(1536 - 1280) / 1280\\"}"}},
+                 {"id":"call_ABaO9pD3xa9XTPNJ32zg2hcA","type":"function",
+                  "function":{"name":"web_search","arguments":"{\\"query\\":\\"2025 Q3 营收增长率 行业平均\\",\\"max_results\\":5}"}}],
+               "refusal":null},"logprobs":null,"finish_reason":"tool_calls"}],
+             "usage":{"prompt_tokens":2095,"completion_tokens":503,"total_tokens":2598},
+             "system_fingerprint":"fp_fc9f1d7035"}""";
+
+    /**
+     * 对话历史的消息条数
+     */
+    @Param({"50", "200", "500"})
+    public int messages;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private OpenAiProvider provider;
+    private ChatRequest request;
+    private ChatRequest cachedRequest;
+    private RequestBodyWriter bodyWriter;
+    private byte[] responseBytes;
+    private OpenAiResponse response;
+
+    @Setup
+    public void setup() throws Exception {
+        OpenAiProperties properties = new OpenAiProperties()
+                .setBaseUrl("https://api.openai.com")
+                .setDefaultModel("gpt-4o");
+        provider = new OpenAiProvider(WebClient.create(), properties, objectMapper);
+        request = BenchmarkConversations.request(messages, objectMapper);
+        cachedRequest = ChatRequest.builder()
+                .system(request.system())
+                .messages(request.messages())
+                .tools(request.tools())
+                .conversionCache(new MessageConversionCache())
+                .build();
+        bodyWriter = new RequestBodyWriter(objectMapper);
+        bodyWriter.segments(provider.convertRequest(cachedRequest, false), cachedRequest.conversionCache());
+        responseBytes = RESPONSE.getBytes(StandardCharsets.UTF_8);
+        response = objectMapper.readValue(responseBytes, OpenAiResponse.class);
+    }
+
+    @Benchmark
+    public OpenAiRequest convertRequest() {
+        return provider.convertRequest(request, false);
+    }
+
+    @Benchmark
+    public OpenAiRequest convertRequestCached() {
+        return provider.convertRequest(cachedRequest, false);
+    }
+
+    @Benchmark
+    public byte[] serializeRequest() throws Exception {
+        return objectMapper.writeValueAsBytes(provider.convertRequest(request, false));
+    }
+
+    @Benchmark
+    public List<byte[]> serializeRequestCached() throws Exception {
+        return bodyWriter.segments(provider.convertRequest(cachedRequest, false), cachedRequest.conversionCache());
+    }
+
+    @Benchmark
+    public void parseResponse(Blackhole blackhole) throws Exception {
+        OpenAiChatResponse chatResponse =
+                new OpenAiChatResponse(objectMapper.readValue(responseBytes, OpenAiResponse.class), objectMapper);
+        blackhole.consume(chatResponse.content());
+        blackhole.consume(chatResponse.toolCalls());
+    }
+
+    @Benchmark
+    public void wrapResponse(Blackhole blackhole) {
+        OpenAiChatResponse chatResponse = new OpenAiChatResponse(response, objectMapper);
+        blackhole.consume(chatResponse.content());
+        blackhole.consume(chatResponse.toolCalls());
+    }
+}
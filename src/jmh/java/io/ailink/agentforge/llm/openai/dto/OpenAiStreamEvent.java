@@ -0,0 +1,49 @@
+package io.ailink.agentforge.llm.openai.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+
+import java.util.List;
+
+@JsonIgnoreProperties(ignoreUnknown = true)
+public record OpenAiStreamEvent(
+        String id,
+        String model,
+        List<Choice> choices,
+        Usage usage
+) {
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Choice(
+            int index,
+            Delta delta,
+            @JsonProperty("finish_reason") String finishReason
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Delta(
+            String content,
+            @JsonProperty("tool_calls") List<ToolCallDelta> toolCalls
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record ToolCallDelta(
+            int index,
+            String id,
+            FunctionDelta function
+    ) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record FunctionDelta(String name, String arguments) {
+    }
+
+    @JsonIgnoreProperties(ignoreUnknown = true)
+    public record Usage(
+            @JsonProperty("prompt_tokens") int promptTokens,
+            @JsonProperty("completion_tokens") int completionTokens
+    ) {
+    }
+}
@@ -0,0 +1,110 @@
+package io.ailink.agentforge.template;
+
+import com.hubspot.jinjava.Jinjava;
+import io.ailink.agentforge.config.PromptProperties;
+import io.ailink.agentforge.config.TemplateConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prompt 模板渲染基准测试
+ *
+ * 对比两条路径渲染同一个模板：
+ * <ul>
+ *   <li>legacy：每次从 classpath 读取模板，再由默认配置的 Jinjava 解析并渲染（改造前的 PromptRenderer）</li>
+ *   <li>cached：{@link PromptRenderer} 使用 {@link PromptTemplateCache} 中已解析的语法树，只求值</li>
+ * </ul>
+ * 模板为每日总结（summarizer.md，变量为整段对话）和每次对话请求都渲染的系统提示词（chat-system.md）。
+ *
+ * 运行（-prof gc 输出每次操作的分配字节数 gc.alloc.rate.norm）：
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="PromptRenderBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PromptRenderBenchmark {
+
+    /**
+     * 对话内容的字符数
+     */
+    @Param({"2000", "32000"})
+    public int chars;
+
+    private final Jinjava legacyJinjava = new Jinjava();
+
+    private PromptTemplateCache templates;
+    private PromptRenderer renderer;
+    private Map<String, Object> dailyContext;
+    private Map<String, Object> systemContext;
+
+    @Setup
+    public void setup() {
+        Jinjava jinjava = new TemplateConfig().jinjava();
+        PromptProperties properties = new PromptProperties();
+        properties.setWatch(false);
+        templates = new PromptTemplateCache(jinjava, properties);
+        renderer = new PromptRenderer(jinjava, templates);
+
+        StringBuilder messages = new StringBuilder();
+        for (int i = 0; messages.length() < chars; i++) {
+            messages.append(i % 2 == 0 ? "user: 第 " + i + " 个问题，上下文窗口怎么裁剪？"
+                    : "assistant: 按用户消息整轮裁剪最早的对话，工具调用与结果不拆开。").append("\n\n");
+        }
+        dailyContext = Map.of("messages", messages.substring(0, chars));
+        systemContext = new HashMap<>();
+        systemContext.put("system", null);
+        systemContext.put("summary", "用户在调整上下文预算，已确认裁剪按整轮进行。");
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        templates.destroy();
+    }
+
+    @Benchmark
+    public String dailyLegacy() throws IOException {
+        return legacyRender("summarizer.md", dailyContext);
+    }
+
+    @Benchmark
+    public String dailyCached() {
+        return renderer.render("summarizer.md", dailyContext);
+    }
+
+    @Benchmark
+    public String systemPromptLegacy() throws IOException {
+        return legacyRender("chat-system.md", systemContext);
+    }
+
+    @Benchmark
+    public String systemPromptCached() {
+        return renderer.render("chat-system.md", systemContext);
+    }
+
+    private String legacyRender(String templatePath, Map<String, Object> context) throws IOException {
+        String template = new ClassPathResource("prompts/" + templatePath).getContentAsString(StandardCharsets.UTF_8);
+        return legacyJinjava.render(template, context);
+    }
+}
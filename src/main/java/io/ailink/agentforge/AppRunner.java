@@ -2,8 +2,13 @@ package io.ailink.agentforge;
 
 import io.ailink.agentforge.cli.ChatCommand;
 import io.ailink.agentforge.cli.HistoryCommand;
+import io.ailink.agentforge.config.AgentProperties;
+import io.ailink.agentforge.config.ConnectionPoolMetrics;
 import io.ailink.agentforge.llm.LlmProvider;
 import io.ailink.agentforge.service.ChatHistoryService;
+import io.ailink.agentforge.service.DailySummaryBackfill;
+import io.ailink.agentforge.service.PeriodSummaryRollup;
+import io.ailink.agentforge.service.SummaryGenerator;
 import io.ailink.agentforge.template.PromptRenderer;
 import io.ailink.agentforge.tool.ToolExecutor;
 import io.ailink.agentforge.tool.ToolRegistry;
@@ -22,22 +27,36 @@ public class AppRunner implements CommandLineRunner, Runnable {
     private final ChatHistoryService chatHistoryService;
     private final ToolRegistry toolRegistry;
     private final ToolExecutor toolExecutor;
+    private final AgentProperties agentProperties;
+    private final SummaryGenerator summaryGenerator;
+    private final DailySummaryBackfill dailySummaryBackfill;
+    private final PeriodSummaryRollup periodSummaryRollup;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
 
     public AppRunner(LlmProvider llmProvider, PromptRenderer promptRenderer, 
                      ChatHistoryService chatHistoryService,
-                     ToolRegistry toolRegistry, ToolExecutor toolExecutor) {
+                     ToolRegistry toolRegistry, ToolExecutor toolExecutor,
+                     AgentProperties agentProperties, SummaryGenerator summaryGenerator,
+                     DailySummaryBackfill dailySummaryBackfill, PeriodSummaryRollup periodSummaryRollup,
+                     ConnectionPoolMetrics connectionPoolMetrics) {
         this.llmProvider = llmProvider;
         this.promptRenderer = promptRenderer;
         this.chatHistoryService = chatHistoryService;
         this.toolRegistry = toolRegistry;
         this.toolExecutor = toolExecutor;
+        this.agentProperties = agentProperties;
+        this.summaryGenerator = summaryGenerator;
+        this.dailySummaryBackfill = dailySummaryBackfill;
+        this.periodSummaryRollup = periodSummaryRollup;
+        this.connectionPoolMetrics = connectionPoolMetrics;
     }
 
     @Override
     public void run(String... args) {
         CommandLine cmd = new CommandLine(this)
-                .addSubcommand(new ChatCommand(llmProvider, chatHistoryService, toolRegistry, toolExecutor))
-                .addSubcommand(new HistoryCommand(chatHistoryService));
+                .addSubcommand(new ChatCommand(llmProvider, chatHistoryService, toolRegistry, toolExecutor,
+                        agentProperties, summaryGenerator, promptRenderer, connectionPoolMetrics))
+                .addSubcommand(new HistoryCommand(chatHistoryService, dailySummaryBackfill, periodSummaryRollup));
         cmd.execute(args);
     }
 
@@ -1,11 +1,20 @@
 package io.ailink.agentforge.cli;
 
 import io.ailink.agentforge.cli.chat.ChatSession;
+import io.ailink.agentforge.cli.chat.ContextWindowManager;
+import io.ailink.agentforge.cli.chat.ConversationCompactor;
 import io.ailink.agentforge.cli.chat.ConversationState;
 import io.ailink.agentforge.cli.chat.MessageProcessor;
+import io.ailink.agentforge.config.AgentProperties;
+import io.ailink.agentforge.config.ConnectionPoolMetrics;
 import io.ailink.agentforge.llm.LlmProvider;
 import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
 import io.ailink.agentforge.service.ChatHistoryService;
+import io.ailink.agentforge.service.MessageCursor;
+import io.ailink.agentforge.service.SummaryGenerator;
+import io.ailink.agentforge.template.PromptRenderer;
 import io.ailink.agentforge.tool.ToolExecutor;
 import io.ailink.agentforge.tool.ToolRegistry;
 import io.ailink.agentforge.ui.ANSIScreenDrawer;
@@ -23,17 +32,39 @@ import java.util.List;
  * 聊天命令入口类
  * 
  * 负责参数解析和子命令分发，将具体业务委托给 ChatSession 处理。
+ *
+ * 默认开始一个新会话；--resume 继续最近的会话，--session 继续指定的会话，
+ * 只加载该会话的摘要和最近消息。
  */
 @Command(name = "chat", mixinStandardHelpOptions = true, description = "交互式对话模式")
 public class ChatCommand implements Runnable {
 
+    /**
+     * 按日期列出消息时每页查询的条数
+     */
+    private static final int DATE_PAGE_SIZE = 200;
+
+    /**
+     * 列出会话时显示的会话数
+     */
+    private static final int SESSION_LIST_SIZE = 20;
+
+    /**
+     * 会话标题的最大长度
+     */
+    private static final int SESSION_TITLE_CHARS = 40;
+
     private final LlmProvider llmProvider;
     private final ChatHistoryService chatHistoryService;
     private final ToolRegistry toolRegistry;
     private final ToolExecutor toolExecutor;
+    private final AgentProperties agentProperties;
+    private final SummaryGenerator summaryGenerator;
+    private final PromptRenderer promptRenderer;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
 
-    @Option(names = {"--system"}, description = "自定义系统提示词")
-    private String systemPrompt = "你是一个知识问答助手，请根据用户的问题提供准确、有用的回答。";
+    @Option(names = {"--system"}, description = "自定义系统提示词（默认使用 prompts/chat-system.md 中的提示词）")
+    private String systemPrompt;
 
     @Option(names = {"--list"}, description = "列出最近的消息")
     private boolean listMessages;
@@ -44,12 +75,27 @@ public class ChatCommand implements Runnable {
     @Option(names = {"--summary"}, description = "查看今日总结")
     private boolean showSummary;
 
+    @Option(names = {"--session"}, description = "继续指定的会话")
+    private Long sessionId;
+
+    @Option(names = {"--resume"}, description = "继续最近的会话")
+    private boolean resume;
+
+    @Option(names = {"--sessions"}, description = "列出最近的会话")
+    private boolean listSessions;
+
     public ChatCommand(LlmProvider llmProvider, ChatHistoryService chatHistoryService,
-                      ToolRegistry toolRegistry, ToolExecutor toolExecutor) {
+                      ToolRegistry toolRegistry, ToolExecutor toolExecutor,
+                      AgentProperties agentProperties, SummaryGenerator summaryGenerator,
+                      PromptRenderer promptRenderer, ConnectionPoolMetrics connectionPoolMetrics) {
         this.llmProvider = llmProvider;
         this.chatHistoryService = chatHistoryService;
         this.toolRegistry = toolRegistry;
         this.toolExecutor = toolExecutor;
+        this.agentProperties = agentProperties;
+        this.summaryGenerator = summaryGenerator;
+        this.promptRenderer = promptRenderer;
+        this.connectionPoolMetrics = connectionPoolMetrics;
     }
 
     @Override
@@ -70,30 +116,57 @@ public class ChatCommand implements Runnable {
             return;
         }
 
+        if (listSessions) {
+            listRecentSessions();
+            return;
+        }
+
+        ConversationSessionEntity session = null;
+        if (sessionId != null) {
+            session = chatHistoryService.getSession(sessionId);
+            if (session == null) {
+                System.out.println("会话 " + sessionId + " 不存在，可使用 --sessions 查看最近的会话。");
+                return;
+            }
+        } else if (resume) {
+            session = chatHistoryService.getLatestSession();
+            if (session == null) {
+                System.out.println("暂无可继续的会话，开始新会话。");
+            }
+        }
+
         // 启动交互式会话
-        startInteractiveChat();
+        startInteractiveChat(session);
     }
 
     /**
      * 启动交互式聊天会话
+     *
+     * @param session 要继续的会话，为 null 时开始新会话
      */
-    private void startInteractiveChat() {
+    private void startInteractiveChat(ConversationSessionEntity session) {
         try (TerminalManager terminalManager = new JLineTerminalManager("AgentForge")) {
             ScreenDrawer screenDrawer = new ANSIScreenDrawer(terminalManager);
             var reader = terminalManager.getReader();
 
-            // 初始化对话状态，加载历史消息
-            ConversationState conversationState = initConversationState();
+            // 初始化对话状态，加载历史消息并裁剪到上下文预算以内
+            ContextWindowManager contextWindowManager = new ContextWindowManager(
+                    llmProvider.tokenEstimator(), agentProperties.getContext());
+            ConversationState conversationState = initConversationState(session);
+            ConversationCompactor conversationCompactor = new ConversationCompactor(
+                    summaryGenerator, chatHistoryService, contextWindowManager, agentProperties.getContext());
 
             // 创建消息处理器
             MessageProcessor messageProcessor = new MessageProcessor(
-                    llmProvider, toolRegistry, toolExecutor,
-                    chatHistoryService, systemPrompt);
+                    llmProvider, toolRegistry, toolExecutor, chatHistoryService, agentProperties,
+                    contextWindowManager, conversationCompactor, promptRenderer, systemPrompt);
+            contextWindowManager.fit(conversationState, messageProcessor.systemPrompt(conversationState.getSummary()),
+                    toolRegistry.hasTools() ? toolRegistry.getToolDefinitions() : null);
 
             // 创建并启动会话
             ChatSession chatSession = new ChatSession(
                     terminalManager, screenDrawer, conversationState,
-                    messageProcessor, chatHistoryService, reader);
+                    messageProcessor, chatHistoryService, connectionPoolMetrics, reader);
 
             chatSession.start();
 
@@ -103,23 +176,40 @@ public class ChatCommand implements Runnable {
     }
 
     /**
-     * 初始化对话状态，加载历史消息
+     * 初始化对话状态，加载会话的历史消息
+     *
+     * 有滚动摘要时从摘要恢复，只加载摘要之后的消息。新会话不加载任何历史。
+     *
+     * @param session 要继续的会话，为 null 时开始新会话
      */
-    private ConversationState initConversationState() {
+    private ConversationState initConversationState(ConversationSessionEntity session) {
         var state = new ConversationState();
-        var recentMessages = chatHistoryService.getRecentChatMessages(20);
+        if (session == null) {
+            return state;
+        }
+        state.setSessionId(session.getId());
+        int preload = agentProperties.getContext().getPreloadMessages();
+        var summary = chatHistoryService.getLatestConversationSummary(session.getId());
+        List<ChatMessageEntity> recentMessages;
+        if (summary != null) {
+            state.setSummary(summary.getSummary());
+            recentMessages = chatHistoryService.getRecentSessionMessagesAfter(
+                    session.getId(), MessageCursor.coveredBy(summary), preload);
+        } else {
+            recentMessages = chatHistoryService.getRecentSessionMessages(session.getId(), preload);
+        }
 
         for (var msg : recentMessages) {
-            state.addDisplayMessage(
-                    msg.getRole(),
-                    msg.getContent(),
-                    msg.getCreatedAt().toLocalTime().toString());
-
-            if ("user".equals(msg.getRole())) {
-                state.getConversationHistory().add(ChatMessage.user(msg.getContent()));
-            } else {
-                state.getConversationHistory().add(ChatMessage.assistant(msg.getContent()));
+            // 工具调用与结果一并还原，模型直接看到已执行过的调用
+            ChatMessage message = chatHistoryService.toChatMessage(msg);
+            if (!message.hasToolCalls()) {
+                state.addDisplayMessage(
+                        msg.getRole(),
+                        msg.getContent(),
+                        msg.getCreatedAt().toLocalTime().toString());
             }
+            state.getConversationHistory().add(message);
+            state.markPersisted(msg);
         }
 
         return state;
@@ -133,26 +223,42 @@ public class ChatCommand implements Runnable {
         }
         System.out.println("=== 最近消息 ===");
         for (var msg : messages) {
-            String roleName = "user".equals(msg.getRole()) ? "用户" : "助手";
+            String roleName = roleName(msg.getRole());
             System.out.println("[" + msg.getCreatedAt() + "] " + roleName + ": " + msg.getContent());
             System.out.println();
         }
     }
 
+    private void listRecentSessions() {
+        var sessions = chatHistoryService.getRecentSessions(SESSION_LIST_SIZE);
+        if (sessions.isEmpty()) {
+            System.out.println("暂无会话记录。");
+            return;
+        }
+        System.out.println("=== 最近会话 ===");
+        for (var overview : sessions) {
+            var lastActive = overview.lastActiveAt() != null
+                    ? overview.lastActiveAt() : overview.session().getCreatedAt();
+            System.out.println("#" + overview.session().getId() + "  [" + lastActive + "] "
+                    + overview.messageCount() + "条  " + overview.title(SESSION_TITLE_CHARS));
+        }
+        System.out.println();
+        System.out.println("使用 'chat --session <编号>' 继续会话，'chat --resume' 继续最近的会话。");
+    }
+
     private void listMessagesByDate() {
         try {
             var date = java.time.LocalDate.parse(dateStr);
-            var messages = chatHistoryService.getMessagesByDate(date);
-            if (messages.isEmpty()) {
+            if (chatHistoryService.getMessageCountByDate(date) == 0) {
                 System.out.println("日期 " + dateStr + " 没有消息记录。");
                 return;
             }
             System.out.println("=== " + dateStr + " 消息 ===");
-            for (var msg : messages) {
-                String roleName = "user".equals(msg.getRole()) ? "用户" : "助手";
+            chatHistoryService.streamMessagesByDate(date, DATE_PAGE_SIZE).forEach(msg -> {
+                String roleName = roleName(msg.getRole());
                 System.out.println("[" + msg.getCreatedAt() + "] " + roleName + ": " + msg.getContent());
                 System.out.println();
-            }
+            });
         } catch (Exception e) {
             System.out.println("日期格式错误，请使用 YYYY-MM-DD 格式。");
         }
@@ -169,4 +275,15 @@ public class ChatCommand implements Runnable {
         System.out.println("消息数: " + summary.getMessageCount());
         System.out.println("总结: " + summary.getSummary());
     }
+
+    /**
+     * 消息角色的显示名称
+     */
+    private static String roleName(String role) {
+        return switch (role) {
+            case "user" -> "用户";
+            case "tool" -> "工具";
+            default -> "助手";
+        };
+    }
 }
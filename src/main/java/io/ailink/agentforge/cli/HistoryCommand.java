@@ -1,12 +1,26 @@
 package io.ailink.agentforge.cli;
 
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity.Period;
 import io.ailink.agentforge.service.ChatHistoryService;
+import io.ailink.agentforge.service.DailySummaryBackfill;
+import io.ailink.agentforge.service.DailyStatsRollup;
+import io.ailink.agentforge.service.LatencyHistogram;
+import io.ailink.agentforge.service.PeriodSummaryRollup;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import picocli.CommandLine.Command;
 import picocli.CommandLine.Option;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.List;
+import java.util.Locale;
+import java.util.stream.Collectors;
 
 /**
  * 历史消息管理命令
@@ -14,16 +28,29 @@ import java.time.LocalDate;
  * 提供历史消息的查询和管理功能：
  * - 列出最近的消息
  * - 按日期查询消息
- * - 查看消息统计
- * - 生成/查看每日总结
+ * - 全文检索消息
+ * - 导入/导出历史记录（JSONL）
+ * - 归档保留窗口之前的消息
+ * - 查看消息统计、按日期区间查看每日统计
+ * - 生成/查看每日总结，按日期区间并发补齐缺少或过期的总结
+ * - 按周/月查看由每日总结生成的汇总总结
  *
  * 使用方式：
  * <pre>
  * agentforge history --list                    # 列出最近消息
  * agentforge history --date 2026-02-18         # 按日期查询
+ * agentforge history --search 上下文 --page 2   # 全文检索
+ * agentforge history --reindex                 # 重建检索索引
+ * agentforge history --export history.jsonl    # 导出全部消息
+ * agentforge history --import history.jsonl    # 导入消息
+ * agentforge history --archive                 # 归档较早的消息
  * agentforge history --count                   # 消息统计
+ * agentforge history --stats --from 2026-02-01 --to 2026-02-28  # 每日统计
+ * agentforge history --rebuild-stats           # 重建每日统计
  * agentforge history --summary                 # 生成今日总结
+ * agentforge history --summary --from 2025-01-01 --to 2025-12-31  # 补齐区间内的每日总结
  * agentforge history --all-summaries           # 查看所有总结
+ * agentforge history --period month --from 2025-01-01 --to 2025-03-31  # 按月查看汇总总结
  * </pre>
  */
 @Command(name = "history", mixinStandardHelpOptions = true, description = "历史消息管理")
@@ -31,7 +58,34 @@ public class HistoryCommand implements Runnable {
 
     private static final Logger log = LoggerFactory.getLogger(HistoryCommand.class);
 
+    /**
+     * 按日期列出消息时每页查询的条数
+     */
+    private static final int PAGE_SIZE = 200;
+
+    /**
+     * 检索结果每页条数
+     */
+    private static final int SEARCH_PAGE_SIZE = 10;
+
+    /**
+     * 检索结果中每条消息的摘录长度
+     */
+    private static final int SNIPPET_CHARS = 200;
+
+    /**
+     * 未指定起始日期时统计的天数（含结束日期）
+     */
+    private static final int STATS_DEFAULT_DAYS = 7;
+
+    /**
+     * 每日统计的行格式
+     */
+    private static final String STATS_ROW_FORMAT = "%-14s %6s %6s %8s %10s %10s %10s %8s %8s %8s";
+
     private final ChatHistoryService chatHistoryService;
+    private final DailySummaryBackfill dailySummaryBackfill;
+    private final PeriodSummaryRollup periodSummaryRollup;
 
     /**
      * 列出最近的消息
@@ -46,6 +100,42 @@ public class HistoryCommand implements Runnable {
     @Option(names = {"--date"}, description = "按日期查看消息 (格式: YYYY-MM-DD)")
     private String dateStr;
 
+    /**
+     * 全文检索消息
+     */
+    @Option(names = {"--search"}, description = "全文检索消息（支持中文）")
+    private String searchQuery;
+
+    /**
+     * 检索结果页码
+     */
+    @Option(names = {"--page"}, description = "检索结果页码 (默认: 1)", defaultValue = "1")
+    private int page;
+
+    /**
+     * 重建检索索引
+     */
+    @Option(names = {"--reindex"}, description = "重建全文检索索引")
+    private boolean reindex;
+
+    /**
+     * 导出全部消息到 JSONL 文件
+     */
+    @Option(names = {"--export"}, description = "导出全部消息到 JSONL 文件")
+    private Path exportFile;
+
+    /**
+     * 从 JSONL 文件导入消息
+     */
+    @Option(names = {"--import"}, description = "从 JSONL 文件导入消息")
+    private Path importFile;
+
+    /**
+     * 归档保留窗口之前的消息
+     */
+    @Option(names = {"--archive"}, description = "把保留窗口之前的消息归档为压缩段文件")
+    private boolean archive;
+
     /**
      * 显示消息统计
      */
@@ -53,9 +143,34 @@ public class HistoryCommand implements Runnable {
     private boolean showCount;
 
     /**
-     * 生成今日总结
+     * 按日期区间查看每日统计
+     */
+    @Option(names = {"--stats"}, description = "按日期区间查看每日统计（消息数、字符数、Token 用量、响应耗时）")
+    private boolean showStats;
+
+    /**
+     * 统计、补齐总结或查看汇总的起始日期
+     */
+    @Option(names = {"--from"}, description = "--stats / --summary / --period 的起始日期 "
+            + "(格式: YYYY-MM-DD，--stats 默认: 7 天前，其余默认: 结束日期)")
+    private String fromStr;
+
+    /**
+     * 统计、补齐总结或查看汇总的结束日期
+     */
+    @Option(names = {"--to"}, description = "--stats / --summary / --period 的结束日期 (格式: YYYY-MM-DD，默认: 今天)")
+    private String toStr;
+
+    /**
+     * 重建每日统计
+     */
+    @Option(names = {"--rebuild-stats"}, description = "由全部消息重建每日统计")
+    private boolean rebuildStats;
+
+    /**
+     * 生成今日总结；指定 --from / --to 时补齐区间内的每日总结
      */
-    @Option(names = {"--summary"}, description = "生成今日总结")
+    @Option(names = {"--summary"}, description = "生成今日总结；指定 --from / --to 时并发补齐区间内缺少或过期的每日总结")
     private boolean generateSummary;
 
     /**
@@ -64,13 +179,24 @@ public class HistoryCommand implements Runnable {
     @Option(names = {"--all-summaries"}, description = "查看所有每日总结")
     private boolean showAllSummaries;
 
+    /**
+     * 按周或按月查看汇总总结
+     */
+    @Option(names = {"--period"}, description = "按周 (week) 或按月 (month) 查看由每日总结生成的汇总总结")
+    private String periodStr;
+
     /**
      * 构造函数，Spring 自动注入
      *
-     * @param chatHistoryService 聊天历史服务
+     * @param chatHistoryService   聊天历史服务
+     * @param dailySummaryBackfill 每日总结批量补齐
+     * @param periodSummaryRollup  周/月汇总总结
      */
-    public HistoryCommand(ChatHistoryService chatHistoryService) {
+    public HistoryCommand(ChatHistoryService chatHistoryService, DailySummaryBackfill dailySummaryBackfill,
+                          PeriodSummaryRollup periodSummaryRollup) {
         this.chatHistoryService = chatHistoryService;
+        this.dailySummaryBackfill = dailySummaryBackfill;
+        this.periodSummaryRollup = periodSummaryRollup;
     }
 
     /**
@@ -79,7 +205,11 @@ public class HistoryCommand implements Runnable {
     @Override
     public void run() {
         if (generateSummary) {
-            generateTodaySummary();
+            if (fromStr != null || toStr != null) {
+                backfillSummaries();
+            } else {
+                generateTodaySummary();
+            }
             return;
         }
 
@@ -88,6 +218,46 @@ public class HistoryCommand implements Runnable {
             return;
         }
 
+        if (periodStr != null) {
+            showPeriodSummaries();
+            return;
+        }
+
+        if (exportFile != null) {
+            exportMessages();
+            return;
+        }
+
+        if (importFile != null) {
+            importMessages();
+            return;
+        }
+
+        if (archive) {
+            archiveMessages();
+            return;
+        }
+
+        if (reindex) {
+            rebuildSearchIndex();
+            return;
+        }
+
+        if (searchQuery != null) {
+            searchMessages();
+            return;
+        }
+
+        if (rebuildStats) {
+            rebuildDailyStats();
+            return;
+        }
+
+        if (showStats) {
+            showDailyStats();
+            return;
+        }
+
         if (showCount) {
             showMessageCount();
             return;
@@ -118,7 +288,7 @@ public class HistoryCommand implements Runnable {
         }
         System.out.println("=== 最近消息 (" + messages.size() + "条) ===");
         for (var msg : messages) {
-            String roleName = "user".equals(msg.getRole()) ? "用户" : "助手";
+            String roleName = roleName(msg.getRole());
             System.out.println("[" + msg.getCreatedAt() + "] " + roleName + ": " + msg.getContent());
             System.out.println();
         }
@@ -130,35 +300,170 @@ public class HistoryCommand implements Runnable {
     private void listMessagesByDate() {
         try {
             LocalDate date = LocalDate.parse(dateStr);
-            var messages = chatHistoryService.getMessagesByDate(date);
-            if (messages.isEmpty()) {
+            long count = chatHistoryService.getMessageCountByDate(date);
+            if (count == 0) {
                 System.out.println("日期 " + dateStr + " 没有消息记录。");
                 return;
             }
-            System.out.println("=== " + dateStr + " 消息 (" + messages.size() + "条) ===");
-            for (var msg : messages) {
-                String roleName = "user".equals(msg.getRole()) ? "用户" : "助手";
+            System.out.println("=== " + dateStr + " 消息 (" + count + "条) ===");
+            chatHistoryService.streamMessagesByDate(date, PAGE_SIZE).forEach(msg -> {
+                String roleName = roleName(msg.getRole());
                 System.out.println("[" + msg.getCreatedAt() + "] " + roleName + ": " + msg.getContent());
                 System.out.println();
-            }
+            });
         } catch (Exception e) {
             System.out.println("日期格式错误，请使用 YYYY-MM-DD 格式。");
         }
     }
 
+    /**
+     * 全文检索消息
+     */
+    private void searchMessages() {
+        var result = chatHistoryService.searchMessages(searchQuery, page, SEARCH_PAGE_SIZE);
+        if (result.total() == 0) {
+            System.out.println("没有找到包含 \"" + searchQuery + "\" 的消息。");
+            return;
+        }
+        System.out.println("=== 搜索 \"" + searchQuery + "\" (" + result.total() + "条，第 "
+                + result.page() + "/" + result.totalPages() + " 页) ===");
+        for (var hit : result.hits()) {
+            var msg = hit.message();
+            String roleName = roleName(msg.getRole());
+            System.out.println("[" + msg.getCreatedAt() + "] " + roleName + ": " + hit.snippet(SNIPPET_CHARS));
+            System.out.println();
+        }
+        if (result.hasNext()) {
+            System.out.println("使用 --page " + (result.page() + 1) + " 查看下一页。");
+        }
+    }
+
+    /**
+     * 导出全部消息
+     */
+    private void exportMessages() {
+        long start = System.currentTimeMillis();
+        try {
+            long count = chatHistoryService.exportMessages(exportFile);
+            System.out.println("已导出 " + count + " 条消息到 " + exportFile
+                    + " (" + (System.currentTimeMillis() - start) + "ms)");
+        } catch (IOException e) {
+            log.error("导出失败", e);
+            System.out.println("导出失败: " + e.getMessage());
+        }
+    }
+
+    /**
+     * 导入消息
+     */
+    private void importMessages() {
+        if (!Files.isRegularFile(importFile)) {
+            System.out.println("文件不存在: " + importFile);
+            return;
+        }
+        long start = System.currentTimeMillis();
+        try {
+            long count = chatHistoryService.importMessages(importFile);
+            System.out.println("已从 " + importFile + " 导入 " + count + " 条消息"
+                    + " (" + (System.currentTimeMillis() - start) + "ms)");
+        } catch (IOException e) {
+            log.error("导入失败", e);
+            System.out.println(e.getMessage());
+        }
+    }
+
+    /**
+     * 重建全文检索索引
+     */
+    private void rebuildSearchIndex() {
+        System.out.println("正在重建检索索引...");
+        int count = chatHistoryService.rebuildSearchIndex();
+        System.out.println("检索索引已重建，共 " + count + " 条消息。");
+    }
+
+    /**
+     * 归档保留窗口之前的消息
+     */
+    private void archiveMessages() {
+        try {
+            long count = chatHistoryService.archiveMessages();
+            System.out.println(count > 0 ? "已归档 " + count + " 条消息。" : "没有需要归档的消息。");
+        } catch (IOException e) {
+            log.error("归档失败", e);
+            System.out.println("归档失败: " + e.getMessage());
+        }
+    }
+
     /**
      * 显示消息统计信息
      */
     private void showMessageCount() {
         long total = chatHistoryService.getTotalMessageCount();
+        long archived = chatHistoryService.getArchivedMessageCount();
         var today = LocalDate.now();
         long todayCount = chatHistoryService.getMessageCountByDate(today);
 
         System.out.println("=== 消息统计 ===");
         System.out.println("总消息数: " + total);
+        System.out.println("归档消息: " + archived);
         System.out.println("今日消息: " + todayCount);
     }
 
+    /**
+     * 显示日期区间内的每日统计及合计
+     */
+    private void showDailyStats() {
+        LocalDate to;
+        LocalDate from;
+        try {
+            to = toStr != null ? LocalDate.parse(toStr) : LocalDate.now();
+            from = fromStr != null ? LocalDate.parse(fromStr) : to.minusDays(STATS_DEFAULT_DAYS - 1);
+        } catch (DateTimeParseException e) {
+            System.out.println("日期格式错误，请使用 YYYY-MM-DD 格式。");
+            return;
+        }
+        if (from.isAfter(to)) {
+            System.out.println("起始日期不能晚于结束日期。");
+            return;
+        }
+
+        var days = chatHistoryService.getDailyStats(from, to);
+        System.out.println("=== 每日统计 " + from + " ~ " + to + " ===");
+        if (days.isEmpty()) {
+            System.out.println("该区间没有消息记录。");
+            return;
+        }
+        System.out.println(String.format(STATS_ROW_FORMAT, "日期", "用户", "助手", "工具调用", "字符数",
+                "输入Token", "输出Token", "P50(ms)", "P90(ms)", "P99(ms)"));
+        DailyStatsEntity total = new DailyStatsEntity();
+        for (var day : days) {
+            printStatsRow(day.getStatDate().toString(), day);
+            DailyStatsRollup.merge(total, day);
+        }
+        System.out.println("---");
+        printStatsRow("合计(" + days.size() + "天)", total);
+    }
+
+    private static void printStatsRow(String label, DailyStatsEntity stats) {
+        LatencyHistogram latency = LatencyHistogram.decode(stats.getLatencyHistogram());
+        System.out.println(String.format(STATS_ROW_FORMAT, label, stats.getUserMessages(), stats.getAssistantMessages(),
+                stats.getToolCalls(), stats.getCharacters(), stats.getInputTokens(), stats.getOutputTokens(),
+                latencyCell(latency, 0.5), latencyCell(latency, 0.9), latencyCell(latency, 0.99)));
+    }
+
+    private static String latencyCell(LatencyHistogram latency, double quantile) {
+        return latency.count() == 0 ? "-" : String.valueOf(latency.percentile(quantile));
+    }
+
+    /**
+     * 重建每日统计
+     */
+    private void rebuildDailyStats() {
+        System.out.println("正在重建每日统计...");
+        long count = chatHistoryService.rebuildDailyStats();
+        System.out.println("每日统计已重建，共 " + count + " 条消息。");
+    }
+
     /**
      * 生成今日总结
      */
@@ -179,6 +484,93 @@ public class HistoryCommand implements Runnable {
         }
     }
 
+    /**
+     * 补齐日期区间内缺少或过期的每日总结
+     */
+    private void backfillSummaries() {
+        LocalDate to;
+        LocalDate from;
+        try {
+            to = toStr != null ? LocalDate.parse(toStr) : LocalDate.now();
+            from = fromStr != null ? LocalDate.parse(fromStr) : to;
+        } catch (DateTimeParseException e) {
+            System.out.println("日期格式错误，请使用 YYYY-MM-DD 格式。");
+            return;
+        }
+        if (from.isAfter(to)) {
+            System.out.println("起始日期不能晚于结束日期。");
+            return;
+        }
+
+        List<LocalDate> days = chatHistoryService.getDaysNeedingSummary(from, to);
+        if (days.isEmpty()) {
+            System.out.println(from + " ~ " + to + " 的每日总结均已是最新。");
+            return;
+        }
+        System.out.println("=== 补齐每日总结 " + from + " ~ " + to + "：" + days.size() + " 天 ===");
+        long start = System.currentTimeMillis();
+        List<LocalDate> failed = dailySummaryBackfill.backfill(days, progress -> {
+            String prefix = "[" + progress.completed() + "/" + progress.total() + "] " + progress.date();
+            if (progress.failed()) {
+                System.out.println(prefix + " 失败: " + progress.error().getMessage());
+            } else {
+                System.out.println(prefix + " 完成 (" + progress.summary().getMessageCount() + " 条消息)");
+            }
+        });
+        System.out.println("已完成 " + (days.size() - failed.size()) + " 天，失败 " + failed.size() + " 天"
+                + " (" + (System.currentTimeMillis() - start) + "ms)");
+        if (!failed.isEmpty()) {
+            System.out.println("失败的日期: " + failed.stream().map(LocalDate::toString).collect(Collectors.joining(", ")));
+            System.out.println("重新执行同一命令即可继续补齐。");
+        }
+    }
+
+    /**
+     * 显示日期区间内的周/月汇总总结
+     */
+    private void showPeriodSummaries() {
+        Period period;
+        try {
+            period = Period.valueOf(periodStr.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            System.out.println("周期只能是 week 或 month。");
+            return;
+        }
+        LocalDate to;
+        LocalDate from;
+        try {
+            to = toStr != null ? LocalDate.parse(toStr) : LocalDate.now();
+            from = fromStr != null ? LocalDate.parse(fromStr) : to;
+        } catch (DateTimeParseException e) {
+            System.out.println("日期格式错误，请使用 YYYY-MM-DD 格式。");
+            return;
+        }
+        if (from.isAfter(to)) {
+            System.out.println("起始日期不能晚于结束日期。");
+            return;
+        }
+
+        List<PeriodSummaryEntity> summaries;
+        try {
+            summaries = periodSummaryRollup.getSummaries(period, from, to);
+        } catch (Exception e) {
+            System.out.println("生成汇总总结时出错: " + e.getMessage());
+            log.error("Failed to generate period summaries", e);
+            return;
+        }
+        if (summaries.isEmpty()) {
+            System.out.println(from + " ~ " + to + " 没有每日总结，可先执行 history --summary --from --to 生成。");
+            return;
+        }
+        System.out.println("=== " + period.label() + "汇总总结 " + from + " ~ " + to + " (" + summaries.size() + "条) ===");
+        for (var summary : summaries) {
+            System.out.println("周期: " + summary.getPeriodStart() + " ~ " + summary.getPeriodEnd()
+                    + " (" + summary.getDayCount() + " 天有总结, " + summary.getMessageCount() + " 条消息)");
+            System.out.println("总结: " + summary.getSummary());
+            System.out.println("---");
+        }
+    }
+
     /**
      * 显示所有每日总结
      */
@@ -196,4 +588,15 @@ public class HistoryCommand implements Runnable {
             System.out.println("---");
         }
     }
+
+    /**
+     * 消息角色的显示名称
+     */
+    private static String roleName(String role) {
+        return switch (role) {
+            case "user" -> "用户";
+            case "tool" -> "工具";
+            default -> "助手";
+        };
+    }
 }
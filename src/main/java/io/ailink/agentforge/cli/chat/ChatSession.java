@@ -1,5 +1,6 @@
 package io.ailink.agentforge.cli.chat;
 
+import io.ailink.agentforge.config.ConnectionPoolMetrics;
 import io.ailink.agentforge.llm.dto.ChatMessage;
 import io.ailink.agentforge.service.ChatHistoryService;
 import io.ailink.agentforge.ui.DisplayMessage;
@@ -17,11 +18,24 @@ import java.util.List;
  */
 public class ChatSession {
 
+    private static final String SEARCH_COMMAND = ":search";
+
+    /**
+     * 检索结果每页条数
+     */
+    private static final int SEARCH_PAGE_SIZE = 10;
+
+    /**
+     * 检索结果中每条消息的摘录长度
+     */
+    private static final int SNIPPET_CHARS = 120;
+
     private final TerminalManager terminalManager;
     private final ScreenDrawer screenDrawer;
     private final ConversationState conversationState;
     private final MessageProcessor messageProcessor;
     private final ChatHistoryService chatHistoryService;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
     private final LineReader reader;
 
     public ChatSession(TerminalManager terminalManager,
@@ -29,12 +43,14 @@ public class ChatSession {
                      ConversationState conversationState,
                      MessageProcessor messageProcessor,
                      ChatHistoryService chatHistoryService,
+                     ConnectionPoolMetrics connectionPoolMetrics,
                      LineReader reader) {
         this.terminalManager = terminalManager;
         this.screenDrawer = screenDrawer;
         this.conversationState = conversationState;
         this.messageProcessor = messageProcessor;
         this.chatHistoryService = chatHistoryService;
+        this.connectionPoolMetrics = connectionPoolMetrics;
         this.reader = reader;
     }
 
@@ -85,6 +101,11 @@ public class ChatSession {
     public boolean handleBuiltInCommand(String input) {
         var writer = terminalManager.getWriter();
 
+        if (input.startsWith(SEARCH_COMMAND + " ")) {
+            searchHistory(input.substring(SEARCH_COMMAND.length()).trim());
+            return true;
+        }
+
         boolean handled = switch (input) {
             case ":help", ":h" -> {
                 printHelp();
@@ -95,6 +116,7 @@ public class ChatSession {
                 yield true;
             }
             case ":clear", ":c" -> {
+                conversationState.clear();
                 screenDrawer.clearScreen();
                 screenDrawer.drawChatScreen(conversationState.getDisplayMessages(), "");
                 yield true;
@@ -103,6 +125,10 @@ public class ChatSession {
                 showSummary();
                 yield true;
             }
+            case ":pool" -> {
+                showConnectionPools();
+                yield true;
+            }
             default -> false;
         };
 
@@ -191,8 +217,10 @@ public class ChatSession {
         writer.println("\u001B[36m=== 可用命令 ===\u001B[0m");
         writer.println("  \u001B[33m:help\u001B[0m, \u001B[33m:h\u001B[0m   - 显示帮助");
         writer.println("  \u001B[33m:history\u001B[0m     - 显示最近消息");
-        writer.println("  \u001B[33m:clear\u001B[0m, \u001B[33m:c\u001B[0m  - 清除对话上下文");
+        writer.println("  \u001B[33m:search\u001B[0m <词> - 全文检索历史消息");
+        writer.println("  \u001B[33m:clear\u001B[0m, \u001B[33m:c\u001B[0m  - 清除对话上下文，开始新会话");
         writer.println("  \u001B[33m:summary\u001B[0m     - 显示今日总结");
+        writer.println("  \u001B[33m:pool\u001B[0m        - 显示 LLM 连接池指标");
         writer.println("  \u001B[33m:quit\u001B[0m, \u001B[33m:q\u001B[0m   - 退出对话");
         writer.println();
         writer.println("\u001B[90m提示: 使用上下方向键查看历史命令\u001B[0m");
@@ -214,12 +242,69 @@ public class ChatSession {
         }
         writer.println("\u001B[36m=== 最近消息 ===\u001B[0m");
         for (var msg : messages) {
-            String roleName = "user".equals(msg.getRole()) ? "\u001B[32m用户\u001B[0m" : "\u001B[35m助手\u001B[0m";
+            String roleName = roleName(msg.getRole());
             writer.println("[\u001B[90m" + msg.getCreatedAt().toLocalTime() + "\u001B[0m] " + roleName + ": " + msg.getContent());
         }
         terminalManager.flush();
     }
 
+    /**
+     * 全文检索历史消息，逐页显示
+     *
+     * 每页之后输入 n 查看下一页，直接回车返回对话。
+     *
+     * @param query 查询文本
+     */
+    public void searchHistory(String query) {
+        var writer = terminalManager.getWriter();
+        int page = 1;
+        while (true) {
+            var result = chatHistoryService.searchMessages(query, page, SEARCH_PAGE_SIZE);
+            writer.println();
+            if (result.total() == 0) {
+                writer.println("\u001B[90m没有找到包含 \"" + query + "\" 的消息。\u001B[0m");
+                writer.print("\n\u001B[90m按回车继续...\u001B[0m");
+                writer.flush();
+                reader.readLine();
+                return;
+            }
+            writer.println("\u001B[36m=== 搜索 \"" + query + "\" (" + result.total() + "条，第 "
+                    + result.page() + "/" + result.totalPages() + " 页) ===\u001B[0m");
+            for (var hit : result.hits()) {
+                var msg = hit.message();
+                String roleName = roleName(msg.getRole());
+                writer.println("[\u001B[90m" + msg.getCreatedAt().withNano(0) + "\u001B[0m] " + roleName + ": "
+                        + hit.snippet(SNIPPET_CHARS));
+            }
+            writer.print(result.hasNext()
+                    ? "\n\u001B[90m输入 n 查看下一页，回车返回...\u001B[0m"
+                    : "\n\u001B[90m按回车继续...\u001B[0m");
+            writer.flush();
+            String next = reader.readLine().trim();
+            if (!result.hasNext() || !"n".equalsIgnoreCase(next)) {
+                return;
+            }
+            page++;
+        }
+    }
+
+    /**
+     * 显示各 LLM 连接池的连接占用与排队获取连接的耗时
+     */
+    public void showConnectionPools() {
+        var writer = terminalManager.getWriter();
+        var pools = connectionPoolMetrics.snapshot();
+
+        writer.println();
+        if (pools.isEmpty()) {
+            writer.println("\u001B[90m尚未建立任何 LLM 连接。\u001B[0m");
+        } else {
+            writer.println("\u001B[36m=== LLM 连接池 ===\u001B[0m");
+            pools.forEach(pool -> writer.println(pool.toString()));
+        }
+        terminalManager.flush();
+    }
+
     /**
      * 显示今日总结
      */
@@ -248,4 +333,15 @@ public class ChatSession {
     private boolean isQuitCommand(String input) {
         return ":quit".equals(input) || ":exit".equals(input) || ":q".equals(input);
     }
+
+    /**
+     * 消息角色的显示名称
+     */
+    private static String roleName(String role) {
+        return switch (role) {
+            case "user" -> "\u001B[32m用户\u001B[0m";
+            case "tool" -> "\u001B[33m工具\u001B[0m";
+            default -> "\u001B[35m助手\u001B[0m";
+        };
+    }
 }
@@ -0,0 +1,148 @@
+package io.ailink.agentforge.cli.chat;
+
+import io.ailink.agentforge.config.ContextWindowProperties;
+import io.ailink.agentforge.llm.TokenEstimator;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.tool.ToolDefinition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 上下文窗口管理器
+ *
+ * 每次构建请求前检查对话历史的估算 Token 数，超出预算时从最早的轮次开始整轮裁剪。
+ * 裁剪点只落在用户消息上（一轮的开始），因此助手的工具调用与对应的工具结果总在同一侧，
+ * 不会出现孤立的 tool_use / tool_result；历史也总以用户消息开头。
+ * 最近一轮无论多大都会保留。
+ *
+ * 每条消息的 Token 估算结果按引用缓存，每轮只估算新追加的消息。
+ * 裁剪后 {@link io.ailink.agentforge.llm.MessageConversionCache} 只丢弃被裁掉的前缀，其余消息的转换结果继续复用。
+ */
+public class ContextWindowManager {
+
+    private static final Logger log = LoggerFactory.getLogger(ContextWindowManager.class);
+
+    private final TokenEstimator estimator;
+    private final ContextWindowProperties properties;
+
+    private final Map<ChatMessage, Integer> messageTokens = new IdentityHashMap<>();
+    private String estimatedSystemPrompt;
+    private int systemPromptTokens;
+    private List<ToolDefinition> estimatedTools;
+    private int toolTokens;
+
+    public ContextWindowManager(TokenEstimator estimator, ContextWindowProperties properties) {
+        this.estimator = estimator;
+        this.properties = properties;
+    }
+
+    /**
+     * 把对话历史裁剪到 Token 预算以内
+     *
+     * @param state        对话状态
+     * @param systemPrompt 系统提示词（可为 null）
+     * @param tools        工具定义（可为 null）
+     * @return 被裁剪的消息数
+     */
+    public synchronized int fit(ConversationState state, String systemPrompt, List<ToolDefinition> tools) {
+        List<ChatMessage> history = state.getConversationHistory();
+        int size = history.size();
+
+        long total = reservedTokens(systemPrompt, tools);
+        for (ChatMessage message : history) {
+            total += tokens(message);
+        }
+        if (messageTokens.size() > size) {
+            // 历史被清空或替换过，丢弃已不在历史中的估算结果
+            Map<ChatMessage, Integer> current = new IdentityHashMap<>(size);
+            history.forEach(message -> current.put(message, messageTokens.get(message)));
+            messageTokens.clear();
+            messageTokens.putAll(current);
+        }
+
+        // 历史不以用户消息开头时（如加载的最近消息从半轮开始），先去掉开头不完整的部分
+        int cut = nextTurnStart(history, 0);
+        if (cut < 0) {
+            return 0;
+        }
+        for (int i = 0; i < cut; i++) {
+            total -= tokens(history.get(i));
+        }
+
+        if (total > properties.getMaxTokens()) {
+            long target = (long) (properties.getMaxTokens() * properties.getTrimRatio());
+            while (total > target) {
+                int next = nextTurnStart(history, cut + 1);
+                if (next < 0) {
+                    break;
+                }
+                for (int i = cut; i < next; i++) {
+                    total -= tokens(history.get(i));
+                }
+                cut = next;
+            }
+            if (total > properties.getMaxTokens()) {
+                log.warn("最近一轮对话约 {} Tokens，超出上下文预算 {}", total, properties.getMaxTokens());
+            }
+        }
+
+        if (cut > 0) {
+            for (int i = 0; i < cut; i++) {
+                messageTokens.remove(history.get(i));
+            }
+            state.trimHistory(cut);
+            log.info("上下文裁剪：移除最早的 {} 条消息，保留 {} 条（约 {} Tokens）", cut, size - cut, total);
+        }
+        return cut;
+    }
+
+    /**
+     * 估算对话历史（不含系统提示词和工具定义）的 Token 数
+     *
+     * @param history 对话历史
+     * @return 估算的 Token 数
+     */
+    public synchronized long historyTokens(List<ChatMessage> history) {
+        long total = 0;
+        for (ChatMessage message : history) {
+            total += tokens(message);
+        }
+        return total;
+    }
+
+    private int tokens(ChatMessage message) {
+        return messageTokens.computeIfAbsent(message, estimator::estimate);
+    }
+
+    private long reservedTokens(String systemPrompt, List<ToolDefinition> tools) {
+        if (systemPrompt != estimatedSystemPrompt) {
+            estimatedSystemPrompt = systemPrompt;
+            systemPromptTokens = estimator.estimate(systemPrompt);
+        }
+        if (tools != estimatedTools) {
+            estimatedTools = tools;
+            toolTokens = 0;
+            if (tools != null) {
+                for (ToolDefinition tool : tools) {
+                    toolTokens += estimator.messageOverhead() + estimator.estimate(tool.name())
+                            + estimator.estimate(tool.description())
+                            + (tool.inputSchema() != null ? estimator.estimate(tool.inputSchema().toString()) : 0);
+                }
+            }
+        }
+        return systemPromptTokens + toolTokens;
+    }
+
+    private static int nextTurnStart(List<ChatMessage> history, int from) {
+        for (int i = from; i < history.size(); i++) {
+            if ("user".equals(history.get(i).role())) {
+                return i;
+            }
+        }
+        return -1;
+    }
+}
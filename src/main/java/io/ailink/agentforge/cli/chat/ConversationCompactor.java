@@ -0,0 +1,144 @@
+package io.ailink.agentforge.cli.chat;
+
+import io.ailink.agentforge.config.ContextWindowProperties;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.service.ChatHistoryService;
+import io.ailink.agentforge.service.SummaryGenerator;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Executors;
+
+/**
+ * 对话滚动摘要
+ *
+ * 每轮结束后检查对话历史的估算 Token 数，超过阈值时把较早的轮次（保留最近若干轮原文）
+ * 连同已有摘要交给 {@link SummaryGenerator}，在虚拟线程上后台生成新的摘要，不阻塞用户的下一轮输入。
+ *
+ * 摘要生成完成后先保存到历史记录，再在下一次构建请求前由处理线程一次性替换：
+ * 移除已折叠的消息并更新摘要（见 {@link ConversationState#applySummary}），
+ * 请求中的对话历史与摘要因此总是一致的。摘要作为系统提示词的一部分发送。
+ */
+public class ConversationCompactor {
+
+    private static final Logger log = LoggerFactory.getLogger(ConversationCompactor.class);
+
+    private final SummaryGenerator summaryGenerator;
+    private final ChatHistoryService chatHistoryService;
+    private final ContextWindowManager contextWindowManager;
+    private final ContextWindowProperties properties;
+    private final Executor executor = Executors.newVirtualThreadPerTaskExecutor();
+
+    /**
+     * 进行中或已完成但尚未替换的摘要
+     */
+    private CompletableFuture<Compaction> pending;
+
+    public ConversationCompactor(SummaryGenerator summaryGenerator,
+                                 ChatHistoryService chatHistoryService,
+                                 ContextWindowManager contextWindowManager,
+                                 ContextWindowProperties properties) {
+        this.summaryGenerator = summaryGenerator;
+        this.chatHistoryService = chatHistoryService;
+        this.contextWindowManager = contextWindowManager;
+        this.properties = properties;
+    }
+
+    /**
+     * 一轮结束后调用：历史超过阈值且没有进行中的摘要时，开始后台生成
+     *
+     * @param state 对话状态
+     */
+    public void maybeStart(ConversationState state) {
+        if (properties.getSummarizeRatio() <= 0 || pending != null) {
+            return;
+        }
+        List<ChatMessage> history = state.getConversationHistory();
+        long threshold = (long) (properties.getMaxTokens() * properties.getSummarizeRatio());
+        if (contextWindowManager.historyTokens(history) <= threshold) {
+            return;
+        }
+
+        int foldEnd = foldEnd(history, properties.getSummaryKeepTurns());
+        if (foldEnd <= 0) {
+            return;
+        }
+        List<ChatMessage> folded = List.copyOf(history.subList(0, foldEnd));
+        String previousSummary = state.getSummary();
+        // 对话历史按保存顺序排列，最后一条已保存的消息即 (createdAt, id) 最大的消息
+        ChatMessageEntity coveredUntil = null;
+        for (ChatMessage message : folded) {
+            ChatMessageEntity saved = state.getPersisted(message);
+            if (saved != null) {
+                coveredUntil = saved;
+            }
+        }
+        ChatMessageEntity watermark = coveredUntil;
+        int epoch = state.getEpoch();
+        Long sessionId = state.getSessionId();
+
+        log.info("开始生成对话摘要：折叠 {} 条消息", folded.size());
+        pending = CompletableFuture.supplyAsync(() -> {
+            String summary = summaryGenerator.summarizeConversation(
+                    previousSummary, folded, properties.getSummaryModel());
+            if (summary.isBlank()) {
+                throw new IllegalStateException("模型返回了空摘要");
+            }
+            if (watermark != null && sessionId != null) {
+                chatHistoryService.saveConversationSummary(sessionId, summary, watermark, folded.size());
+            }
+            return new Compaction(summary, folded.getLast(), folded.size(), epoch);
+        }, executor);
+    }
+
+    /**
+     * 构建请求前调用：摘要已生成时替换对话前缀，未完成时不等待
+     *
+     * @param state 对话状态
+     */
+    public void applyPending(ConversationState state) {
+        if (pending == null || !pending.isDone()) {
+            return;
+        }
+        CompletableFuture<Compaction> done = pending;
+        pending = null;
+        try {
+            Compaction compaction = done.join();
+            if (state.applySummary(compaction.summary(), compaction.lastFolded(), compaction.epoch())) {
+                log.info("对话摘要已生效：折叠 {} 条消息", compaction.folded());
+            }
+        } catch (RuntimeException e) {
+            log.warn("生成对话摘要失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 折叠范围的结束位置：保留最近 keepTurns 轮（从第 keepTurns 个倒数的用户消息开始）
+     *
+     * @return 折叠的消息数，没有可折叠的完整轮次时返回 0
+     */
+    private static int foldEnd(List<ChatMessage> history, int keepTurns) {
+        int turns = 0;
+        for (int i = history.size() - 1; i > 0; i--) {
+            if ("user".equals(history.get(i).role()) && ++turns >= Math.max(1, keepTurns)) {
+                return i;
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * 已生成的摘要
+     *
+     * @param summary    新摘要
+     * @param lastFolded 折叠范围内的最后一条消息
+     * @param folded     折叠的消息数
+     * @param epoch      开始生成时对话的清空次数
+     */
+    private record Compaction(String summary, ChatMessage lastFolded, int folded, int epoch) {
+    }
+}
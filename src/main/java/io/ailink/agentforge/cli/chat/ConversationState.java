@@ -1,11 +1,15 @@
 package io.ailink.agentforge.cli.chat;
 
+import io.ailink.agentforge.llm.MessageConversionCache;
 import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
 import io.ailink.agentforge.tool.ToolCall;
 import io.ailink.agentforge.ui.DisplayMessage;
 
 import java.util.ArrayList;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * 对话状态管理器
@@ -25,6 +29,31 @@ public class ConversationState {
      */
     private final List<DisplayMessage> displayMessages;
 
+    /**
+     * Provider 消息转换缓存，对话历史只追加，每轮只需转换新消息
+     */
+    private final MessageConversionCache conversionCache = new MessageConversionCache();
+
+    /**
+     * 已保存到历史记录的消息 → 保存的消息实体，用于记录滚动摘要覆盖到的位置
+     */
+    private final Map<ChatMessage, ChatMessageEntity> persisted = new IdentityHashMap<>();
+
+    /**
+     * 当前会话的 ID（尚未保存过消息时为 null，保存第一条消息时创建会话）
+     */
+    private Long sessionId;
+
+    /**
+     * 更早对话的滚动摘要（未折叠过时为 null）
+     */
+    private String summary;
+
+    /**
+     * 清空次数，用于丢弃清空之前开始生成的摘要
+     */
+    private int epoch;
+
     /**
      * 当前消息的时间戳
      */
@@ -91,6 +120,97 @@ public class ConversationState {
                 currentTime));
     }
 
+    /**
+     * 记录最近一条对话历史已保存到历史记录
+     *
+     * @param saved 保存的消息实体（异步写入时 ID 在提交后才分配）
+     */
+    public void markPersisted(ChatMessageEntity saved) {
+        if (!conversationHistory.isEmpty()) {
+            persisted.put(conversationHistory.getLast(), saved);
+        }
+    }
+
+    /**
+     * 获取消息保存到历史记录的实体
+     *
+     * @param message 对话历史中的消息
+     * @return 消息实体；没有经 {@link #markPersisted} 记录的消息（保存失败，或由构造方法直接传入）返回 null
+     */
+    public ChatMessageEntity getPersisted(ChatMessage message) {
+        return persisted.get(message);
+    }
+
+    /**
+     * 获取当前会话的 ID
+     *
+     * @return 会话 ID，尚未创建会话时返回 null
+     */
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    /**
+     * 设置当前会话（恢复会话或创建会话后）
+     *
+     * @param sessionId 会话 ID
+     */
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    /**
+     * 获取更早对话的滚动摘要
+     *
+     * @return 摘要，没有时返回 null
+     */
+    public String getSummary() {
+        return summary;
+    }
+
+    /**
+     * 设置滚动摘要（从历史记录恢复会话时）
+     *
+     * @param summary 摘要
+     */
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    /**
+     * 用摘要替换已折叠的对话前缀
+     *
+     * 折叠的消息在摘要生成期间可能已被上下文裁剪移除一部分甚至全部，因此按 lastFolded 的位置截断：
+     * 它仍在历史中时移除它及之前的所有消息，否则只更新摘要。对话在此期间被清空过时放弃本次替换。
+     *
+     * @param newSummary 新摘要（已包含之前摘要的内容）
+     * @param lastFolded 折叠范围内的最后一条消息
+     * @param fromEpoch  开始生成摘要时的 {@link #getEpoch()}
+     * @return 是否已替换
+     */
+    public boolean applySummary(String newSummary, ChatMessage lastFolded, int fromEpoch) {
+        if (fromEpoch != epoch) {
+            return false;
+        }
+        for (int i = 0; i < conversationHistory.size(); i++) {
+            if (conversationHistory.get(i) == lastFolded) {
+                trimHistory(i + 1);
+                break;
+            }
+        }
+        summary = newSummary;
+        return true;
+    }
+
+    /**
+     * 获取对话被清空的次数
+     *
+     * @return 清空次数
+     */
+    public int getEpoch() {
+        return epoch;
+    }
+
     /**
      * 添加显示消息（用于从历史加载时）
      * 
@@ -111,6 +231,17 @@ public class ConversationState {
         return conversationHistory;
     }
 
+    /**
+     * 从头部移除最早的若干条对话历史（上下文窗口裁剪，显示消息不受影响）
+     *
+     * @param count 移除的消息数
+     */
+    public void trimHistory(int count) {
+        List<ChatMessage> removed = conversationHistory.subList(0, count);
+        removed.forEach(persisted::remove);
+        removed.clear();
+    }
+
     /**
      * 获取显示消息列表
      * 
@@ -120,6 +251,15 @@ public class ConversationState {
         return displayMessages;
     }
 
+    /**
+     * 获取 Provider 消息转换缓存
+     *
+     * @return 本对话的转换缓存
+     */
+    public MessageConversionCache getConversionCache() {
+        return conversionCache;
+    }
+
     /**
      * 获取当前时间戳
      * 
@@ -130,11 +270,16 @@ public class ConversationState {
     }
 
     /**
-     * 清空对话状态
+     * 清空对话状态，之后的消息保存到新的会话
      */
     public void clear() {
+        sessionId = null;
         conversationHistory.clear();
         displayMessages.clear();
+        conversionCache.clear();
+        persisted.clear();
+        summary = null;
+        epoch++;
     }
 
     /**
@@ -1,43 +1,85 @@
 package io.ailink.agentforge.cli.chat;
 
+import io.ailink.agentforge.config.AgentProperties;
 import io.ailink.agentforge.llm.LlmProvider;
-import io.ailink.agentforge.llm.dto.ChatMessage;
 import io.ailink.agentforge.llm.dto.ChatRequest;
 import io.ailink.agentforge.llm.dto.ChatResponse;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
+import io.ailink.agentforge.llm.dto.TokenUsage;
 import io.ailink.agentforge.service.ChatHistoryService;
+import io.ailink.agentforge.template.PromptRenderer;
 import io.ailink.agentforge.tool.ToolCall;
+import io.ailink.agentforge.tool.ToolDefinition;
 import io.ailink.agentforge.tool.ToolExecutor;
 import io.ailink.agentforge.tool.ToolRegistry;
+import io.ailink.agentforge.tool.ToolResult;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
 
 /**
  * 消息处理器
  *
  * 负责调用 LLM、执行工具、处理响应的核心业务逻辑。
  * 将 AI 对话逻辑与 UI 交互分离。
+ *
+ * Agent 循环：每轮流式调用 LLM，若响应包含工具调用，则并发执行工具、
+ * 把结果追加到对话历史并进入下一轮，直到模型给出最终回答，
+ * 或达到轮数上限 / 耗时预算（见 {@link AgentProperties}）。
  */
 public class MessageProcessor {
 
     private static final Logger log = LoggerFactory.getLogger(MessageProcessor.class);
 
+    /**
+     * 系统提示词模板
+     */
+    private static final String SYSTEM_TEMPLATE = "chat-system.md";
+
     private final LlmProvider llmProvider;
     private final ToolRegistry toolRegistry;
     private final ToolExecutor toolExecutor;
     private final ChatHistoryService chatHistoryService;
+    private final AgentProperties agentProperties;
+    private final ContextWindowManager contextWindowManager;
+    private final ConversationCompactor conversationCompactor;
+    private final PromptRenderer promptRenderer;
+
+    /**
+     * 自定义系统提示词（--system），为 null 时使用模板中的默认提示词
+     */
     private final String systemPrompt;
 
+    /**
+     * 最近一次渲染的系统提示词（内容不变时复用同一字符串）
+     */
+    private String effectiveSystemPrompt;
+
     public MessageProcessor(LlmProvider llmProvider,
                           ToolRegistry toolRegistry,
                           ToolExecutor toolExecutor,
                           ChatHistoryService chatHistoryService,
+                          AgentProperties agentProperties,
+                          ContextWindowManager contextWindowManager,
+                          ConversationCompactor conversationCompactor,
+                          PromptRenderer promptRenderer,
                           String systemPrompt) {
         this.llmProvider = llmProvider;
         this.toolRegistry = toolRegistry;
         this.toolExecutor = toolExecutor;
         this.chatHistoryService = chatHistoryService;
+        this.agentProperties = agentProperties;
+        this.contextWindowManager = contextWindowManager;
+        this.conversationCompactor = conversationCompactor;
+        this.promptRenderer = promptRenderer;
         this.systemPrompt = systemPrompt;
     }
 
@@ -51,138 +93,326 @@ public class MessageProcessor {
     /**
      * 处理用户消息，支持事件监听（工具调用通知 + 流式输出）
      *
+     * 每轮都以流式方式调用 LLM，文本增量实时输出，
+     * 工具调用块闭合时立即提交到虚拟线程执行，无需等待整个响应结束。
+     *
      * @param input    用户输入
      * @param state    对话状态
      * @param listener 事件监听器（可为 null）
      * @return 助手响应文本
      */
     public String processMessage(String input, ConversationState state, ChatEventListener listener) {
+        long deadline = System.nanoTime() + agentProperties.getTurnTimeout().toNanos();
+
         // 保存用户消息到状态和历史
         state.addUserMessage(input);
-        chatHistoryService.saveUserMessage(input);
+        state.markPersisted(chatHistoryService.saveUserMessage(sessionId(state), input));
 
-        // 构建请求
-        ChatRequest request = buildRequest(state.getConversationHistory());
-
-        // 调用 LLM
-        ChatResponse<?> response = llmProvider.chat(request);
+        // 构建请求并流式调用 LLM
+        ChatRequest request = buildRequest(state);
+        StreamedTurn turn = streamTurn(request, listener, deadline);
 
         // 处理工具调用
-        if (response.hasToolCalls()) {
-            return executeToolsAndGetResponse(response, state, listener);
+        if (turn.hasToolCalls()) {
+            return executeToolsAndGetResponse(turn, state, listener, deadline);
         }
 
-        // 直接返回响应
-        String responseText = response.content();
-        state.addAssistantMessage(responseText);
-        chatHistoryService.saveAssistantMessage(responseText);
+        return completeTurn(turn, state);
+    }
+
+    /**
+     * 多轮执行工具并获取最终响应
+     *
+     * 每轮把工具调用与结果写入对话历史并保存到历史记录后再次请求 LLM；
+     * 模型不再请求工具时返回其回答。达到轮数上限或耗时预算时停止循环，
+     * 以提示信息作为本条消息的回答。
+     *
+     * @param turn     包含工具调用的首轮结果
+     * @param state    对话状态
+     * @param listener 事件监听器（可为 null）
+     * @param deadline 耗时预算截止时间（System.nanoTime）
+     * @return 最终响应文本
+     */
+    private String executeToolsAndGetResponse(StreamedTurn turn, ConversationState state,
+                                              ChatEventListener listener, long deadline) {
+        int maxRounds = agentProperties.getMaxToolRounds();
+        int round = 0;
+
+        while (turn.hasToolCalls()) {
+            round++;
+
+            // 添加助手消息（带工具调用）和工具结果到历史，恢复会话时不必重新执行
+            Long sessionId = sessionId(state);
+            state.addAssistantMessageWithTools(turn.content(), turn.toolCalls());
+            state.markPersisted(chatHistoryService.saveToolCalls(
+                    sessionId, turn.content(), turn.toolCalls(), turn.usage(), turn.latencyMs()));
+            for (int i = 0; i < turn.toolCalls().size(); i++) {
+                String toolCallId = turn.toolCalls().get(i).id();
+                state.addToolResult(toolCallId, turn.toolResults().get(i));
+                state.markPersisted(chatHistoryService.saveToolResult(
+                        sessionId, toolCallId, turn.toolResults().get(i)));
+            }
+
+            if (round >= maxRounds) {
+                log.warn("工具调用达到轮数上限: {}", maxRounds);
+                return stopLoop("已达到工具调用轮数上限（" + maxRounds + " 轮），已停止继续调用工具。",
+                        state, listener);
+            }
+            if (System.nanoTime() >= deadline) {
+                log.warn("工具调用超出耗时预算: {}", agentProperties.getTurnTimeout());
+                return stopLoop("已超出本轮耗时预算（" + agentProperties.getTurnTimeout().toSeconds()
+                        + " 秒），已停止继续调用工具。", state, listener);
+            }
+
+            // 构建下一轮请求
+            ChatRequest request = buildRequest(state);
+            turn = streamTurn(request, listener, deadline);
+        }
+
+        return completeTurn(turn, state);
+    }
+
+    /**
+     * 以流式方式执行一轮 LLM 调用
+     *
+     * 文本增量通过监听器实时输出；工具调用块闭合（ToolCallComplete）时立即提交到
+     * 虚拟线程执行，后续事件继续处理。流结束后按调用顺序收集工具结果。
+     * 流在输出任何事件前失败时回退到同步调用。
+     * 响应耗时从发出请求计到流结束，不含等待工具结果的时间。
+     *
+     * @param request  聊天请求
+     * @param listener 事件监听器（可为 null）
+     * @param deadline 耗时预算截止时间（System.nanoTime）
+     * @return 本轮结果
+     */
+    private StreamedTurn streamTurn(ChatRequest request, ChatEventListener listener, long deadline) {
+        StringBuilder content = new StringBuilder();
+        List<ToolCall> toolCalls = new ArrayList<>();
+        List<CompletableFuture<ToolResult>> pendingResults = new ArrayList<>();
+        String stopReason = null;
+        TokenUsage tokenUsage = null;
+        boolean received = false;
+        long started = System.nanoTime();
+        boolean streaming = false;
+
+        try {
+            for (ChatStreamEvent event : llmProvider.chatStreamEvents(request).toIterable()) {
+                received = true;
+                switch (event) {
+                    case ChatStreamEvent.TextDelta(String text) -> {
+                        if (!streaming && listener != null) {
+                            listener.onStreamingStart();
+                        }
+                        streaming = true;
+                        content.append(text);
+                        if (listener != null) {
+                            listener.onStreamingToken(text);
+                        }
+                    }
+                    case ChatStreamEvent.ToolCallComplete(int index, ToolCall toolCall) -> {
+                        if (streaming && listener != null) {
+                            listener.onStreamingEnd();
+                        }
+                        streaming = false;
+                        toolCalls.add(toolCall);
+                        pendingResults.add(submitTool(toolCall, listener));
+                    }
+                    case ChatStreamEvent.Stop(String reason, TokenUsage usage) -> {
+                        stopReason = reason;
+                        tokenUsage = usage;
+                    }
+                    default -> {
+                    }
+                }
+            }
+        } catch (RuntimeException e) {
+            if (received) {
+                pendingResults.forEach(future -> future.cancel(true));
+                throw e;
+            }
+            log.error("流式响应失败，回退到同步调用: {}", e.getMessage());
+            return fallbackTurn(request, listener, deadline);
+        }
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
 
-        // 通过监听器输出响应
         if (listener != null) {
+            if (!streaming && toolCalls.isEmpty()) {
+                listener.onStreamingStart();
+                streaming = true;
+            }
+            if (streaming) {
+                listener.onStreamingEnd();
+            }
+        }
+        List<String> toolResults = awaitToolResults(toolCalls, pendingResults, listener, deadline);
+        return new StreamedTurn(content.toString(), toolCalls, toolResults, stopReason, tokenUsage, latencyMs);
+    }
+
+    /**
+     * 同步调用回退路径
+     */
+    private StreamedTurn fallbackTurn(ChatRequest request, ChatEventListener listener, long deadline) {
+        long started = System.nanoTime();
+        ChatResponse<?> response = llmProvider.chat(request);
+        long latencyMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+        String text = response.content() != null ? response.content() : "";
+        List<ToolCall> toolCalls = response.hasToolCalls() ? response.toolCalls() : List.of();
+
+        if (listener != null && (!text.isEmpty() || toolCalls.isEmpty())) {
             listener.onStreamingStart();
-            listener.onStreamingToken(responseText);
+            listener.onStreamingToken(text);
             listener.onStreamingEnd();
         }
 
-        return responseText;
+        List<CompletableFuture<ToolResult>> pendingResults = toolCalls.stream()
+                .map(toolCall -> submitTool(toolCall, listener))
+                .toList();
+        List<String> toolResults = awaitToolResults(toolCalls, pendingResults, listener, deadline);
+        return new StreamedTurn(text, toolCalls, toolResults, response.stopReason(), response.usage(), latencyMs);
     }
 
     /**
-     * 执行工具并获取最终响应（无事件监听）
+     * 提交工具调用到虚拟线程执行
      */
-    public String executeToolsAndGetResponse(ChatResponse<?> response, ConversationState state) {
-        return executeToolsAndGetResponse(response, state, null);
+    private CompletableFuture<ToolResult> submitTool(ToolCall toolCall, ChatEventListener listener) {
+        if (listener != null) {
+            listener.onToolExecuting(toolCall.name());
+        }
+        return toolExecutor.submit(toolCall);
     }
 
     /**
-     * 执行工具并获取最终响应，支持事件监听
+     * 按调用顺序收集工具结果
      *
-     * @param response LLM 响应（包含工具调用）
-     * @param state    对话状态
-     * @param listener 事件监听器（可为 null）
-     * @return 最终响应文本
+     * 超出耗时预算仍未完成的工具被取消，并以错误结果返回给模型。
+     *
+     * @return 与 toolCalls 一一对应的格式化结果
      */
-    public String executeToolsAndGetResponse(ChatResponse<?> response, ConversationState state,
-                                              ChatEventListener listener) {
-        List<ToolCall> toolCalls = response.toolCalls();
-
-        // 添加助手消息（带工具调用）到历史
-        state.addAssistantMessageWithTools(response.content(), toolCalls);
-
-        // 执行所有工具调用
-        for (ToolCall toolCall : toolCalls) {
-            if (listener != null) {
-                listener.onToolExecuting(toolCall.name());
-            }
-
-            var result = toolExecutor.execute(toolCall);
+    private List<String> awaitToolResults(List<ToolCall> toolCalls,
+                                          List<CompletableFuture<ToolResult>> pendingResults,
+                                          ChatEventListener listener, long deadline) {
+        List<String> toolResults = new ArrayList<>(toolCalls.size());
+        for (int i = 0; i < toolCalls.size(); i++) {
+            ToolCall toolCall = toolCalls.get(i);
+            ToolResult result = awaitToolResult(toolCall, pendingResults.get(i), deadline);
             String toolResult = String.format("[%s] %s", toolCall.name(), result.content());
-            state.addToolResult(toolCall.id(), toolResult);
+            toolResults.add(toolResult);
 
             if (listener != null) {
                 listener.onToolResult(toolCall.name(), toolResult);
             }
         }
+        return toolResults;
+    }
 
-        // 构建第二轮请求
-        ChatRequest request = buildRequest(state.getConversationHistory());
+    private ToolResult awaitToolResult(ToolCall toolCall, CompletableFuture<ToolResult> future, long deadline) {
+        try {
+            long remaining = Math.max(0, deadline - System.nanoTime());
+            return future.get(remaining, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            future.cancel(true);
+            log.warn("工具执行超时: {}", toolCall.name());
+            return ToolResult.error(toolCall.id(), "Execution timed out");
+        } catch (ExecutionException e) {
+            return ToolResult.error(toolCall.id(), "Execution error: " + e.getCause().getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            future.cancel(true);
+            return ToolResult.error(toolCall.id(), "Execution interrupted");
+        }
+    }
 
-        // 使用流式输出获取最终响应
+    /**
+     * 停止 Agent 循环，以提示信息作为回答
+     */
+    private String stopLoop(String notice, ConversationState state, ChatEventListener listener) {
         if (listener != null) {
-            return streamResponse(request, state, listener);
+            listener.onStreamingStart();
+            listener.onStreamingToken(notice);
+            listener.onStreamingEnd();
         }
-
-        // 无监听器时使用同步调用
-        ChatResponse<?> finalResponse = llmProvider.chat(request);
-        String responseText = finalResponse.content();
-        state.addAssistantMessage(responseText);
-        chatHistoryService.saveAssistantMessage(responseText);
-        return responseText;
+        state.addAssistantMessage(notice);
+        state.markPersisted(chatHistoryService.saveAssistantMessage(sessionId(state), notice));
+        conversationCompactor.maybeStart(state);
+        return notice;
     }
 
     /**
-     * 流式获取 LLM 响应
+     * 记录模型的最终回答及本次响应的 Token 用量和耗时
      */
-    private String streamResponse(ChatRequest request, ConversationState state, ChatEventListener listener) {
-        listener.onStreamingStart();
-        StringBuilder fullResponse = new StringBuilder();
+    private String completeTurn(StreamedTurn turn, ConversationState state) {
+        state.addAssistantMessage(turn.content());
+        state.markPersisted(chatHistoryService.saveAssistantMessage(
+                sessionId(state), turn.content(), turn.usage(), turn.latencyMs()));
+        conversationCompactor.maybeStart(state);
+        return turn.content();
+    }
 
-        try {
-            llmProvider.chatStream(request)
-                    .doOnNext(token -> {
-                        fullResponse.append(token);
-                        listener.onStreamingToken(token);
-                    })
-                    .blockLast();
-        } catch (Exception e) {
-            log.error("流式响应失败，回退到同步调用: {}", e.getMessage());
-            ChatResponse<?> fallback = llmProvider.chat(request);
-            String fallbackText = fallback.content();
-            fullResponse.append(fallbackText);
-            listener.onStreamingToken(fallbackText);
+    /**
+     * 当前会话的 ID，对话的第一条消息保存前创建会话
+     */
+    private Long sessionId(ConversationState state) {
+        if (state.getSessionId() == null) {
+            state.setSessionId(chatHistoryService.startSession().getId());
         }
-
-        listener.onStreamingEnd();
-
-        String responseText = fullResponse.toString();
-        state.addAssistantMessage(responseText);
-        chatHistoryService.saveAssistantMessage(responseText);
-        return responseText;
+        return state.getSessionId();
     }
 
     /**
      * 构建聊天请求
+     *
+     * 先换入后台已生成的滚动摘要，把对话历史裁剪到上下文预算以内，
+     * 再携带对话的消息转换缓存，Provider 只转换上一轮之后新追加的消息。
      */
-    private ChatRequest buildRequest(List<ChatMessage> conversationHistory) {
-        ChatRequest.Builder builder = ChatRequest.builder()
-                .system(systemPrompt)
-                .messages(conversationHistory);
+    private ChatRequest buildRequest(ConversationState state) {
+        conversationCompactor.applyPending(state);
+        String system = systemPrompt(state.getSummary());
+        List<ToolDefinition> tools = toolRegistry.hasTools() ? toolRegistry.getToolDefinitions() : null;
+        contextWindowManager.fit(state, system, tools);
 
-        // 添加工具定义
-        if (toolRegistry.hasTools()) {
-            builder.tools(toolRegistry.getToolDefinitions());
+        return ChatRequest.builder()
+                .system(system)
+                .messages(state.getConversationHistory())
+                .tools(tools)
+                .conversionCache(state.getConversionCache())
+                .build();
+    }
+
+    /**
+     * 系统提示词，有滚动摘要时附在末尾
+     *
+     * 每次请求都由缓存的模板渲染，模板文件热加载后下一条消息即生效。
+     * 内容不变时返回同一字符串，{@link ContextWindowManager} 不必重新估算 Token。
+     *
+     * @param summary 滚动摘要（可为 null）
+     */
+    public String systemPrompt(String summary) {
+        Map<String, Object> context = new HashMap<>();
+        context.put("system", systemPrompt);
+        context.put("summary", summary);
+        String rendered = promptRenderer.render(SYSTEM_TEMPLATE, context);
+        if (!rendered.equals(effectiveSystemPrompt)) {
+            effectiveSystemPrompt = rendered;
         }
+        return effectiveSystemPrompt;
+    }
 
-        return builder.build();
+    /**
+     * 一轮流式调用的结果
+     *
+     * @param content     文本内容
+     * @param toolCalls   已执行的工具调用
+     * @param toolResults 与 toolCalls 一一对应的格式化结果
+     * @param stopReason  停止原因
+     * @param usage       Token 用量（Provider 未返回时为 null）
+     * @param latencyMs   响应耗时（毫秒）
+     */
+    private record StreamedTurn(String content, List<ToolCall> toolCalls,
+                                List<String> toolResults, String stopReason,
+                                TokenUsage usage, long latencyMs) {
+
+        boolean hasToolCalls() {
+            return !toolCalls.isEmpty();
+        }
     }
 }
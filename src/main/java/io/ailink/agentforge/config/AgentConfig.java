@@ -0,0 +1,9 @@
+package io.ailink.agentforge.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(AgentProperties.class)
+public class AgentConfig {
+}
@@ -0,0 +1,45 @@
+package io.ailink.agentforge.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.time.Duration;
+
+/**
+ * Agent 循环配置
+ *
+ * 控制一条用户消息内 LLM 与工具之间的多轮交互：
+ * - maxToolRounds: 最多执行多少轮工具调用，超过后停止并返回提示
+ * - turnTimeout: 单条消息的总耗时预算（包含所有 LLM 调用和工具执行）
+ * - context: 上下文窗口的 Token 预算（见 {@link ContextWindowProperties}）
+ */
+@ConfigurationProperties(prefix = "agentforge.agent")
+public class AgentProperties {
+
+    private int maxToolRounds = 8;
+    private Duration turnTimeout = Duration.ofMinutes(5);
+    private ContextWindowProperties context = new ContextWindowProperties();
+
+    public int getMaxToolRounds() {
+        return maxToolRounds;
+    }
+
+    public void setMaxToolRounds(int maxToolRounds) {
+        this.maxToolRounds = maxToolRounds;
+    }
+
+    public Duration getTurnTimeout() {
+        return turnTimeout;
+    }
+
+    public void setTurnTimeout(Duration turnTimeout) {
+        this.turnTimeout = turnTimeout;
+    }
+
+    public ContextWindowProperties getContext() {
+        return context;
+    }
+
+    public void setContext(ContextWindowProperties context) {
+        this.context = context;
+    }
+}
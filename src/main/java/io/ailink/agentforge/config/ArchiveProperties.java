@@ -0,0 +1,63 @@
+package io.ailink.agentforge.config;
+
+/**
+ * 冷热分层配置
+ *
+ * 最近 hotDays 天的消息保存在数据库（热数据），更早的消息按天归档为压缩的只读段文件（冷数据），
+ * 数据库中的消息表因此只随保留窗口增长。按日期查询、检索、导出等读取路径会同时读取两部分，
+ * 调用方无需区分。
+ *
+ * 归档会删除数据库中的行，默认不自动执行，由 {@code history --archive} 手动触发；
+ * 开启 enabled 后每次启动时自动归档。
+ *
+ * 配置示例：
+ * <pre>
+ * agentforge:
+ *     history:
+ *         archive:
+ *             enabled: false
+ *             hot-days: 90
+ *             directory: ./data/archive
+ * </pre>
+ */
+public class ArchiveProperties {
+
+    /**
+     * 是否在启动时自动归档超出保留窗口的消息
+     */
+    private boolean enabled = false;
+
+    /**
+     * 数据库中保留的天数（含今天之前的 hotDays 天）
+     */
+    private int hotDays = 90;
+
+    /**
+     * 段文件目录
+     */
+    private String directory = "./data/archive";
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getHotDays() {
+        return hotDays;
+    }
+
+    public void setHotDays(int hotDays) {
+        this.hotDays = hotDays;
+    }
+
+    public String getDirectory() {
+        return directory;
+    }
+
+    public void setDirectory(String directory) {
+        this.directory = directory;
+    }
+}
@@ -0,0 +1,46 @@
+package io.ailink.agentforge.config;
+
+/**
+ * 消息内容压缩配置
+ *
+ * 助手回答和工具输出常有数十 KB，内容不少于 minChars 个字符的消息写入时压缩保存，
+ * 数据库文件更小，每个数据页能容纳更多行。读取消息内容时才解压，对调用方透明。
+ * 关闭后新消息以原文保存，已压缩的消息照常读取。
+ *
+ * 配置示例：
+ * <pre>
+ * agentforge:
+ *     history:
+ *         compression:
+ *             enabled: true
+ *             min-chars: 2048
+ * </pre>
+ */
+public class CompressionProperties {
+
+    /**
+     * 是否压缩长消息
+     */
+    private boolean enabled = true;
+
+    /**
+     * 压缩的最小字符数
+     */
+    private int minChars = 2048;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public int getMinChars() {
+        return minChars;
+    }
+
+    public void setMinChars(int minChars) {
+        this.minChars = minChars;
+    }
+}
@@ -0,0 +1,115 @@
+package io.ailink.agentforge.config;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Metrics;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BinaryOperator;
+
+/**
+ * 连接池指标
+ *
+ * Reactor Netty 把连接池指标（reactor.netty.connection.provider.*）写入 Micrometer 全局注册表，
+ * 没有 Actuator 时全局注册表下没有任何注册表，指标不会被记录。
+ * 这里挂载一个内存注册表，关闭时从全局注册表移除，同一进程内多次创建的 Spring 上下文互不累积。
+ *
+ * {@link #snapshot()} 按连接池（tag name）汇总各远端地址的连接数与排队获取连接的耗时
+ * （Reactor Netty 只在连接池已满、请求需要排队时记录获取耗时），
+ * 聊天中的 :pool 命令显示该快照，关闭 WebClient 时也记录一次日志。
+ */
+public class ConnectionPoolMetrics implements DisposableBean {
+
+    static final String PREFIX = "reactor.netty.connection.provider";
+
+    private final MeterRegistry registry = new SimpleMeterRegistry();
+
+    public ConnectionPoolMetrics() {
+        Metrics.addRegistry(registry);
+    }
+
+    /**
+     * 各连接池当前的指标
+     *
+     * @return 快照（按连接池名称排序，尚未建立过连接的连接池不在其中）
+     */
+    public List<PoolSnapshot> snapshot() {
+        Map<String, Double> total = gauges("total.connections", Double::sum);
+        Map<String, Double> active = gauges("active.connections", Double::sum);
+        Map<String, Double> idle = gauges("idle.connections", Double::sum);
+        Map<String, Double> pending = gauges("pending.connections", Double::sum);
+        Map<String, Double> max = gauges("max.connections", Math::max);
+
+        Map<String, List<Timer>> waitTimers = new TreeMap<>();
+        for (Timer timer : registry.find(PREFIX + ".pending.connections.time").timers()) {
+            waitTimers.computeIfAbsent(timer.getId().getTag("name"), name -> new ArrayList<>()).add(timer);
+        }
+
+        List<PoolSnapshot> snapshots = new ArrayList<>();
+        for (String name : total.keySet()) {
+            List<Timer> timers = waitTimers.getOrDefault(name, List.of());
+            long waits = timers.stream().mapToLong(Timer::count).sum();
+            double waitMillis = timers.stream().mapToDouble(timer -> timer.totalTime(TimeUnit.MILLISECONDS)).sum();
+            double waitMaxMillis = timers.stream().mapToDouble(timer -> timer.max(TimeUnit.MILLISECONDS)).max().orElse(0);
+            snapshots.add(new PoolSnapshot(name,
+                    total.get(name).intValue(),
+                    active.getOrDefault(name, 0.0).intValue(),
+                    idle.getOrDefault(name, 0.0).intValue(),
+                    pending.getOrDefault(name, 0.0).intValue(),
+                    max.getOrDefault(name, 0.0).intValue(),
+                    waits,
+                    waits == 0 ? 0 : waitMillis / waits,
+                    waitMaxMillis));
+        }
+        return snapshots;
+    }
+
+    /**
+     * 按连接池名称合并同名指标（每个远端地址一个）
+     */
+    private Map<String, Double> gauges(String metric, BinaryOperator<Double> merge) {
+        Map<String, Double> values = new TreeMap<>();
+        for (Gauge gauge : registry.find(PREFIX + "." + metric).gauges()) {
+            values.merge(gauge.getId().getTag("name"), gauge.value(), merge);
+        }
+        return values;
+    }
+
+    @Override
+    public void destroy() {
+        Metrics.removeRegistry(registry);
+        registry.close();
+    }
+
+    /**
+     * 一个连接池的指标快照
+     *
+     * @param name              连接池名称（agentforge-{provider}）
+     * @param totalConnections  已建立的连接数
+     * @param activeConnections 正在使用的连接数
+     * @param idleConnections   空闲的连接数
+     * @param pendingAcquires   等待获取连接的请求数
+     * @param maxConnections    最大连接数
+     * @param waits             排队后获取到连接（或超时失败）的次数
+     * @param waitMeanMillis    排队获取连接的平均耗时（毫秒）
+     * @param waitMaxMillis     近期排队获取连接的最大耗时（毫秒）
+     */
+    public record PoolSnapshot(String name, int totalConnections, int activeConnections, int idleConnections,
+                               int pendingAcquires, int maxConnections, long waits,
+                               double waitMeanMillis, double waitMaxMillis) {
+
+        @Override
+        public String toString() {
+            return String.format("%s: 连接 %d/%d（使用中 %d，空闲 %d），排队中 %d，累计排队 %d 次（平均 %.1f ms，最大 %.1f ms）",
+                    name, totalConnections, maxConnections, activeConnections, idleConnections,
+                    pendingAcquires, waits, waitMeanMillis, waitMaxMillis);
+        }
+    }
+}
@@ -0,0 +1,104 @@
+package io.ailink.agentforge.config;
+
+/**
+ * 上下文窗口配置
+ *
+ * 对话历史（含系统提示词和工具定义）的估算 Token 数超过 maxTokens 时，
+ * 从最早的轮次开始整轮裁剪，直到降到 maxTokens × trimRatio 以下。
+ * 一次裁剪多留出一段余量，避免之后每轮都裁剪（每次裁剪都会改变请求前缀）。
+ *
+ * 估算 Token 数超过 maxTokens × summarizeRatio 时，在后台把较早的轮次折叠为滚动摘要
+ * （保留最近 summaryKeepTurns 轮原文），通常在触发裁剪之前，提示词大小因此趋于稳定。
+ *
+ * 配置示例：
+ * <pre>
+ * agentforge:
+ *     agent:
+ *         context:
+ *             max-tokens: 64000
+ *             trim-ratio: 0.75
+ *             preload-messages: 50
+ *             summarize-ratio: 0.5
+ *             summary-keep-turns: 4
+ * </pre>
+ */
+public class ContextWindowProperties {
+
+    /**
+     * 发送给模型的上下文 Token 预算（估算值）
+     */
+    private int maxTokens = 64_000;
+
+    /**
+     * 裁剪后的目标占比
+     */
+    private double trimRatio = 0.75;
+
+    /**
+     * 启动时从历史记录加载的最近消息数（加载后同样按 Token 预算裁剪）
+     */
+    private int preloadMessages = 50;
+
+    /**
+     * 触发滚动摘要的占比，不大于 0 时不生成摘要
+     */
+    private double summarizeRatio = 0.5;
+
+    /**
+     * 生成摘要时保留原文的最近轮数
+     */
+    private int summaryKeepTurns = 4;
+
+    /**
+     * 生成摘要使用的模型（可配置为更便宜的模型），为空时使用 Provider 默认模型
+     */
+    private String summaryModel;
+
+    public int getMaxTokens() {
+        return maxTokens;
+    }
+
+    public void setMaxTokens(int maxTokens) {
+        this.maxTokens = maxTokens;
+    }
+
+    public double getTrimRatio() {
+        return trimRatio;
+    }
+
+    public void setTrimRatio(double trimRatio) {
+        this.trimRatio = trimRatio;
+    }
+
+    public int getPreloadMessages() {
+        return preloadMessages;
+    }
+
+    public void setPreloadMessages(int preloadMessages) {
+        this.preloadMessages = preloadMessages;
+    }
+
+    public double getSummarizeRatio() {
+        return summarizeRatio;
+    }
+
+    public void setSummarizeRatio(double summarizeRatio) {
+        this.summarizeRatio = summarizeRatio;
+    }
+
+    public int getSummaryKeepTurns() {
+        return summaryKeepTurns;
+    }
+
+    public void setSummaryKeepTurns(int summaryKeepTurns) {
+        this.summaryKeepTurns = summaryKeepTurns;
+    }
+
+    public String getSummaryModel() {
+        return summaryModel;
+    }
+
+    public void setSummaryModel(String summaryModel) {
+        this.summaryModel = summaryModel;
+    }
+}
@@ -0,0 +1,42 @@
+package io.ailink.agentforge.config;
+
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.env.EnvironmentPostProcessor;
+import org.springframework.core.env.ConfigurableEnvironment;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.util.StringUtils;
+
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 按存储后端裁剪自动配置
+ *
+ * 选择 jdbc 后端时排除 Hibernate 与 Spring Data JPA 的自动配置：不创建 EntityManagerFactory、
+ * 不扫描实体和仓库接口，也不执行 ddl-auto 的表结构校验，启动时间和堆占用随之下降。
+ * 数据源、JdbcTemplate 和事务管理器仍由 Spring Boot 自动配置。
+ */
+public class HistoryBackendEnvironmentPostProcessor implements EnvironmentPostProcessor {
+
+    private static final String EXCLUDE_PROPERTY = "spring.autoconfigure.exclude";
+
+    private static final String[] JPA_AUTO_CONFIGURATIONS = {
+            "org.springframework.boot.autoconfigure.orm.jpa.HibernateJpaAutoConfiguration",
+            "org.springframework.boot.autoconfigure.data.jpa.JpaRepositoriesAutoConfiguration"
+    };
+
+    @Override
+    public void postProcessEnvironment(ConfigurableEnvironment environment, SpringApplication application) {
+        String backend = environment.getProperty(HistoryProperties.BACKEND_PROPERTY, "jpa");
+        if (!HistoryProperties.Backend.JDBC.name().equalsIgnoreCase(backend.strip())) {
+            return;
+        }
+        Set<String> excludes = new LinkedHashSet<>(
+                StringUtils.commaDelimitedListToSet(environment.getProperty(EXCLUDE_PROPERTY, "")));
+        excludes.addAll(Set.of(JPA_AUTO_CONFIGURATIONS));
+        excludes.remove("");
+        environment.getPropertySources().addFirst(new MapPropertySource("agentforgeHistoryBackend",
+                Map.of(EXCLUDE_PROPERTY, String.join(",", excludes))));
+    }
+}
@@ -0,0 +1,23 @@
+package io.ailink.agentforge.config;
+
+import io.ailink.agentforge.persistence.jdbc.SchemaMigrator;
+import org.springframework.boot.autoconfigure.orm.jpa.EntityManagerFactoryDependsOnPostProcessor;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@EnableConfigurationProperties(HistoryProperties.class)
+public class HistoryConfig {
+
+    /**
+     * EntityManagerFactory 在 {@link SchemaMigrator} 之后创建，Hibernate 校验的是迁移后的表结构
+     */
+    @Configuration(proxyBeanMethods = false)
+    static class SchemaMigratorEntityManagerFactoryDependsOnPostProcessor
+            extends EntityManagerFactoryDependsOnPostProcessor {
+
+        SchemaMigratorEntityManagerFactoryDependsOnPostProcessor() {
+            super(SchemaMigrator.class);
+        }
+    }
+}
@@ -0,0 +1,76 @@
+package io.ailink.agentforge.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+/**
+ * 聊天历史配置
+ *
+ * - backend: 存储后端。jpa（默认）基于 Spring Data JPA / Hibernate；
+ *   jdbc 直接使用 JDBC，不启动 Hibernate，由版本化的 SQL 脚本维护表结构，适合 history 等短命令
+ * - writeBehind: 消息异步批量写入（见 {@link WriteBehindProperties}）
+ * - archive: 冷热分层，较早的消息按天归档为段文件（见 {@link ArchiveProperties}）
+ * - compression: 长消息内容压缩存储（见 {@link CompressionProperties}）
+ * - summary: 每日总结的 map-reduce 生成（见 {@link SummaryProperties}）
+ */
+@ConfigurationProperties(prefix = "agentforge.history")
+public class HistoryProperties {
+
+    /**
+     * 存储后端配置项
+     */
+    public static final String BACKEND_PROPERTY = "agentforge.history.backend";
+
+    /**
+     * 存储后端
+     */
+    public enum Backend {
+        JPA,
+        JDBC
+    }
+
+    private Backend backend = Backend.JPA;
+    private WriteBehindProperties writeBehind = new WriteBehindProperties();
+    private ArchiveProperties archive = new ArchiveProperties();
+    private CompressionProperties compression = new CompressionProperties();
+    private SummaryProperties summary = new SummaryProperties();
+
+    public Backend getBackend() {
+        return backend;
+    }
+
+    public void setBackend(Backend backend) {
+        this.backend = backend;
+    }
+
+    public WriteBehindProperties getWriteBehind() {
+        return writeBehind;
+    }
+
+    public void setWriteBehind(WriteBehindProperties writeBehind) {
+        this.writeBehind = writeBehind;
+    }
+
+    public ArchiveProperties getArchive() {
+        return archive;
+    }
+
+    public void setArchive(ArchiveProperties archive) {
+        this.archive = archive;
+    }
+
+    public CompressionProperties getCompression() {
+        return compression;
+    }
+
+    public void setCompression(CompressionProperties compression) {
+        this.compression = compression;
+    }
+
+    public SummaryProperties getSummary() {
+        return summary;
+    }
+
+    public void setSummary(SummaryProperties summary) {
+        this.summary = summary;
+    }
+}
@@ -0,0 +1,52 @@
+package io.ailink.agentforge.config;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Prompt 模板配置
+ *
+ * 模板默认从 classpath 的 prompts/ 目录读取。overrideDirectories 中的目录按顺序优先查找，
+ * 同名文件（相对路径相同）覆盖内置模板，便于不重新打包就调整提示词。
+ * 开启 watch 时监听这些目录，模板文件新增、修改或删除后，下次渲染时重新读取。
+ *
+ * 配置示例：
+ * <pre>
+ * agentforge:
+ *     prompts:
+ *         override-directories:
+ *             - ./prompts
+ *         watch: true
+ * </pre>
+ */
+@ConfigurationProperties(prefix = "agentforge.prompts")
+public class PromptProperties {
+
+    /**
+     * 覆盖内置模板的目录（按顺序查找）
+     */
+    private List<String> overrideDirectories = new ArrayList<>();
+
+    /**
+     * 是否监听覆盖目录，模板文件变化后自动重新加载
+     */
+    private boolean watch = true;
+
+    public List<String> getOverrideDirectories() {
+        return overrideDirectories;
+    }
+
+    public void setOverrideDirectories(List<String> overrideDirectories) {
+        this.overrideDirectories = overrideDirectories;
+    }
+
+    public boolean isWatch() {
+        return watch;
+    }
+
+    public void setWatch(boolean watch) {
+        this.watch = watch;
+    }
+}
@@ -0,0 +1,80 @@
+package io.ailink.agentforge.config;
+
+/**
+ * 每日总结配置
+ *
+ * 一天的对话超过单个提示词的 Token 预算时按 map-reduce 生成总结：
+ * 消息按 chunkTokens 切分为若干段，各段的要点由最多 concurrency 个请求并发生成（map），
+ * 再把要点逐层合并为最终总结（reduce），每一层同样按 chunkTokens 分组。
+ * 任何一个提示词的估算 Token 数都不超过 chunkTokens，总耗时约为段数 / concurrency 次请求。
+ *
+ * chunkTokens 只计提示词，应为模型上下文窗口减去回答所需的 Token 数。
+ *
+ * concurrency 和 requestsPerMinute 由全部总结请求（包括对话滚动摘要）共享：批量补齐多天的总结（history --summary --from --to）时，
+ * 各天的请求合计不超过这两个限制。
+ *
+ * 配置示例：
+ * <pre>
+ * agentforge:
+ *     history:
+ *         summary:
+ *             map-reduce: true
+ *             chunk-tokens: 16000
+ *             concurrency: 4
+ *             requests-per-minute: 60
+ * </pre>
+ */
+public class SummaryProperties {
+
+    /**
+     * 是否启用 map-reduce；关闭时整天的对话放入一个提示词
+     */
+    private boolean mapReduce = true;
+
+    /**
+     * 每个提示词的 Token 预算（估算值）
+     */
+    private int chunkTokens = 16_000;
+
+    /**
+     * 同时进行的总结请求数
+     */
+    private int concurrency = 4;
+
+    /**
+     * 每分钟最多发出的总结请求数，0 表示不限制
+     */
+    private int requestsPerMinute = 60;
+
+    public boolean isMapReduce() {
+        return mapReduce;
+    }
+
+    public void setMapReduce(boolean mapReduce) {
+        this.mapReduce = mapReduce;
+    }
+
+    public int getChunkTokens() {
+        return chunkTokens;
+    }
+
+    public void setChunkTokens(int chunkTokens) {
+        this.chunkTokens = chunkTokens;
+    }
+
+    public int getConcurrency() {
+        return concurrency;
+    }
+
+    public void setConcurrency(int concurrency) {
+        this.concurrency = concurrency;
+    }
+
+    public int getRequestsPerMinute() {
+        return requestsPerMinute;
+    }
+
+    public void setRequestsPerMinute(int requestsPerMinute) {
+        this.requestsPerMinute = requestsPerMinute;
+    }
+}
@@ -1,14 +1,20 @@
 package io.ailink.agentforge.config;
 
 import com.hubspot.jinjava.Jinjava;
+import com.hubspot.jinjava.JinjavaConfig;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
 @Configuration
+@EnableConfigurationProperties(PromptProperties.class)
 public class TemplateConfig {
 
     @Bean
     public Jinjava jinjava() {
-        return new Jinjava();
+        // 变量值是对话内容，原样输出，不能再当作模板解释（对话中出现 {{ }} 时既会出错也会被执行）
+        return new Jinjava(JinjavaConfig.newBuilder()
+                .withNestedInterpretationEnabled(false)
+                .build());
     }
 }
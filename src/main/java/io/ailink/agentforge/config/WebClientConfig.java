@@ -8,7 +8,18 @@ import org.springframework.web.reactive.function.client.WebClient;
 public class WebClientConfig {
 
     @Bean
-    public WebClient webClient(WebClient.Builder builder) {
-        return builder.build();
+    public WebClientFactory webClientFactory(WebClient.Builder builder, ConnectionPoolMetrics connectionPoolMetrics) {
+        return new WebClientFactory(builder, connectionPoolMetrics);
+    }
+
+    /**
+     * 连接池指标
+     *
+     * Reactor Netty 将连接池指标写入 Micrometer 全局注册表，
+     * 没有 Actuator 时需要手动挂载一个注册表，指标才会被记录。
+     */
+    @Bean
+    public ConnectionPoolMetrics connectionPoolMetrics() {
+        return new ConnectionPoolMetrics();
     }
 }
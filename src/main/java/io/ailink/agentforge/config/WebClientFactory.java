@@ -0,0 +1,104 @@
+package io.ailink.agentforge.config;
+
+import io.ailink.agentforge.llm.LlmHttpProperties;
+import io.netty.channel.ChannelOption;
+import io.netty.handler.ssl.SslContextBuilder;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.client.reactive.ReactorClientHttpConnector;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.netty.http.Http11SslContextSpec;
+import reactor.netty.http.Http2SslContextSpec;
+import reactor.netty.http.HttpProtocol;
+import reactor.netty.http.client.HttpClient;
+import reactor.netty.resources.ConnectionProvider;
+import reactor.netty.tcp.SslProvider.GenericSslContextSpec;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * 按 Provider 创建 WebClient
+ *
+ * 每个 Provider 使用独立命名的 Reactor Netty 连接池：
+ * - 最大连接数、排队上限、空闲/存活时间驱逐
+ * - LIFO 取连接，热连接优先复用，冷连接自然过期
+ * - HTTPS 端点通过 ALPN 协商 HTTP/2，不支持时回退 HTTP/1.1
+ * - 同一 Provider 的连接共享一个 SslContext，新连接可复用 TLS 会话
+ *
+ * 连接池指标（reactor.netty.connection.provider.*，含连接占用与获取连接耗时）
+ * 注册到 Micrometer 全局注册表，tag name 为 agentforge-{provider}，
+ * 由 {@link ConnectionPoolMetrics} 汇总，关闭时记录各连接池的最终快照。
+ */
+public class WebClientFactory {
+
+    private static final Logger log = LoggerFactory.getLogger(WebClientFactory.class);
+
+    private final WebClient.Builder builder;
+    private final ConnectionPoolMetrics connectionPoolMetrics;
+    private final List<ConnectionProvider> connectionProviders = new CopyOnWriteArrayList<>();
+
+    public WebClientFactory(WebClient.Builder builder, ConnectionPoolMetrics connectionPoolMetrics) {
+        this.builder = builder;
+        this.connectionPoolMetrics = connectionPoolMetrics;
+    }
+
+    /**
+     * 创建 Provider 专用的 WebClient
+     *
+     * @param name    Provider 名称，用作连接池名称
+     * @param baseUrl Provider 基础地址，用于判断是否启用 TLS / HTTP/2
+     * @param http    连接配置
+     * @return WebClient 实例
+     */
+    public WebClient create(String name, String baseUrl, LlmHttpProperties http) {
+        ConnectionProvider connectionProvider = ConnectionProvider.builder("agentforge-" + name)
+                .maxConnections(http.getMaxConnections())
+                .pendingAcquireMaxCount(http.getPendingAcquireMaxCount())
+                .pendingAcquireTimeout(http.getPendingAcquireTimeout())
+                .maxIdleTime(http.getMaxIdleTime())
+                .maxLifeTime(http.getMaxLifeTime())
+                .evictInBackground(http.getEvictInBackground())
+                .lifo()
+                .metrics(true)
+                .build();
+        connectionProviders.add(connectionProvider);
+
+        HttpClient httpClient = HttpClient.create(connectionProvider)
+                .option(ChannelOption.CONNECT_TIMEOUT_MILLIS, (int) http.getConnectTimeout().toMillis())
+                .option(ChannelOption.SO_KEEPALIVE, true)
+                .keepAlive(true)
+                .metrics(true, Function.identity());
+
+        boolean secure = baseUrl != null && baseUrl.startsWith("https://");
+        if (secure) {
+            Consumer<SslContextBuilder> tlsSessionCache = ssl -> ssl
+                    .sessionCacheSize(http.getTlsSessionCacheSize())
+                    .sessionTimeout(http.getTlsSessionTimeout().toSeconds());
+            GenericSslContextSpec<SslContextBuilder> sslContextSpec = http.isHttp2()
+                    ? Http2SslContextSpec.forClient().configure(tlsSessionCache)
+                    : Http11SslContextSpec.forClient().configure(tlsSessionCache);
+            if (http.isHttp2()) {
+                httpClient = httpClient.protocol(HttpProtocol.H2, HttpProtocol.HTTP11);
+            }
+            httpClient = httpClient.secure(spec -> spec.sslContext(sslContextSpec));
+        }
+
+        log.debug("Created WebClient for {} (secure: {}, http2: {})", name, secure, secure && http.isHttp2());
+
+        return builder.clone()
+                .clientConnector(new ReactorClientHttpConnector(httpClient))
+                .codecs(codecs -> codecs.defaultCodecs()
+                        .maxInMemorySize((int) http.getMaxInMemorySize().toBytes()))
+                .build();
+    }
+
+    @PreDestroy
+    public void dispose() {
+        connectionPoolMetrics.snapshot().forEach(pool -> log.info("连接池 {}", pool));
+        connectionProviders.forEach(ConnectionProvider::dispose);
+    }
+}
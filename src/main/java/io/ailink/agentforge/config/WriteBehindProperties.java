@@ -0,0 +1,76 @@
+package io.ailink.agentforge.config;
+
+import java.time.Duration;
+
+/**
+ * 消息异步批量写入配置
+ *
+ * 消息先进入有界队列，由后台写入线程攒批后在一个事务内提交（group commit）。
+ * 一批从第一条消息入队开始最多等待 flushInterval，或攒满 maxBatchSize 条时立即提交。
+ * 队列满时保存消息的调用方阻塞等待，直到写入线程腾出空间（背压）。
+ *
+ * 配置示例：
+ * <pre>
+ * agentforge:
+ *     history:
+ *         write-behind:
+ *             enabled: true
+ *             flush-interval: 200ms
+ *             max-batch-size: 50
+ *             queue-capacity: 1000
+ * </pre>
+ */
+public class WriteBehindProperties {
+
+    /**
+     * 是否启用异步写入，关闭时在调用线程上同步保存
+     */
+    private boolean enabled = true;
+
+    /**
+     * 一批消息的最长等待时间
+     */
+    private Duration flushInterval = Duration.ofMillis(200);
+
+    /**
+     * 每批提交的最大消息数（与 hibernate.jdbc.batch_size 一致时，一批消息对应一次 JDBC 批量插入）
+     */
+    private int maxBatchSize = 50;
+
+    /**
+     * 写入队列容量
+     */
+    private int queueCapacity = 1000;
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public Duration getFlushInterval() {
+        return flushInterval;
+    }
+
+    public void setFlushInterval(Duration flushInterval) {
+        this.flushInterval = flushInterval;
+    }
+
+    public int getMaxBatchSize() {
+        return maxBatchSize;
+    }
+
+    public void setMaxBatchSize(int maxBatchSize) {
+        this.maxBatchSize = maxBatchSize;
+    }
+
+    public int getQueueCapacity() {
+        return queueCapacity;
+    }
+
+    public void setQueueCapacity(int queueCapacity) {
+        this.queueCapacity = queueCapacity;
+    }
+}
@@ -9,6 +9,7 @@ public abstract class AbstractLlmProperties<T extends AbstractLlmProperties<T>>
     private String baseUrl;
     private String defaultModel;
     private int defaultMaxTokens = 1024;
+    private LlmHttpProperties http = new LlmHttpProperties();
 
     public abstract String getApiPath();
 
@@ -51,4 +52,14 @@ public abstract class AbstractLlmProperties<T extends AbstractLlmProperties<T>>
         this.defaultMaxTokens = defaultMaxTokens;
         return (T) this;
     }
+
+    public LlmHttpProperties getHttp() {
+        return http;
+    }
+
+    @SuppressWarnings("unchecked")
+    public T setHttp(LlmHttpProperties http) {
+        this.http = http;
+        return (T) this;
+    }
 }
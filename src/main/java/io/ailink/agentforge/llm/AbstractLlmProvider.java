@@ -1,18 +1,22 @@
 package io.ailink.agentforge.llm;
 
-import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ailink.agentforge.llm.dto.ChatMessage;
 import io.ailink.agentforge.llm.dto.ChatRequest;
 import io.ailink.agentforge.llm.dto.ChatResponse;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
+import io.ailink.agentforge.tool.ToolDefinition;
 import org.slf4j.Logger;
-import org.springframework.core.ParameterizedTypeReference;
-import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+import org.springframework.http.client.reactive.ClientHttpRequest;
+import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
 
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
+import java.util.function.Function;
 
 /**
  * LLM 提供者抽象基类
@@ -21,13 +25,15 @@ import java.util.Map;
  * 子类只需实现特定 Provider 的转换逻辑。
  *
  * 设计模式：Template Method
- * - chatAsync() 和 chatStream() 提供模板逻辑
- * - 子类实现 convertRequest(), convertResponse() 等钩子方法
+ * - chatAsync() 和 chatStreamEvents() 提供模板逻辑
+ * - 子类实现 convertRequest(), convertResponse(), createStreamAssembler() 等钩子方法
+ *
+ * 请求体由 {@link RequestBodyWriter} 分段写出，子类发送请求时直接使用传入的 BodyInserter。
  *
  * @param <P> Provider 特定的请求类型
  * @param <R> Provider 特定的响应类型
  */
-public abstract class AbstractLlmProvider<P, R> implements LlmProvider {
+public abstract class AbstractLlmProvider<P extends SegmentedRequest, R> implements LlmProvider {
 
     /**
      * WebClient 实例，用于发送 HTTP 请求
@@ -44,10 +50,16 @@ public abstract class AbstractLlmProvider<P, R> implements LlmProvider {
      */
     protected final Logger log;
 
+    /**
+     * 分段请求体写出器
+     */
+    private final RequestBodyWriter bodyWriter;
+
     protected AbstractLlmProvider(WebClient webClient, ObjectMapper objectMapper, Logger log) {
         this.webClient = webClient;
         this.objectMapper = objectMapper;
         this.log = log;
+        this.bodyWriter = new RequestBodyWriter(objectMapper);
     }
 
     /**
@@ -65,7 +77,7 @@ public abstract class AbstractLlmProvider<P, R> implements LlmProvider {
      *
      * 模板方法：
      * 1. 构建 Provider 特定请求
-     * 2. 发送请求
+     * 2. 分段写出请求体并发送请求
      * 3. 转换为通用响应
      * 4. 错误处理
      */
@@ -73,7 +85,7 @@ public abstract class AbstractLlmProvider<P, R> implements LlmProvider {
     public final Mono<? extends ChatResponse<?>> chatAsync(ChatRequest request) {
         P providerRequest = convertRequest(request, false);
 
-        return executeRequest(providerRequest)
+        return executeRequest(requestBody(providerRequest, request))
                 .map(this::convertResponse)
                 .onErrorResume(error -> {
                     log.error("LLM 请求失败: {}", error.getMessage());
@@ -84,18 +96,36 @@ public abstract class AbstractLlmProvider<P, R> implements LlmProvider {
     /**
      * 流式聊天
      *
+     * 仅输出文本增量，工具调用事件被忽略。
+     */
+    @Override
+    public final Flux<String> chatStream(ChatRequest request) {
+        return chatStreamEvents(request)
+                .ofType(ChatStreamEvent.TextDelta.class)
+                .map(ChatStreamEvent.TextDelta::text);
+    }
+
+    /**
+     * 流式聊天事件
+     *
      * 模板方法：
      * 1. 构建 Provider 特定请求
      * 2. 发送流式请求
-     * 3. 过滤和提取内容块
+     * 3. 由每个流独立的解码器直接解析网络 DataBuffer，组装器把 JSON token 组装为类型化事件
      */
     @Override
-    public final Flux<String> chatStream(ChatRequest request) {
+    public final Flux<ChatStreamEvent> chatStreamEvents(ChatRequest request) {
         P providerRequest = convertRequest(request, true);
-
-        return executeStreamRequest(providerRequest)
-                .filter(this::shouldProcessEvent)
-                .mapNotNull(this::extractStreamContent);
+        BodyInserter<?, ? super ClientHttpRequest> body = requestBody(providerRequest, request);
+
+        return Flux.defer(() -> {
+            SseJsonDecoder decoder = new SseJsonDecoder(objectMapper.getFactory(), createStreamAssembler());
+            return executeStreamRequest(body)
+                    .concatMapIterable(decoder::decode)
+                    .concatWith(Flux.defer(() -> Flux.fromIterable(decoder.complete())))
+                    .doOnDiscard(DataBuffer.class, DataBufferUtils::release)
+                    .doFinally(signal -> decoder.close());
+        });
     }
 
     // ==================== 子类实现的模板钩子方法 ====================
@@ -120,34 +150,27 @@ public abstract class AbstractLlmProvider<P, R> implements LlmProvider {
     /**
      * 执行非流式请求
      *
-     * @param providerRequest Provider 特定请求
+     * @param body Provider 请求的请求体
      * @return 响应Publisher
      */
-    protected abstract Mono<R> executeRequest(P providerRequest);
+    protected abstract Mono<R> executeRequest(BodyInserter<?, ? super ClientHttpRequest> body);
 
     /**
      * 执行流式请求
      *
-     * @param providerRequest Provider 特定请求
-     * @return SSE 事件流
+     * @param body Provider 请求的请求体
+     * @return 响应体的原始数据块（由调用方解码并释放）
      */
-    protected abstract Flux<ServerSentEvent<String>> executeStreamRequest(P providerRequest);
+    protected abstract Flux<DataBuffer> executeStreamRequest(BodyInserter<?, ? super ClientHttpRequest> body);
 
     /**
-     * 判断是否处理该 SSE 事件
+     * 创建流式事件组装器
      *
-     * @param sse 服务器发送事件
-     * @return true 表示处理该事件
-     */
-    protected abstract boolean shouldProcessEvent(ServerSentEvent<String> sse);
-
-    /**
-     * 从 SSE 事件中提取文本内容
+     * 每次流式请求调用一次，组装器持有该流的解析路径和工具调用累积状态。
      *
-     * @param sse 服务器发送事件
-     * @return 文本内容，null 表示跳过
+     * @return 新的组装器实例
      */
-    protected abstract String extractStreamContent(ServerSentEvent<String> sse);
+    protected abstract StreamEventAssembler createStreamAssembler();
 
     /**
      * 获取 API 端点
@@ -159,17 +182,53 @@ public abstract class AbstractLlmProvider<P, R> implements LlmProvider {
     // ==================== 公共工具方法 ====================
 
     /**
-     * 将 JsonNode 转换为 Map
+     * 转换对话历史
+     *
+     * 请求携带对话级缓存时只转换上一轮之后新追加的消息，否则逐条完整转换。
+     *
+     * @param request   通用聊天请求
+     * @param converter 单条消息的转换函数
+     * @param <M>       Provider 消息类型
+     * @return 与 request.messages() 一一对应的 Provider 消息
+     */
+    protected <M> List<M> convertMessages(ChatRequest request, Function<ChatMessage, M> converter) {
+        MessageConversionCache cache = request.conversionCache();
+        if (cache == null) {
+            return request.messages().stream().map(converter).toList();
+        }
+        return cache.convert(this, request.messages(), converter);
+    }
+
+    /**
+     * 转换工具定义
      *
-     * @param node JSON 节点
-     * @return Map 对象
+     * 请求携带对话级缓存且工具集未变时复用上一轮的转换结果。
+     *
+     * @param request   通用聊天请求
+     * @param converter 单个工具定义的转换函数
+     * @param <T>       Provider 工具类型
+     * @return Provider 工具列表，请求不带工具时为 null
      */
-    @SuppressWarnings("unchecked")
-    protected Map<String, Object> toJsonMap(JsonNode node) {
-        if (node == null) {
-            return new HashMap<>();
+    protected <T> List<T> convertTools(ChatRequest request, Function<ToolDefinition, T> converter) {
+        if (!request.hasTools()) {
+            return null;
+        }
+        MessageConversionCache cache = request.conversionCache();
+        if (cache == null) {
+            return request.tools().stream().map(converter).toList();
         }
-        return objectMapper.convertValue(node, Map.class);
+        return cache.convertTools(this, request.tools(), converter);
+    }
+
+    /**
+     * 构建请求体：消息与工具定义的序列化字节通过对话级缓存复用
+     *
+     * @param providerRequest Provider 特定请求
+     * @param request         通用聊天请求（提供对话级缓存）
+     * @return 请求体插入器
+     */
+    protected BodyInserter<?, ? super ClientHttpRequest> requestBody(P providerRequest, ChatRequest request) {
+        return bodyWriter.inserter(providerRequest, request.conversionCache());
     }
 
     /**
@@ -0,0 +1,34 @@
+package io.ailink.agentforge.llm;
+
+/**
+ * 按字符比例估算 Token
+ *
+ * BPE 分词器对 ASCII 文本（英文、代码、JSON）平均每个 Token 覆盖数个字符，
+ * 对中文等非 ASCII 字符则接近每字一个 Token 甚至更多，因此两类字符分别计数：
+ * <pre>
+ * tokens = ceil(ASCII 字符数 / charsPerToken + 其他字符数 × tokensPerWideChar)
+ * </pre>
+ *
+ * @param charsPerToken     每个 Token 平均覆盖的 ASCII 字符数
+ * @param tokensPerWideChar 每个非 ASCII 字符平均占用的 Token 数
+ */
+public record CharRatioTokenEstimator(double charsPerToken, double tokensPerWideChar) implements TokenEstimator {
+
+    @Override
+    public int estimate(CharSequence text) {
+        if (text == null) {
+            return 0;
+        }
+        int ascii = 0;
+        int wide = 0;
+        for (int i = 0, length = text.length(); i < length; i++) {
+            char c = text.charAt(i);
+            if (c < 0x80) {
+                ascii++;
+            } else if (!Character.isLowSurrogate(c)) {
+                wide++;
+            }
+        }
+        return (int) Math.ceil(ascii / charsPerToken + wide * tokensPerWideChar);
+    }
+}
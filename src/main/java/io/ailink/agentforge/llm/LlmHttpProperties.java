@@ -0,0 +1,167 @@
+package io.ailink.agentforge.llm;
+
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+/**
+ * LLM Provider 的 HTTP 连接配置
+ *
+ * 每个 Provider 拥有独立的 Reactor Netty 连接池，突发的 Agent 流量复用已建立的
+ * TCP/TLS 连接，避免在冷连接上重复握手。
+ *
+ * 配置示例：
+ * <pre>
+ * agentforge:
+ *     llm:
+ *         claude:
+ *             http:
+ *                 max-connections: 50
+ *                 max-idle-time: 30s
+ * </pre>
+ */
+public class LlmHttpProperties {
+
+    /**
+     * 连接池最大连接数
+     */
+    private int maxConnections = 50;
+
+    /**
+     * 等待获取连接的最大排队请求数
+     */
+    private int pendingAcquireMaxCount = 500;
+
+    /**
+     * 获取连接的最长等待时间
+     */
+    private Duration pendingAcquireTimeout = Duration.ofSeconds(45);
+
+    /**
+     * 连接最大空闲时间，超过后被驱逐（应小于服务端的空闲断开时间）
+     */
+    private Duration maxIdleTime = Duration.ofSeconds(30);
+
+    /**
+     * 连接最大存活时间，到期后不再复用
+     */
+    private Duration maxLifeTime = Duration.ofMinutes(5);
+
+    /**
+     * 后台驱逐过期连接的间隔
+     */
+    private Duration evictInBackground = Duration.ofSeconds(30);
+
+    /**
+     * TCP 建连超时
+     */
+    private Duration connectTimeout = Duration.ofSeconds(10);
+
+    /**
+     * 是否在 HTTPS 端点上通过 ALPN 协商 HTTP/2（不支持时回退到 HTTP/1.1）
+     */
+    private boolean http2 = true;
+
+    /**
+     * TLS 会话缓存大小，用于新连接的会话复用（简化握手）
+     */
+    private int tlsSessionCacheSize = 1024;
+
+    /**
+     * TLS 会话缓存的有效期
+     */
+    private Duration tlsSessionTimeout = Duration.ofHours(1);
+
+    /**
+     * 非流式响应体在内存中聚合的最大字节数
+     */
+    private DataSize maxInMemorySize = DataSize.ofMegabytes(16);
+
+    public int getMaxConnections() {
+        return maxConnections;
+    }
+
+    public void setMaxConnections(int maxConnections) {
+        this.maxConnections = maxConnections;
+    }
+
+    public int getPendingAcquireMaxCount() {
+        return pendingAcquireMaxCount;
+    }
+
+    public void setPendingAcquireMaxCount(int pendingAcquireMaxCount) {
+        this.pendingAcquireMaxCount = pendingAcquireMaxCount;
+    }
+
+    public Duration getPendingAcquireTimeout() {
+        return pendingAcquireTimeout;
+    }
+
+    public void setPendingAcquireTimeout(Duration pendingAcquireTimeout) {
+        this.pendingAcquireTimeout = pendingAcquireTimeout;
+    }
+
+    public Duration getMaxIdleTime() {
+        return maxIdleTime;
+    }
+
+    public void setMaxIdleTime(Duration maxIdleTime) {
+        this.maxIdleTime = maxIdleTime;
+    }
+
+    public Duration getMaxLifeTime() {
+        return maxLifeTime;
+    }
+
+    public void setMaxLifeTime(Duration maxLifeTime) {
+        this.maxLifeTime = maxLifeTime;
+    }
+
+    public Duration getEvictInBackground() {
+        return evictInBackground;
+    }
+
+    public void setEvictInBackground(Duration evictInBackground) {
+        this.evictInBackground = evictInBackground;
+    }
+
+    public Duration getConnectTimeout() {
+        return connectTimeout;
+    }
+
+    public void setConnectTimeout(Duration connectTimeout) {
+        this.connectTimeout = connectTimeout;
+    }
+
+    public boolean isHttp2() {
+        return http2;
+    }
+
+    public void setHttp2(boolean http2) {
+        this.http2 = http2;
+    }
+
+    public int getTlsSessionCacheSize() {
+        return tlsSessionCacheSize;
+    }
+
+    public void setTlsSessionCacheSize(int tlsSessionCacheSize) {
+        this.tlsSessionCacheSize = tlsSessionCacheSize;
+    }
+
+    public Duration getTlsSessionTimeout() {
+        return tlsSessionTimeout;
+    }
+
+    public void setTlsSessionTimeout(Duration tlsSessionTimeout) {
+        this.tlsSessionTimeout = tlsSessionTimeout;
+    }
+
+    public DataSize getMaxInMemorySize() {
+        return maxInMemorySize;
+    }
+
+    public void setMaxInMemorySize(DataSize maxInMemorySize) {
+        this.maxInMemorySize = maxInMemorySize;
+    }
+}
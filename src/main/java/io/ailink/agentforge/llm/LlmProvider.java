@@ -3,6 +3,7 @@ package io.ailink.agentforge.llm;
 import io.ailink.agentforge.llm.claude.ClaudeProvider;
 import io.ailink.agentforge.llm.dto.ChatRequest;
 import io.ailink.agentforge.llm.dto.ChatResponse;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
 import io.ailink.agentforge.llm.openai.OpenAiProvider;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -30,6 +31,9 @@ import reactor.core.publisher.Mono;
  *
  * // 流式调用
  * Flux&lt;String&gt; stream = provider.chatStream(request);
+ *
+ * // 流式事件（文本增量 + 工具调用）
+ * Flux&lt;ChatStreamEvent&gt; events = provider.chatStreamEvents(request);
  * </pre>
  */
 public interface LlmProvider {
@@ -57,4 +61,26 @@ public interface LlmProvider {
      * @return 内容流（每个元素是一段文本）
      */
     Flux<String> chatStream(ChatRequest request);
+
+    /**
+     * 流式聊天事件
+     *
+     * 与 chatStream 不同，该方法同时输出工具调用的组装过程，
+     * 调用方可以在工具调用块闭合时立即执行工具，而无需等待整个响应结束。
+     *
+     * @param request 聊天请求
+     * @return 类型化事件流（文本增量、工具调用、停止原因）
+     */
+    Flux<ChatStreamEvent> chatStreamEvents(ChatRequest request);
+
+    /**
+     * 本 Provider 默认模型的本地 Token 估算器
+     *
+     * 默认实现按偏保守的字符比例估算，Provider 可按其分词器特点覆盖。
+     *
+     * @return Token 估算器
+     */
+    default TokenEstimator tokenEstimator() {
+        return new CharRatioTokenEstimator(3.5, 1.5);
+    }
 }
@@ -0,0 +1,183 @@
+package io.ailink.agentforge.llm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.tool.ToolDefinition;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * 已转换消息缓存
+ *
+ * 每个对话持有一个实例（见 ConversationState），随 {@link io.ailink.agentforge.llm.dto.ChatRequest}
+ * 传给 Provider。对话历史只追加，因此上一轮已转换的 Provider 消息可以直接复用，
+ * 每轮只转换新追加的消息，请求构建的开销与新消息数成正比，而不是与历史长度成正比。
+ *
+ * 缓存按源消息的引用校验：本轮历史的末条缓存位置必须与缓存末条是同一个对象。
+ * 历史从头部裁剪（上下文窗口管理）时只丢弃被裁掉的前缀；历史被替换或清空时丢弃整个缓存重新转换。
+ * 切换 Provider 时同样失效。
+ *
+ * 除转换结果外，还缓存每条 Provider 消息和工具定义列表序列化后的 JSON 字节，
+ * 由 {@link RequestBodyWriter} 拼接请求体时复用（见 {@link #serialize}）。
+ */
+public class MessageConversionCache {
+
+    private Object owner;
+    private final List<ChatMessage> sources = new ArrayList<>();
+    private final List<Object> converted = new ArrayList<>();
+
+    private List<ToolDefinition> toolSources;
+    private List<?> convertedTools;
+
+    /**
+     * 转换结果 → 序列化后的 JSON 字节（尚未序列化时值为 null）
+     */
+    private final Map<Object, byte[]> segments = new IdentityHashMap<>();
+
+    /**
+     * 转换对话历史，复用已缓存的前缀
+     *
+     * @param owner     转换方（Provider 实例），转换结果只对同一转换方有效
+     * @param messages  本轮完整的对话历史
+     * @param converter 单条消息的转换函数
+     * @param <M>       Provider 消息类型
+     * @return 与 messages 一一对应的转换结果
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <M> List<M> convert(Object owner, List<ChatMessage> messages,
+                                            Function<ChatMessage, M> converter) {
+        checkOwner(owner);
+        int dropped = droppedHead(messages);
+        if (dropped < 0) {
+            clearMessages();
+        } else if (dropped > 0) {
+            dropHead(dropped);
+        }
+        for (int i = sources.size(); i < messages.size(); i++) {
+            ChatMessage message = messages.get(i);
+            M value = converter.apply(message);
+            sources.add(message);
+            converted.add(value);
+            segments.put(value, null);
+        }
+        return (List<M>) List.copyOf(converted);
+    }
+
+    /**
+     * 转换工具定义列表
+     *
+     * ToolRegistry 在工具集不变时返回同一个列表实例，此时直接返回上一次的转换结果，
+     * 其序列化字节也随之复用。
+     *
+     * @param owner     转换方（Provider 实例）
+     * @param tools     本轮的工具定义
+     * @param converter 单个工具定义的转换函数
+     * @param <T>       Provider 工具类型
+     * @return 转换后的工具列表
+     */
+    @SuppressWarnings("unchecked")
+    public synchronized <T> List<T> convertTools(Object owner, List<ToolDefinition> tools,
+                                                 Function<ToolDefinition, T> converter) {
+        checkOwner(owner);
+        if (toolSources != tools) {
+            if (convertedTools != null) {
+                segments.remove(convertedTools);
+            }
+            toolSources = tools;
+            convertedTools = tools.stream().map(converter).toList();
+            segments.put(convertedTools, null);
+        }
+        return (List<T>) convertedTools;
+    }
+
+    /**
+     * 序列化转换结果
+     *
+     * 由本缓存产生的消息或工具列表只序列化一次，之后直接返回缓存的字节（调用方不得修改）；
+     * 其他对象（如 OpenAI 每轮重新构造的 system 消息）每次重新序列化。
+     *
+     * @param value  Provider 消息或工具列表
+     * @param writer JSON 写出器
+     * @return JSON 字节
+     */
+    public synchronized byte[] serialize(Object value, ObjectWriter writer) throws JsonProcessingException {
+        if (!segments.containsKey(value)) {
+            return writer.writeValueAsBytes(value);
+        }
+        byte[] json = segments.get(value);
+        if (json == null) {
+            json = writer.writeValueAsBytes(value);
+            segments.put(value, json);
+        }
+        return json;
+    }
+
+    /**
+     * 清空缓存（对话被清空时调用）
+     */
+    public synchronized void clear() {
+        owner = null;
+        sources.clear();
+        converted.clear();
+        toolSources = null;
+        convertedTools = null;
+        segments.clear();
+    }
+
+    /**
+     * 已缓存的消息数
+     */
+    public synchronized int size() {
+        return sources.size();
+    }
+
+    private void checkOwner(Object owner) {
+        if (this.owner != owner) {
+            clear();
+            this.owner = owner;
+        }
+    }
+
+    private void clearMessages() {
+        converted.forEach(segments::remove);
+        sources.clear();
+        converted.clear();
+    }
+
+    private void dropHead(int count) {
+        converted.subList(0, count).forEach(segments::remove);
+        sources.subList(0, count).clear();
+        converted.subList(0, count).clear();
+    }
+
+    /**
+     * 计算缓存中有多少条开头的消息已从历史头部移除
+     *
+     * @return 移除的条数；历史不再以缓存的某个后缀开头时返回 -1
+     */
+    private int droppedHead(List<ChatMessage> messages) {
+        int cached = sources.size();
+        if (cached == 0) {
+            return 0;
+        }
+        if (messages.isEmpty()) {
+            return -1;
+        }
+        ChatMessage first = messages.getFirst();
+        int dropped = 0;
+        while (dropped < cached && sources.get(dropped) != first) {
+            dropped++;
+        }
+        int remaining = cached - dropped;
+        if (remaining == 0 || messages.size() < remaining
+                || messages.get(remaining - 1) != sources.get(cached - 1)) {
+            return -1;
+        }
+        return dropped;
+    }
+}
@@ -0,0 +1,109 @@
+package io.ailink.agentforge.llm;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferFactory;
+import org.springframework.http.ReactiveHttpOutputMessage;
+import org.springframework.web.reactive.function.BodyInserter;
+import reactor.core.publisher.Mono;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 分段请求体写出器
+ *
+ * 不再把整个请求对象交给 Jackson 编码，而是按段拼接 JSON：
+ * <pre>
+ * {头部字段..., "messages":[消息1,消息2,...], "tools":[...]}
+ * </pre>
+ * 每条消息和工具列表的字节来自 {@link MessageConversionCache}，长对话中只有本轮新增的消息需要序列化。
+ * 各段字节包装为 DataBuffer 后合并为一个复合缓冲区写出（Netty 下为 CompositeByteBuf，不复制字节），
+ * 并设置 Content-Length。
+ */
+public final class RequestBodyWriter {
+
+    private static final byte[] COMMA = {','};
+    private static final byte[] MESSAGES_START = "\"messages\":[".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] MESSAGES_END = {']'};
+    private static final byte[] TOOLS_START = ",\"tools\":".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] OBJECT_END = {'}'};
+
+    private final ObjectWriter writer;
+
+    public RequestBodyWriter(ObjectMapper objectMapper) {
+        this.writer = objectMapper.writer();
+    }
+
+    /**
+     * 生成请求体的各段字节，依次拼接即为完整的请求 JSON
+     *
+     * @param request 分段请求
+     * @param cache   对话级缓存，为 null 时每段都重新序列化
+     * @return 请求体分段（与缓存共享，调用方不得修改）
+     */
+    public List<byte[]> segments(SegmentedRequest request, MessageConversionCache cache)
+            throws JsonProcessingException {
+        List<?> messages = request.messages();
+        List<byte[]> segments = new ArrayList<>(messages.size() * 2 + 6);
+
+        byte[] header = writer.writeValueAsBytes(request.header());
+        // 头部对象的右括号换成逗号，后面接 messages 字段
+        segments.add(header.length > 2 ? withTrailingComma(header) : new byte[]{'{'});
+        segments.add(MESSAGES_START);
+        for (int i = 0; i < messages.size(); i++) {
+            if (i > 0) {
+                segments.add(COMMA);
+            }
+            segments.add(serialize(messages.get(i), cache));
+        }
+        segments.add(MESSAGES_END);
+
+        if (request.tools() != null) {
+            segments.add(TOOLS_START);
+            segments.add(serialize(request.tools(), cache));
+        }
+        segments.add(OBJECT_END);
+        return segments;
+    }
+
+    /**
+     * 请求体插入器：在写出时生成分段并合并为一个 DataBuffer
+     *
+     * @param request 分段请求
+     * @param cache   对话级缓存，可为 null
+     */
+    public BodyInserter<SegmentedRequest, ReactiveHttpOutputMessage> inserter(SegmentedRequest request,
+                                                                              MessageConversionCache cache) {
+        return (message, context) -> Mono.defer(() -> {
+            List<byte[]> segments;
+            try {
+                segments = segments(request, cache);
+            } catch (JsonProcessingException e) {
+                return Mono.error(e);
+            }
+            DataBufferFactory bufferFactory = message.bufferFactory();
+            List<DataBuffer> buffers = new ArrayList<>(segments.size());
+            long length = 0;
+            for (byte[] segment : segments) {
+                buffers.add(bufferFactory.wrap(segment));
+                length += segment.length;
+            }
+            message.getHeaders().setContentLength(length);
+            return message.writeWith(Mono.just(bufferFactory.join(buffers)));
+        });
+    }
+
+    private byte[] serialize(Object value, MessageConversionCache cache) throws JsonProcessingException {
+        return cache != null ? cache.serialize(value, writer) : writer.writeValueAsBytes(value);
+    }
+
+    private static byte[] withTrailingComma(byte[] header) {
+        // {"model":"x"} → {"model":"x",
+        header[header.length - 1] = ',';
+        return header;
+    }
+}
@@ -0,0 +1,28 @@
+package io.ailink.agentforge.llm;
+
+import java.util.List;
+
+/**
+ * 可分段序列化的 Provider 请求
+ *
+ * 请求体由三段组成：消息列表、工具定义列表，以及其余的小字段（model、max_tokens 等）。
+ * {@link RequestBodyWriter} 分别序列化这三段后拼接，消息和工具可复用对话级缓存中的字节。
+ * 请求记录类的 messages() / tools() 访问器直接满足本接口。
+ */
+public interface SegmentedRequest {
+
+    /**
+     * 消息列表
+     */
+    List<?> messages();
+
+    /**
+     * 工具定义列表（没有工具时为 null）
+     */
+    List<?> tools();
+
+    /**
+     * 去掉 messages 和 tools 的请求副本，序列化后作为请求体的头部
+     */
+    Object header();
+}
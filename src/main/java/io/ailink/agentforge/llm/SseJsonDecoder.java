@@ -0,0 +1,175 @@
+package io.ailink.agentforge.llm;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.async.ByteBufferFeeder;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
+import org.springframework.core.io.buffer.DataBuffer;
+import org.springframework.core.io.buffer.DataBufferUtils;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SSE 流解码器
+ *
+ * 直接扫描网络层的 {@link DataBuffer}：按行识别 {@code data:} 字段，
+ * 把其后的字节原样喂给 Jackson 的非阻塞解析器，token 交给 {@link StreamEventAssembler}。
+ * 不把帧解码为 String，也不反序列化为 DTO；跨 DataBuffer 的行和 JSON 由解析器自身续接。
+ *
+ * 每个 data 负载都是一个完整的根 JSON 对象，整个流共用一个解析器（根级值序列）。
+ * 以 '[' 开头的负载（OpenAI 的 {@code [DONE]}）不是 JSON 对象，转交 {@link StreamEventAssembler#onDone}。
+ * event:、id: 等其他字段被跳过，事件类型以 JSON 中的 type 字段为准。
+ *
+ * 每个流创建一个实例，非线程安全。
+ */
+public class SseJsonDecoder implements AutoCloseable {
+
+    private static final byte[] DATA_FIELD = {'d', 'a', 't', 'a', ':'};
+
+    private static final int LINE_START = 0;
+    private static final int DATA_START = 1;
+    private static final int DATA = 2;
+    private static final int SKIP_LINE = 3;
+
+    private final JsonParser parser;
+    private final ByteBufferFeeder feeder;
+    private final StreamEventAssembler assembler;
+
+    private int state = LINE_START;
+    private int fieldPos;
+    private boolean closed;
+
+    public SseJsonDecoder(JsonFactory jsonFactory, StreamEventAssembler assembler) {
+        try {
+            this.parser = jsonFactory.createNonBlockingByteBufferParser();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        this.feeder = (ByteBufferFeeder) parser.getNonBlockingInputFeeder();
+        this.assembler = assembler;
+    }
+
+    /**
+     * 解码一个网络数据块，解码后释放该 DataBuffer
+     *
+     * @param buffer 网络数据块
+     * @return 本数据块产生的流式事件
+     */
+    public List<ChatStreamEvent> decode(DataBuffer buffer) {
+        List<ChatStreamEvent> out = new ArrayList<>(2);
+        try (DataBuffer.ByteBufferIterator iterator = buffer.readableByteBuffers()) {
+            while (iterator.hasNext()) {
+                scan(iterator.next(), out);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse stream event", e);
+        } finally {
+            DataBufferUtils.release(buffer);
+        }
+        return out;
+    }
+
+    /**
+     * 流结束，输出解析器中剩余的事件
+     */
+    public List<ChatStreamEvent> complete() {
+        List<ChatStreamEvent> out = new ArrayList<>(1);
+        try {
+            feeder.endOfInput();
+            pump(out);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to parse stream event", e);
+        } finally {
+            close();
+        }
+        return out;
+    }
+
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            parser.close();
+        } catch (IOException ignored) {
+            // 非阻塞解析器没有底层输入源，close 只归还内部缓冲区
+        }
+    }
+
+    private void scan(ByteBuffer bytes, List<ChatStreamEvent> out) throws IOException {
+        int pos = bytes.position();
+        int limit = bytes.limit();
+        while (pos < limit) {
+            switch (state) {
+                case LINE_START -> {
+                    byte b = bytes.get(pos);
+                    if (b == '\n' || b == '\r') {
+                        fieldPos = 0;
+                        pos++;
+                    } else if (b == DATA_FIELD[fieldPos]) {
+                        pos++;
+                        if (++fieldPos == DATA_FIELD.length) {
+                            fieldPos = 0;
+                            state = DATA_START;
+                        }
+                    } else {
+                        fieldPos = 0;
+                        state = SKIP_LINE;
+                    }
+                }
+                case DATA_START -> {
+                    byte b = bytes.get(pos);
+                    if (b == ' ') {
+                        pos++;
+                    } else if (b == '\n' || b == '\r') {
+                        state = LINE_START;
+                    } else if (b == '[') {
+                        assembler.onDone(out);
+                        state = SKIP_LINE;
+                    } else {
+                        state = DATA;
+                    }
+                }
+                case DATA -> {
+                    int end = lineEnd(bytes, pos, limit);
+                    feeder.feedInput(bytes.slice(pos, end - pos));
+                    pump(out);
+                    pos = end;
+                    if (end < limit) {
+                        state = LINE_START;
+                    }
+                }
+                default -> {
+                    pos = lineEnd(bytes, pos, limit);
+                    if (pos < limit) {
+                        state = LINE_START;
+                    }
+                }
+            }
+        }
+    }
+
+    private void pump(List<ChatStreamEvent> out) throws IOException {
+        JsonToken token;
+        while ((token = parser.nextToken()) != null && token != JsonToken.NOT_AVAILABLE) {
+            assembler.accept(token, parser, out);
+        }
+    }
+
+    private static int lineEnd(ByteBuffer bytes, int from, int limit) {
+        for (int i = from; i < limit; i++) {
+            byte b = bytes.get(i);
+            if (b == '\n' || b == '\r') {
+                return i;
+            }
+        }
+        return limit;
+    }
+}
@@ -0,0 +1,124 @@
+package io.ailink.agentforge.llm;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * 流式事件组装器
+ *
+ * 由 {@link SseJsonDecoder} 逐个推送 SSE data 负载中的 JSON token，
+ * 子类只读取需要的字段（如 delta.text、choices[0].delta.content），
+ * 在事件 JSON 结束时组装为类型化的 {@link ChatStreamEvent}，不构建中间 DTO 或 JsonNode。
+ *
+ * 基类负责跟踪嵌套路径：{@link #depth()} 为当前打开的容器层数（根对象内为 1），
+ * {@link #container(int)} 返回第 level 层容器对应的字段名（根为 null，数组元素为 null）。
+ *
+ * 组装器是有状态的（需要累积工具调用参数片段），每个流创建一个实例，不可跨流复用。
+ */
+public abstract class StreamEventAssembler {
+
+    private static final int MAX_DEPTH = 32;
+
+    private final String[] containerNames = new String[MAX_DEPTH];
+    private int depth;
+    private String fieldName;
+
+    /**
+     * 处理一个 JSON token
+     *
+     * @param token  当前 token
+     * @param parser 解析器（定位在该 token 上）
+     * @param out    输出的流式事件
+     */
+    final void accept(JsonToken token, JsonParser parser, List<ChatStreamEvent> out) throws IOException {
+        switch (token) {
+            case FIELD_NAME -> fieldName = parser.currentName();
+            case START_OBJECT, START_ARRAY -> {
+                if (depth < MAX_DEPTH) {
+                    containerNames[depth] = fieldName;
+                }
+                depth++;
+                fieldName = null;
+            }
+            case END_OBJECT, END_ARRAY -> {
+                depth--;
+                fieldName = null;
+                if (token == JsonToken.END_OBJECT) {
+                    if (depth == 0) {
+                        onEventEnd(out);
+                    } else {
+                        onObjectEnd(depth, out);
+                    }
+                }
+            }
+            case VALUE_NULL -> fieldName = null;
+            default -> {
+                onValue(fieldName, parser, out);
+                fieldName = null;
+            }
+        }
+    }
+
+    /**
+     * 标量值（字符串、数字、布尔）
+     *
+     * @param field  值所属的字段名（数组元素为 null）
+     * @param parser 解析器，可通过 getText()/getIntValue() 读取值
+     * @param out    输出的流式事件
+     */
+    protected abstract void onValue(String field, JsonParser parser, List<ChatStreamEvent> out) throws IOException;
+
+    /**
+     * 嵌套对象结束
+     *
+     * @param depth 对象结束后的层数
+     * @param out   输出的流式事件
+     */
+    protected void onObjectEnd(int depth, List<ChatStreamEvent> out) {
+    }
+
+    /**
+     * 一个事件（SSE data 中的根 JSON 对象）结束
+     *
+     * @param out 输出的流式事件
+     */
+    protected abstract void onEventEnd(List<ChatStreamEvent> out);
+
+    /**
+     * 非 JSON 的结束标记（如 OpenAI 的 data: [DONE]）
+     *
+     * @param out 输出的流式事件
+     */
+    protected void onDone(List<ChatStreamEvent> out) {
+    }
+
+    protected final int depth() {
+        return depth;
+    }
+
+    protected final String container(int level) {
+        return level < depth && level < MAX_DEPTH ? containerNames[level] : null;
+    }
+
+    /**
+     * 比较当前字符串值与常量，直接读取解析器的字符缓冲区，不创建 String
+     */
+    protected static boolean textEquals(JsonParser parser, String expected) throws IOException {
+        int length = parser.getTextLength();
+        if (length != expected.length()) {
+            return false;
+        }
+        char[] chars = parser.getTextCharacters();
+        int offset = parser.getTextOffset();
+        for (int i = 0; i < length; i++) {
+            if (chars[offset + i] != expected.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -0,0 +1,46 @@
+package io.ailink.agentforge.llm;
+
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.tool.ToolCall;
+
+/**
+ * 本地 Token 估算器
+ *
+ * 在不调用 Provider 接口的情况下估算文本占用的 Token 数，用于上下文窗口预算。
+ * 估算值只需与真实分词器同一量级并略微偏高，不追求精确。
+ * 每个 Provider 按其模型的分词特点提供实现（见 {@link LlmProvider#tokenEstimator()}）。
+ */
+public interface TokenEstimator {
+
+    /**
+     * 估算文本的 Token 数
+     *
+     * @param text 文本（可为 null）
+     * @return Token 数
+     */
+    int estimate(CharSequence text);
+
+    /**
+     * 每条消息的固定开销（角色标记、分隔符等）
+     */
+    default int messageOverhead() {
+        return 4;
+    }
+
+    /**
+     * 估算一条对话消息的 Token 数（内容、工具调用名称与参数、工具调用 ID）
+     *
+     * @param message 对话消息
+     * @return Token 数
+     */
+    default int estimate(ChatMessage message) {
+        int tokens = messageOverhead() + estimate(message.content()) + estimate(message.toolCallId());
+        if (message.hasToolCalls()) {
+            for (ToolCall toolCall : message.toolCalls()) {
+                tokens += messageOverhead() + estimate(toolCall.id()) + estimate(toolCall.name())
+                        + estimate(toolCall.arguments().json());
+            }
+        }
+        return tokens;
+    }
+}
@@ -1,10 +1,9 @@
 package io.ailink.agentforge.llm.claude;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
 import io.ailink.agentforge.llm.dto.ChatResponse;
 import io.ailink.agentforge.llm.dto.TokenUsage;
 import io.ailink.agentforge.llm.claude.dto.ClaudeResponse;
+import io.ailink.agentforge.tool.ToolArguments;
 import io.ailink.agentforge.tool.ToolCall;
 
 import java.util.Collections;
@@ -15,7 +14,6 @@ public class ClaudeChatResponse implements ChatResponse<ClaudeResponse> {
 
     private final ClaudeResponse raw;
     private final List<ToolCall> toolCalls;
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
     public ClaudeChatResponse(ClaudeResponse raw) {
         this.raw = raw;
@@ -73,12 +71,8 @@ public class ClaudeChatResponse implements ChatResponse<ClaudeResponse> {
         }
         return response.content().stream()
                 .filter(block -> "tool_use".equals(block.type()))
-                .map(block -> {
-                    JsonNode input = block.input() != null 
-                            ? objectMapper.valueToTree(block.input()) 
-                            : objectMapper.createObjectNode();
-                    return new ToolCall(block.id(), block.name(), input);
-                })
+                .map(block -> new ToolCall(block.id(), block.name(),
+                        block.input() != null ? block.input() : ToolArguments.empty()))
                 .toList();
     }
 }
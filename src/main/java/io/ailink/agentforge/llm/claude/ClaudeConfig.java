@@ -1,9 +1,19 @@
 package io.ailink.agentforge.llm.claude;
 
+import io.ailink.agentforge.config.WebClientFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 @EnableConfigurationProperties(ClaudeProperties.class)
 public class ClaudeConfig {
+
+    @Bean
+    @Qualifier("claude")
+    public WebClient claudeWebClient(WebClientFactory webClientFactory, ClaudeProperties properties) {
+        return webClientFactory.create("claude", properties.getBaseUrl(), properties.getHttp());
+    }
 }
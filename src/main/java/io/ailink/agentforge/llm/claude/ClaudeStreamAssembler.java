@@ -0,0 +1,230 @@
+package io.ailink.agentforge.llm.claude;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ailink.agentforge.llm.StreamEventAssembler;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
+import io.ailink.agentforge.llm.dto.TokenUsage;
+import io.ailink.agentforge.tool.ToolArguments;
+import io.ailink.agentforge.tool.ToolCall;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Claude 流式事件组装器
+ *
+ * Claude Messages API 的流式协议：
+ * <pre>
+ * message_start → (content_block_start → content_block_delta* → content_block_stop)* → message_delta → message_stop
+ * </pre>
+ * text 块的 text_delta 直接输出为文本增量；tool_use 块的 input_json_delta
+ * 按块序号累积，content_block_stop 时组装为完整的工具调用。
+ *
+ * 只读取以下字段，其余字段（content_block.input、message.content 等）被跳过：
+ * type、index、message.{id, model, usage.input_tokens}、content_block.{type, id, name, text}、
+ * delta.{type, text, partial_json, stop_reason}、usage.output_tokens、error.message。
+ * type 字段直接比较解析器的字符缓冲区，不创建 String。
+ */
+public class ClaudeStreamAssembler extends StreamEventAssembler {
+
+    private enum EventType {
+        MESSAGE_START, CONTENT_BLOCK_START, CONTENT_BLOCK_DELTA, CONTENT_BLOCK_STOP, MESSAGE_DELTA, ERROR, OTHER
+    }
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * 进行中的工具调用块，key 为内容块序号
+     */
+    private final Map<Integer, PendingToolUse> pendingToolUses = new HashMap<>();
+
+    private int inputTokens;
+
+    // 当前事件的字段，事件结束时按 type 组装
+    private EventType type = EventType.OTHER;
+    private int index = -1;
+    private String messageId;
+    private String model;
+    private boolean toolUseBlock;
+    private String blockId;
+    private String blockName;
+    private String text;
+    private String partialJson;
+    private String stopReason;
+    private int outputTokens = -1;
+    private String errorMessage;
+
+    public ClaudeStreamAssembler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void onValue(String field, JsonParser parser, List<ChatStreamEvent> out) throws IOException {
+        if (field == null) {
+            return;
+        }
+        int depth = depth();
+        if (depth == 1) {
+            switch (field) {
+                case "type" -> type = eventType(parser);
+                case "index" -> index = parser.getIntValue();
+                default -> {
+                }
+            }
+            return;
+        }
+        String section = container(1);
+        if (depth == 2 && section != null) {
+            switch (section) {
+                case "delta" -> {
+                    switch (field) {
+                        case "text" -> text = parser.getText();
+                        case "partial_json" -> partialJson = parser.getText();
+                        case "stop_reason" -> stopReason = parser.getText();
+                        default -> {
+                        }
+                    }
+                }
+                case "content_block" -> {
+                    switch (field) {
+                        case "type" -> toolUseBlock = textEquals(parser, "tool_use");
+                        case "id" -> blockId = parser.getText();
+                        case "name" -> blockName = parser.getText();
+                        case "text" -> text = parser.getText();
+                        default -> {
+                        }
+                    }
+                }
+                case "message" -> {
+                    switch (field) {
+                        case "id" -> messageId = parser.getText();
+                        case "model" -> model = parser.getText();
+                        default -> {
+                        }
+                    }
+                }
+                case "usage" -> {
+                    if ("output_tokens".equals(field)) {
+                        outputTokens = parser.getIntValue();
+                    }
+                }
+                case "error" -> {
+                    if ("message".equals(field)) {
+                        errorMessage = parser.getText();
+                    }
+                }
+                default -> {
+                }
+            }
+        } else if (depth == 3 && "input_tokens".equals(field)
+                && "message".equals(section) && "usage".equals(container(2))) {
+            inputTokens = parser.getIntValue();
+        }
+    }
+
+    @Override
+    protected void onEventEnd(List<ChatStreamEvent> out) {
+        try {
+            switch (type) {
+                case MESSAGE_START -> out.add(new ChatStreamEvent.MessageStart(messageId, model));
+                case CONTENT_BLOCK_START -> onContentBlockStart(out);
+                case CONTENT_BLOCK_DELTA -> onContentBlockDelta(out);
+                case CONTENT_BLOCK_STOP -> onContentBlockStop(out);
+                case MESSAGE_DELTA -> {
+                    TokenUsage usage = outputTokens >= 0 ? TokenUsage.of(inputTokens, outputTokens) : null;
+                    out.add(new ChatStreamEvent.Stop(stopReason, usage));
+                }
+                case ERROR -> throw new RuntimeException("Claude API error: " + errorMessage);
+                default -> {
+                }
+            }
+        } finally {
+            reset();
+        }
+    }
+
+    private void onContentBlockStart(List<ChatStreamEvent> out) {
+        if (index < 0) {
+            return;
+        }
+        if (toolUseBlock) {
+            pendingToolUses.put(index, new PendingToolUse(blockId, blockName));
+            out.add(new ChatStreamEvent.ToolCallStart(index, blockId, blockName));
+        } else if (text != null && !text.isEmpty()) {
+            out.add(new ChatStreamEvent.TextDelta(text));
+        }
+    }
+
+    private void onContentBlockDelta(List<ChatStreamEvent> out) {
+        if (partialJson != null) {
+            PendingToolUse pending = pendingToolUses.get(index);
+            if (pending != null) {
+                pending.arguments.append(partialJson);
+                out.add(new ChatStreamEvent.ToolCallDelta(index, partialJson));
+            }
+        } else if (text != null) {
+            out.add(new ChatStreamEvent.TextDelta(text));
+        }
+    }
+
+    private void onContentBlockStop(List<ChatStreamEvent> out) {
+        PendingToolUse pending = pendingToolUses.remove(index);
+        if (pending == null) {
+            return;
+        }
+        ToolCall toolCall = new ToolCall(pending.id, pending.name,
+                ToolArguments.ofJson(pending.arguments.toString(), objectMapper));
+        out.add(new ChatStreamEvent.ToolCallComplete(index, toolCall));
+    }
+
+    private void reset() {
+        type = EventType.OTHER;
+        index = -1;
+        messageId = null;
+        model = null;
+        toolUseBlock = false;
+        blockId = null;
+        blockName = null;
+        text = null;
+        partialJson = null;
+        stopReason = null;
+        outputTokens = -1;
+        errorMessage = null;
+    }
+
+    private static EventType eventType(JsonParser parser) throws IOException {
+        if (textEquals(parser, "content_block_delta")) {
+            return EventType.CONTENT_BLOCK_DELTA;
+        }
+        if (textEquals(parser, "content_block_start")) {
+            return EventType.CONTENT_BLOCK_START;
+        }
+        if (textEquals(parser, "content_block_stop")) {
+            return EventType.CONTENT_BLOCK_STOP;
+        }
+        if (textEquals(parser, "message_start")) {
+            return EventType.MESSAGE_START;
+        }
+        if (textEquals(parser, "message_delta")) {
+            return EventType.MESSAGE_DELTA;
+        }
+        if (textEquals(parser, "error")) {
+            return EventType.ERROR;
+        }
+        return EventType.OTHER;
+    }
+
+    private static final class PendingToolUse {
+        private final String id;
+        private final String name;
+        private final StringBuilder arguments = new StringBuilder();
+
+        private PendingToolUse(String id, String name) {
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -2,9 +2,10 @@ package io.ailink.agentforge.llm.claude.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.ailink.agentforge.llm.SegmentedRequest;
 
 import java.util.List;
-import java.util.Map;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record ClaudeRequest(
@@ -15,7 +16,12 @@ public record ClaudeRequest(
         Double temperature,
         Boolean stream,
         List<Tool> tools
-) {
+) implements SegmentedRequest {
+
+    @Override
+    public ClaudeRequest header() {
+        return new ClaudeRequest(model, maxTokens, null, system, temperature, stream, null);
+    }
 
     public record Message(String role, Object content) {
         public static Message text(String role, String text) {
@@ -43,6 +49,6 @@ public record ClaudeRequest(
     public record Tool(
             String name,
             String description,
-            @JsonProperty("input_schema") Map<String, Object> inputSchema
+            @JsonProperty("input_schema") JsonNode inputSchema
     ) {}
 }
@@ -2,9 +2,9 @@ package io.ailink.agentforge.llm.claude.dto;
 
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import io.ailink.agentforge.tool.ToolArguments;
 
 import java.util.List;
-import java.util.Map;
 
 @JsonIgnoreProperties(ignoreUnknown = true)
 public record ClaudeResponse(
@@ -22,13 +22,13 @@ public record ClaudeResponse(
             @JsonProperty("tool_use_id") String toolUseId,
             String id,
             String name,
-            Map<String, Object> input
+            ToolArguments input
     ) {
         public static ContentBlock text(String text) {
             return new ContentBlock("text", text, null, null, null, null);
         }
 
-        public static ContentBlock toolUse(String id, String name, Map<String, Object> input) {
+        public static ContentBlock toolUse(String id, String name, ToolArguments input) {
             return new ContentBlock("tool_use", null, null, id, name, input);
         }
 
@@ -1,5 +1,6 @@
 package io.ailink.agentforge.llm.dto;
 
+import io.ailink.agentforge.llm.MessageConversionCache;
 import io.ailink.agentforge.tool.ToolCall;
 import io.ailink.agentforge.tool.ToolDefinition;
 
@@ -7,6 +8,8 @@ import java.util.List;
 
 /**
  * 聊天请求数据传输对象
+ *
+ * conversionCache 为可选的对话级已转换消息缓存，为 null 时 Provider 每次完整转换 messages。
  */
 public record ChatRequest(
         List<ChatMessage> messages,
@@ -14,7 +17,8 @@ public record ChatRequest(
         String system,
         Integer maxTokens,
         Double temperature,
-        List<ToolDefinition> tools
+        List<ToolDefinition> tools,
+        MessageConversionCache conversionCache
 ) {
 
     public static Builder builder() {
@@ -28,6 +32,7 @@ public record ChatRequest(
         private Integer maxTokens;
         private Double temperature;
         private List<ToolDefinition> tools;
+        private MessageConversionCache conversionCache;
 
         public Builder messages(List<ChatMessage> messages) {
             this.messages = messages;
@@ -59,8 +64,13 @@ public record ChatRequest(
             return this;
         }
 
+        public Builder conversionCache(MessageConversionCache conversionCache) {
+            this.conversionCache = conversionCache;
+            return this;
+        }
+
         public ChatRequest build() {
-            return new ChatRequest(messages, model, system, maxTokens, temperature, tools);
+            return new ChatRequest(messages, model, system, maxTokens, temperature, tools, conversionCache);
         }
     }
 
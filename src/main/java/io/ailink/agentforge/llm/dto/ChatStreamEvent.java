@@ -0,0 +1,71 @@
+package io.ailink.agentforge.llm.dto;
+
+import io.ailink.agentforge.tool.ToolCall;
+
+/**
+ * 流式聊天事件
+ *
+ * 统一 Claude 与 OpenAI 的流式协议，Provider 在解析 SSE 时把原始事件
+ * 组装成以下类型化事件：
+ * - MessageStart: 消息开始（响应 ID、模型）
+ * - TextDelta: 文本增量
+ * - ToolCallStart / ToolCallDelta: 工具调用开始与参数增量
+ * - ToolCallComplete: 工具调用块闭合，参数已完整，可立即执行
+ * - Stop: 本轮结束（停止原因、Token 使用量）
+ */
+public sealed interface ChatStreamEvent {
+
+    /**
+     * 消息开始
+     *
+     * @param id    响应 ID
+     * @param model 模型名称
+     */
+    record MessageStart(String id, String model) implements ChatStreamEvent {
+    }
+
+    /**
+     * 文本增量
+     *
+     * @param text 文本片段
+     */
+    record TextDelta(String text) implements ChatStreamEvent {
+    }
+
+    /**
+     * 工具调用开始
+     *
+     * @param index 工具调用在本轮响应中的序号
+     * @param id    调用 ID
+     * @param name  工具名称
+     */
+    record ToolCallStart(int index, String id, String name) implements ChatStreamEvent {
+    }
+
+    /**
+     * 工具调用参数增量
+     *
+     * @param index          工具调用序号
+     * @param argumentsDelta 参数 JSON 片段
+     */
+    record ToolCallDelta(int index, String argumentsDelta) implements ChatStreamEvent {
+    }
+
+    /**
+     * 工具调用完成
+     *
+     * @param index    工具调用序号
+     * @param toolCall 组装完成的工具调用
+     */
+    record ToolCallComplete(int index, ToolCall toolCall) implements ChatStreamEvent {
+    }
+
+    /**
+     * 本轮结束
+     *
+     * @param stopReason 停止原因（end_turn / tool_use / stop / tool_calls 等）
+     * @param usage      Token 使用量（Provider 未返回时为 null）
+     */
+    record Stop(String stopReason, TokenUsage usage) implements ChatStreamEvent {
+    }
+}
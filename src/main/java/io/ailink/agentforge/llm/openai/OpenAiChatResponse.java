@@ -1,29 +1,27 @@
 package io.ailink.agentforge.llm.openai;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.core.ObjectCodec;
 import io.ailink.agentforge.llm.dto.ChatResponse;
 import io.ailink.agentforge.llm.dto.TokenUsage;
 import io.ailink.agentforge.llm.openai.dto.OpenAiResponse;
+import io.ailink.agentforge.tool.ToolArguments;
 import io.ailink.agentforge.tool.ToolCall;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.Collections;
 import java.util.List;
 
 public class OpenAiChatResponse implements ChatResponse<OpenAiResponse> {
 
-    private static final Logger log = LoggerFactory.getLogger(OpenAiChatResponse.class);
-
     private final OpenAiResponse raw;
     private final List<ToolCall> toolCalls;
-    private final ObjectMapper objectMapper = new ObjectMapper();
 
-    public OpenAiChatResponse(OpenAiResponse raw) {
+    /**
+     * @param raw   原始响应
+     * @param codec 工具参数延迟解析使用的 ObjectCodec
+     */
+    public OpenAiChatResponse(OpenAiResponse raw, ObjectCodec codec) {
         this.raw = raw;
-        this.toolCalls = extractToolCalls(raw);
+        this.toolCalls = extractToolCalls(raw, codec);
     }
 
     @Override
@@ -75,7 +73,7 @@ public class OpenAiChatResponse implements ChatResponse<OpenAiResponse> {
         return toolCalls != null && !toolCalls.isEmpty();
     }
 
-    private List<ToolCall> extractToolCalls(OpenAiResponse response) {
+    private List<ToolCall> extractToolCalls(OpenAiResponse response, ObjectCodec codec) {
         if (response.choices() == null || response.choices().isEmpty()) {
             return Collections.emptyList();
         }
@@ -84,22 +82,8 @@ public class OpenAiChatResponse implements ChatResponse<OpenAiResponse> {
             return Collections.emptyList();
         }
         return message.toolCalls().stream()
-                .map(tc -> {
-                    JsonNode args = parseArguments(tc.function().arguments());
-                    return new ToolCall(tc.id(), tc.function().name(), args);
-                })
+                .map(tc -> new ToolCall(tc.id(), tc.function().name(),
+                        ToolArguments.ofJson(tc.function().arguments(), codec)))
                 .toList();
     }
-
-    private JsonNode parseArguments(String arguments) {
-        if (arguments == null || arguments.isBlank()) {
-            return objectMapper.createObjectNode();
-        }
-        try {
-            return objectMapper.readTree(arguments);
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to parse tool arguments: {}", arguments, e);
-            return objectMapper.createObjectNode();
-        }
-    }
 }
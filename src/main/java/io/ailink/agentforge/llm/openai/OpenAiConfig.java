@@ -1,9 +1,19 @@
 package io.ailink.agentforge.llm.openai;
 
+import io.ailink.agentforge.config.WebClientFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.web.reactive.function.client.WebClient;
 
 @Configuration
 @EnableConfigurationProperties(OpenAiProperties.class)
 public class OpenAiConfig {
+
+    @Bean
+    @Qualifier("openai")
+    public WebClient openaiWebClient(WebClientFactory webClientFactory, OpenAiProperties properties) {
+        return webClientFactory.create("openai", properties.getBaseUrl(), properties.getHttp());
+    }
 }
@@ -1,22 +1,24 @@
 package io.ailink.agentforge.llm.openai;
 
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import io.ailink.agentforge.llm.AbstractLlmProvider;
+import io.ailink.agentforge.llm.CharRatioTokenEstimator;
+import io.ailink.agentforge.llm.StreamEventAssembler;
+import io.ailink.agentforge.llm.TokenEstimator;
 import io.ailink.agentforge.llm.dto.ChatMessage;
 import io.ailink.agentforge.llm.dto.ChatRequest;
 import io.ailink.agentforge.llm.dto.ChatResponse;
 import io.ailink.agentforge.llm.openai.dto.OpenAiRequest;
 import io.ailink.agentforge.llm.openai.dto.OpenAiResponse;
-import io.ailink.agentforge.llm.openai.dto.OpenAiStreamEvent;
 import io.ailink.agentforge.tool.ToolCall;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.io.buffer.DataBuffer;
 import org.springframework.http.MediaType;
-import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.client.reactive.ClientHttpRequest;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.stereotype.Component;
+import org.springframework.web.reactive.function.BodyInserter;
 import org.springframework.web.reactive.function.client.WebClient;
 import reactor.core.publisher.Flux;
 import reactor.core.publisher.Mono;
@@ -29,58 +31,33 @@ import java.util.List;
 public class OpenAiProvider extends AbstractLlmProvider<OpenAiRequest, OpenAiResponse> {
 
     private static final Logger log = LoggerFactory.getLogger(OpenAiProvider.class);
+    private static final TokenEstimator O200K_TOKENS = new CharRatioTokenEstimator(4.0, 1.0);
+    private static final TokenEstimator CL100K_TOKENS = new CharRatioTokenEstimator(3.7, 1.3);
 
     private final OpenAiProperties properties;
 
-    public OpenAiProvider(WebClient webClient, OpenAiProperties properties, ObjectMapper objectMapper) {
+    public OpenAiProvider(@Qualifier("openai") WebClient webClient, OpenAiProperties properties, ObjectMapper objectMapper) {
         super(webClient, objectMapper, log);
         this.properties = properties;
     }
 
     @Override
     protected OpenAiRequest convertRequest(ChatRequest request, boolean stream) {
-        List<OpenAiRequest.Message> messages = new ArrayList<>();
+        List<OpenAiRequest.Message> history = convertMessages(request, this::convertMessage);
+        List<OpenAiRequest.Message> messages = new ArrayList<>(history.size() + 1);
 
         if (request.system() != null) {
             messages.add(OpenAiRequest.Message.text("system", request.system()));
         }
-
-        for (ChatMessage m : request.messages()) {
-            OpenAiRequest.Message openAiMsg = switch (m) {
-                case ChatMessage(String role, String content, List<ToolCall> toolCalls, String toolCallId)
-                        when "tool".equals(role) ->
-                    OpenAiRequest.Message.toolResult(toolCallId, content);
-                case ChatMessage(String role, String content, List<ToolCall> toolCalls, String toolCallId)
-                        when toolCalls != null && !toolCalls.isEmpty() -> {
-                    List<OpenAiRequest.ToolCall> openAiToolCalls = new ArrayList<>();
-                    for (var tc : toolCalls) {
-                        String argsJson;
-                        try {
-                            argsJson = objectMapper.writeValueAsString(tc.arguments());
-                        } catch (JsonProcessingException e) {
-                            argsJson = "{}";
-                        }
-                        openAiToolCalls.add(new OpenAiRequest.ToolCall(tc.id(), tc.name(), argsJson));
-                    }
-                    yield OpenAiRequest.Message.assistantWithTools(content, openAiToolCalls);
-                }
-                default -> OpenAiRequest.Message.text(m.role(), m.content());
-            };
-            messages.add(openAiMsg);
-        }
+        messages.addAll(history);
 
         String model = request.model() != null ? request.model() : properties.getDefaultModel();
         int maxTokens = request.maxTokens() != null ? request.maxTokens() : properties.getDefaultMaxTokens();
 
-        List<OpenAiRequest.Tool> tools = null;
-        if (request.hasTools()) {
-            tools = request.tools().stream()
-                    .map(td -> new OpenAiRequest.Tool(
-                            td.name(),
-                            td.description(),
-                            toJsonMap(td.inputSchema())))
-                    .toList();
-        }
+        List<OpenAiRequest.Tool> tools = convertTools(request, td -> new OpenAiRequest.Tool(
+                td.name(),
+                td.description(),
+                td.inputSchema()));
 
         return new OpenAiRequest(
                 model,
@@ -88,71 +65,80 @@ public class OpenAiProvider extends AbstractLlmProvider<OpenAiRequest, OpenAiRes
                 maxTokens,
                 request.temperature(),
                 stream ? true : null,
+                stream ? new OpenAiRequest.StreamOptions(true) : null,
                 tools
         );
     }
 
+    private OpenAiRequest.Message convertMessage(ChatMessage message) {
+        return switch (message) {
+            case ChatMessage(String role, String content, List<ToolCall> toolCalls, String toolCallId)
+                    when "tool".equals(role) ->
+                OpenAiRequest.Message.toolResult(toolCallId, content);
+            case ChatMessage(String role, String content, List<ToolCall> toolCalls, String toolCallId)
+                    when toolCalls != null && !toolCalls.isEmpty() -> {
+                List<OpenAiRequest.ToolCall> openAiToolCalls = new ArrayList<>();
+                for (var tc : toolCalls) {
+                    openAiToolCalls.add(new OpenAiRequest.ToolCall(tc.id(), tc.name(), tc.arguments().json()));
+                }
+                yield OpenAiRequest.Message.assistantWithTools(content, openAiToolCalls);
+            }
+            default -> OpenAiRequest.Message.text(message.role(), message.content());
+        };
+    }
+
     @Override
     protected ChatResponse<OpenAiResponse> convertResponse(OpenAiResponse rawResponse) {
-        return new OpenAiChatResponse(rawResponse);
+        return new OpenAiChatResponse(rawResponse, objectMapper);
     }
 
     @Override
-    protected Mono<OpenAiResponse> executeRequest(OpenAiRequest providerRequest) {
+    protected Mono<OpenAiResponse> executeRequest(BodyInserter<?, ? super ClientHttpRequest> body) {
         return webClient.post()
                 .uri(properties.getBaseUrl() + properties.getApiPath())
                 .header("Authorization", "Bearer " + properties.getApiKey())
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(providerRequest)
+                .body(body)
                 .retrieve()
                 .onStatus(status -> !status.is2xxSuccessful(),
                         response -> response.bodyToMono(String.class)
-                                .flatMap(body -> Mono.error(new RuntimeException(
-                                        "OpenAI API error " + response.statusCode() + ": " + body))))
+                                .flatMap(errorBody -> Mono.error(new RuntimeException(
+                                        "OpenAI API error " + response.statusCode() + ": " + errorBody))))
                 .bodyToMono(OpenAiResponse.class);
     }
 
     @Override
-    protected Flux<ServerSentEvent<String>> executeStreamRequest(OpenAiRequest providerRequest) {
+    protected Flux<DataBuffer> executeStreamRequest(BodyInserter<?, ? super ClientHttpRequest> body) {
         return webClient.post()
                 .uri(properties.getBaseUrl() + properties.getApiPath())
                 .header("Authorization", "Bearer " + properties.getApiKey())
                 .contentType(MediaType.APPLICATION_JSON)
-                .bodyValue(providerRequest)
+                .body(body)
                 .retrieve()
                 .onStatus(status -> !status.is2xxSuccessful(),
                         response -> response.bodyToMono(String.class)
-                                .flatMap(body -> Mono.error(new RuntimeException(
-                                        "OpenAI API error " + response.statusCode() + ": " + body))))
-                .bodyToFlux(new ParameterizedTypeReference<ServerSentEvent<String>>() {
-                });
+                                .flatMap(errorBody -> Mono.error(new RuntimeException(
+                                        "OpenAI API error " + response.statusCode() + ": " + errorBody))))
+                .bodyToFlux(DataBuffer.class);
     }
 
     @Override
-    protected boolean shouldProcessEvent(ServerSentEvent<String> sse) {
-        String data = sse.data();
-        return data != null && !"[DONE]".equals(data);
+    protected StreamEventAssembler createStreamAssembler() {
+        return new OpenAiStreamAssembler(objectMapper);
     }
 
+    /**
+     * gpt-4o / gpt-4.1 / o 系列使用 o200k 词表，英文约 4 字符/Token、中文约 1 Token/字；
+     * 更早的模型（cl100k 词表）中文占用更多
+     */
     @Override
-    protected String extractStreamContent(ServerSentEvent<String> sse) {
-        String data = sse.data();
-        if (data == null || "[DONE]".equals(data)) {
-            return null;
-        }
-        try {
-            OpenAiStreamEvent event = objectMapper.readValue(data, OpenAiStreamEvent.class);
-            if (event.choices() != null && !event.choices().isEmpty()) {
-                var delta = event.choices().getFirst().delta();
-                if (delta != null) {
-                    return delta.content();
-                }
-            }
-            return null;
-        } catch (JsonProcessingException e) {
-            log.warn("Failed to parse stream event: {}", data, e);
-            return null;
+    public TokenEstimator tokenEstimator() {
+        String model = properties.getDefaultModel();
+        if (model != null && (model.startsWith("gpt-4o") || model.startsWith("gpt-4.1")
+                || model.startsWith("gpt-5") || model.matches("o\\d.*"))) {
+            return O200K_TOKENS;
         }
+        return CL100K_TOKENS;
     }
 
     @Override
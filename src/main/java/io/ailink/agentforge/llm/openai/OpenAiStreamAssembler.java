@@ -0,0 +1,198 @@
+package io.ailink.agentforge.llm.openai;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ailink.agentforge.llm.StreamEventAssembler;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
+import io.ailink.agentforge.llm.dto.TokenUsage;
+import io.ailink.agentforge.tool.ToolArguments;
+import io.ailink.agentforge.tool.ToolCall;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * OpenAI 流式事件组装器
+ *
+ * Chat Completions 的流式 chunk 中，choices[0].delta.content 为文本增量，
+ * choices[0].delta.tool_calls[] 按 index 分片输出工具调用（首片带 id 和 name，
+ * 后续分片只带 arguments 片段）。
+ *
+ * OpenAI 按序号依次输出工具调用，因此出现更大的 index 即表示前一个调用已闭合；
+ * finish_reason 出现时闭合剩余的调用。Stop 事件延迟到 [DONE] 时输出，
+ * 以便带上 include_usage 返回的 Token 使用量。
+ *
+ * 只读取 id、model、usage、error.message 与 choices[].delta / finish_reason，
+ * 请求从不设置 n &gt; 1，因此不区分 choice 序号。
+ */
+public class OpenAiStreamAssembler extends StreamEventAssembler {
+
+    private final ObjectMapper objectMapper;
+
+    private PendingToolCall pending;
+    private String finishReason;
+    private int promptTokens = -1;
+    private int completionTokens = -1;
+    private boolean started;
+
+    // 当前事件的字段
+    private String messageId;
+    private String model;
+    private String errorMessage;
+    private boolean finished;
+
+    // 当前 tool_calls[] 元素的字段
+    private int toolIndex = -1;
+    private String toolId;
+    private String toolName;
+    private String toolArguments;
+
+    public OpenAiStreamAssembler(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    protected void onValue(String field, JsonParser parser, List<ChatStreamEvent> out) throws IOException {
+        if (field == null) {
+            return;
+        }
+        String section = container(1);
+        switch (depth()) {
+            case 1 -> {
+                if (!started) {
+                    switch (field) {
+                        case "id" -> messageId = parser.getText();
+                        case "model" -> model = parser.getText();
+                        default -> {
+                        }
+                    }
+                }
+            }
+            case 2 -> {
+                if ("usage".equals(section)) {
+                    switch (field) {
+                        case "prompt_tokens" -> promptTokens = parser.getIntValue();
+                        case "completion_tokens" -> completionTokens = parser.getIntValue();
+                        default -> {
+                        }
+                    }
+                } else if ("error".equals(section) && "message".equals(field)) {
+                    errorMessage = parser.getText();
+                }
+            }
+            case 3 -> {
+                if ("finish_reason".equals(field) && "choices".equals(section)) {
+                    finishReason = parser.getText();
+                    finished = true;
+                }
+            }
+            case 4 -> {
+                if ("content".equals(field) && "delta".equals(container(3))
+                        && "choices".equals(section) && parser.getTextLength() > 0) {
+                    ensureStarted(out);
+                    out.add(new ChatStreamEvent.TextDelta(parser.getText()));
+                }
+            }
+            case 6 -> {
+                if ("tool_calls".equals(container(4))) {
+                    switch (field) {
+                        case "index" -> toolIndex = parser.getIntValue();
+                        case "id" -> toolId = parser.getText();
+                        default -> {
+                        }
+                    }
+                }
+            }
+            case 7 -> {
+                if ("function".equals(container(6)) && "tool_calls".equals(container(4))) {
+                    switch (field) {
+                        case "name" -> toolName = parser.getText();
+                        case "arguments" -> toolArguments = parser.getText();
+                        default -> {
+                        }
+                    }
+                }
+            }
+            default -> {
+            }
+        }
+    }
+
+    @Override
+    protected void onObjectEnd(int depth, List<ChatStreamEvent> out) {
+        if (depth == 5 && "tool_calls".equals(container(4))) {
+            onToolCallDelta(out);
+            toolIndex = -1;
+            toolId = null;
+            toolName = null;
+            toolArguments = null;
+        }
+    }
+
+    @Override
+    protected void onEventEnd(List<ChatStreamEvent> out) {
+        if (errorMessage != null) {
+            throw new RuntimeException("OpenAI API error: " + errorMessage);
+        }
+        ensureStarted(out);
+        if (finished) {
+            finished = false;
+            completePending(out);
+        }
+    }
+
+    @Override
+    protected void onDone(List<ChatStreamEvent> out) {
+        completePending(out);
+        TokenUsage usage = promptTokens >= 0 ? TokenUsage.of(promptTokens, completionTokens) : null;
+        out.add(new ChatStreamEvent.Stop(finishReason, usage));
+    }
+
+    /**
+     * 首个 chunk 的 id、model 先于 choices 出现，在输出第一个事件前补发 MessageStart
+     */
+    private void ensureStarted(List<ChatStreamEvent> out) {
+        if (!started) {
+            started = true;
+            out.add(new ChatStreamEvent.MessageStart(messageId, model));
+            messageId = null;
+            model = null;
+        }
+    }
+
+    private void onToolCallDelta(List<ChatStreamEvent> out) {
+        ensureStarted(out);
+        if (pending == null || toolIndex != pending.index) {
+            completePending(out);
+            pending = new PendingToolCall(toolIndex, toolId, toolName);
+            out.add(new ChatStreamEvent.ToolCallStart(toolIndex, toolId, toolName));
+        }
+        if (toolArguments != null && !toolArguments.isEmpty()) {
+            pending.arguments.append(toolArguments);
+            out.add(new ChatStreamEvent.ToolCallDelta(toolIndex, toolArguments));
+        }
+    }
+
+    private void completePending(List<ChatStreamEvent> out) {
+        if (pending == null) {
+            return;
+        }
+        ToolCall toolCall = new ToolCall(pending.id, pending.name,
+                ToolArguments.ofJson(pending.arguments.toString(), objectMapper));
+        out.add(new ChatStreamEvent.ToolCallComplete(pending.index, toolCall));
+        pending = null;
+    }
+
+    private static final class PendingToolCall {
+        private final int index;
+        private final String id;
+        private final String name;
+        private final StringBuilder arguments = new StringBuilder();
+
+        private PendingToolCall(int index, String id, String name) {
+            this.index = index;
+            this.id = id;
+            this.name = name;
+        }
+    }
+}
@@ -2,9 +2,10 @@ package io.ailink.agentforge.llm.openai.dto;
 
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.JsonNode;
+import io.ailink.agentforge.llm.SegmentedRequest;
 
 import java.util.List;
-import java.util.Map;
 
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record OpenAiRequest(
@@ -13,10 +14,27 @@ public record OpenAiRequest(
         @JsonProperty("max_tokens") Integer maxTokens,
         Double temperature,
         Boolean stream,
+        @JsonProperty("stream_options") StreamOptions streamOptions,
         List<Tool> tools
-) {
+) implements SegmentedRequest {
 
-    public record Message(String role, String content, String toolCallId, List<ToolCall> toolCalls) {
+    @Override
+    public OpenAiRequest header() {
+        return new OpenAiRequest(model, null, maxTokens, temperature, stream, streamOptions, null);
+    }
+
+    /**
+     * 流式选项：include_usage 使最后一个 chunk 携带 Token 使用量
+     */
+    public record StreamOptions(@JsonProperty("include_usage") boolean includeUsage) {}
+
+    @JsonInclude(JsonInclude.Include.NON_NULL)
+    public record Message(
+            String role,
+            String content,
+            @JsonProperty("tool_call_id") String toolCallId,
+            @JsonProperty("tool_calls") List<ToolCall> toolCalls
+    ) {
         public static Message text(String role, String content) {
             return new Message(role, content, null, null);
         }
@@ -48,7 +66,7 @@ public record OpenAiRequest(
             String type,
             FunctionDef function
     ) {
-        public Tool(String name, String description, Map<String, Object> parameters) {
+        public Tool(String name, String description, JsonNode parameters) {
             this("function", new FunctionDef(name, description, parameters));
         }
     }
@@ -56,6 +74,6 @@ public record OpenAiRequest(
     public record FunctionDef(
             String name,
             String description,
-            Map<String, Object> parameters
+            JsonNode parameters
     ) {}
 }
@@ -0,0 +1,426 @@
+package io.ailink.agentforge.persistence.archive;
+
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 冷数据段：一天的消息归档后的只读文件
+ *
+ * 文件写入后不再修改（同一天再次归档时整体重写为新文件并原子替换）。布局：
+ * <pre>
+ * 文件头   magic(int) version(short) epochDay(long) messageCount(int) blockCount(int)
+ * 块索引   blockCount × { minId(long) maxId(long) count(int) offset(long) compressedLength(int) rawLength(int) }
+ * 数据块   Deflate 压缩，每块约 {@value #BLOCK_RAW_SIZE} 字节原始数据
+ * </pre>
+ * 块内每条消息依次为 id(long) sessionId(long，0 表示无) createdAt 秒(long) 纳秒(int)
+ * role(byte 长度 + UTF-8) content(int 长度 + UTF-8) payload(int 长度，-1 表示无 + 字节)
+ * inputTokens(int) outputTokens(int) latencyMs(int)（-1 表示无），消息按 (createdAt, id) 排序。
+ *
+ * 打开时只读取文件头和块索引（每块 36 字节），并检查块索引与文件长度、消息数一致，截断的文件在打开时即被拒绝；
+ * 读取消息时以只读方式映射整个文件，逐块直接从映射区解压，不经过额外的读缓冲。
+ * 按 ID 查找只解压 ID 范围覆盖该 ID 的块。
+ */
+public final class DaySegment {
+
+    private static final int MAGIC = 0x41465347; // "AFSG"
+    private static final short VERSION = 1;
+    private static final int HEADER_SIZE = 4 + 2 + 8 + 4 + 4;
+    private static final int INDEX_ENTRY_SIZE = 8 + 8 + 4 + 8 + 4 + 4;
+
+    /**
+     * 每个数据块的目标原始大小
+     */
+    private static final int BLOCK_RAW_SIZE = 64 * 1024;
+
+    private final Path path;
+    private final LocalDate date;
+    private final int messageCount;
+    private final List<Block> blocks;
+
+    private DaySegment(Path path, LocalDate date, int messageCount, List<Block> blocks) {
+        this.path = path;
+        this.date = date;
+        this.messageCount = messageCount;
+        this.blocks = blocks;
+    }
+
+    /**
+     * 打开段文件，读取文件头和块索引
+     *
+     * @param path 段文件
+     * @return 段
+     */
+    public static DaySegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+            readFully(channel, header, 0);
+            header.flip();
+            if (header.getInt() != MAGIC) {
+                throw new IOException("不是有效的归档段文件: " + path);
+            }
+            short version = header.getShort();
+            if (version != VERSION) {
+                throw new IOException("不支持的归档段版本 " + version + ": " + path);
+            }
+            LocalDate date = LocalDate.ofEpochDay(header.getLong());
+            int messageCount = header.getInt();
+            int blockCount = header.getInt();
+
+            long size = channel.size();
+            if (messageCount < 0 || blockCount < 0 || HEADER_SIZE + (long) blockCount * INDEX_ENTRY_SIZE > size) {
+                throw new IOException("归档段文件被截断: " + path);
+            }
+            ByteBuffer index = ByteBuffer.allocate(blockCount * INDEX_ENTRY_SIZE);
+            readFully(channel, index, HEADER_SIZE);
+            index.flip();
+            List<Block> blocks = new ArrayList<>(blockCount);
+            long indexedMessages = 0;
+            for (int i = 0; i < blockCount; i++) {
+                Block block = new Block(index.getLong(), index.getLong(), index.getInt(),
+                        index.getLong(), index.getInt(), index.getInt());
+                if (block.count() < 0 || block.rawLength() < 0 || block.compressedLength() < 0) {
+                    throw new IOException("归档段块索引损坏: " + path);
+                }
+                if (block.offset() < 0 || block.offset() + block.compressedLength() > size) {
+                    throw new IOException("归档段文件被截断: " + path);
+                }
+                indexedMessages += block.count();
+                blocks.add(block);
+            }
+            if (indexedMessages != messageCount) {
+                throw new IOException("归档段块索引与消息数不一致: " + path);
+            }
+            return new DaySegment(path, date, messageCount, List.copyOf(blocks));
+        }
+    }
+
+    /**
+     * 写入段文件
+     *
+     * 先写入同目录下的临时文件并落盘，重新打开临时文件读回全部消息，与写入的消息逐条比对一致后
+     * 再原子替换目标文件，读者只会看到完整的旧文件或新文件。比对失败时删除临时文件，原有的段不受影响。
+     *
+     * @param path     目标文件
+     * @param date     日期
+     * @param messages 当天的消息（按 (createdAt, id) 排序，id 已分配）
+     * @return 写入后的段
+     */
+    public static DaySegment write(Path path, LocalDate date, List<ChatMessageEntity> messages) throws IOException {
+        List<Block> blocks = new ArrayList<>();
+        List<byte[]> compressed = new ArrayList<>();
+        Deflater deflater = new Deflater(Deflater.BEST_COMPRESSION);
+        try {
+            ByteArrayOutputStream raw = new ByteArrayOutputStream(BLOCK_RAW_SIZE * 2);
+            DataOutputStream out = new DataOutputStream(raw);
+            // 偏移先按数据区内的相对位置记录，块数确定后再加上文件头和块索引的长度
+            long offset = 0;
+            int start = 0;
+            for (int i = 0; i < messages.size(); i++) {
+                writeMessage(out, messages.get(i));
+                if (raw.size() >= BLOCK_RAW_SIZE || i == messages.size() - 1) {
+                    byte[] data = deflate(deflater, raw.toByteArray());
+                    List<ChatMessageEntity> blockMessages = messages.subList(start, i + 1);
+                    blocks.add(new Block(
+                            blockMessages.stream().mapToLong(ChatMessageEntity::getId).min().orElseThrow(),
+                            blockMessages.stream().mapToLong(ChatMessageEntity::getId).max().orElseThrow(),
+                            blockMessages.size(), offset, data.length, raw.size()));
+                    compressed.add(data);
+                    offset += data.length;
+                    raw.reset();
+                    start = i + 1;
+                }
+            }
+        } finally {
+            deflater.end();
+        }
+
+        long dataStart = HEADER_SIZE + (long) INDEX_ENTRY_SIZE * blocks.size();
+        blocks.replaceAll(block -> new Block(block.minId(), block.maxId(), block.count(),
+                dataStart + block.offset(), block.compressedLength(), block.rawLength()));
+        ByteBuffer head = ByteBuffer.allocate((int) dataStart);
+        head.putInt(MAGIC).putShort(VERSION).putLong(date.toEpochDay()).putInt(messages.size()).putInt(blocks.size());
+        for (Block block : blocks) {
+            head.putLong(block.minId()).putLong(block.maxId()).putInt(block.count())
+                    .putLong(block.offset()).putInt(block.compressedLength()).putInt(block.rawLength());
+        }
+        head.flip();
+
+        Path temp = path.resolveSibling(path.getFileName() + ".tmp");
+        try {
+            try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                    StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+                writeFully(channel, head);
+                for (byte[] data : compressed) {
+                    writeFully(channel, ByteBuffer.wrap(data));
+                }
+                channel.force(true);
+            }
+            verify(open(temp), date, messages);
+        } catch (IOException | RuntimeException e) {
+            Files.deleteIfExists(temp);
+            throw e;
+        }
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        return new DaySegment(path, date, messages.size(), List.copyOf(blocks));
+    }
+
+    /**
+     * 读取当天全部消息
+     *
+     * @return 按 (createdAt, id) 排序的消息（游离实体）
+     */
+    public List<ChatMessageEntity> readAll() throws IOException {
+        List<ChatMessageEntity> messages = new ArrayList<>(messageCount);
+        MappedByteBuffer mapped = map();
+        Inflater inflater = new Inflater();
+        try {
+            for (Block block : blocks) {
+                readBlock(mapped, block, inflater, messages);
+            }
+        } finally {
+            inflater.end();
+        }
+        return messages;
+    }
+
+    /**
+     * 按 ID 查找消息
+     *
+     * @param id 消息 ID
+     * @return 找到的消息
+     */
+    public Optional<ChatMessageEntity> find(long id) throws IOException {
+        if (!mayContain(id)) {
+            return Optional.empty();
+        }
+        MappedByteBuffer mapped = null;
+        Inflater inflater = new Inflater();
+        try {
+            for (Block block : blocks) {
+                if (id < block.minId() || id > block.maxId()) {
+                    continue;
+                }
+                if (mapped == null) {
+                    mapped = map();
+                }
+                List<ChatMessageEntity> messages = new ArrayList<>(block.count());
+                readBlock(mapped, block, inflater, messages);
+                for (ChatMessageEntity message : messages) {
+                    if (message.getId() == id) {
+                        return Optional.of(message);
+                    }
+                }
+            }
+        } finally {
+            inflater.end();
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * ID 是否落在本段的 ID 范围内
+     */
+    public boolean mayContain(long id) {
+        return !blocks.isEmpty() && id >= minId() && id <= maxId();
+    }
+
+    public long minId() {
+        return blocks.stream().mapToLong(Block::minId).min().orElse(Long.MAX_VALUE);
+    }
+
+    public long maxId() {
+        return blocks.stream().mapToLong(Block::maxId).max().orElse(Long.MIN_VALUE);
+    }
+
+    public Path path() {
+        return path;
+    }
+
+    public LocalDate date() {
+        return date;
+    }
+
+    public int messageCount() {
+        return messageCount;
+    }
+
+    /**
+     * 读回段中的全部消息，与写入的消息逐字段比对
+     */
+    private static void verify(DaySegment segment, LocalDate date, List<ChatMessageEntity> expected) throws IOException {
+        List<ChatMessageEntity> actual = segment.readAll();
+        if (!segment.date().equals(date) || actual.size() != expected.size()) {
+            throw new IOException("归档段校验失败: 读回 " + actual.size() + " 条消息，应为 " + expected.size());
+        }
+        for (int i = 0; i < actual.size(); i++) {
+            ChatMessageEntity written = expected.get(i);
+            ChatMessageEntity read = actual.get(i);
+            if (!written.getId().equals(read.getId())
+                    || !Objects.equals(written.getSessionId(), read.getSessionId())
+                    || !written.getCreatedAt().equals(read.getCreatedAt())
+                    || !written.getRole().equals(read.getRole())
+                    || !written.getContent().equals(read.getContent())
+                    || !Arrays.equals(written.getPayload(), read.getPayload())
+                    || !Objects.equals(written.getInputTokens(), read.getInputTokens())
+                    || !Objects.equals(written.getOutputTokens(), read.getOutputTokens())
+                    || !Objects.equals(written.getLatencyMs(), read.getLatencyMs())) {
+                throw new IOException("归档段校验失败: 消息 " + written.getId() + " 读回的内容不一致");
+            }
+        }
+    }
+
+    private MappedByteBuffer map() throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    private void readBlock(MappedByteBuffer mapped, Block block, Inflater inflater,
+                           List<ChatMessageEntity> into) throws IOException {
+        byte[] raw = new byte[block.rawLength()];
+        inflater.reset();
+        inflater.setInput(mapped.slice((int) block.offset(), block.compressedLength()));
+        try {
+            int length = 0;
+            while (length < raw.length) {
+                int inflated = inflater.inflate(raw, length, raw.length - length);
+                if (inflated == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                length += inflated;
+            }
+            if (length != raw.length) {
+                throw new IOException("归档段数据块不完整: " + block);
+            }
+        } catch (DataFormatException e) {
+            throw new IOException("归档段数据块损坏: " + block, e);
+        }
+
+        try {
+            parseBlock(ByteBuffer.wrap(raw), block, into);
+        } catch (BufferUnderflowException | IndexOutOfBoundsException | DateTimeException e) {
+            throw new IOException("归档段数据块损坏: " + block, e);
+        }
+    }
+
+    private static void parseBlock(ByteBuffer in, Block block, List<ChatMessageEntity> into) {
+        for (int i = 0; i < block.count(); i++) {
+            long id = in.getLong();
+            long sessionId = in.getLong();
+            LocalDateTime createdAt = LocalDateTime.ofEpochSecond(in.getLong(), in.getInt(), ZoneOffset.UTC);
+            String role = readString(in, in.get() & 0xFF);
+            String content = readString(in, in.getInt());
+            byte[] payload = null;
+            int length = in.getInt();
+            if (length >= 0) {
+                payload = new byte[length];
+                in.get(payload);
+            }
+            ChatMessageEntity message = new ChatMessageEntity(role, content);
+            message.setInputTokens(readOptionalInt(in));
+            message.setOutputTokens(readOptionalInt(in));
+            message.setLatencyMs(readOptionalInt(in));
+            message.setId(id);
+            message.setSessionId(sessionId != 0 ? sessionId : null);
+            message.setPayload(payload);
+            message.setCreatedAt(createdAt);
+            into.add(message);
+        }
+    }
+
+    private static void writeMessage(DataOutputStream out, ChatMessageEntity message) throws IOException {
+        byte[] role = message.getRole().getBytes(StandardCharsets.UTF_8);
+        byte[] content = message.getContent().getBytes(StandardCharsets.UTF_8);
+        out.writeLong(message.getId());
+        out.writeLong(message.getSessionId() != null ? message.getSessionId() : 0);
+        out.writeLong(message.getCreatedAt().toEpochSecond(ZoneOffset.UTC));
+        out.writeInt(message.getCreatedAt().getNano());
+        out.writeByte(role.length);
+        out.write(role);
+        out.writeInt(content.length);
+        out.write(content);
+        if (message.getPayload() != null) {
+            out.writeInt(message.getPayload().length);
+            out.write(message.getPayload());
+        } else {
+            out.writeInt(-1);
+        }
+        out.writeInt(message.getInputTokens() != null ? message.getInputTokens() : -1);
+        out.writeInt(message.getOutputTokens() != null ? message.getOutputTokens() : -1);
+        out.writeInt(message.getLatencyMs() != null ? message.getLatencyMs() : -1);
+    }
+
+    private static Integer readOptionalInt(ByteBuffer in) {
+        int value = in.getInt();
+        return value >= 0 ? value : null;
+    }
+
+    private static String readString(ByteBuffer in, int length) {
+        String value = new String(in.array(), in.position(), length, StandardCharsets.UTF_8);
+        in.position(in.position() + length);
+        return value;
+    }
+
+    private static byte[] deflate(Deflater deflater, byte[] raw) {
+        deflater.reset();
+        deflater.setInput(raw);
+        deflater.finish();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 64);
+        byte[] buffer = new byte[8192];
+        while (!deflater.finished()) {
+            out.write(buffer, 0, deflater.deflate(buffer));
+        }
+        return out.toByteArray();
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, long position) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, position + buffer.position()) < 0) {
+                throw new IOException("归档段文件被截断");
+            }
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+    }
+
+    /**
+     * 块索引项
+     *
+     * @param minId            块内最小消息 ID
+     * @param maxId            块内最大消息 ID
+     * @param count            块内消息数
+     * @param offset           压缩数据在文件中的偏移
+     * @param compressedLength 压缩后长度
+     * @param rawLength        原始长度
+     */
+    private record Block(long minId, long maxId, int count, long offset, int compressedLength, int rawLength) {
+    }
+}
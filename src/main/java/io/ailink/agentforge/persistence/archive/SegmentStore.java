@@ -0,0 +1,237 @@
+package io.ailink.agentforge.persistence.archive;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+/**
+ * 冷数据段存储
+ *
+ * 每天一个段文件（yyyy-MM-dd.seg，见 {@link DaySegment}）。启动时扫描目录，
+ * 只读取每个文件的文件头和块索引，按日期建立内存目录；消息内容在查询时才从映射的文件中解压。
+ *
+ * 无法打开的段文件（被截断或损坏）记录错误后跳过，文件保留在原处；
+ * 这些日期不再接受归档写入，避免合并时把损坏文件中的消息当作不存在而覆盖掉。
+ */
+@Component
+public class SegmentStore {
+
+    private static final Logger log = LoggerFactory.getLogger(SegmentStore.class);
+
+    private static final String SUFFIX = ".seg";
+
+    /**
+     * 消息的排序：(createdAt, id)，与数据库查询一致
+     */
+    public static final Comparator<ChatMessageEntity> MESSAGE_ORDER =
+            Comparator.comparing(ChatMessageEntity::getCreatedAt).thenComparing(ChatMessageEntity::getId);
+
+    private final Path directory;
+    private final ConcurrentSkipListMap<LocalDate, DaySegment> segments = new ConcurrentSkipListMap<>();
+
+    /**
+     * 段文件无法打开的日期
+     */
+    private final Set<LocalDate> damaged = ConcurrentHashMap.newKeySet();
+
+    public SegmentStore(HistoryProperties historyProperties) throws IOException {
+        this.directory = Path.of(historyProperties.getArchive().getDirectory());
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path file : files.toList()) {
+                String name = file.getFileName().toString();
+                if (name.endsWith(SUFFIX + ".tmp")) {
+                    // 写入中断留下的临时文件，对应的消息仍在数据库中
+                    Files.deleteIfExists(file);
+                } else if (name.endsWith(SUFFIX)) {
+                    try {
+                        DaySegment segment = DaySegment.open(file);
+                        segments.put(segment.date(), segment);
+                    } catch (IOException e) {
+                        log.error("无法读取归档段，已跳过: {}", e.getMessage());
+                        try {
+                            damaged.add(LocalDate.parse(name.substring(0, name.length() - SUFFIX.length())));
+                        } catch (DateTimeParseException ignored) {
+                            // 不是按日期命名的段文件，归档不会写入这个文件名
+                        }
+                    }
+                }
+            }
+        }
+        if (!segments.isEmpty()) {
+            log.info("已加载 {} 个归档段（{} ~ {}）", segments.size(), segments.firstKey(), segments.lastKey());
+        }
+    }
+
+    /**
+     * 获取某天的段
+     */
+    public Optional<DaySegment> get(LocalDate date) {
+        return Optional.ofNullable(segments.get(date));
+    }
+
+    /**
+     * 已归档的日期（升序）
+     */
+    public NavigableSet<LocalDate> dates() {
+        return segments.keySet();
+    }
+
+    /**
+     * 已归档的消息总数
+     */
+    public long totalCount() {
+        return segments.values().stream().mapToLong(DaySegment::messageCount).sum();
+    }
+
+    /**
+     * 读取某天已归档的消息
+     *
+     * @param date 日期
+     * @return 按 (createdAt, id) 排序的消息，未归档时为空列表
+     */
+    public List<ChatMessageEntity> read(LocalDate date) {
+        DaySegment segment = segments.get(date);
+        if (segment == null) {
+            return List.of();
+        }
+        try {
+            return segment.readAll();
+        } catch (IOException e) {
+            throw new UncheckedIOException("读取归档段失败: " + segment.path(), e);
+        }
+    }
+
+    /**
+     * 最新一条已归档的消息
+     */
+    public Optional<ChatMessageEntity> latest() {
+        for (LocalDate date : segments.descendingKeySet()) {
+            List<ChatMessageEntity> day = read(date);
+            if (!day.isEmpty()) {
+                return Optional.of(day.getLast());
+            }
+        }
+        return Optional.empty();
+    }
+
+    /**
+     * 读取一个会话在归档中的最近消息
+     *
+     * 从最新的段开始逐天向前读取，凑够 limit 条或读到 from 之前的日期时停止。
+     *
+     * @param sessionId 会话 ID
+     * @param from      最早读取的日期（会话开始的日期，更早的段不含该会话的消息）
+     * @param filter    额外的过滤条件
+     * @param limit     返回的消息数量限制
+     * @return 最近的消息（按 (createdAt, id) 升序）
+     */
+    public List<ChatMessageEntity> findLatestInSession(Long sessionId, LocalDate from,
+                                                       Predicate<ChatMessageEntity> filter, int limit) {
+        List<List<ChatMessageEntity>> days = new ArrayList<>();
+        int found = 0;
+        for (LocalDate date : segments.tailMap(from, true).descendingKeySet()) {
+            List<ChatMessageEntity> day = read(date).stream()
+                    .filter(message -> sessionId.equals(message.getSessionId()) && filter.test(message))
+                    .toList();
+            days.add(day);
+            found += day.size();
+            if (found >= limit) {
+                break;
+            }
+        }
+        List<ChatMessageEntity> messages = new ArrayList<>(found);
+        for (List<ChatMessageEntity> day : days.reversed()) {
+            messages.addAll(day);
+        }
+        return messages.subList(Math.max(0, messages.size() - limit), messages.size());
+    }
+
+    /**
+     * 写入（或整体替换）某天的段
+     *
+     * 返回时段文件已落盘并通过读回校验（见 {@link DaySegment#write}），调用方可以删除数据库中的对应消息。
+     *
+     * @param date     日期
+     * @param messages 当天的全部消息（按 (createdAt, id) 排序）
+     * @throws IOException 写入或校验失败，或该日期已有无法读取的段文件
+     */
+    public void write(LocalDate date, List<ChatMessageEntity> messages) throws IOException {
+        if (damaged.contains(date)) {
+            throw new IOException("归档段 " + date + SUFFIX + " 无法读取，修复或移走该文件后才能继续归档这一天");
+        }
+        Files.createDirectories(directory);
+        DaySegment segment = DaySegment.write(directory.resolve(date + SUFFIX), date, messages);
+        segments.put(date, segment);
+    }
+
+    /**
+     * 按 ID 查找已归档的消息
+     *
+     * @param ids 消息 ID
+     * @return 找到的消息（顺序不定）
+     */
+    public List<ChatMessageEntity> findByIds(Collection<Long> ids) {
+        List<ChatMessageEntity> found = new ArrayList<>();
+        for (Long id : ids) {
+            for (DaySegment segment : segments.values()) {
+                if (!segment.mayContain(id)) {
+                    continue;
+                }
+                try {
+                    Optional<ChatMessageEntity> message = segment.find(id);
+                    if (message.isPresent()) {
+                        found.add(message.get());
+                        break;
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("读取归档段失败: " + segment.path(), e);
+                }
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 合并同一天的归档消息和数据库中的消息
+     *
+     * 归档过程中断时，同一条消息可能同时存在于段文件和数据库中，按 ID 去重。
+     *
+     * @return 按 (createdAt, id) 排序的消息
+     */
+    public static List<ChatMessageEntity> merge(List<ChatMessageEntity> archived, List<ChatMessageEntity> hot) {
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        Map<Long, ChatMessageEntity> byId = new LinkedHashMap<>();
+        archived.forEach(message -> byId.put(message.getId(), message));
+        hot.forEach(message -> byId.put(message.getId(), message));
+        List<ChatMessageEntity> merged = new ArrayList<>(byId.values());
+        merged.sort(MESSAGE_ORDER);
+        return merged;
+    }
+}
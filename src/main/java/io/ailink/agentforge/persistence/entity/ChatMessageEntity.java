@@ -6,45 +6,108 @@ import java.time.LocalDateTime;
 /**
  * 聊天消息实体
  *
- * 用于存储对话中的每一条消息记录，包括用户消息和助手回复。
- * 消息永久保存，不删除。
+ * 用于存储对话中的每一条消息记录，包括用户消息、助手回复，以及工具调用和工具结果。
+ * 消息永久保存：数据库只保留最近若干天（热数据），更早的消息按天移入压缩段文件
+ * （见 {@link io.ailink.agentforge.persistence.archive.DaySegment}），不会丢弃。
  *
  * 字段说明：
- * - id: 消息唯一标识符，自增主键
- * - role: 消息角色，user(用户) 或 assistant(助手)
- * - content: 消息内容，TEXT类型支持长文本
+ * - id: 消息唯一标识符，由序列分配（pooled 优化器每次预取一段，支持批量插入）
+ * - sessionId: 所属会话（{@link ConversationSessionEntity}）的 ID
+ * - role: 消息角色，user(用户)、assistant(助手) 或 tool(工具结果)
+ * - content: 消息内容，TEXT类型支持长文本；内容已压缩时为空字符串
+ * - compressedContent: 超过阈值的长内容压缩后保存在这里（见 {@link #compressContent(int)}），读取时才解压
+ * - payload: 工具调用信息（Smile 二进制 JSON，见 ToolPayloadCodec），普通消息为 null
+ * - inputTokens / outputTokens / latencyMs: 模型响应的 Token 用量和耗时，只记录在助手消息上（每条助手消息对应一次模型响应）
  * - createdAt: 消息创建时间，精确到毫秒
  *
  * 索引：
- * - idx_created_at: 按创建时间排序查询
+ * - idx_created_at_id: (createdAt, id) 复合索引，支撑按时间排序的键集分页查询
+ * - idx_session_created_at_id: (sessionId, createdAt, id) 复合索引，加载一个会话的消息只扫描该会话的索引区间
  * - idx_role: 按角色筛选
  */
 @Entity
 @Table(name = "chat_messages", indexes = {
-        @Index(name = "idx_created_at", columnList = "createdAt"),
+        @Index(name = "idx_created_at_id", columnList = "createdAt, id"),
+        @Index(name = "idx_session_created_at_id", columnList = "sessionId, createdAt, id"),
         @Index(name = "idx_role", columnList = "role")
 })
 public class ChatMessageEntity {
 
+    /**
+     * 主键序列名
+     */
+    public static final String ID_SEQUENCE = "chat_messages_seq";
+
+    /**
+     * 每次从序列预取的主键数
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     /**
      * 消息唯一标识符
+     *
+     * 自增列（IDENTITY）要求每条 INSERT 立即执行以取回主键，无法批量插入；
+     * 改用序列后 Hibernate 在内存中分配主键，一批消息可以合并为一次 JDBC 批量执行。
      */
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = ID_SEQUENCE)
+    @SequenceGenerator(name = ID_SEQUENCE, sequenceName = ID_SEQUENCE, allocationSize = ID_ALLOCATION_SIZE)
     private Long id;
 
     /**
-     * 消息角色：user(用户) 或 assistant(助手)
+     * 所属会话的 ID
+     */
+    @Column
+    private Long sessionId;
+
+    /**
+     * 消息角色：user(用户)、assistant(助手) 或 tool(工具结果)
      */
     @Column(nullable = false, length = 20)
     private String role;
 
     /**
-     * 消息内容，支持长文本
+     * 消息内容，支持长文本（内容已压缩时为空字符串）
      */
     @Column(nullable = false, columnDefinition = "TEXT")
     private String content;
 
+    /**
+     * 压缩后的消息内容，未压缩时为 null
+     */
+    @Column(columnDefinition = "VARBINARY")
+    private byte[] compressedContent;
+
+    /**
+     * 解压后的内容（首次读取时生成）
+     */
+    @Transient
+    private String decompressedContent;
+
+    /**
+     * 工具调用信息：助手消息的工具调用列表，或工具结果关联的调用 ID
+     */
+    @Column(columnDefinition = "VARBINARY")
+    private byte[] payload;
+
+    /**
+     * 本次模型响应的输入 Token 数（Provider 未返回用量时为 null）
+     */
+    @Column
+    private Integer inputTokens;
+
+    /**
+     * 本次模型响应的输出 Token 数（Provider 未返回用量时为 null）
+     */
+    @Column
+    private Integer outputTokens;
+
+    /**
+     * 本次模型响应的耗时（毫秒），从发出请求到响应结束
+     */
+    @Column
+    private Integer latencyMs;
+
     /**
      * 消息创建时间
      */
@@ -69,6 +132,18 @@ public class ChatMessageEntity {
         this.createdAt = LocalDateTime.now();
     }
 
+    /**
+     * 创建会话中的聊天消息
+     *
+     * @param sessionId 所属会话的 ID
+     * @param role      消息角色：user 或 assistant
+     * @param content   消息内容
+     */
+    public ChatMessageEntity(Long sessionId, String role, String content) {
+        this(role, content);
+        this.sessionId = sessionId;
+    }
+
     // ==================== Getter/Setter ====================
 
     public Long getId() {
@@ -79,6 +154,14 @@ public class ChatMessageEntity {
         this.id = id;
     }
 
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
     public String getRole() {
         return role;
     }
@@ -87,12 +170,91 @@ public class ChatMessageEntity {
         this.role = role;
     }
 
+    /**
+     * 消息内容
+     *
+     * 已压缩的内容在第一次调用时解压并缓存，加载后未读取内容的消息不产生解压开销。
+     */
     public String getContent() {
-        return content;
+        if (compressedContent == null) {
+            return content;
+        }
+        if (decompressedContent == null) {
+            decompressedContent = ContentCompression.decompress(compressedContent);
+        }
+        return decompressedContent;
     }
 
     public void setContent(String content) {
         this.content = content;
+        this.compressedContent = null;
+        this.decompressedContent = null;
+    }
+
+    /**
+     * 内容达到阈值时改为压缩存储，须在保存前调用
+     *
+     * 压缩后不比原文小的内容（如已压缩过的数据）仍以原文保存。
+     *
+     * @param minChars 压缩的最小字符数
+     * @return 是否已压缩
+     */
+    public boolean compressContent(int minChars) {
+        if (compressedContent != null) {
+            return true;
+        }
+        if (content.length() < minChars) {
+            return false;
+        }
+        byte[] compressed = ContentCompression.compress(content);
+        if (compressed == null) {
+            return false;
+        }
+        this.decompressedContent = content;
+        this.compressedContent = compressed;
+        this.content = "";
+        return true;
+    }
+
+    public byte[] getCompressedContent() {
+        return compressedContent;
+    }
+
+    public void setCompressedContent(byte[] compressedContent) {
+        this.compressedContent = compressedContent;
+        this.decompressedContent = null;
+    }
+
+    public byte[] getPayload() {
+        return payload;
+    }
+
+    public void setPayload(byte[] payload) {
+        this.payload = payload;
+    }
+
+    public Integer getInputTokens() {
+        return inputTokens;
+    }
+
+    public void setInputTokens(Integer inputTokens) {
+        this.inputTokens = inputTokens;
+    }
+
+    public Integer getOutputTokens() {
+        return outputTokens;
+    }
+
+    public void setOutputTokens(Integer outputTokens) {
+        this.outputTokens = outputTokens;
+    }
+
+    public Integer getLatencyMs() {
+        return latencyMs;
+    }
+
+    public void setLatencyMs(Integer latencyMs) {
+        this.latencyMs = latencyMs;
     }
 
     public LocalDateTime getCreatedAt() {
@@ -0,0 +1,80 @@
+package io.ailink.agentforge.persistence.entity;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * 消息内容的压缩编码
+ *
+ * 编码为 原始长度(int，UTF-8 字节数) + Deflate 数据（无 zlib 头）。压缩取最快级别：
+ * 长消息多为自然语言和工具输出，最快级别已能去掉大部分冗余，写入线程的开销最小。
+ */
+final class ContentCompression {
+
+    private static final int LENGTH_PREFIX = Integer.BYTES;
+
+    private ContentCompression() {
+    }
+
+    /**
+     * 压缩消息内容
+     *
+     * @param content 消息内容
+     * @return 编码结果，压缩后不比原文小时返回 null
+     */
+    static byte[] compress(String content) {
+        byte[] raw = content.getBytes(StandardCharsets.UTF_8);
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED, true);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + LENGTH_PREFIX);
+            out.writeBytes(ByteBuffer.allocate(LENGTH_PREFIX).putInt(raw.length).array());
+            byte[] buffer = new byte[8192];
+            while (!deflater.finished()) {
+                out.write(buffer, 0, deflater.deflate(buffer));
+                if (out.size() >= raw.length) {
+                    return null;
+                }
+            }
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 解压消息内容
+     *
+     * @param compressed 编码结果
+     * @return 消息内容
+     */
+    static String decompress(byte[] compressed) {
+        int length = ByteBuffer.wrap(compressed, 0, LENGTH_PREFIX).getInt();
+        byte[] raw = new byte[length];
+        Inflater inflater = new Inflater(true);
+        try {
+            inflater.setInput(compressed, LENGTH_PREFIX, compressed.length - LENGTH_PREFIX);
+            int inflated = 0;
+            while (inflated < length) {
+                int n = inflater.inflate(raw, inflated, length - inflated);
+                if (n == 0 && (inflater.finished() || inflater.needsInput())) {
+                    break;
+                }
+                inflated += n;
+            }
+            if (inflated != length) {
+                throw new IllegalStateException("压缩的消息内容不完整");
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("压缩的消息内容已损坏", e);
+        } finally {
+            inflater.end();
+        }
+        return new String(raw, StandardCharsets.UTF_8);
+    }
+}
@@ -0,0 +1,65 @@
+package io.ailink.agentforge.persistence.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 对话会话实体
+ *
+ * 一次 chat 对话对应一个会话，会话中的消息和滚动摘要通过 sessionId 关联。
+ * 会话在第一条消息保存时创建，恢复会话时只加载该会话的消息和摘要。
+ *
+ * 字段说明：
+ * - id: 会话唯一标识符（chat --session 的参数）
+ * - createdAt: 会话创建时间
+ */
+@Entity
+@Table(name = "conversation_sessions")
+public class ConversationSessionEntity {
+
+    /**
+     * 会话唯一标识符
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 会话创建时间
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 默认构造函数，JPA Required
+     */
+    public ConversationSessionEntity() {
+    }
+
+    /**
+     * 创建会话
+     *
+     * @param createdAt 创建时间
+     */
+    public ConversationSessionEntity(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    // ==================== Getter/Setter ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
@@ -0,0 +1,153 @@
+package io.ailink.agentforge.persistence.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDateTime;
+
+/**
+ * 对话滚动摘要实体
+ *
+ * 长对话中较早的轮次被折叠为一段摘要，每次折叠追加一条记录，最新一条即当前摘要。
+ * 摘要属于一个会话，恢复会话时从该会话的最新摘要开始，只加载 (coveredUntil, coveredUntilId) 之后的消息，
+ * 而不是重放全部原始消息。
+ *
+ * 字段说明：
+ * - id: 摘要唯一标识符
+ * - sessionId: 所属会话的 ID
+ * - summary: 摘要内容（已包含之前所有摘要的要点）
+ * - coveredUntil: 摘要覆盖到的最后一条已保存消息的创建时间
+ * - coveredUntilId: 该消息的 ID，区分同一时刻保存的多条消息（早期版本保存的摘要为 null）
+ * - foldedMessages: 本次折叠的消息数
+ * - createdAt: 摘要生成时间
+ */
+@Entity
+@Table(name = "conversation_summaries", indexes = {
+        @Index(name = "idx_summary_session_id", columnList = "sessionId, id")
+})
+public class ConversationSummaryEntity {
+
+    /**
+     * 摘要唯一标识符
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 所属会话的 ID
+     */
+    @Column
+    private Long sessionId;
+
+    /**
+     * 摘要内容
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String summary;
+
+    /**
+     * 摘要覆盖到的最后一条消息的创建时间
+     */
+    @Column(nullable = false)
+    private LocalDateTime coveredUntil;
+
+    /**
+     * 摘要覆盖到的最后一条消息的 ID
+     */
+    @Column
+    private Long coveredUntilId;
+
+    /**
+     * 本次折叠的消息数
+     */
+    @Column(nullable = false)
+    private Integer foldedMessages;
+
+    /**
+     * 摘要生成时间
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 默认构造函数，JPA Required
+     */
+    public ConversationSummaryEntity() {
+    }
+
+    /**
+     * 创建对话摘要
+     *
+     * @param sessionId      所属会话的 ID
+     * @param summary        摘要内容
+     * @param coveredUntil   覆盖到的最后一条消息的创建时间
+     * @param coveredUntilId 覆盖到的最后一条消息的 ID
+     * @param foldedMessages 本次折叠的消息数
+     */
+    public ConversationSummaryEntity(Long sessionId, String summary, LocalDateTime coveredUntil,
+                                     Long coveredUntilId, Integer foldedMessages) {
+        this.sessionId = sessionId;
+        this.summary = summary;
+        this.coveredUntil = coveredUntil;
+        this.coveredUntilId = coveredUntilId;
+        this.foldedMessages = foldedMessages;
+        this.createdAt = LocalDateTime.now();
+    }
+
+    // ==================== Getter/Setter ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Long getSessionId() {
+        return sessionId;
+    }
+
+    public void setSessionId(Long sessionId) {
+        this.sessionId = sessionId;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public LocalDateTime getCoveredUntil() {
+        return coveredUntil;
+    }
+
+    public void setCoveredUntil(LocalDateTime coveredUntil) {
+        this.coveredUntil = coveredUntil;
+    }
+
+    public Long getCoveredUntilId() {
+        return coveredUntilId;
+    }
+
+    public void setCoveredUntilId(Long coveredUntilId) {
+        this.coveredUntilId = coveredUntilId;
+    }
+
+    public Integer getFoldedMessages() {
+        return foldedMessages;
+    }
+
+    public void setFoldedMessages(Integer foldedMessages) {
+        this.foldedMessages = foldedMessages;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+}
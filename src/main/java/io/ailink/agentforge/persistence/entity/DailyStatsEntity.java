@@ -0,0 +1,160 @@
+package io.ailink.agentforge.persistence.entity;
+
+import jakarta.persistence.*;
+import java.time.LocalDate;
+
+/**
+ * 每日统计实体（预聚合）
+ *
+ * 每天一行，消息写入时在同一事务内增量更新（见 DailyStatsRollup），
+ * 按日期区间统计时只读取区间内的行，不扫描消息表。消息归档不影响统计。
+ *
+ * 字段说明：
+ * - statDate: 统计日期（主键）
+ * - userMessages: 用户消息数
+ * - assistantMessages: 助手消息数（含带工具调用的消息，每条对应一次模型响应）
+ * - toolCalls: 工具调用次数（每次调用对应一条工具结果消息）
+ * - characters: 全部消息内容的字符数
+ * - inputTokens / outputTokens: 模型响应的 Token 用量合计（只统计记录了用量的响应）
+ * - latencyHistogram: 模型响应耗时的对数分桶直方图（见 LatencyHistogram），用于合并后计算分位数
+ */
+@Entity
+@Table(name = "daily_stats")
+public class DailyStatsEntity {
+
+    /**
+     * 统计日期
+     */
+    @Id
+    private LocalDate statDate;
+
+    /**
+     * 用户消息数
+     */
+    @Column(nullable = false)
+    private long userMessages;
+
+    /**
+     * 助手消息数
+     */
+    @Column(nullable = false)
+    private long assistantMessages;
+
+    /**
+     * 工具调用次数
+     */
+    @Column(nullable = false)
+    private long toolCalls;
+
+    /**
+     * 消息内容的字符数
+     */
+    @Column(nullable = false)
+    private long characters;
+
+    /**
+     * 输入 Token 合计
+     */
+    @Column(nullable = false)
+    private long inputTokens;
+
+    /**
+     * 输出 Token 合计
+     */
+    @Column(nullable = false)
+    private long outputTokens;
+
+    /**
+     * 模型响应耗时直方图，当天没有记录耗时的响应时为 null
+     */
+    @Column(columnDefinition = "VARBINARY")
+    private byte[] latencyHistogram;
+
+    /**
+     * 默认构造函数，JPA Required
+     */
+    public DailyStatsEntity() {
+    }
+
+    /**
+     * 创建一天的空统计
+     *
+     * @param statDate 统计日期
+     */
+    public DailyStatsEntity(LocalDate statDate) {
+        this.statDate = statDate;
+    }
+
+    /**
+     * 消息总数
+     */
+    public long getTotalMessages() {
+        return userMessages + assistantMessages + toolCalls;
+    }
+
+    // ==================== Getter/Setter ====================
+
+    public LocalDate getStatDate() {
+        return statDate;
+    }
+
+    public void setStatDate(LocalDate statDate) {
+        this.statDate = statDate;
+    }
+
+    public long getUserMessages() {
+        return userMessages;
+    }
+
+    public void setUserMessages(long userMessages) {
+        this.userMessages = userMessages;
+    }
+
+    public long getAssistantMessages() {
+        return assistantMessages;
+    }
+
+    public void setAssistantMessages(long assistantMessages) {
+        this.assistantMessages = assistantMessages;
+    }
+
+    public long getToolCalls() {
+        return toolCalls;
+    }
+
+    public void setToolCalls(long toolCalls) {
+        this.toolCalls = toolCalls;
+    }
+
+    public long getCharacters() {
+        return characters;
+    }
+
+    public void setCharacters(long characters) {
+        this.characters = characters;
+    }
+
+    public long getInputTokens() {
+        return inputTokens;
+    }
+
+    public void setInputTokens(long inputTokens) {
+        this.inputTokens = inputTokens;
+    }
+
+    public long getOutputTokens() {
+        return outputTokens;
+    }
+
+    public void setOutputTokens(long outputTokens) {
+        this.outputTokens = outputTokens;
+    }
+
+    public byte[] getLatencyHistogram() {
+        return latencyHistogram;
+    }
+
+    public void setLatencyHistogram(byte[] latencyHistogram) {
+        this.latencyHistogram = latencyHistogram;
+    }
+}
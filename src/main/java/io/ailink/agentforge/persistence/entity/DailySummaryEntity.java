@@ -8,12 +8,15 @@ import java.time.LocalDateTime;
  * 每日总结实体
  *
  * 用于存储每日对话的总结信息。需要手动触发生成。
+ * 再次生成时只把 lastMessageId 之后的新消息和已有总结交给模型，
+ * 成本与新增的消息数相关，与当天的消息总数无关。
  *
  * 字段说明：
  * - id: 总结唯一标识符
  * - summaryDate: 总结对应的日期（唯一索引，每天一条）
  * - summary: LLM生成的对话总结
- * - messageCount: 当天的消息数量
+ * - messageCount: 总结覆盖的消息数量
+ * - lastMessageId: 总结覆盖到的最大消息 ID（高水位），较早版本生成的总结为 null
  * - createdAt: 总结首次创建时间
  * - updatedAt: 总结最后更新时间
  */
@@ -41,11 +44,16 @@ public class DailySummaryEntity {
     private String summary;
 
     /**
-     * 当天的消息数量
+     * 总结覆盖的消息数量
      */
     @Column(nullable = false)
     private Integer messageCount;
 
+    /**
+     * 总结覆盖到的最大消息 ID，为 null 时下次整天重新生成
+     */
+    private Long lastMessageId;
+
     /**
      * 总结首次创建时间
      */
@@ -70,15 +78,29 @@ public class DailySummaryEntity {
      * @param summaryDate   总结日期
      * @param summary       对话总结内容
      * @param messageCount  消息数量
+     * @param lastMessageId 覆盖到的最大消息 ID
      */
-    public DailySummaryEntity(LocalDate summaryDate, String summary, Integer messageCount) {
+    public DailySummaryEntity(LocalDate summaryDate, String summary, Integer messageCount, Long lastMessageId) {
         this.summaryDate = summaryDate;
         this.summary = summary;
         this.messageCount = messageCount;
+        this.lastMessageId = lastMessageId;
         this.createdAt = LocalDateTime.now();
         this.updatedAt = LocalDateTime.now();
     }
 
+    /**
+     * 总结是否覆盖了当天的全部消息
+     *
+     * @param messageCount  当天的消息数
+     * @param lastMessageId 当天的最大消息 ID
+     * @return 覆盖的消息数和高水位都与当天一致时为 true；没有高水位的总结视为过期
+     */
+    public boolean covers(long messageCount, long lastMessageId) {
+        return this.lastMessageId != null && this.lastMessageId >= lastMessageId
+                && this.messageCount == messageCount;
+    }
+
     // ==================== Getter/Setter ====================
 
     public Long getId() {
@@ -113,6 +135,14 @@ public class DailySummaryEntity {
         this.messageCount = messageCount;
     }
 
+    public Long getLastMessageId() {
+        return lastMessageId;
+    }
+
+    public void setLastMessageId(Long lastMessageId) {
+        this.lastMessageId = lastMessageId;
+    }
+
     public LocalDateTime getCreatedAt() {
         return createdAt;
     }
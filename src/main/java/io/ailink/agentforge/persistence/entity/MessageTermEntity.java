@@ -0,0 +1,128 @@
+package io.ailink.agentforge.persistence.entity;
+
+import jakarta.persistence.*;
+
+import java.io.Serializable;
+import java.util.Objects;
+
+/**
+ * 消息全文检索倒排表
+ *
+ * 每行表示一个词项在一条消息中出现：按 term 查询即得到包含该词项的全部消息（倒排列表）。
+ * 消息写入时在同一事务内更新（见 {@link io.ailink.agentforge.service.MessageSearchIndex}）。
+ *
+ * 字段说明：
+ * - term: 词项（英文单词小写，中日韩文本为相邻两字）
+ * - messageId: 消息 ID
+ * - frequency: 词项在消息中出现的次数
+ *
+ * 索引：
+ * - idx_term_postings: (term, messageId, frequency) 覆盖索引，按词项取倒排列表时只扫描索引、不回表
+ * - idx_term_message_id: 按消息 ID 清理（重建索引时使用）
+ */
+@Entity
+@Table(name = "message_terms", indexes = {
+        @Index(name = "idx_term_postings", columnList = "term, messageId, frequency"),
+        @Index(name = "idx_term_message_id", columnList = "messageId")
+})
+@IdClass(MessageTermEntity.Key.class)
+public class MessageTermEntity {
+
+    /**
+     * 词项的最大长度，更长的英文单词截断后索引
+     */
+    public static final int MAX_TERM_LENGTH = 32;
+
+    /**
+     * 词项
+     */
+    @Id
+    @Column(length = MAX_TERM_LENGTH)
+    private String term;
+
+    /**
+     * 消息 ID
+     */
+    @Id
+    private Long messageId;
+
+    /**
+     * 词项在消息中出现的次数
+     */
+    @Column(nullable = false)
+    private Integer frequency;
+
+    /**
+     * 默认构造函数，JPA Required
+     */
+    public MessageTermEntity() {
+    }
+
+    /**
+     * 创建倒排记录
+     *
+     * @param term      词项
+     * @param messageId 消息 ID
+     * @param frequency 出现次数
+     */
+    public MessageTermEntity(String term, Long messageId, Integer frequency) {
+        this.term = term;
+        this.messageId = messageId;
+        this.frequency = frequency;
+    }
+
+    // ==================== Getter/Setter ====================
+
+    public String getTerm() {
+        return term;
+    }
+
+    public void setTerm(String term) {
+        this.term = term;
+    }
+
+    public Long getMessageId() {
+        return messageId;
+    }
+
+    public void setMessageId(Long messageId) {
+        this.messageId = messageId;
+    }
+
+    public Integer getFrequency() {
+        return frequency;
+    }
+
+    public void setFrequency(Integer frequency) {
+        this.frequency = frequency;
+    }
+
+    /**
+     * 复合主键 (term, messageId)
+     */
+    public static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private String term;
+        private Long messageId;
+
+        public Key() {
+        }
+
+        public Key(String term, Long messageId) {
+            this.term = term;
+            this.messageId = messageId;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Objects.equals(term, key.term) && Objects.equals(messageId, key.messageId);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(term, messageId);
+        }
+    }
+}
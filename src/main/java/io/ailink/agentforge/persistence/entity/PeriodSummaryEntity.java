@@ -0,0 +1,243 @@
+package io.ailink.agentforge.persistence.entity;
+
+import jakarta.persistence.*;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+
+/**
+ * 周/月汇总总结实体
+ *
+ * 由一周或一个月内的每日总结（而不是原始消息）生成并缓存，按日期区间查询时只读取区间内的几行。
+ * 记录生成时依据的每日总结天数和其中最晚的更新时间，任何一天的总结新增或更新后，
+ * 所在的周和月在下次查询时重新生成，其他周期直接使用缓存。
+ *
+ * 字段说明：
+ * - id: 唯一标识符
+ * - period: 周期类型（WEEK / MONTH）
+ * - periodStart: 周期的第一天（周一 / 每月 1 日），与 period 组成唯一索引
+ * - summary: LLM 生成的汇总总结
+ * - dayCount: 生成时依据的每日总结天数
+ * - messageCount: 这些天的消息数合计
+ * - sourceUpdatedAt: 生成时依据的每日总结中最晚的更新时间
+ * - createdAt: 首次创建时间
+ * - updatedAt: 最后更新时间
+ */
+@Entity
+@Table(name = "period_summaries",
+        uniqueConstraints = @UniqueConstraint(name = "uk_period_start", columnNames = {"period", "periodStart"}))
+public class PeriodSummaryEntity {
+
+    /**
+     * 汇总周期
+     */
+    public enum Period {
+
+        /**
+         * 自然周（周一至周日）
+         */
+        WEEK("每周"),
+
+        /**
+         * 自然月
+         */
+        MONTH("每月");
+
+        private final String label;
+
+        Period(String label) {
+            this.label = label;
+        }
+
+        public String label() {
+            return label;
+        }
+
+        /**
+         * 日期所在周期的第一天
+         */
+        public LocalDate start(LocalDate date) {
+            return switch (this) {
+                case WEEK -> date.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MONTH -> date.withDayOfMonth(1);
+            };
+        }
+
+        /**
+         * 下一个周期的第一天
+         */
+        public LocalDate next(LocalDate start) {
+            return switch (this) {
+                case WEEK -> start.plusWeeks(1);
+                case MONTH -> start.plusMonths(1);
+            };
+        }
+    }
+
+    /**
+     * 唯一标识符
+     */
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    /**
+     * 周期类型
+     */
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private Period period;
+
+    /**
+     * 周期的第一天
+     */
+    @Column(nullable = false)
+    private LocalDate periodStart;
+
+    /**
+     * LLM 生成的汇总总结
+     */
+    @Column(nullable = false, columnDefinition = "TEXT")
+    private String summary;
+
+    /**
+     * 生成时依据的每日总结天数
+     */
+    @Column(nullable = false)
+    private Integer dayCount;
+
+    /**
+     * 这些天的消息数合计
+     */
+    @Column(nullable = false)
+    private Integer messageCount;
+
+    /**
+     * 生成时依据的每日总结中最晚的更新时间
+     */
+    @Column(nullable = false)
+    private LocalDateTime sourceUpdatedAt;
+
+    /**
+     * 首次创建时间
+     */
+    @Column(nullable = false)
+    private LocalDateTime createdAt;
+
+    /**
+     * 最后更新时间
+     */
+    @Column(nullable = false)
+    private LocalDateTime updatedAt;
+
+    /**
+     * 默认构造函数，JPA Required
+     */
+    public PeriodSummaryEntity() {
+    }
+
+    /**
+     * 创建汇总总结
+     *
+     * @param period      周期类型
+     * @param periodStart 周期的第一天
+     */
+    public PeriodSummaryEntity(Period period, LocalDate periodStart) {
+        this.period = period;
+        this.periodStart = periodStart;
+        this.createdAt = LocalDateTime.now();
+        this.updatedAt = this.createdAt;
+    }
+
+    /**
+     * 周期的最后一天
+     */
+    public LocalDate getPeriodEnd() {
+        return period.next(periodStart).minusDays(1);
+    }
+
+    /**
+     * 汇总是否仍与周期内的每日总结一致
+     *
+     * @param dayCount        周期内每日总结的天数
+     * @param sourceUpdatedAt 周期内每日总结中最晚的更新时间
+     */
+    public boolean isUpToDate(int dayCount, LocalDateTime sourceUpdatedAt) {
+        return this.dayCount == dayCount && !this.sourceUpdatedAt.isBefore(sourceUpdatedAt);
+    }
+
+    // ==================== Getter/Setter ====================
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Period getPeriod() {
+        return period;
+    }
+
+    public void setPeriod(Period period) {
+        this.period = period;
+    }
+
+    public LocalDate getPeriodStart() {
+        return periodStart;
+    }
+
+    public void setPeriodStart(LocalDate periodStart) {
+        this.periodStart = periodStart;
+    }
+
+    public String getSummary() {
+        return summary;
+    }
+
+    public void setSummary(String summary) {
+        this.summary = summary;
+    }
+
+    public Integer getDayCount() {
+        return dayCount;
+    }
+
+    public void setDayCount(Integer dayCount) {
+        this.dayCount = dayCount;
+    }
+
+    public Integer getMessageCount() {
+        return messageCount;
+    }
+
+    public void setMessageCount(Integer messageCount) {
+        this.messageCount = messageCount;
+    }
+
+    public LocalDateTime getSourceUpdatedAt() {
+        return sourceUpdatedAt;
+    }
+
+    public void setSourceUpdatedAt(LocalDateTime sourceUpdatedAt) {
+        this.sourceUpdatedAt = sourceUpdatedAt;
+    }
+
+    public LocalDateTime getCreatedAt() {
+        return createdAt;
+    }
+
+    public void setCreatedAt(LocalDateTime createdAt) {
+        this.createdAt = createdAt;
+    }
+
+    public LocalDateTime getUpdatedAt() {
+        return updatedAt;
+    }
+
+    public void setUpdatedAt(LocalDateTime updatedAt) {
+        this.updatedAt = updatedAt;
+    }
+}
@@ -0,0 +1,349 @@
+package io.ailink.agentforge.persistence.jdbc;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+/**
+ * 聊天消息数据访问层（jdbc 后端）
+ *
+ * 与 {@link io.ailink.agentforge.persistence.repository.ChatMessageRepository} 的查询一一对应，
+ * 列表查询同样按 (created_at, id) 排序并使用键集分页。
+ *
+ * 插入按批执行（一条预编译语句绑定多组参数）。主键与 JPA 后端共用 chat_messages_seq 序列，
+ * 并按相同的 pooled 规则使用：序列每返回一个值 v，分配 [v - 49, v] 一段主键，
+ * 两种后端交替使用同一个数据库时主键不会冲突。
+ */
+@Repository
+@DependsOn("schemaMigrator")
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcChatMessageRepository {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcChatMessageRepository.class);
+
+    private static final String COLUMNS =
+            "id, session_id, role, content, compressed_content, payload, input_tokens, output_tokens, latency_ms, created_at";
+
+    private static final String INSERT = "INSERT INTO chat_messages (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private static final String NEXT_ID = "SELECT NEXT VALUE FOR " + ChatMessageEntity.ID_SEQUENCE;
+
+    /**
+     * 序列下一次分配的值，不推进序列
+     */
+    private static final String PEEK_NEXT_ID = "SELECT BASE_VALUE FROM INFORMATION_SCHEMA.SEQUENCES WHERE SEQUENCE_NAME = '"
+            + ChatMessageEntity.ID_SEQUENCE.toUpperCase(Locale.ROOT) + "'";
+
+    private static final RowMapper<ChatMessageEntity> ROW_MAPPER = JdbcChatMessageRepository::mapRow;
+
+    /**
+     * 一天的消息数和最大消息 ID
+     */
+    public record DayCount(LocalDate date, long messages, long maxId) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+
+    /**
+     * 当前已取得的一段主键：下一个可用值和该段的上界（含），由 this 保护
+     */
+    private long nextId;
+    private long maxAllocatedId = -1;
+    private boolean sequenceAligned;
+
+    public JdbcChatMessageRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 为消息分配主键并批量插入，须在事务内调用
+     *
+     * @param messages 待保存的消息（id 为 null）
+     */
+    public void insertAll(List<ChatMessageEntity> messages) {
+        if (messages.isEmpty()) {
+            return;
+        }
+        for (ChatMessageEntity message : messages) {
+            message.setId(allocateId());
+        }
+        jdbcTemplate.batchUpdate(INSERT, messages, messages.size(), (ps, message) -> {
+            ps.setLong(1, message.getId());
+            ps.setObject(2, message.getSessionId(), Types.BIGINT);
+            ps.setString(3, message.getRole());
+            // 已压缩的消息 content 列为空字符串
+            ps.setString(4, message.getCompressedContent() != null ? "" : message.getContent());
+            ps.setBytes(5, message.getCompressedContent());
+            ps.setBytes(6, message.getPayload());
+            ps.setObject(7, message.getInputTokens(), Types.INTEGER);
+            ps.setObject(8, message.getOutputTokens(), Types.INTEGER);
+            ps.setObject(9, message.getLatencyMs(), Types.INTEGER);
+            ps.setObject(10, message.getCreatedAt());
+        });
+    }
+
+    /**
+     * 分配一个主键
+     *
+     * 第一次分配前校准序列：早期版本的主键来自自增列，序列的下一段不大于现有最大 id 时，
+     * 把序列重置到最大 id 之后（与 JPA 后端的写入器相同）。校准只读取序列的当前值，不推进序列。
+     */
+    private synchronized long allocateId() {
+        if (nextId > maxAllocatedId) {
+            if (!sequenceAligned) {
+                sequenceAligned = true;
+                alignSequence();
+            }
+            long value = nextSequenceValue();
+            nextId = Math.max(1, value - ChatMessageEntity.ID_ALLOCATION_SIZE + 1);
+            maxAllocatedId = value;
+        }
+        return nextId++;
+    }
+
+    private void alignSequence() {
+        Long maxId = findMaxId();
+        Long next = jdbcTemplate.queryForObject(PEEK_NEXT_ID, Long.class);
+        if (maxId != null && next != null && next - ChatMessageEntity.ID_ALLOCATION_SIZE < maxId) {
+            long restart = maxId + ChatMessageEntity.ID_ALLOCATION_SIZE;
+            jdbcTemplate.execute("ALTER SEQUENCE " + ChatMessageEntity.ID_SEQUENCE + " RESTART WITH " + restart);
+            log.info("消息主键序列已重置为 {}", restart);
+        }
+    }
+
+    private long nextSequenceValue() {
+        Long value = jdbcTemplate.queryForObject(NEXT_ID, Long.class);
+        return value != null ? value : 1;
+    }
+
+    /**
+     * 查询所有消息，按 (createdAt, id) 升序排列
+     */
+    public List<ChatMessageEntity> findAll() {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages ORDER BY created_at ASC, id ASC", ROW_MAPPER);
+    }
+
+    /**
+     * 查询最近的消息，按 (createdAt, id) 降序排列
+     */
+    public List<ChatMessageEntity> findLatest(int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages ORDER BY created_at DESC, id DESC LIMIT ?",
+                ROW_MAPPER, limit);
+    }
+
+    /**
+     * 查询游标之前的消息（向前翻页），按 (createdAt, id) 降序排列
+     */
+    public List<ChatMessageEntity> findBefore(LocalDateTime createdAt, long id, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages "
+                        + "WHERE created_at < ? OR (created_at = ? AND id < ?) ORDER BY created_at DESC, id DESC LIMIT ?",
+                ROW_MAPPER, createdAt, createdAt, id, limit);
+    }
+
+    /**
+     * 查询会话最近的消息，按 (createdAt, id) 降序排列
+     */
+    public List<ChatMessageEntity> findLatestInSession(long sessionId, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages "
+                        + "WHERE session_id = ? ORDER BY created_at DESC, id DESC LIMIT ?",
+                ROW_MAPPER, sessionId, limit);
+    }
+
+    /**
+     * 查询会话中游标之后的最近消息，按 (createdAt, id) 降序排列
+     */
+    public List<ChatMessageEntity> findLatestInSessionAfter(long sessionId, LocalDateTime createdAt, long id,
+                                                            int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages "
+                        + "WHERE session_id = ? AND (created_at > ? OR (created_at = ? AND id > ?)) "
+                        + "ORDER BY created_at DESC, id DESC LIMIT ?",
+                ROW_MAPPER, sessionId, createdAt, createdAt, id, limit);
+    }
+
+    /**
+     * 查询会话的第一条消息；sessionId 为 null 时查询不属于任何会话的第一条消息
+     */
+    public Optional<ChatMessageEntity> findFirstInSession(Long sessionId) {
+        String condition = sessionId == null ? "session_id IS NULL" : "session_id = ?";
+        Object[] args = sessionId == null ? new Object[0] : new Object[]{sessionId};
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages WHERE " + condition
+                + " ORDER BY created_at ASC, id ASC LIMIT 1", ROW_MAPPER, args).stream().findFirst();
+    }
+
+    /**
+     * 统计会话的消息数量
+     */
+    public long countBySessionId(long sessionId) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chat_messages WHERE session_id = ?",
+                Long.class, sessionId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 把不属于任何会话的消息归入指定会话
+     *
+     * @return 更新的行数
+     */
+    public int assignSessionToOrphans(long sessionId) {
+        return jdbcTemplate.update("UPDATE chat_messages SET session_id = ? WHERE session_id IS NULL", sessionId);
+    }
+
+    /**
+     * 按日期范围查询消息，按 (createdAt, id) 升序排列
+     *
+     * @param start 起始时间（包含）
+     * @param end   结束时间（不包含）
+     */
+    public List<ChatMessageEntity> findByDateRange(LocalDateTime start, LocalDateTime end) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages "
+                + "WHERE created_at >= ? AND created_at < ? ORDER BY created_at ASC, id ASC", ROW_MAPPER, start, end);
+    }
+
+    /**
+     * 按日期范围查询 ID 大于 afterId 的消息，按 (createdAt, id) 升序排列
+     */
+    public List<ChatMessageEntity> findByDateRangeAndIdAfter(LocalDateTime start, LocalDateTime end, long afterId) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages "
+                        + "WHERE created_at >= ? AND created_at < ? AND id > ? ORDER BY created_at ASC, id ASC",
+                ROW_MAPPER, start, end, afterId);
+    }
+
+    /**
+     * 统计日期范围内 ID 不超过 maxId 的消息数
+     */
+    public long countByDateRangeAndIdAtMost(LocalDateTime start, LocalDateTime end, long maxId) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM chat_messages "
+                + "WHERE created_at >= ? AND created_at < ? AND id <= ?", Long.class, start, end, maxId);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 按天分组统计日期范围内的消息数和最大消息 ID，按日期升序排列
+     */
+    public List<DayCount> countByDay(LocalDateTime start, LocalDateTime end) {
+        return jdbcTemplate.query("SELECT CAST(created_at AS DATE) AS message_date, COUNT(*), MAX(id) FROM chat_messages "
+                        + "WHERE created_at >= ? AND created_at < ? GROUP BY CAST(created_at AS DATE) ORDER BY message_date",
+                (rs, rowNum) -> new DayCount(rs.getObject(1, LocalDate.class), rs.getLong(2), rs.getLong(3)),
+                start, end);
+    }
+
+    /**
+     * 按日期范围分页查询消息（第一页），按 (createdAt, id) 升序排列
+     */
+    public List<ChatMessageEntity> findByDateRange(LocalDateTime start, LocalDateTime end, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages "
+                        + "WHERE created_at >= ? AND created_at < ? ORDER BY created_at ASC, id ASC LIMIT ?",
+                ROW_MAPPER, start, end, limit);
+    }
+
+    /**
+     * 按日期范围查询游标之后的消息（向后翻页），按 (createdAt, id) 升序排列
+     */
+    public List<ChatMessageEntity> findByDateRangeAfter(LocalDateTime start, LocalDateTime end,
+                                                        LocalDateTime createdAt, long id, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages "
+                        + "WHERE created_at >= ? AND created_at < ? AND (created_at > ? OR (created_at = ? AND id > ?)) "
+                        + "ORDER BY created_at ASC, id ASC LIMIT ?",
+                ROW_MAPPER, start, end, createdAt, createdAt, id, limit);
+    }
+
+    /**
+     * 按主键区间分批读取消息，按 id 升序排列
+     *
+     * @param afterId 起始 ID（不包含）
+     * @param maxId   最大 ID（包含）
+     */
+    public List<ChatMessageEntity> findByIdRange(long afterId, long maxId, int limit) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages WHERE id > ? AND id <= ? ORDER BY id ASC LIMIT ?",
+                ROW_MAPPER, afterId, maxId, limit);
+    }
+
+    /**
+     * 按主键查询消息
+     */
+    public List<ChatMessageEntity> findAllById(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return List.of();
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages WHERE id IN (" + placeholders + ")",
+                ROW_MAPPER, ids.toArray());
+    }
+
+    /**
+     * 按 id 升序逐条读取全部消息
+     *
+     * 结果集按 fetch size 分批从数据库取行，每行交给回调后即可丢弃，内存中不保留整个结果集。
+     *
+     * @param consumer 每条消息的回调
+     */
+    public void forEach(Consumer<ChatMessageEntity> consumer) {
+        jdbcTemplate.query(connection -> {
+            var statement = connection.prepareStatement("SELECT " + COLUMNS + " FROM chat_messages ORDER BY id ASC");
+            statement.setFetchSize(500);
+            return statement;
+        }, (RowCallbackHandler) rs -> consumer.accept(mapRow(rs, 0)));
+    }
+
+    /**
+     * 查询最大的消息 ID，没有消息时返回 null
+     */
+    public Long findMaxId() {
+        return jdbcTemplate.queryForObject("SELECT MAX(id) FROM chat_messages", Long.class);
+    }
+
+    /**
+     * 查询早于指定时间的最早一条消息
+     */
+    public Optional<ChatMessageEntity> findFirstBefore(LocalDateTime before) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM chat_messages WHERE created_at < ? "
+                + "ORDER BY created_at ASC, id ASC LIMIT 1", ROW_MAPPER, before).stream().findFirst();
+    }
+
+    /**
+     * 按主键批量删除消息
+     *
+     * @return 删除的行数
+     */
+    public int deleteAllById(List<Long> ids) {
+        if (ids.isEmpty()) {
+            return 0;
+        }
+        String placeholders = String.join(", ", Collections.nCopies(ids.size(), "?"));
+        return jdbcTemplate.update("DELETE FROM chat_messages WHERE id IN (" + placeholders + ")", ids.toArray());
+    }
+
+    private static ChatMessageEntity mapRow(ResultSet rs, int rowNum) throws SQLException {
+        ChatMessageEntity message = new ChatMessageEntity();
+        message.setId(rs.getLong("id"));
+        message.setSessionId(rs.getObject("session_id", Long.class));
+        message.setRole(rs.getString("role"));
+        message.setContent(rs.getString("content"));
+        message.setCompressedContent(rs.getBytes("compressed_content"));
+        message.setPayload(rs.getBytes("payload"));
+        message.setInputTokens(rs.getObject("input_tokens", Integer.class));
+        message.setOutputTokens(rs.getObject("output_tokens", Integer.class));
+        message.setLatencyMs(rs.getObject("latency_ms", Integer.class));
+        message.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        return message;
+    }
+}
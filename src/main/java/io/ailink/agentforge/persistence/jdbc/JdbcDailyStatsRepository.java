@@ -0,0 +1,133 @@
+package io.ailink.agentforge.persistence.jdbc;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 每日统计数据访问层（jdbc 后端）
+ *
+ * 提供对 daily_stats 表的数据库操作，与 {@link io.ailink.agentforge.persistence.repository.DailyStatsRepository} 对应。
+ */
+@Repository
+@DependsOn("schemaMigrator")
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcDailyStatsRepository {
+
+    private static final String COLUMNS = "stat_date, user_messages, assistant_messages, tool_calls, characters, "
+            + "input_tokens, output_tokens, latency_histogram";
+
+    private static final RowMapper<DailyStatsEntity> ROW_MAPPER = (rs, rowNum) -> {
+        DailyStatsEntity stats = new DailyStatsEntity(rs.getObject("stat_date", LocalDate.class));
+        stats.setUserMessages(rs.getLong("user_messages"));
+        stats.setAssistantMessages(rs.getLong("assistant_messages"));
+        stats.setToolCalls(rs.getLong("tool_calls"));
+        stats.setCharacters(rs.getLong("characters"));
+        stats.setInputTokens(rs.getLong("input_tokens"));
+        stats.setOutputTokens(rs.getLong("output_tokens"));
+        stats.setLatencyHistogram(rs.getBytes("latency_histogram"));
+        return stats;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcDailyStatsRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 按日期查询统计
+     */
+    public Optional<DailyStatsEntity> findById(LocalDate date) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM daily_stats WHERE stat_date = ?", ROW_MAPPER, date)
+                .stream().findFirst();
+    }
+
+    /**
+     * 按日期查询统计并加写锁，须在事务内调用
+     */
+    public Optional<DailyStatsEntity> findByIdForUpdate(LocalDate date) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM daily_stats WHERE stat_date = ? FOR UPDATE",
+                ROW_MAPPER, date).stream().findFirst();
+    }
+
+    /**
+     * 查询日期区间内的统计，按日期升序排列
+     *
+     * @param from 起始日期（包含）
+     * @param to   结束日期（包含）
+     */
+    public List<DailyStatsEntity> findBetween(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM daily_stats WHERE stat_date BETWEEN ? AND ? "
+                + "ORDER BY stat_date ASC", ROW_MAPPER, from, to);
+    }
+
+    /**
+     * 插入一天的统计
+     */
+    public void insert(DailyStatsEntity stats) {
+        jdbcTemplate.update("INSERT INTO daily_stats (" + COLUMNS + ") VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                ps -> bind(ps, stats, 1, 2));
+    }
+
+    /**
+     * 更新一天的统计
+     */
+    public void update(DailyStatsEntity stats) {
+        jdbcTemplate.update("UPDATE daily_stats SET user_messages = ?, assistant_messages = ?, tool_calls = ?, "
+                + "characters = ?, input_tokens = ?, output_tokens = ?, latency_histogram = ? WHERE stat_date = ?",
+                ps -> bind(ps, stats, 8, 1));
+    }
+
+    /**
+     * 统计全部消息数（含已归档的消息），没有统计时返回 0
+     */
+    public long sumMessages() {
+        Long total = jdbcTemplate.queryForObject(
+                "SELECT SUM(user_messages + assistant_messages + tool_calls) FROM daily_stats", Long.class);
+        return total != null ? total : 0;
+    }
+
+    /**
+     * 是否还没有任何统计
+     */
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT 1 FROM daily_stats LIMIT 1").isEmpty();
+    }
+
+    /**
+     * 删除全部统计
+     */
+    public void deleteAll() {
+        jdbcTemplate.update("DELETE FROM daily_stats");
+    }
+
+    /**
+     * 绑定统计行的参数
+     *
+     * @param datePosition   stat_date 的参数位置
+     * @param valuesPosition 其余各列的起始参数位置
+     */
+    private static void bind(PreparedStatement ps, DailyStatsEntity stats, int datePosition, int valuesPosition)
+            throws SQLException {
+        ps.setObject(datePosition, stats.getStatDate());
+        int i = valuesPosition;
+        ps.setLong(i++, stats.getUserMessages());
+        ps.setLong(i++, stats.getAssistantMessages());
+        ps.setLong(i++, stats.getToolCalls());
+        ps.setLong(i++, stats.getCharacters());
+        ps.setLong(i++, stats.getInputTokens());
+        ps.setLong(i++, stats.getOutputTokens());
+        ps.setBytes(i, stats.getLatencyHistogram());
+    }
+}
@@ -0,0 +1,101 @@
+package io.ailink.agentforge.persistence.jdbc;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.DailySummaryEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 每日总结数据访问层（jdbc 后端）
+ *
+ * 提供对 daily_summaries 表的数据库操作，与 {@link io.ailink.agentforge.persistence.repository.DailySummaryRepository} 对应。
+ */
+@Repository
+@DependsOn("schemaMigrator")
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcDailySummaryRepository {
+
+    private static final String COLUMNS = "id, summary_date, summary, message_count, last_message_id, created_at, updated_at";
+
+    private static final RowMapper<DailySummaryEntity> ROW_MAPPER = (rs, rowNum) -> {
+        DailySummaryEntity summary = new DailySummaryEntity();
+        summary.setId(rs.getLong("id"));
+        summary.setSummaryDate(rs.getObject("summary_date", LocalDate.class));
+        summary.setSummary(rs.getString("summary"));
+        summary.setMessageCount(rs.getInt("message_count"));
+        summary.setLastMessageId(rs.getObject("last_message_id", Long.class));
+        summary.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        summary.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        return summary;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcDailySummaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 按日期查询总结
+     */
+    public Optional<DailySummaryEntity> findBySummaryDate(LocalDate date) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM daily_summaries WHERE summary_date = ?", ROW_MAPPER, date)
+                .stream().findFirst();
+    }
+
+    /**
+     * 查询所有总结，按日期降序排列
+     */
+    public List<DailySummaryEntity> findAllByOrderBySummaryDateDesc() {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM daily_summaries ORDER BY summary_date DESC", ROW_MAPPER);
+    }
+
+    /**
+     * 查询日期区间内的总结（两端包含），按日期升序排列
+     */
+    public List<DailySummaryEntity> findBySummaryDateBetweenOrderBySummaryDateAsc(LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM daily_summaries WHERE summary_date BETWEEN ? AND ? "
+                + "ORDER BY summary_date", ROW_MAPPER, from, to);
+    }
+
+    /**
+     * 保存总结：ID 为 null 时插入并回填 ID，否则更新
+     *
+     * @return 同一个实体
+     */
+    public DailySummaryEntity save(DailySummaryEntity summary) {
+        if (summary.getId() != null) {
+            jdbcTemplate.update("UPDATE daily_summaries SET summary = ?, message_count = ?, last_message_id = ?, "
+                            + "updated_at = ? WHERE id = ?",
+                    summary.getSummary(), summary.getMessageCount(), summary.getLastMessageId(),
+                    summary.getUpdatedAt(), summary.getId());
+            return summary;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO daily_summaries "
+                    + "(summary_date, summary, message_count, last_message_id, created_at, updated_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)", new String[]{"id"});
+            ps.setObject(1, summary.getSummaryDate());
+            ps.setString(2, summary.getSummary());
+            ps.setInt(3, summary.getMessageCount());
+            ps.setObject(4, summary.getLastMessageId());
+            ps.setObject(5, summary.getCreatedAt());
+            ps.setObject(6, summary.getUpdatedAt());
+            return ps;
+        }, keys);
+        summary.setId(keys.getKeyAs(Long.class));
+        return summary;
+    }
+}
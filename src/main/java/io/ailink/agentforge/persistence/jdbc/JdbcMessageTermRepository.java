@@ -0,0 +1,141 @@
+package io.ailink.agentforge.persistence.jdbc;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 全文检索倒排表数据访问层（jdbc 后端）
+ *
+ * 倒排记录按批插入。检索在一条聚合查询中完成：取出全部查询词项的倒排项，按消息分组，
+ * 只保留包含全部词项的消息，并在数据库中按 TF-IDF 求和、排序和分页（各词项的 IDF 作为参数传入），
+ * 返回的只有当前页的消息 ID 和得分。
+ */
+@Repository
+@DependsOn("schemaMigrator")
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcMessageTermRepository {
+
+    private static final String INSERT = "INSERT INTO message_terms (term, message_id, frequency) VALUES (?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcMessageTermRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 一条倒排记录
+     *
+     * @param term      词项
+     * @param messageId 消息 ID
+     * @param frequency 词项在消息中出现的次数
+     */
+    public record Posting(String term, long messageId, int frequency) {
+    }
+
+    /**
+     * 一条检索结果
+     *
+     * @param messageId 消息 ID
+     * @param score     相关度
+     */
+    public record ScoredMessage(long messageId, double score) {
+    }
+
+    /**
+     * 批量插入倒排记录，须在事务内调用
+     *
+     * @param postings 倒排记录
+     */
+    public void insertAll(List<Posting> postings) {
+        if (postings.isEmpty()) {
+            return;
+        }
+        jdbcTemplate.batchUpdate(INSERT, postings, postings.size(), (ps, posting) -> {
+            ps.setString(1, posting.term());
+            ps.setLong(2, posting.messageId());
+            ps.setInt(3, posting.frequency());
+        });
+    }
+
+    /**
+     * 统计包含词项的消息数（文档频率）
+     */
+    public long countByTerm(String term) {
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM message_terms WHERE term = ?", Long.class, term);
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 统计包含全部词项的消息数
+     *
+     * @param terms 词项（互不相同）
+     */
+    public long countMatches(List<String> terms) {
+        List<Object> args = new ArrayList<>(terms);
+        args.add(terms.size());
+        Long count = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM (SELECT message_id FROM message_terms "
+                + "WHERE term IN (" + placeholders(terms.size()) + ") GROUP BY message_id HAVING COUNT(*) = ?) matched",
+                Long.class, args.toArray());
+        return count != null ? count : 0;
+    }
+
+    /**
+     * 按相关度分页查询包含全部词项的消息
+     *
+     * 相关度为 Σ (1 + ln tf) × idf，同分时 ID 较大（较新）的消息在前。
+     *
+     * @param idf    词项 → 逆文档频率
+     * @param offset 跳过的条数
+     * @param limit  返回的条数
+     * @return 当前页的消息 ID 和得分
+     */
+    public List<ScoredMessage> search(Map<String, Double> idf, int offset, int limit) {
+        StringBuilder weight = new StringBuilder("CASE term");
+        List<Object> args = new ArrayList<>();
+        idf.forEach((term, value) -> {
+            weight.append(" WHEN ? THEN CAST(? AS DOUBLE PRECISION)");
+            args.add(term);
+            args.add(value);
+        });
+        weight.append(" END");
+        args.addAll(idf.keySet());
+        args.add(idf.size());
+        args.add(limit);
+        args.add(offset);
+        return jdbcTemplate.query("SELECT message_id, SUM((1 + LN(frequency)) * " + weight + ") AS score "
+                        + "FROM message_terms WHERE term IN (" + placeholders(idf.size()) + ") "
+                        + "GROUP BY message_id HAVING COUNT(*) = ? "
+                        + "ORDER BY score DESC, message_id DESC LIMIT ? OFFSET ?",
+                (rs, rowNum) -> new ScoredMessage(rs.getLong("message_id"), rs.getDouble("score")),
+                args.toArray());
+    }
+
+    /**
+     * 是否已有倒排记录
+     */
+    public boolean isEmpty() {
+        return jdbcTemplate.queryForList("SELECT 1 FROM message_terms LIMIT 1").isEmpty();
+    }
+
+    /**
+     * 删除不大于指定消息 ID 的倒排记录
+     *
+     * @return 删除的行数
+     */
+    public int deleteUpTo(long messageId) {
+        return jdbcTemplate.update("DELETE FROM message_terms WHERE message_id <= ?", messageId);
+    }
+
+    private static String placeholders(int count) {
+        return String.join(", ", Collections.nCopies(count, "?"));
+    }
+}
@@ -0,0 +1,92 @@
+package io.ailink.agentforge.persistence.jdbc;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity.Period;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 周/月汇总总结数据访问层（jdbc 后端）
+ *
+ * 提供对 period_summaries 表的数据库操作，与 {@link io.ailink.agentforge.persistence.repository.PeriodSummaryRepository} 对应。
+ */
+@Repository
+@DependsOn("schemaMigrator")
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcPeriodSummaryRepository {
+
+    private static final String COLUMNS = "id, period, period_start, summary, day_count, message_count, "
+            + "source_updated_at, created_at, updated_at";
+
+    private static final RowMapper<PeriodSummaryEntity> ROW_MAPPER = (rs, rowNum) -> {
+        PeriodSummaryEntity summary = new PeriodSummaryEntity();
+        summary.setId(rs.getLong("id"));
+        summary.setPeriod(Period.valueOf(rs.getString("period")));
+        summary.setPeriodStart(rs.getObject("period_start", LocalDate.class));
+        summary.setSummary(rs.getString("summary"));
+        summary.setDayCount(rs.getInt("day_count"));
+        summary.setMessageCount(rs.getInt("message_count"));
+        summary.setSourceUpdatedAt(rs.getObject("source_updated_at", LocalDateTime.class));
+        summary.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        summary.setUpdatedAt(rs.getObject("updated_at", LocalDateTime.class));
+        return summary;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcPeriodSummaryRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 查询第一天在日期区间内的汇总（两端包含），按周期升序排列
+     */
+    public List<PeriodSummaryEntity> findByPeriodAndPeriodStartBetween(Period period, LocalDate from, LocalDate to) {
+        return jdbcTemplate.query("SELECT " + COLUMNS + " FROM period_summaries "
+                + "WHERE period = ? AND period_start BETWEEN ? AND ? ORDER BY period_start", ROW_MAPPER,
+                period.name(), from, to);
+    }
+
+    /**
+     * 保存汇总：ID 为 null 时插入并回填 ID，否则更新
+     *
+     * @return 同一个实体
+     */
+    public PeriodSummaryEntity save(PeriodSummaryEntity summary) {
+        if (summary.getId() != null) {
+            jdbcTemplate.update("UPDATE period_summaries SET summary = ?, day_count = ?, message_count = ?, "
+                            + "source_updated_at = ?, updated_at = ? WHERE id = ?",
+                    summary.getSummary(), summary.getDayCount(), summary.getMessageCount(),
+                    summary.getSourceUpdatedAt(), summary.getUpdatedAt(), summary.getId());
+            return summary;
+        }
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO period_summaries "
+                    + "(period, period_start, summary, day_count, message_count, source_updated_at, created_at, "
+                    + "updated_at) VALUES (?, ?, ?, ?, ?, ?, ?, ?)", new String[]{"id"});
+            ps.setString(1, summary.getPeriod().name());
+            ps.setObject(2, summary.getPeriodStart());
+            ps.setString(3, summary.getSummary());
+            ps.setInt(4, summary.getDayCount());
+            ps.setInt(5, summary.getMessageCount());
+            ps.setObject(6, summary.getSourceUpdatedAt());
+            ps.setObject(7, summary.getCreatedAt());
+            ps.setObject(8, summary.getUpdatedAt());
+            return ps;
+        }, keys);
+        summary.setId(keys.getKeyAs(Long.class));
+        return summary;
+    }
+}
@@ -0,0 +1,128 @@
+package io.ailink.agentforge.persistence.jdbc;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSummaryEntity;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.DependsOn;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
+import org.springframework.stereotype.Repository;
+
+import java.sql.PreparedStatement;
+import java.sql.Types;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 会话与对话滚动摘要数据访问层（jdbc 后端）
+ *
+ * 提供对 conversation_sessions 和 conversation_summaries 表的数据库操作，两张表的主键都是自增列。
+ */
+@Repository
+@DependsOn("schemaMigrator")
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcSessionRepository {
+
+    private static final RowMapper<ConversationSessionEntity> SESSION_MAPPER = (rs, rowNum) -> {
+        ConversationSessionEntity session = new ConversationSessionEntity(rs.getObject("created_at", LocalDateTime.class));
+        session.setId(rs.getLong("id"));
+        return session;
+    };
+
+    private static final RowMapper<ConversationSummaryEntity> SUMMARY_MAPPER = (rs, rowNum) -> {
+        ConversationSummaryEntity summary = new ConversationSummaryEntity();
+        summary.setId(rs.getLong("id"));
+        summary.setSessionId(rs.getObject("session_id", Long.class));
+        summary.setSummary(rs.getString("summary"));
+        summary.setCoveredUntil(rs.getObject("covered_until", LocalDateTime.class));
+        summary.setCoveredUntilId(rs.getObject("covered_until_id", Long.class));
+        summary.setFoldedMessages(rs.getInt("folded_messages"));
+        summary.setCreatedAt(rs.getObject("created_at", LocalDateTime.class));
+        return summary;
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public JdbcSessionRepository(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    /**
+     * 插入会话并回填 ID
+     *
+     * @return 同一个实体
+     */
+    public ConversationSessionEntity insert(ConversationSessionEntity session) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement(
+                    "INSERT INTO conversation_sessions (created_at) VALUES (?)", new String[]{"id"});
+            ps.setObject(1, session.getCreatedAt());
+            return ps;
+        }, keys);
+        session.setId(keys.getKeyAs(Long.class));
+        return session;
+    }
+
+    /**
+     * 按 ID 查询会话
+     */
+    public Optional<ConversationSessionEntity> findById(long id) {
+        return jdbcTemplate.query("SELECT id, created_at FROM conversation_sessions WHERE id = ?", SESSION_MAPPER, id)
+                .stream().findFirst();
+    }
+
+    /**
+     * 查询最近创建的会话，按 ID 降序排列
+     */
+    public List<ConversationSessionEntity> findLatest(int limit) {
+        return jdbcTemplate.query("SELECT id, created_at FROM conversation_sessions ORDER BY id DESC LIMIT ?",
+                SESSION_MAPPER, limit);
+    }
+
+    /**
+     * 插入对话滚动摘要并回填 ID
+     *
+     * @return 同一个实体
+     */
+    public ConversationSummaryEntity insertSummary(ConversationSummaryEntity summary) {
+        KeyHolder keys = new GeneratedKeyHolder();
+        jdbcTemplate.update(connection -> {
+            PreparedStatement ps = connection.prepareStatement("INSERT INTO conversation_summaries "
+                    + "(session_id, summary, covered_until, covered_until_id, folded_messages, created_at) "
+                    + "VALUES (?, ?, ?, ?, ?, ?)",
+                    new String[]{"id"});
+            ps.setObject(1, summary.getSessionId(), Types.BIGINT);
+            ps.setString(2, summary.getSummary());
+            ps.setObject(3, summary.getCoveredUntil());
+            ps.setObject(4, summary.getCoveredUntilId(), Types.BIGINT);
+            ps.setInt(5, summary.getFoldedMessages());
+            ps.setObject(6, summary.getCreatedAt());
+            return ps;
+        }, keys);
+        summary.setId(keys.getKeyAs(Long.class));
+        return summary;
+    }
+
+    /**
+     * 查询会话最新的对话滚动摘要
+     */
+    public Optional<ConversationSummaryEntity> findLatestSummary(long sessionId) {
+        return jdbcTemplate.query("SELECT id, session_id, summary, covered_until, covered_until_id, folded_messages, created_at "
+                        + "FROM conversation_summaries WHERE session_id = ? ORDER BY id DESC LIMIT 1",
+                SUMMARY_MAPPER, sessionId).stream().findFirst();
+    }
+
+    /**
+     * 把不属于任何会话的摘要归入指定会话
+     *
+     * @return 更新的行数
+     */
+    public int assignSummariesToOrphans(long sessionId) {
+        return jdbcTemplate.update("UPDATE conversation_summaries SET session_id = ? WHERE session_id IS NULL", sessionId);
+    }
+}
@@ -0,0 +1,80 @@
+package io.ailink.agentforge.persistence.jdbc;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ScriptUtils;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * 版本化表结构迁移
+ *
+ * 表结构由 db/migration 下按版本编号的 SQL 脚本定义，已执行的版本记录在 schema_version 表中。
+ * 两种存储后端都只由这里建表和改表：jpa 后端的 EntityManagerFactory 在迁移之后创建，
+ * Hibernate 只校验实体与表结构一致（ddl-auto: validate），不再自行修改表结构。
+ * 启动时只读取一次版本表，没有待执行的脚本时不再访问表结构。
+ *
+ * 脚本按 {@link #MIGRATIONS} 中的顺序执行（不扫描类路径），每个脚本执行后记录版本号。
+ * 新的表结构变更追加一个脚本和一项版本，已发布的脚本不再修改。
+ */
+@Component
+public class SchemaMigrator implements InitializingBean {
+
+    private static final Logger log = LoggerFactory.getLogger(SchemaMigrator.class);
+
+    /**
+     * 全部迁移脚本，按版本号升序
+     */
+    static final List<Migration> MIGRATIONS = List.of(
+            new Migration(1, "baseline", "db/migration/V1__baseline.sql"),
+            new Migration(2, "daily summary watermark", "db/migration/V2__daily_summary_watermark.sql"),
+            new Migration(3, "period summaries", "db/migration/V3__period_summaries.sql"),
+            new Migration(4, "conversation summary watermark", "db/migration/V4__conversation_summary_watermark.sql"),
+            new Migration(5, "reindex cjk unigrams", "db/migration/V5__reindex_cjk_unigrams.sql")
+    );
+
+    private final JdbcTemplate jdbcTemplate;
+
+    public SchemaMigrator(JdbcTemplate jdbcTemplate) {
+        this.jdbcTemplate = jdbcTemplate;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS schema_version ("
+                + "version INT PRIMARY KEY, description VARCHAR(200) NOT NULL, installed_at TIMESTAMP NOT NULL)");
+        Set<Integer> installed = new HashSet<>(
+                jdbcTemplate.queryForList("SELECT version FROM schema_version", Integer.class));
+        for (Migration migration : MIGRATIONS) {
+            if (installed.contains(migration.version())) {
+                continue;
+            }
+            jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+                ScriptUtils.executeSqlScript(connection, new ClassPathResource(migration.script()));
+                return null;
+            });
+            jdbcTemplate.update("INSERT INTO schema_version (version, description, installed_at) VALUES (?, ?, ?)",
+                    migration.version(), migration.description(), Timestamp.valueOf(LocalDateTime.now()));
+            log.info("表结构已迁移到版本 {}（{}）", migration.version(), migration.description());
+        }
+    }
+
+    /**
+     * 一个迁移脚本
+     *
+     * @param version     版本号
+     * @param description 说明
+     * @param script      类路径上的 SQL 脚本
+     */
+    record Migration(int version, String description, String script) {
+    }
+}
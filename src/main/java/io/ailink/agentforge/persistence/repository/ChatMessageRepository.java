@@ -1,13 +1,21 @@
 package io.ailink.agentforge.persistence.repository;
 
 import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import jakarta.persistence.QueryHint;
+import org.hibernate.jpa.HibernateHints;
+import org.springframework.data.domain.Limit;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Optional;
+import java.util.stream.Stream;
 
 /**
  * 聊天消息数据访问层
@@ -15,15 +23,25 @@ import java.util.List;
  * 提供对 chat_messages 表的数据库操作。
  * 继承 JpaRepository 提供基本的 CRUD 操作。
  *
+ * 列表查询统一按 (createdAt, id) 排序并使用键集分页：以上一页最后一条的 (createdAt, id)
+ * 作为游标取下一页，配合复合索引 idx_created_at_id，每页的代价只与页大小有关，与表的大小和翻页深度无关。
+ * id 作为第二排序键，保证同一时间戳的多条消息顺序稳定、不重不漏。
+ *
  * 主要查询方法：
- * - 按创建时间排序查询所有消息
- * - 按日期范围查询消息
- * - 统计指定日期范围内的消息数量
- * - 获取最近的消息
+ * - 最近的消息（倒序，键集向前翻页）
+ * - 一个会话最近的消息（复合索引 idx_session_created_at_id 上的区间扫描）
+ * - 按日期范围查询消息（正序，键集向后翻页）
+ * - 统计一个会话的消息数量（按日期的统计见 daily_stats）
  */
 @Repository
 public interface ChatMessageRepository extends JpaRepository<ChatMessageEntity, Long> {
 
+    /**
+     * 一天的消息数和最大消息 ID
+     */
+    record DayCount(LocalDate date, Long messages, Long maxId) {
+    }
+
     /**
      * 查询所有消息，按创建时间升序排列
      *
@@ -31,6 +49,81 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessageEntity,
      */
     List<ChatMessageEntity> findAllByOrderByCreatedAtAsc();
 
+    /**
+     * 查询最近的消息（第一页），按 (createdAt, id) 降序排列
+     *
+     * @param limit 返回的消息数量限制
+     * @return 最近的消息列表
+     */
+    @Query("SELECT m FROM ChatMessageEntity m ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageEntity> findLatest(Limit limit);
+
+    /**
+     * 查询游标之前的消息（向前翻页），按 (createdAt, id) 降序排列
+     *
+     * @param createdAt 游标消息的创建时间
+     * @param id        游标消息的 ID
+     * @param limit     返回的消息数量限制
+     * @return 游标之前的消息列表
+     */
+    @Query("SELECT m FROM ChatMessageEntity m "
+            + "WHERE m.createdAt < :createdAt OR (m.createdAt = :createdAt AND m.id < :id) "
+            + "ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageEntity> findBefore(@Param("createdAt") LocalDateTime createdAt, @Param("id") Long id,
+                                       Limit limit);
+
+    /**
+     * 查询会话最近的消息，按 (createdAt, id) 降序排列
+     *
+     * @param sessionId 会话 ID
+     * @param limit     返回的消息数量限制
+     * @return 最近的消息列表
+     */
+    @Query("SELECT m FROM ChatMessageEntity m WHERE m.sessionId = :sessionId ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageEntity> findLatestInSession(@Param("sessionId") Long sessionId, Limit limit);
+
+    /**
+     * 查询会话中游标之后的最近消息，按 (createdAt, id) 降序排列
+     *
+     * @param sessionId 会话 ID
+     * @param createdAt 游标消息的创建时间
+     * @param id        游标消息的 ID
+     * @param limit     返回的消息数量限制
+     * @return 最近的消息列表
+     */
+    @Query("SELECT m FROM ChatMessageEntity m WHERE m.sessionId = :sessionId "
+            + "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) "
+            + "ORDER BY m.createdAt DESC, m.id DESC")
+    List<ChatMessageEntity> findLatestInSessionAfter(@Param("sessionId") Long sessionId,
+                                                     @Param("createdAt") LocalDateTime createdAt,
+                                                     @Param("id") Long id, Limit limit);
+
+    /**
+     * 查询会话的第一条消息
+     *
+     * @param sessionId 会话 ID，为 null 时查询不属于任何会话的第一条消息
+     * @return 第一条消息
+     */
+    Optional<ChatMessageEntity> findFirstBySessionIdOrderByCreatedAtAscIdAsc(Long sessionId);
+
+    /**
+     * 统计会话中的消息数量
+     *
+     * @param sessionId 会话 ID
+     * @return 消息数量
+     */
+    long countBySessionId(Long sessionId);
+
+    /**
+     * 把不属于任何会话的消息归入指定会话
+     *
+     * @param sessionId 会话 ID
+     * @return 更新的消息数
+     */
+    @Modifying
+    @Query("UPDATE ChatMessageEntity m SET m.sessionId = :sessionId WHERE m.sessionId IS NULL")
+    int assignSessionToOrphans(@Param("sessionId") Long sessionId);
+
     /**
      * 按日期范围查询消息
      *
@@ -38,30 +131,116 @@ public interface ChatMessageRepository extends JpaRepository<ChatMessageEntity,
      * @param end   结束时间（不包含）
      * @return 日期范围内的消息列表
      */
-    @Query("SELECT m FROM ChatMessageEntity m WHERE m.createdAt >= :start AND m.createdAt < :end ORDER BY m.createdAt ASC")
+    @Query("SELECT m FROM ChatMessageEntity m WHERE m.createdAt >= :start AND m.createdAt < :end ORDER BY m.createdAt ASC, m.id ASC")
     List<ChatMessageEntity> findByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     /**
-     * 统计指定日期范围内的消息数量
+     * 按日期范围查询 ID 大于 afterId 的消息（增量生成每日总结）
+     *
+     * @param start   开始时间（包含）
+     * @param end     结束时间（不包含）
+     * @param afterId ID 下界（不包含）
+     * @return 日期范围内的新消息列表
+     */
+    @Query("SELECT m FROM ChatMessageEntity m WHERE m.createdAt >= :start AND m.createdAt < :end AND m.id > :afterId "
+            + "ORDER BY m.createdAt ASC, m.id ASC")
+    List<ChatMessageEntity> findByDateRangeAndIdAfter(@Param("start") LocalDateTime start,
+                                                      @Param("end") LocalDateTime end,
+                                                      @Param("afterId") Long afterId);
+
+    /**
+     * 统计日期范围内 ID 不超过 maxId 的消息数（校验每日总结的高水位）
      *
      * @param start 开始时间（包含）
      * @param end   结束时间（不包含）
-     * @return 消息数量
+     * @param maxId ID 上界（包含）
+     * @return 消息数
+     */
+    @Query("SELECT COUNT(m) FROM ChatMessageEntity m WHERE m.createdAt >= :start AND m.createdAt < :end "
+            + "AND m.id <= :maxId")
+    long countByDateRangeAndIdAtMost(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                     @Param("maxId") Long maxId);
+
+    /**
+     * 按天分组统计日期范围内的消息数和最大消息 ID（查找需要生成每日总结的日期）
+     *
+     * @param start 开始时间（包含）
+     * @param end   结束时间（不包含）
+     * @return 有消息的每一天，按日期升序排列
      */
-    long countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(LocalDateTime start, LocalDateTime end);
+    @Query("SELECT new io.ailink.agentforge.persistence.repository.ChatMessageRepository$DayCount("
+            + "cast(m.createdAt as LocalDate), count(m), max(m.id)) FROM ChatMessageEntity m "
+            + "WHERE m.createdAt >= :start AND m.createdAt < :end "
+            + "GROUP BY cast(m.createdAt as LocalDate) ORDER BY cast(m.createdAt as LocalDate)")
+    List<DayCount> countByDay(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end);
 
     /**
-     * 获取最近N条消息，按创建时间降序排列
+     * 按日期范围分页查询消息（第一页），按 (createdAt, id) 升序排列
      *
+     * @param start 开始时间（包含）
+     * @param end   结束时间（不包含）
      * @param limit 返回的消息数量限制
-     * @return 最近的消息列表
+     * @return 日期范围内的消息列表
+     */
+    @Query("SELECT m FROM ChatMessageEntity m WHERE m.createdAt >= :start AND m.createdAt < :end "
+            + "ORDER BY m.createdAt ASC, m.id ASC")
+    List<ChatMessageEntity> findByDateRange(@Param("start") LocalDateTime start, @Param("end") LocalDateTime end,
+                                            Limit limit);
+
+    /**
+     * 按日期范围查询游标之后的消息（向后翻页），按 (createdAt, id) 升序排列
+     *
+     * @param start     开始时间（包含）
+     * @param end       结束时间（不包含）
+     * @param createdAt 游标消息的创建时间
+     * @param id        游标消息的 ID
+     * @param limit     返回的消息数量限制
+     * @return 游标之后的消息列表
+     */
+    @Query("SELECT m FROM ChatMessageEntity m WHERE m.createdAt >= :start AND m.createdAt < :end "
+            + "AND (m.createdAt > :createdAt OR (m.createdAt = :createdAt AND m.id > :id)) "
+            + "ORDER BY m.createdAt ASC, m.id ASC")
+    List<ChatMessageEntity> findByDateRangeAfter(@Param("start") LocalDateTime start,
+                                                 @Param("end") LocalDateTime end,
+                                                 @Param("createdAt") LocalDateTime createdAt,
+                                                 @Param("id") Long id,
+                                                 Limit limit);
+
+    /**
+     * 按 ID 升序查询游标之后的消息（按主键顺序遍历全表，如重建检索索引）
+     *
+     * @param id    游标消息的 ID
+     * @param maxId ID 上界（含）
+     * @param limit 返回的消息数量限制
+     * @return 游标之后的消息列表
+     */
+    List<ChatMessageEntity> findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(Long id, Long maxId, Limit limit);
+
+    /**
+     * 按 ID 升序逐行读取全部消息（导出使用）
+     *
+     * 返回的流基于只进游标，JDBC 每次只取 fetch size 行，须在事务内消费并关闭；
+     * 调用方应逐条从持久化上下文中移除已处理的实体，内存占用才与表的大小无关。
+     *
+     * @return 消息流
+     */
+    @QueryHints(@QueryHint(name = HibernateHints.HINT_FETCH_SIZE, value = "500"))
+    @Query("SELECT m FROM ChatMessageEntity m ORDER BY m.id ASC")
+    Stream<ChatMessageEntity> streamAll();
+
+    /**
+     * 查询最大的消息 ID
+     *
+     * @return 最大 ID，表为空时返回 null
      */
-    List<ChatMessageEntity> findTop100ByOrderByCreatedAtDesc();
+    @Query("SELECT MAX(m.id) FROM ChatMessageEntity m")
+    Long findMaxId();
 
     /**
-     * 查询所有消息，按创建时间降序排列
+     * 查询指定时间之前最早的一条消息（冷热分层时确定下一个待归档的日期）
      *
-     * @return 按时间倒序的消息列表
+     * @param before 时间上界（不包含）
+     * @return 最早的消息
      */
-    List<ChatMessageEntity> findAllByOrderByCreatedAtDesc();
+    Optional<ChatMessageEntity> findFirstByCreatedAtLessThanOrderByCreatedAtAsc(LocalDateTime before);
 }
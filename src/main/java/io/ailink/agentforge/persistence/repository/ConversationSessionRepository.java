@@ -0,0 +1,25 @@
+package io.ailink.agentforge.persistence.repository;
+
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import org.springframework.data.domain.Limit;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.util.List;
+
+/**
+ * 对话会话数据访问层
+ *
+ * 提供对 conversation_sessions 表的数据库操作。
+ */
+@Repository
+public interface ConversationSessionRepository extends JpaRepository<ConversationSessionEntity, Long> {
+
+    /**
+     * 查询最近创建的会话，按 ID 倒序排列
+     *
+     * @param limit 返回的会话数量限制
+     * @return 会话列表
+     */
+    List<ConversationSessionEntity> findByOrderByIdDesc(Limit limit);
+}
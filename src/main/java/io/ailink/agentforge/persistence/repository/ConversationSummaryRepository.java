@@ -0,0 +1,37 @@
+package io.ailink.agentforge.persistence.repository;
+
+import io.ailink.agentforge.persistence.entity.ConversationSummaryEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Optional;
+
+/**
+ * 对话摘要数据访问层
+ *
+ * 提供对 conversation_summaries 表的数据库操作。
+ */
+@Repository
+public interface ConversationSummaryRepository extends JpaRepository<ConversationSummaryEntity, Long> {
+
+    /**
+     * 查询会话最新的对话摘要
+     *
+     * @param sessionId 会话 ID
+     * @return 最新摘要（可能为空）
+     */
+    Optional<ConversationSummaryEntity> findFirstBySessionIdOrderByIdDesc(Long sessionId);
+
+    /**
+     * 把不属于任何会话的摘要归入指定会话
+     *
+     * @param sessionId 会话 ID
+     * @return 更新的摘要数
+     */
+    @Modifying
+    @Query("UPDATE ConversationSummaryEntity s SET s.sessionId = :sessionId WHERE s.sessionId IS NULL")
+    int assignSessionToOrphans(@Param("sessionId") Long sessionId);
+}
@@ -0,0 +1,43 @@
+package io.ailink.agentforge.persistence.repository;
+
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 每日统计数据访问层
+ *
+ * 提供对 daily_stats 表的数据库操作，按主键（日期）区间查询。
+ */
+@Repository
+public interface DailyStatsRepository extends JpaRepository<DailyStatsEntity, LocalDate> {
+
+    /**
+     * 查询日期区间内的统计
+     *
+     * @param from 起始日期（包含）
+     * @param to   结束日期（包含）
+     * @return 有消息的日期的统计，按日期升序
+     */
+    List<DailyStatsEntity> findByStatDateBetweenOrderByStatDateAsc(LocalDate from, LocalDate to);
+
+    /**
+     * 全部消息数（各天消息数之和）
+     *
+     * @return 消息总数，没有统计时为 null
+     */
+    @Query("select sum(s.userMessages + s.assistantMessages + s.toolCalls) from DailyStatsEntity s")
+    Long sumMessages();
+
+    /**
+     * 清空统计（重建前调用）
+     */
+    @Modifying
+    @Query("delete from DailyStatsEntity")
+    void deleteAllStats();
+}
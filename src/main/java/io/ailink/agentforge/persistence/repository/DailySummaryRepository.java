@@ -17,6 +17,7 @@ import java.util.Optional;
  * 主要查询方法：
  * - 按日期查询总结
  * - 按日期倒序查询所有总结
+ * - 按日期区间查询总结
  */
 @Repository
 public interface DailySummaryRepository extends JpaRepository<DailySummaryEntity, Long> {
@@ -35,4 +36,13 @@ public interface DailySummaryRepository extends JpaRepository<DailySummaryEntity
      * @return 按日期倒序的总结列表
      */
     List<DailySummaryEntity> findAllByOrderBySummaryDateDesc();
+
+    /**
+     * 查询日期区间内的每日总结
+     *
+     * @param from 起始日期（包含）
+     * @param to   结束日期（包含）
+     * @return 按日期升序排列的总结
+     */
+    List<DailySummaryEntity> findBySummaryDateBetweenOrderBySummaryDateAsc(LocalDate from, LocalDate to);
 }
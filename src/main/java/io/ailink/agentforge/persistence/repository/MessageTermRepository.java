@@ -0,0 +1,69 @@
+package io.ailink.agentforge.persistence.repository;
+
+import io.ailink.agentforge.persistence.entity.MessageTermEntity;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 全文检索倒排表数据访问层
+ *
+ * 提供对 message_terms 表的数据库操作。倒排列表以 {@link Posting} 投影返回，
+ * 不经过持久化上下文，常见词项的长列表也只是一次索引范围扫描。
+ */
+@Repository
+public interface MessageTermRepository extends JpaRepository<MessageTermEntity, MessageTermEntity.Key> {
+
+    /**
+     * 倒排列表中的一项
+     *
+     * @param messageId 消息 ID
+     * @param frequency 词项在消息中出现的次数
+     */
+    record Posting(Long messageId, int frequency) {
+    }
+
+    /**
+     * 统计包含词项的消息数（文档频率）
+     *
+     * @param term 词项
+     * @return 消息数
+     */
+    long countByTerm(String term);
+
+    /**
+     * 查询词项的完整倒排列表
+     *
+     * @param term 词项
+     * @return 倒排列表
+     */
+    @Query("SELECT new io.ailink.agentforge.persistence.repository.MessageTermRepository$Posting(t.messageId, t.frequency) "
+            + "FROM MessageTermEntity t WHERE t.term = :term")
+    List<Posting> findPostings(@Param("term") String term);
+
+    /**
+     * 查询词项在指定消息中的倒排项
+     *
+     * @param term       词项
+     * @param messageIds 候选消息 ID
+     * @return 倒排列表（只包含候选消息中出现该词项的）
+     */
+    @Query("SELECT new io.ailink.agentforge.persistence.repository.MessageTermRepository$Posting(t.messageId, t.frequency) "
+            + "FROM MessageTermEntity t WHERE t.term = :term AND t.messageId IN :messageIds")
+    List<Posting> findPostings(@Param("term") String term, @Param("messageIds") Collection<Long> messageIds);
+
+    /**
+     * 删除不大于指定消息 ID 的倒排记录
+     *
+     * @param messageId 消息 ID 上界（含）
+     * @return 删除的行数
+     */
+    @Modifying
+    @Query("DELETE FROM MessageTermEntity t WHERE t.messageId <= :messageId")
+    int deleteUpTo(@Param("messageId") Long messageId);
+}
@@ -0,0 +1,30 @@
+package io.ailink.agentforge.persistence.repository;
+
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity.Period;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+
+/**
+ * 周/月汇总总结数据访问层
+ *
+ * 提供对 period_summaries 表的数据库操作。
+ * 继承 JpaRepository 提供基本的 CRUD 操作。
+ */
+@Repository
+public interface PeriodSummaryRepository extends JpaRepository<PeriodSummaryEntity, Long> {
+
+    /**
+     * 查询第一天在日期区间内的汇总，按周期升序排列
+     *
+     * @param period 周期类型
+     * @param from   起始日期（包含）
+     * @param to     结束日期（包含）
+     * @return 区间内的汇总
+     */
+    List<PeriodSummaryEntity> findByPeriodAndPeriodStartBetweenOrderByPeriodStartAsc(Period period, LocalDate from,
+                                                                                      LocalDate to);
+}
@@ -1,10 +1,22 @@
 package io.ailink.agentforge.service;
 
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.llm.dto.TokenUsage;
 import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSummaryEntity;
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
 import io.ailink.agentforge.persistence.entity.DailySummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity.Period;
+import io.ailink.agentforge.tool.ToolCall;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
+import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
 
 /**
  * 聊天历史服务接口
@@ -16,18 +28,99 @@ public interface ChatHistoryService {
     /**
      * 保存用户消息
      *
-     * @param content 消息内容
-     * @return 保存后的消息实体
+     * 消息可能异步写入：返回的实体 createdAt 已确定，id 可能尚未分配。
+     * 之后的查询总能看到已保存的消息。
+     *
+     * @param sessionId 所属会话的 ID
+     * @param content   消息内容
+     * @return 保存的消息实体
      */
-    ChatMessageEntity saveUserMessage(String content);
+    ChatMessageEntity saveUserMessage(Long sessionId, String content);
 
     /**
      * 保存助手回复
      *
-     * @param content 消息内容
-     * @return 保存后的消息实体
+     * 与 {@link #saveUserMessage} 相同，可能异步写入。
+     *
+     * @param sessionId 所属会话的 ID
+     * @param content   消息内容
+     * @return 保存的消息实体
+     */
+    ChatMessageEntity saveAssistantMessage(Long sessionId, String content);
+
+    /**
+     * 保存模型的回答及本次响应的 Token 用量和耗时
+     *
+     * @param sessionId 所属会话的 ID
+     * @param content   消息内容
+     * @param usage     Token 用量（可为 null）
+     * @param latencyMs 响应耗时（毫秒）
+     * @return 保存的消息实体
+     */
+    ChatMessageEntity saveAssistantMessage(Long sessionId, String content, TokenUsage usage, long latencyMs);
+
+    /**
+     * 保存带工具调用的助手消息
+     *
+     * 工具调用（含参数）与消息一起保存，恢复会话时模型能看到已执行过的调用，不必重新调用。
+     *
+     * @param sessionId 所属会话的 ID
+     * @param content   助手在调用工具前输出的文本（可为空字符串）
+     * @param toolCalls 工具调用列表
+     * @param usage     本次响应的 Token 用量（可为 null）
+     * @param latencyMs 本次响应的耗时（毫秒）
+     * @return 保存的消息实体
+     */
+    ChatMessageEntity saveToolCalls(Long sessionId, String content, List<ToolCall> toolCalls,
+                                    TokenUsage usage, long latencyMs);
+
+    /**
+     * 保存工具结果
+     *
+     * @param sessionId  所属会话的 ID
+     * @param toolCallId 关联的工具调用 ID
+     * @param content    工具执行结果
+     * @return 保存的消息实体
+     */
+    ChatMessageEntity saveToolResult(Long sessionId, String toolCallId, String content);
+
+    /**
+     * 把保存的消息还原为对话历史中的消息（含工具调用信息）
+     *
+     * @param message 消息实体
+     * @return 对话消息
+     */
+    ChatMessage toChatMessage(ChatMessageEntity message);
+
+    /**
+     * 创建新会话
+     *
+     * @return 新会话
+     */
+    ConversationSessionEntity startSession();
+
+    /**
+     * 按 ID 查询会话
+     *
+     * @param sessionId 会话 ID
+     * @return 会话，不存在则返回 null
+     */
+    ConversationSessionEntity getSession(Long sessionId);
+
+    /**
+     * 获取最近一条消息所属的会话（chat --resume）
+     *
+     * @return 会话，没有消息时返回 null
      */
-    ChatMessageEntity saveAssistantMessage(String content);
+    ConversationSessionEntity getLatestSession();
+
+    /**
+     * 列出最近创建的会话
+     *
+     * @param limit 返回的会话数量限制
+     * @return 会话概览（按创建时间倒序）
+     */
+    List<SessionOverview> getRecentSessions(int limit);
 
     /**
      * 获取所有消息
@@ -39,22 +132,132 @@ public interface ChatHistoryService {
     /**
      * 获取最近的聊天消息
      *
+     * 只包含保留窗口内（数据库中）的消息。
+     *
      * @param limit 返回的消息数量限制
      * @return 最近的消息列表（按时间升序）
      */
     List<ChatMessageEntity> getRecentChatMessages(int limit);
 
+    /**
+     * 获取游标之前的一页消息（向更早的消息翻页）
+     *
+     * @param before 游标（上一页最早的一条消息）
+     * @param limit  返回的消息数量限制
+     * @return 游标之前紧邻的消息列表（按时间升序）
+     */
+    List<ChatMessageEntity> getChatMessagesBefore(MessageCursor before, int limit);
+
+    /**
+     * 获取会话最近的消息
+     *
+     * 数据库中的消息不足 limit 条时，继续从归档段中读取该会话更早的消息，长期未继续的会话同样可以完整恢复。
+     *
+     * @param sessionId 会话 ID
+     * @param limit     返回的消息数量限制
+     * @return 最近的消息列表（按时间升序）
+     */
+    List<ChatMessageEntity> getRecentSessionMessages(Long sessionId, int limit);
+
+    /**
+     * 获取会话中游标之后的最近消息
+     *
+     * 用于从对话摘要恢复会话（见 {@link MessageCursor#coveredBy}）：摘要已覆盖的消息不再加载。
+     * 按 (createdAt, id) 严格比较，与游标同一时刻保存的后续消息不会遗漏。
+     * 与 {@link #getRecentSessionMessages} 一样会读取归档段。
+     *
+     * @param sessionId 会话 ID
+     * @param after     游标（不包含）
+     * @param limit     返回的消息数量限制
+     * @return 最近的消息列表（按时间升序）
+     */
+    List<ChatMessageEntity> getRecentSessionMessagesAfter(Long sessionId, MessageCursor after, int limit);
+
     /**
      * 按日期查询消息
      *
+     * 已归档的日期从段文件读取，代价与当天的消息数成正比。
+     *
      * @param date 查询日期
      * @return 当天的消息列表
      */
     List<ChatMessageEntity> getMessagesByDate(LocalDate date);
 
+    /**
+     * 按日期分页查询消息
+     *
+     * @param date  查询日期
+     * @param after 游标（上一页最后一条消息），为 null 时从当天第一条开始
+     * @param limit 返回的消息数量限制
+     * @return 一页消息（按时间升序）
+     */
+    List<ChatMessageEntity> getMessagesByDate(LocalDate date, MessageCursor after, int limit);
+
+    /**
+     * 按日期逐页读取消息
+     *
+     * 按需分页查询，内存中最多保留一页消息，适合逐条输出当天的全部消息。
+     *
+     * @param date     查询日期
+     * @param pageSize 每页的消息数量
+     * @return 当天消息的顺序流（按时间升序）
+     */
+    Stream<ChatMessageEntity> streamMessagesByDate(LocalDate date, int pageSize);
+
+    /**
+     * 全文检索消息
+     *
+     * 命中的消息包含查询中的全部词项，按相关度排序。
+     *
+     * @param query    查询文本
+     * @param page     页码（从 1 开始）
+     * @param pageSize 每页条数
+     * @return 一页结果
+     */
+    MessageSearchPage searchMessages(String query, int page, int pageSize);
+
+    /**
+     * 重建全文检索索引
+     *
+     * @return 重新索引的消息数
+     */
+    int rebuildSearchIndex();
+
+    /**
+     * 把全部消息导出为 JSONL 文件
+     *
+     * @param file 目标文件（已存在时覆盖）
+     * @return 导出的消息数
+     */
+    long exportMessages(Path file) throws IOException;
+
+    /**
+     * 从 JSONL 导出文件导入消息
+     *
+     * @param file 导出文件
+     * @return 导入的消息数
+     */
+    long importMessages(Path file) throws IOException;
+
+    /**
+     * 统计已归档（已移出数据库）的消息数量
+     *
+     * @return 归档中的消息数
+     */
+    long getArchivedMessageCount();
+
+    /**
+     * 立即归档保留窗口之前的消息
+     *
+     * @return 归档的消息数
+     */
+    long archiveMessages() throws IOException;
+
     /**
      * 统计指定日期的消息数量
      *
+     * 读取当天的预聚合统计，不扫描消息。
+     *
      * @param date 查询日期
      * @return 当天的消息数量
      */
@@ -63,10 +266,28 @@ public interface ChatHistoryService {
     /**
      * 获取总消息数量
      *
-     * @return 数据库中所有消息的数量
+     * 由每日统计求和，代价与有消息的天数成正比。
+     *
+     * @return 所有消息的数量（含已归档的消息）
      */
     long getTotalMessageCount();
 
+    /**
+     * 查询日期区间内的每日统计
+     *
+     * @param from 起始日期（包含）
+     * @param to   结束日期（包含）
+     * @return 有消息的日期的统计，按日期升序
+     */
+    List<DailyStatsEntity> getDailyStats(LocalDate from, LocalDate to);
+
+    /**
+     * 由全部消息重建每日统计
+     *
+     * @return 统计的消息数
+     */
+    long rebuildDailyStats();
+
     /**
      * 生成每日总结
      *
@@ -75,6 +296,15 @@ public interface ChatHistoryService {
      */
     DailySummaryEntity generateDailySummary(LocalDate date);
 
+    /**
+     * 查找日期区间内需要生成每日总结的日期：有消息但没有总结，或总结之后又有新消息
+     *
+     * @param from 起始日期（包含）
+     * @param to   结束日期（包含）
+     * @return 需要生成总结的日期（升序）
+     */
+    List<LocalDate> getDaysNeedingSummary(LocalDate from, LocalDate to);
+
     /**
      * 获取指定日期的总结
      *
@@ -83,10 +313,57 @@ public interface ChatHistoryService {
      */
     DailySummaryEntity getDailySummary(LocalDate date);
 
+    /**
+     * 保存对话滚动摘要
+     *
+     * @param sessionId      所属会话的 ID
+     * @param summary        摘要内容
+     * @param coveredUntil   摘要覆盖到的最后一条已保存消息（记录其创建时间和 ID）
+     * @param foldedMessages 本次折叠的消息数
+     * @return 保存后的摘要实体
+     */
+    ConversationSummaryEntity saveConversationSummary(Long sessionId, String summary, ChatMessageEntity coveredUntil,
+                                                      int foldedMessages);
+
+    /**
+     * 获取会话最新的对话滚动摘要
+     *
+     * @param sessionId 会话 ID
+     * @return 最新摘要，不存在则返回 null
+     */
+    ConversationSummaryEntity getLatestConversationSummary(Long sessionId);
+
     /**
      * 获取所有每日总结
      *
      * @return 按日期倒序排列的总结列表
      */
     List<DailySummaryEntity> getAllDailySummaries();
+
+    /**
+     * 获取日期区间内的每日总结
+     *
+     * @param from 起始日期（包含）
+     * @param to   结束日期（包含）
+     * @return 按日期升序排列的总结列表
+     */
+    List<DailySummaryEntity> getDailySummaries(LocalDate from, LocalDate to);
+
+    /**
+     * 获取已缓存的周/月汇总总结（不检查是否过期，见 {@link PeriodSummaryRollup}）
+     *
+     * @param period 周期类型
+     * @param from   起始日期（包含）
+     * @param to     结束日期（包含）
+     * @return 第一天在区间内的汇总，按周期升序排列
+     */
+    List<PeriodSummaryEntity> getPeriodSummaries(Period period, LocalDate from, LocalDate to);
+
+    /**
+     * 保存周/月汇总总结（ID 为 null 时新增，否则更新）
+     *
+     * @param summary 汇总总结
+     * @return 保存后的汇总实体
+     */
+    PeriodSummaryEntity savePeriodSummary(PeriodSummaryEntity summary);
 }
@@ -1,110 +1,417 @@
 package io.ailink.agentforge.service;
 
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.llm.dto.TokenUsage;
+import io.ailink.agentforge.persistence.archive.DaySegment;
+import io.ailink.agentforge.persistence.archive.SegmentStore;
 import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSummaryEntity;
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
 import io.ailink.agentforge.persistence.entity.DailySummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity.Period;
 import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import io.ailink.agentforge.persistence.repository.ConversationSessionRepository;
+import io.ailink.agentforge.persistence.repository.ConversationSummaryRepository;
+import io.ailink.agentforge.persistence.repository.DailyStatsRepository;
 import io.ailink.agentforge.persistence.repository.DailySummaryRepository;
+import io.ailink.agentforge.persistence.repository.PeriodSummaryRepository;
+import io.ailink.agentforge.tool.ToolCall;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 /**
  * 聊天历史服务实现
  *
  * 核心业务逻辑模块，负责：
- * - 消息的持久化存储（保存用户和助手消息）
+ * - 消息的持久化存储（保存用户和助手消息、工具调用和工具结果，经 ChatMessageWriter 异步批量写入）
+ * - 对话会话的创建和查询，按会话加载最近的消息
  * - 消息的查询（全部、最近、指定日期）
- * - 消息统计（总数、按日期统计）
- * - 每日总结的生成和查询
+ * - 消息的全文检索
+ * - 历史记录的导入导出
+ * - 冷热分层：较早的消息按天归档为段文件，按日期查询、统计、检索时合并读取
+ * - 消息统计：按天预聚合（消息数、字符数、Token 用量、响应耗时），统计查询只读取区间内的天
+ * - 每日总结的生成和查询，周/月汇总总结的缓存
+ * - 对话滚动摘要的保存和查询
  *
  * 依赖组件：
  * - ChatMessageRepository: 消息数据访问
- * - DailySummaryRepository: 总结数据访问
+ * - ConversationSessionRepository: 会话数据访问
+ * - ChatMessageWriter: 消息异步批量写入，查询消息前先等待已入队的消息提交
+ * - ToolPayloadCodec: 工具调用信息的 Smile 编码
+ * - MessageSearchIndex: 全文检索倒排索引
+ * - ChatHistoryTransfer: JSONL 流式导入导出
+ * - SegmentStore / HistoryArchiver: 冷数据段的读取与归档
+ * - DailyStatsRepository / DailyStatsRollup: 每日统计的查询与重建
+ * - DailySummaryRepository / PeriodSummaryRepository: 每日总结和周/月汇总数据访问
+ * - ConversationSummaryRepository: 对话摘要数据访问
  * - SummaryGenerator: LLM总结生成（关注点分离）
  */
 @Service
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jpa", matchIfMissing = true)
 public class ChatHistoryServiceImpl implements ChatHistoryService {
 
     private static final Logger log = LoggerFactory.getLogger(ChatHistoryServiceImpl.class);
 
     private final ChatMessageRepository chatMessageRepository;
+    private final ConversationSessionRepository conversationSessionRepository;
+    private final ChatMessageWriter chatMessageWriter;
+    private final ToolPayloadCodec toolPayloadCodec;
+    private final MessageSearchIndex messageSearchIndex;
+    private final ChatHistoryTransfer chatHistoryTransfer;
+    private final SegmentStore segmentStore;
+    private final HistoryArchiver historyArchiver;
+    private final DailyStatsRepository dailyStatsRepository;
+    private final DailyStatsRollup dailyStatsRollup;
     private final DailySummaryRepository dailySummaryRepository;
+    private final PeriodSummaryRepository periodSummaryRepository;
+    private final ConversationSummaryRepository conversationSummaryRepository;
     private final SummaryGenerator summaryGenerator;
 
     /**
      * 构造函数，Spring 自动注入依赖
      *
      * @param chatMessageRepository 消息数据访问接口
+     * @param conversationSessionRepository 会话数据访问接口
+     * @param chatMessageWriter     消息异步写入器
+     * @param toolPayloadCodec      工具调用信息编码
+     * @param messageSearchIndex    全文检索索引
+     * @param chatHistoryTransfer   历史记录导入导出
+     * @param segmentStore          冷数据段存储
+     * @param historyArchiver       冷热分层归档
+     * @param dailyStatsRepository  每日统计数据访问接口
+     * @param dailyStatsRollup      每日统计维护
      * @param dailySummaryRepository 总结数据访问接口
+     * @param periodSummaryRepository 周/月汇总数据访问接口
+     * @param conversationSummaryRepository 对话摘要数据访问接口
      * @param summaryGenerator      总结生成器
      */
     public ChatHistoryServiceImpl(ChatMessageRepository chatMessageRepository,
+                                   ConversationSessionRepository conversationSessionRepository,
+                                   ChatMessageWriter chatMessageWriter,
+                                   ToolPayloadCodec toolPayloadCodec,
+                                   MessageSearchIndex messageSearchIndex,
+                                   ChatHistoryTransfer chatHistoryTransfer,
+                                   SegmentStore segmentStore,
+                                   HistoryArchiver historyArchiver,
+                                   DailyStatsRepository dailyStatsRepository,
+                                   DailyStatsRollup dailyStatsRollup,
                                    DailySummaryRepository dailySummaryRepository,
+                                   PeriodSummaryRepository periodSummaryRepository,
+                                   ConversationSummaryRepository conversationSummaryRepository,
                                    SummaryGenerator summaryGenerator) {
         this.chatMessageRepository = chatMessageRepository;
+        this.conversationSessionRepository = conversationSessionRepository;
+        this.chatMessageWriter = chatMessageWriter;
+        this.toolPayloadCodec = toolPayloadCodec;
+        this.messageSearchIndex = messageSearchIndex;
+        this.chatHistoryTransfer = chatHistoryTransfer;
+        this.segmentStore = segmentStore;
+        this.historyArchiver = historyArchiver;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.dailyStatsRollup = dailyStatsRollup;
         this.dailySummaryRepository = dailySummaryRepository;
+        this.periodSummaryRepository = periodSummaryRepository;
+        this.conversationSummaryRepository = conversationSummaryRepository;
         this.summaryGenerator = summaryGenerator;
     }
 
     /**
      * 保存用户消息
      *
-     * @param content 消息内容
-     * @return 保存后的消息实体
+     * 消息进入写入队列后立即返回，createdAt 已确定，id 在批量提交时分配。
+     *
+     * @param sessionId 所属会话的 ID
+     * @param content   消息内容
+     * @return 保存的消息实体
      */
     @Override
-    @Transactional
-    public ChatMessageEntity saveUserMessage(String content) {
-        ChatMessageEntity message = new ChatMessageEntity("user", content);
-        return chatMessageRepository.save(message);
+    public ChatMessageEntity saveUserMessage(Long sessionId, String content) {
+        return chatMessageWriter.write(new ChatMessageEntity(sessionId, "user", content));
     }
 
     /**
      * 保存助手回复
      *
-     * @param content 消息内容
-     * @return 保存后的消息实体
+     * 与 {@link #saveUserMessage} 相同，异步写入。
+     *
+     * @param sessionId 所属会话的 ID
+     * @param content   消息内容
+     * @return 保存的消息实体
+     */
+    @Override
+    public ChatMessageEntity saveAssistantMessage(Long sessionId, String content) {
+        return chatMessageWriter.write(new ChatMessageEntity(sessionId, "assistant", content));
+    }
+
+    /**
+     * 保存模型的回答及本次响应的 Token 用量和耗时
+     *
+     * @param sessionId 所属会话的 ID
+     * @param content   消息内容
+     * @param usage     Token 用量（可为 null）
+     * @param latencyMs 响应耗时（毫秒）
+     * @return 保存的消息实体
+     */
+    @Override
+    public ChatMessageEntity saveAssistantMessage(Long sessionId, String content, TokenUsage usage, long latencyMs) {
+        ChatMessageEntity message = new ChatMessageEntity(sessionId, "assistant", content);
+        setResponseMetrics(message, usage, latencyMs);
+        return chatMessageWriter.write(message);
+    }
+
+    /**
+     * 保存带工具调用的助手消息
+     *
+     * @param sessionId 所属会话的 ID
+     * @param content   助手在调用工具前输出的文本（可为空字符串）
+     * @param toolCalls 工具调用列表
+     * @param usage     本次响应的 Token 用量（可为 null）
+     * @param latencyMs 本次响应的耗时（毫秒）
+     * @return 保存的消息实体
+     */
+    @Override
+    public ChatMessageEntity saveToolCalls(Long sessionId, String content, List<ToolCall> toolCalls,
+                                           TokenUsage usage, long latencyMs) {
+        ChatMessageEntity message = new ChatMessageEntity(sessionId, "assistant", content != null ? content : "");
+        message.setPayload(toolPayloadCodec.encode(toolCalls, null));
+        setResponseMetrics(message, usage, latencyMs);
+        return chatMessageWriter.write(message);
+    }
+
+    private static void setResponseMetrics(ChatMessageEntity message, TokenUsage usage, long latencyMs) {
+        if (usage != null) {
+            message.setInputTokens(usage.inputTokens());
+            message.setOutputTokens(usage.outputTokens());
+        }
+        message.setLatencyMs((int) Math.min(latencyMs, Integer.MAX_VALUE));
+    }
+
+    /**
+     * 保存工具结果
+     *
+     * @param sessionId  所属会话的 ID
+     * @param toolCallId 关联的工具调用 ID
+     * @param content    工具执行结果
+     * @return 保存的消息实体
+     */
+    @Override
+    public ChatMessageEntity saveToolResult(Long sessionId, String toolCallId, String content) {
+        ChatMessageEntity message = new ChatMessageEntity(sessionId, "tool", content);
+        message.setPayload(toolPayloadCodec.encode(null, toolCallId));
+        return chatMessageWriter.write(message);
+    }
+
+    /**
+     * 把保存的消息还原为对话历史中的消息
+     *
+     * @param message 消息实体
+     * @return 对话消息
+     */
+    @Override
+    public ChatMessage toChatMessage(ChatMessageEntity message) {
+        return toolPayloadCodec.decode(message);
+    }
+
+    /**
+     * 创建新会话
+     *
+     * @return 新会话
      */
     @Override
     @Transactional
-    public ChatMessageEntity saveAssistantMessage(String content) {
-        ChatMessageEntity message = new ChatMessageEntity("assistant", content);
-        return chatMessageRepository.save(message);
+    public ConversationSessionEntity startSession() {
+        return conversationSessionRepository.save(new ConversationSessionEntity(LocalDateTime.now()));
     }
 
     /**
-     * 获取所有消息
+     * 按 ID 查询会话
+     *
+     * @param sessionId 会话 ID
+     * @return 会话，不存在则返回 null
+     */
+    @Override
+    public ConversationSessionEntity getSession(Long sessionId) {
+        return conversationSessionRepository.findById(sessionId).orElse(null);
+    }
+
+    /**
+     * 获取最近一条消息所属的会话
+     *
+     * 沿 idx_created_at_id 只读取最新的一行，不扫描会话表；数据库中没有消息时取最新的归档消息。
+     *
+     * @return 会话，没有消息时返回 null
+     */
+    @Override
+    public ConversationSessionEntity getLatestSession() {
+        chatMessageWriter.flush();
+        return chatMessageRepository.findLatest(Limit.of(1)).stream().findFirst()
+                .or(segmentStore::latest)
+                .map(ChatMessageEntity::getSessionId)
+                .flatMap(conversationSessionRepository::findById)
+                .orElse(null);
+    }
+
+    /**
+     * 列出最近创建的会话
+     *
+     * 每个会话的统计都落在 idx_session_created_at_id 的一个区间内。
+     *
+     * @param limit 返回的会话数量限制
+     * @return 会话概览（按创建时间倒序）
+     */
+    @Override
+    public List<SessionOverview> getRecentSessions(int limit) {
+        chatMessageWriter.flush();
+        return conversationSessionRepository.findByOrderByIdDesc(Limit.of(limit)).stream()
+                .map(session -> new SessionOverview(session,
+                        chatMessageRepository.countBySessionId(session.getId()),
+                        chatMessageRepository.findFirstBySessionIdOrderByCreatedAtAscIdAsc(session.getId()).orElse(null),
+                        chatMessageRepository.findLatestInSession(session.getId(), Limit.of(1)).stream()
+                                .map(ChatMessageEntity::getCreatedAt).findFirst().orElse(null)))
+                .toList();
+    }
+
+    /**
+     * 获取所有消息（含已归档的消息）
      *
      * @return 按创建时间升序排列的消息列表
      */
     @Override
     public List<ChatMessageEntity> getAllMessages() {
-        return chatMessageRepository.findAllByOrderByCreatedAtAsc();
+        chatMessageWriter.flush();
+        List<ChatMessageEntity> messages = new ArrayList<>();
+        for (LocalDate date : segmentStore.dates()) {
+            messages.addAll(segmentStore.read(date));
+        }
+        messages.addAll(chatMessageRepository.findAllByOrderByCreatedAtAsc());
+        return messages;
     }
 
     /**
      * 获取最近的聊天消息
      *
-     * 用于构建对话上下文。返回最新的 limit 条消息。
+     * 用于构建对话上下文。数据库按 (createdAt, id) 倒序只取 limit 条，再翻转为正序。
+     * 只查询数据库中的消息（保留窗口内），不读取归档。
      *
      * @param limit 返回的消息数量限制
      * @return 最近的消息列表（按时间升序）
      */
     @Override
     public List<ChatMessageEntity> getRecentChatMessages(int limit) {
-        // 获取所有消息并按时间倒序
-        List<ChatMessageEntity> allMessages = chatMessageRepository.findAllByOrderByCreatedAtDesc();
-        // 翻转成正序
-        List<ChatMessageEntity> reversed = allMessages.reversed();
-        // 取最后 limit 条
-        int start = Math.max(0, reversed.size() - limit);
-        return reversed.subList(start, reversed.size());
+        chatMessageWriter.flush();
+        return chatMessageRepository.findLatest(Limit.of(limit)).reversed();
+    }
+
+    /**
+     * 获取游标之前的一页消息
+     *
+     * 数据库中的消息不足一页时，继续按日期倒序从归档中补足。
+     *
+     * @param before 游标（上一页最早的一条消息）
+     * @param limit  返回的消息数量限制
+     * @return 游标之前紧邻的消息列表（按时间升序）
+     */
+    @Override
+    public List<ChatMessageEntity> getChatMessagesBefore(MessageCursor before, int limit) {
+        chatMessageWriter.flush();
+        List<ChatMessageEntity> page = chatMessageRepository.findBefore(
+                before.createdAt(), before.id(), Limit.of(limit)).reversed();
+        if (page.size() >= limit || segmentStore.dates().isEmpty()) {
+            return page;
+        }
+        MessageCursor edge = page.isEmpty() ? before : MessageCursor.of(page.getFirst());
+        List<ChatMessageEntity> result = new ArrayList<>(page);
+        for (LocalDate date : segmentStore.dates().headSet(edge.createdAt().toLocalDate(), true).descendingSet()) {
+            List<ChatMessageEntity> older = segmentStore.read(date).stream()
+                    .filter(message -> isBefore(message, edge))
+                    .toList();
+            int take = Math.min(limit - result.size(), older.size());
+            result.addAll(0, older.subList(older.size() - take, older.size()));
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * 获取会话最近的消息
+     *
+     * 沿 (sessionId, createdAt, id) 索引倒序读取 limit 条，再翻转为正序；不足 limit 条时补充归档段中的消息。
+     *
+     * @param sessionId 会话 ID
+     * @param limit     返回的消息数量限制
+     * @return 最近的消息列表（按时间升序）
+     */
+    @Override
+    public List<ChatMessageEntity> getRecentSessionMessages(Long sessionId, int limit) {
+        chatMessageWriter.flush();
+        List<ChatMessageEntity> hot = chatMessageRepository.findLatestInSession(sessionId, Limit.of(limit)).reversed();
+        return withArchivedSessionMessages(sessionId, null, hot, limit);
+    }
+
+    /**
+     * 获取会话中游标之后的最近消息
+     *
+     * @param sessionId 会话 ID
+     * @param after     游标（不包含）
+     * @param limit     返回的消息数量限制
+     * @return 最近的消息列表（按时间升序）
+     */
+    @Override
+    public List<ChatMessageEntity> getRecentSessionMessagesAfter(Long sessionId, MessageCursor after, int limit) {
+        chatMessageWriter.flush();
+        List<ChatMessageEntity> hot = chatMessageRepository.findLatestInSessionAfter(
+                sessionId, after.createdAt(), after.id(), Limit.of(limit)).reversed();
+        return withArchivedSessionMessages(sessionId, after, hot, limit);
+    }
+
+    /**
+     * 数据库中的会话消息不足 limit 条时，补充归档段中更早的消息
+     *
+     * 归档只包含保留窗口之前的日期，数据库中的消息不足 limit 条说明该会话在数据库中的消息已全部读出，
+     * 合并后取最近的 limit 条即可。
+     */
+    private List<ChatMessageEntity> withArchivedSessionMessages(Long sessionId, MessageCursor after,
+                                                                List<ChatMessageEntity> hot, int limit) {
+        if (hot.size() >= limit || segmentStore.dates().isEmpty()) {
+            return hot;
+        }
+        ConversationSessionEntity session = conversationSessionRepository.findById(sessionId).orElse(null);
+        if (session == null) {
+            return hot;
+        }
+        LocalDate from = session.getCreatedAt().toLocalDate();
+        if (after != null && after.createdAt().toLocalDate().isAfter(from)) {
+            from = after.createdAt().toLocalDate();
+        }
+        List<ChatMessageEntity> archived = segmentStore.findLatestInSession(sessionId, from,
+                message -> after == null || isBefore(after, message), limit);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<ChatMessageEntity> merged = SegmentStore.merge(archived, hot);
+        return merged.subList(Math.max(0, merged.size() - limit), merged.size());
     }
 
     /**
@@ -115,48 +422,235 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
      */
     @Override
     public List<ChatMessageEntity> getMessagesByDate(LocalDate date) {
+        chatMessageWriter.flush();
         // 一天的开始：00:00:00
         LocalDateTime startOfDay = date.atStartOfDay();
         // 一天的结束：23:59:59.999999999
         LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-        return chatMessageRepository.findByDateRange(startOfDay, endOfDay);
+        List<ChatMessageEntity> hot = chatMessageRepository.findByDateRange(startOfDay, endOfDay);
+        return SegmentStore.merge(segmentStore.read(date), hot);
+    }
+
+    /**
+     * 按日期分页查询消息
+     *
+     * @param date  查询日期
+     * @param after 游标（上一页最后一条消息），为 null 时从当天第一条开始
+     * @param limit 返回的消息数量限制
+     * @return 一页消息（按时间升序）
+     */
+    @Override
+    public List<ChatMessageEntity> getMessagesByDate(LocalDate date, MessageCursor after, int limit) {
+        if (segmentStore.get(date).isPresent()) {
+            // 已归档的日期：读取整天后在内存中分页
+            List<ChatMessageEntity> day = getMessagesByDate(date);
+            int from = 0;
+            if (after != null) {
+                while (from < day.size() && !isBefore(after, day.get(from))) {
+                    from++;
+                }
+            }
+            return day.subList(from, Math.min(from + limit, day.size()));
+        }
+        chatMessageWriter.flush();
+        LocalDateTime startOfDay = date.atStartOfDay();
+        LocalDateTime startOfNextDay = date.plusDays(1).atStartOfDay();
+        if (after == null) {
+            return chatMessageRepository.findByDateRange(startOfDay, startOfNextDay, Limit.of(limit));
+        }
+        return chatMessageRepository.findByDateRangeAfter(
+                startOfDay, startOfNextDay, after.createdAt(), after.id(), Limit.of(limit));
+    }
+
+    /**
+     * 按日期逐页读取消息
+     *
+     * 上一页取满时才以其最后一条为游标查询下一页。已归档的日期一次读取整天。
+     *
+     * @param date     查询日期
+     * @param pageSize 每页的消息数量
+     * @return 当天消息的顺序流（按时间升序）
+     */
+    @Override
+    public Stream<ChatMessageEntity> streamMessagesByDate(LocalDate date, int pageSize) {
+        if (segmentStore.get(date).isPresent()) {
+            return getMessagesByDate(date).stream();
+        }
+        return Stream.iterate(
+                        getMessagesByDate(date, null, pageSize),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < pageSize ? List.of()
+                                : getMessagesByDate(date, MessageCursor.of(page.getLast()), pageSize))
+                .flatMap(List::stream);
+    }
+
+    /**
+     * 全文检索消息
+     *
+     * 索引为空而已有消息时（升级前保存的历史），先建立一次索引。
+     *
+     * @param query    查询文本
+     * @param page     页码（从 1 开始）
+     * @param pageSize 每页条数
+     * @return 一页结果
+     */
+    @Override
+    public MessageSearchPage searchMessages(String query, int page, int pageSize) {
+        chatMessageWriter.flush();
+        if (messageSearchIndex.isEmpty() && getTotalMessageCount() > 0) {
+            log.info("检索索引为空，开始为已有消息建立索引");
+            messageSearchIndex.rebuild();
+        }
+        return messageSearchIndex.search(query, Math.max(1, page), pageSize);
+    }
+
+    /**
+     * 重建全文检索索引
+     *
+     * @return 重新索引的消息数
+     */
+    @Override
+    public int rebuildSearchIndex() {
+        chatMessageWriter.flush();
+        return messageSearchIndex.rebuild();
+    }
+
+    /**
+     * 把全部消息导出为 JSONL 文件
+     *
+     * @param file 目标文件（已存在时覆盖）
+     * @return 导出的消息数
+     */
+    @Override
+    public long exportMessages(Path file) throws IOException {
+        return chatHistoryTransfer.exportTo(file);
+    }
+
+    /**
+     * 从 JSONL 导出文件导入消息
+     *
+     * @param file 导出文件
+     * @return 导入的消息数
+     */
+    @Override
+    public long importMessages(Path file) throws IOException {
+        return chatHistoryTransfer.importFrom(file);
     }
 
     /**
      * 统计指定日期的消息数量
      *
+     * 按主键读取当天的统计行，已归档的日期同样适用。
+     *
      * @param date 查询日期
      * @return 当天的消息数量
      */
     @Override
     public long getMessageCountByDate(LocalDate date) {
-        LocalDateTime startOfDay = date.atStartOfDay();
-        LocalDateTime endOfDay = date.atTime(LocalTime.MAX);
-        return chatMessageRepository.countByCreatedAtGreaterThanEqualAndCreatedAtLessThan(startOfDay, endOfDay);
+        chatMessageWriter.flush();
+        return dailyStatsRepository.findById(date).map(DailyStatsEntity::getTotalMessages).orElse(0L);
     }
 
     /**
      * 获取总消息数量
      *
-     * @return 数据库中所有消息的数量
+     * @return 所有消息的数量（含已归档的消息）
      */
     @Override
     public long getTotalMessageCount() {
-        return chatMessageRepository.count();
+        chatMessageWriter.flush();
+        Long total = dailyStatsRepository.sumMessages();
+        return total != null ? total : 0;
+    }
+
+    /**
+     * 查询日期区间内的每日统计
+     *
+     * @param from 起始日期（包含）
+     * @param to   结束日期（包含）
+     * @return 有消息的日期的统计，按日期升序
+     */
+    @Override
+    public List<DailyStatsEntity> getDailyStats(LocalDate from, LocalDate to) {
+        chatMessageWriter.flush();
+        return dailyStatsRepository.findByStatDateBetweenOrderByStatDateAsc(from, to);
+    }
+
+    /**
+     * 由全部消息重建每日统计
+     *
+     * @return 统计的消息数
+     */
+    @Override
+    public long rebuildDailyStats() {
+        chatMessageWriter.flush();
+        return dailyStatsRollup.rebuild();
+    }
+
+    /**
+     * 统计已归档的消息数量
+     *
+     * @return 归档中的消息数
+     */
+    @Override
+    public long getArchivedMessageCount() {
+        return segmentStore.totalCount();
+    }
+
+    /**
+     * 立即归档保留窗口之前的消息
+     *
+     * @return 归档的消息数
+     */
+    @Override
+    public long archiveMessages() throws IOException {
+        return historyArchiver.archiveExpired();
+    }
+
+    /**
+     * 消息 a 是否排在游标 b 之前（按 (createdAt, id)）
+     */
+    private static boolean isBefore(ChatMessageEntity a, MessageCursor b) {
+        int compare = a.getCreatedAt().compareTo(b.createdAt());
+        return compare < 0 || (compare == 0 && a.getId() < b.id());
+    }
+
+    /**
+     * 游标 a 是否排在消息 b 之前（按 (createdAt, id)）
+     */
+    private static boolean isBefore(MessageCursor a, ChatMessageEntity b) {
+        int compare = a.createdAt().compareTo(b.getCreatedAt());
+        return compare < 0 || (compare == 0 && a.id() < b.getId());
     }
 
     /**
      * 生成每日总结
      *
      * 使用 LLM 对指定日期的对话进行总结。
-     * 如果当天已有总结，则更新现有总结。
+     * 如果当天已有总结，只读取其高水位（lastMessageId）之后的新消息，与已有总结一起交给模型更新；
+     * 没有新消息时直接返回已有总结。较早版本生成的总结没有高水位，整天重新生成。
+     *
+     * 不在事务内调用模型：多天并发生成时，等待模型的期间不占用数据库连接。
      *
      * @param date 要总结的日期
      * @return 生成的总结实体
      */
     @Override
-    @Transactional
     public DailySummaryEntity generateDailySummary(LocalDate date) {
+        DailySummaryEntity existing = dailySummaryRepository.findBySummaryDate(date).orElse(null);
+        if (existing != null && existing.getLastMessageId() != null
+                && countMessagesUpTo(date, existing.getLastMessageId()) == existing.getMessageCount()) {
+            List<ChatMessageEntity> newMessages = getMessagesByDateAfter(date, existing.getLastMessageId());
+            if (newMessages.isEmpty()) {
+                return existing;
+            }
+            existing.setSummary(summaryGenerator.updateSummary(existing.getSummary(), newMessages));
+            existing.setMessageCount(existing.getMessageCount() + newMessages.size());
+            existing.setLastMessageId(Math.max(existing.getLastMessageId(), lastMessageId(newMessages)));
+            existing.setUpdatedAt(LocalDateTime.now());
+            return dailySummaryRepository.save(existing);
+        }
+
         List<ChatMessageEntity> messages = getMessagesByDate(date);
         if (messages.isEmpty()) {
             throw new IllegalArgumentException("No messages found for date: " + date);
@@ -164,18 +658,92 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
 
         String summaryText = summaryGenerator.generateSummary(messages);
 
-        DailySummaryEntity existing = dailySummaryRepository.findBySummaryDate(date).orElse(null);
         if (existing != null) {
             existing.setSummary(summaryText);
             existing.setMessageCount(messages.size());
+            existing.setLastMessageId(lastMessageId(messages));
             existing.setUpdatedAt(LocalDateTime.now());
             return dailySummaryRepository.save(existing);
         } else {
-            DailySummaryEntity newSummary = new DailySummaryEntity(date, summaryText, messages.size());
+            DailySummaryEntity newSummary = new DailySummaryEntity(date, summaryText, messages.size(),
+                    lastMessageId(messages));
             return dailySummaryRepository.save(newSummary);
         }
     }
 
+    /**
+     * 查询指定日期 ID 大于 afterId 的消息（按时间升序）
+     *
+     * 归档段的最大 ID 不超过 afterId 时不读取段文件。
+     */
+    private List<ChatMessageEntity> getMessagesByDateAfter(LocalDate date, long afterId) {
+        chatMessageWriter.flush();
+        List<ChatMessageEntity> hot = chatMessageRepository.findByDateRangeAndIdAfter(
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), afterId);
+        if (segmentStore.get(date).filter(segment -> segment.maxId() > afterId).isEmpty()) {
+            return hot;
+        }
+        List<ChatMessageEntity> archived = segmentStore.read(date).stream()
+                .filter(message -> message.getId() > afterId)
+                .toList();
+        return SegmentStore.merge(archived, hot);
+    }
+
+    /**
+     * 统计指定日期 ID 不超过 maxId 的消息数
+     *
+     * 与总结覆盖的消息数一致时高水位才有效。多个进程同时写入时，消息 ID 在各自预分配的区间内递增，
+     * 总结生成之后仍可能写入 ID 低于高水位的消息，此时整天重新生成。
+     */
+    private long countMessagesUpTo(LocalDate date, long maxId) {
+        chatMessageWriter.flush();
+        long hot = chatMessageRepository.countByDateRangeAndIdAtMost(
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), maxId);
+        long archived = segmentStore.get(date)
+                .map(segment -> segment.maxId() <= maxId
+                        ? segment.messageCount()
+                        : segmentStore.read(date).stream().filter(message -> message.getId() <= maxId).count())
+                .orElse(0L);
+        return hot + archived;
+    }
+
+    private static long lastMessageId(List<ChatMessageEntity> messages) {
+        return messages.stream().mapToLong(ChatMessageEntity::getId).max().orElseThrow();
+    }
+
+    /**
+     * 查找日期区间内需要生成每日总结的日期
+     *
+     * 已归档日期的消息数和最大 ID 取自段文件头，数据库中的消息用一条按天分组的查询统计，
+     * 再与区间内的总结逐天比较：没有总结、总结覆盖的消息数或高水位与当天不一致时需要生成。
+     *
+     * @param from 起始日期（包含）
+     * @param to   结束日期（包含）
+     * @return 需要生成总结的日期（升序）
+     */
+    @Override
+    public List<LocalDate> getDaysNeedingSummary(LocalDate from, LocalDate to) {
+        chatMessageWriter.flush();
+        NavigableMap<LocalDate, long[]> days = new TreeMap<>();
+        for (LocalDate date : segmentStore.dates().subSet(from, true, to, true)) {
+            DaySegment segment = segmentStore.get(date).orElseThrow();
+            days.put(date, new long[]{segment.messageCount(), segment.maxId()});
+        }
+        for (var day : chatMessageRepository.countByDay(from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            days.merge(day.date(), new long[]{day.messages(), day.maxId()},
+                    (archived, hot) -> new long[]{archived[0] + hot[0], Math.max(archived[1], hot[1])});
+        }
+        Map<LocalDate, DailySummaryEntity> summaries = getDailySummaries(from, to).stream()
+                .collect(Collectors.toMap(DailySummaryEntity::getSummaryDate, summary -> summary));
+        return days.entrySet().stream()
+                .filter(day -> {
+                    DailySummaryEntity summary = summaries.get(day.getKey());
+                    return summary == null || !summary.covers(day.getValue()[0], day.getValue()[1]);
+                })
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
     /**
      * 获取指定日期的总结
      *
@@ -187,6 +755,37 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
         return dailySummaryRepository.findBySummaryDate(date).orElse(null);
     }
 
+    /**
+     * 保存对话滚动摘要
+     *
+     * 覆盖到的消息可能仍在写入队列中，先等待其提交并分配 ID。
+     *
+     * @param sessionId      所属会话的 ID
+     * @param summary        摘要内容
+     * @param coveredUntil   摘要覆盖到的最后一条已保存消息
+     * @param foldedMessages 本次折叠的消息数
+     * @return 保存后的摘要实体
+     */
+    @Override
+    @Transactional
+    public ConversationSummaryEntity saveConversationSummary(Long sessionId, String summary,
+                                                             ChatMessageEntity coveredUntil, int foldedMessages) {
+        chatMessageWriter.flush();
+        return conversationSummaryRepository.save(new ConversationSummaryEntity(sessionId, summary,
+                coveredUntil.getCreatedAt(), coveredUntil.getId(), foldedMessages));
+    }
+
+    /**
+     * 获取会话最新的对话滚动摘要
+     *
+     * @param sessionId 会话 ID
+     * @return 最新摘要，不存在则返回 null
+     */
+    @Override
+    public ConversationSummaryEntity getLatestConversationSummary(Long sessionId) {
+        return conversationSummaryRepository.findFirstBySessionIdOrderByIdDesc(sessionId).orElse(null);
+    }
+
     /**
      * 获取所有每日总结
      *
@@ -196,4 +795,40 @@ public class ChatHistoryServiceImpl implements ChatHistoryService {
     public List<DailySummaryEntity> getAllDailySummaries() {
         return dailySummaryRepository.findAllByOrderBySummaryDateDesc();
     }
+
+    /**
+     * 获取日期区间内的每日总结
+     *
+     * @param from 起始日期（包含）
+     * @param to   结束日期（包含）
+     * @return 按日期升序排列的总结列表
+     */
+    @Override
+    public List<DailySummaryEntity> getDailySummaries(LocalDate from, LocalDate to) {
+        return dailySummaryRepository.findBySummaryDateBetweenOrderBySummaryDateAsc(from, to);
+    }
+
+    /**
+     * 获取已缓存的周/月汇总总结
+     *
+     * @param period 周期类型
+     * @param from   起始日期（包含）
+     * @param to     结束日期（包含）
+     * @return 第一天在区间内的汇总，按周期升序排列
+     */
+    @Override
+    public List<PeriodSummaryEntity> getPeriodSummaries(Period period, LocalDate from, LocalDate to) {
+        return periodSummaryRepository.findByPeriodAndPeriodStartBetweenOrderByPeriodStartAsc(period, from, to);
+    }
+
+    /**
+     * 保存周/月汇总总结
+     *
+     * @param summary 汇总总结
+     * @return 保存后的汇总实体
+     */
+    @Override
+    public PeriodSummaryEntity savePeriodSummary(PeriodSummaryEntity summary) {
+        return periodSummaryRepository.save(summary);
+    }
 }
@@ -0,0 +1,217 @@
+package io.ailink.agentforge.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.ailink.agentforge.config.CompressionProperties;
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.archive.SegmentStore;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
+import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.SessionFactory;
+import org.hibernate.StatelessSession;
+import org.hibernate.Transaction;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * 聊天历史导入导出（JSONL，每行一条 {@link ExportedMessage}）
+ *
+ * 两个方向都逐条流式处理，内存占用与历史记录的条数无关：
+ * - 导出：先按日期逐天读取已归档的消息，再导出数据库中的消息；
+ *   数据库部分使用只进游标按 fetch size 分批从数据库取行，每条写出后立即从持久化上下文中移除，
+ *   经带缓冲的文件通道顺序写入
+ * - 导入：逐行解析，通过 StatelessSession 插入（没有持久化上下文，按 JDBC 批量执行），
+ *   每 {@value #IMPORT_COMMIT_INTERVAL} 条提交一次；消息的全文检索倒排记录一并写入，
+ *   每日统计按天累加后在每次提交前合并，文件中的每个会话在目标数据库中新建一个会话；
+ *   长内容与实时写入一样压缩保存
+ */
+@Service
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+public class ChatHistoryTransfer {
+
+    /**
+     * 导出文件的写缓冲大小
+     */
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 导入时每个 JDBC 批次的语句数
+     */
+    private static final int IMPORT_BATCH_SIZE = 50;
+
+    /**
+     * 导入时每个事务提交的消息数
+     */
+    static final int IMPORT_COMMIT_INTERVAL = 5000;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatMessageWriter chatMessageWriter;
+    private final MessageSearchIndex messageSearchIndex;
+    private final DailyStatsRollup dailyStatsRollup;
+    private final ToolPayloadCodec toolPayloadCodec;
+    private final SegmentStore segmentStore;
+    private final CompressionProperties compression;
+    private final SessionFactory sessionFactory;
+    private final TransactionTemplate readOnlyTransaction;
+    private final ObjectWriter lineWriter;
+    private final ObjectReader lineReader;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public ChatHistoryTransfer(ChatMessageRepository chatMessageRepository,
+                               ChatMessageWriter chatMessageWriter,
+                               MessageSearchIndex messageSearchIndex,
+                               DailyStatsRollup dailyStatsRollup,
+                               ToolPayloadCodec toolPayloadCodec,
+                               SegmentStore segmentStore,
+                               HistoryProperties historyProperties,
+                               EntityManagerFactory entityManagerFactory,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatMessageWriter = chatMessageWriter;
+        this.messageSearchIndex = messageSearchIndex;
+        this.dailyStatsRollup = dailyStatsRollup;
+        this.toolPayloadCodec = toolPayloadCodec;
+        this.segmentStore = segmentStore;
+        this.compression = historyProperties.getCompression();
+        this.sessionFactory = entityManagerFactory.unwrap(SessionFactory.class);
+        this.readOnlyTransaction = new TransactionTemplate(transactionManager);
+        this.readOnlyTransaction.setReadOnly(true);
+        // 每行写出后不刷新，由缓冲区攒满后整块写入文件
+        this.lineWriter = objectMapper.writerFor(ExportedMessage.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.lineReader = objectMapper.readerFor(ExportedMessage.class);
+    }
+
+    /**
+     * 导出全部消息
+     *
+     * @param file 目标文件（已存在时覆盖）
+     * @return 导出的消息数
+     */
+    public long exportTo(Path file) throws IOException {
+        chatMessageWriter.flush();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), EXPORT_BUFFER_SIZE);
+             SequenceWriter writer = lineWriter.withRootValueSeparator("\n").writeValues(out)) {
+            long archived = 0;
+            for (LocalDate date : segmentStore.dates()) {
+                for (ChatMessageEntity message : segmentStore.read(date)) {
+                    writer.write(ExportedMessage.from(message, toolPayloadCodec.decode(message)));
+                    archived++;
+                }
+            }
+            long written = archived;
+            Long exported = readOnlyTransaction.execute(status -> {
+                long count = written;
+                try (Stream<ChatMessageEntity> messages = chatMessageRepository.streamAll()) {
+                    for (ChatMessageEntity message : (Iterable<ChatMessageEntity>) messages::iterator) {
+                        writer.write(ExportedMessage.from(message, toolPayloadCodec.decode(message)));
+                        entityManager.detach(message);
+                        count++;
+                    }
+                    if (count > 0) {
+                        // 行分隔符只写在记录之间，补上最后一行的换行
+                        writer.flush();
+                        out.write('\n');
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                return count;
+            });
+            return exported != null ? exported : 0;
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 从导出文件导入消息
+     *
+     * 消息按文件顺序插入并分配新的 ID，会话同样重新分配 ID。中途出错时，已提交的部分保留，异常信息中给出已导入的条数。
+     *
+     * @param file 导出文件
+     * @return 导入的消息数
+     */
+    public long importFrom(Path file) throws IOException {
+        chatMessageWriter.flush();
+        long count = 0;
+        long committed = 0;
+        Map<Long, Long> sessionIds = new HashMap<>();
+        Map<LocalDate, DailyStatsEntity> stats = new TreeMap<>();
+        try (BufferedReader reader = Files.newBufferedReader(file);
+             MappingIterator<ExportedMessage> lines = lineReader.readValues(reader);
+             StatelessSession session = sessionFactory.openStatelessSession()) {
+            session.setJdbcBatchSize(IMPORT_BATCH_SIZE);
+            Transaction transaction = session.beginTransaction();
+            try {
+                while (lines.hasNextValue()) {
+                    ExportedMessage line = lines.nextValue();
+                    if (line.role() == null || line.content() == null || line.createdAt() == null) {
+                        throw new IllegalArgumentException("第 " + (count + 1) + " 条记录缺少 role、content 或 createdAt");
+                    }
+                    ChatMessageEntity message = line.toEntity();
+                    message.setPayload(toolPayloadCodec.encode(line.toolCalls(), line.toolCallId()));
+                    if (line.sessionId() != null) {
+                        message.setSessionId(sessionIds.computeIfAbsent(line.sessionId(),
+                                exported -> (Long) session.insert(new ConversationSessionEntity(line.createdAt()))));
+                    }
+                    if (compression.isEnabled()) {
+                        message.compressContent(compression.getMinChars());
+                    }
+                    session.insert(message);
+                    messageSearchIndex.postings(message).forEach(session::insert);
+                    DailyStatsRollup.accumulate(stats, message);
+                    if (++count % IMPORT_COMMIT_INTERVAL == 0) {
+                        dailyStatsRollup.apply(session, stats);
+                        stats.clear();
+                        transaction.commit();
+                        committed = count;
+                        transaction = session.beginTransaction();
+                    }
+                }
+                dailyStatsRollup.apply(session, stats);
+                transaction.commit();
+            } catch (IOException | RuntimeException e) {
+                if (transaction.isActive()) {
+                    transaction.rollback();
+                }
+                throw new IOException("导入失败（已导入 " + committed + " 条）: " + e.getMessage(), e);
+            } finally {
+                messageSearchIndex.resetDocumentCount();
+            }
+        }
+        return count;
+    }
+}
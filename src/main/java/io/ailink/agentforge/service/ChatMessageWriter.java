@@ -0,0 +1,269 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.CompressionProperties;
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.config.WriteBehindProperties;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 聊天消息异步批量写入器（write-behind）
+ *
+ * 保存消息时只把实体放入有界队列即返回，持久化不再占用用户可见的对话轮次。
+ * 后台写入线程把队列中的消息攒成一批，在一个事务内提交；消息主键使用带 pooled 优化器的序列
+ * （见 {@link ChatMessageEntity#getId()}），Hibernate 因此可以把一批 INSERT 合并为 JDBC 批量执行。
+ *
+ * 达到阈值的长内容在写入线程上压缩（见 {@link ChatMessageEntity#compressContent(int)}），不占用对话线程。
+ * 消息的全文检索倒排记录和每日统计在同一事务内写入（见 {@link MessageSearchIndex#index}、
+ * {@link DailyStatsRollup#apply(java.util.Collection)}）。
+ *
+ * 一致性：
+ * - 实体的 createdAt 在入队前已确定，id 在写入时分配
+ * - 消息按入队顺序写入
+ * - 读取消息前调用 {@link #flush()} 等待已入队的消息提交，查询总能看到之前保存的消息
+ * - 应用关闭时先排空队列再停止写入线程
+ */
+@Component
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+public class ChatMessageWriter implements DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(ChatMessageWriter.class);
+
+    /**
+     * 刷新标记：写入线程取到它时立即提交当前批次
+     */
+    private static final ChatMessageEntity FLUSH = new ChatMessageEntity();
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final MessageSearchIndex messageSearchIndex;
+    private final DailyStatsRollup dailyStatsRollup;
+    private final TransactionTemplate transactionTemplate;
+    private final WriteBehindProperties properties;
+    private final CompressionProperties compression;
+    private final BlockingQueue<ChatMessageEntity> queue;
+    private final Thread worker;
+
+    /**
+     * 入队与已提交（含写入失败而放弃）的消息数，由 this 保护
+     */
+    private long enqueued;
+    private long completed;
+    private volatile boolean closed;
+
+    public ChatMessageWriter(ChatMessageRepository chatMessageRepository,
+                             MessageSearchIndex messageSearchIndex,
+                             DailyStatsRollup dailyStatsRollup,
+                             PlatformTransactionManager transactionManager,
+                             JdbcTemplate jdbcTemplate,
+                             HistoryProperties historyProperties) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.messageSearchIndex = messageSearchIndex;
+        this.dailyStatsRollup = dailyStatsRollup;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.properties = historyProperties.getWriteBehind();
+        this.compression = historyProperties.getCompression();
+        alignSequence(jdbcTemplate);
+
+        if (properties.isEnabled()) {
+            this.queue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+            this.worker = Thread.ofPlatform().name("chat-message-writer").daemon().start(this::drainLoop);
+        } else {
+            this.queue = null;
+            this.worker = null;
+        }
+    }
+
+    /**
+     * 保存消息
+     *
+     * 启用异步写入时放入队列后立即返回（队列满时阻塞），否则同步保存。
+     *
+     * @param message 待保存的消息（createdAt 已设置）
+     * @return 同一个实体；异步写入时 id 在提交后才会分配
+     */
+    public ChatMessageEntity write(ChatMessageEntity message) {
+        if (queue == null || closed) {
+            return save(message);
+        }
+        synchronized (this) {
+            enqueued++;
+        }
+        try {
+            queue.put(message);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            synchronized (this) {
+                enqueued--;
+            }
+            return save(message);
+        }
+        return message;
+    }
+
+    /**
+     * 等待调用前已入队的消息全部提交
+     *
+     * 队列为空时立即返回，读取消息的查询前调用。
+     */
+    public void flush() {
+        long target;
+        synchronized (this) {
+            if (queue == null || completed >= enqueued) {
+                return;
+            }
+            target = enqueued;
+        }
+        try {
+            queue.put(FLUSH);
+            synchronized (this) {
+                while (completed < target) {
+                    wait();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 应用关闭时排空队列并停止写入线程
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        if (worker == null) {
+            return;
+        }
+        flush();
+        closed = true;
+        // 用刷新标记唤醒写入线程使其退出（中断可能导致 H2 关闭正在使用的文件通道）
+        queue.put(FLUSH);
+        worker.join();
+
+        // 关闭前最后一刻入队的消息由当前线程写入
+        List<ChatMessageEntity> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        rest.removeIf(message -> message == FLUSH);
+        if (!rest.isEmpty()) {
+            commit(rest);
+        }
+    }
+
+    private void drainLoop() {
+        int maxBatchSize = Math.max(1, properties.getMaxBatchSize());
+        long intervalNanos = properties.getFlushInterval().toNanos();
+        List<ChatMessageEntity> batch = new ArrayList<>(maxBatchSize);
+        while (!closed) {
+            try {
+                ChatMessageEntity first = queue.take();
+                boolean flushRequested = first == FLUSH;
+                if (!flushRequested) {
+                    batch.add(first);
+                }
+                long deadline = System.nanoTime() + intervalNanos;
+                while (!flushRequested && batch.size() < maxBatchSize) {
+                    ChatMessageEntity next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    if (next == FLUSH) {
+                        flushRequested = true;
+                    } else {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 已取出的消息仍然提交，队列中剩余的由 destroy 写入
+                closed = true;
+            }
+            if (!batch.isEmpty()) {
+                commit(batch);
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 在一个事务内提交一批消息；失败时逐条重试，仍然失败的消息记录日志后放弃
+     */
+    private void commit(List<ChatMessageEntity> batch) {
+        try {
+            batch.forEach(this::compress);
+            transactionTemplate.executeWithoutResult(status -> {
+                chatMessageRepository.saveAll(batch);
+                messageSearchIndex.index(batch);
+                dailyStatsRollup.apply(batch);
+            });
+        } catch (RuntimeException e) {
+            log.warn("批量保存 {} 条消息失败，逐条重试: {}", batch.size(), e.getMessage());
+            for (ChatMessageEntity message : batch) {
+                message.setId(null);
+                try {
+                    save(message);
+                } catch (RuntimeException retryError) {
+                    log.error("保存消息失败，已丢弃 [{}] {}: {}", message.getCreatedAt(), message.getRole(),
+                            retryError.getMessage());
+                }
+            }
+        }
+        synchronized (this) {
+            completed += batch.size();
+            notifyAll();
+        }
+    }
+
+    /**
+     * 在一个事务内保存单条消息及其倒排记录、每日统计
+     */
+    private ChatMessageEntity save(ChatMessageEntity message) {
+        compress(message);
+        return transactionTemplate.execute(status -> {
+            ChatMessageEntity saved = chatMessageRepository.save(message);
+            messageSearchIndex.index(List.of(saved));
+            dailyStatsRollup.apply(List.of(saved));
+            return saved;
+        });
+    }
+
+    private void compress(ChatMessageEntity message) {
+        if (compression.isEnabled()) {
+            message.compressContent(compression.getMinChars());
+        }
+    }
+
+    /**
+     * 校准消息主键序列
+     *
+     * 早期版本使用自增列生成主键，升级后 Hibernate 新建的序列从 1 开始。
+     * 读取序列下一次分配的值（不推进序列，每次启动不会浪费一段主键），
+     * 这一段主键不大于现有最大 id 时，把序列重置到最大 id 之后。
+     */
+    private static void alignSequence(JdbcTemplate jdbcTemplate) {
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from chat_messages", Long.class);
+        if (maxId == null) {
+            return;
+        }
+        Long next = jdbcTemplate.queryForObject(
+                "select base_value from information_schema.sequences where sequence_name = ?",
+                Long.class, ChatMessageEntity.ID_SEQUENCE.toUpperCase(Locale.ROOT));
+        if (next != null && next - ChatMessageEntity.ID_ALLOCATION_SIZE < maxId) {
+            long restart = maxId + ChatMessageEntity.ID_ALLOCATION_SIZE;
+            jdbcTemplate.execute("alter sequence " + ChatMessageEntity.ID_SEQUENCE + " restart with " + restart);
+            log.info("消息主键序列已重置为 {}", restart);
+        }
+    }
+}
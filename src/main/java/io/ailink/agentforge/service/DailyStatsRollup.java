@@ -0,0 +1,209 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.archive.SegmentStore;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
+import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import io.ailink.agentforge.persistence.repository.DailyStatsRepository;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.LockModeType;
+import jakarta.persistence.PersistenceContext;
+import org.hibernate.LockMode;
+import org.hibernate.StatelessSession;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * 每日统计的增量维护
+ *
+ * 一批消息先在内存中按天累加为增量，再逐天合并到 daily_stats 的对应行：
+ * 行以悲观写锁读取，不存在时插入。须在保存消息的事务内调用，统计与消息同时提交或回滚。
+ *
+ * 统计表为空而已有消息时（升级前保存的历史），应用启动后由已归档的段和数据库中的消息重建一次。
+ */
+@Service
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+public class DailyStatsRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(DailyStatsRollup.class);
+
+    /**
+     * 重建统计时每批读取的消息数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final DailyStatsRepository dailyStatsRepository;
+    private final SegmentStore segmentStore;
+    private final TransactionTemplate transactionTemplate;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public DailyStatsRollup(ChatMessageRepository chatMessageRepository,
+                            DailyStatsRepository dailyStatsRepository,
+                            SegmentStore segmentStore,
+                            PlatformTransactionManager transactionManager) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.segmentStore = segmentStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE + 1)
+    public void onStarted() {
+        if (dailyStatsRepository.count() == 0
+                && (segmentStore.totalCount() > 0 || chatMessageRepository.findMaxId() != null)) {
+            log.info("每日统计为空，开始由已有消息生成");
+            rebuild();
+        }
+    }
+
+    /**
+     * 把新保存的消息计入每日统计，须在保存消息的事务内调用
+     *
+     * @param messages 新保存的消息
+     */
+    public void apply(Collection<ChatMessageEntity> messages) {
+        for (DailyStatsEntity delta : accumulate(messages).values()) {
+            DailyStatsEntity stats = entityManager.find(DailyStatsEntity.class, delta.getStatDate(),
+                    LockModeType.PESSIMISTIC_WRITE);
+            if (stats == null) {
+                entityManager.persist(delta);
+            } else {
+                merge(stats, delta);
+            }
+        }
+    }
+
+    /**
+     * 把导入的消息计入每日统计（StatelessSession 路径），须在导入事务内调用
+     *
+     * @param session StatelessSession
+     * @param deltas  按天累加的增量（见 {@link #accumulate(Map, ChatMessageEntity)}）
+     */
+    public void apply(StatelessSession session, Map<LocalDate, DailyStatsEntity> deltas) {
+        for (DailyStatsEntity delta : deltas.values()) {
+            DailyStatsEntity stats = session.get(DailyStatsEntity.class, delta.getStatDate(), LockMode.PESSIMISTIC_WRITE);
+            if (stats == null) {
+                session.insert(delta);
+            } else {
+                merge(stats, delta);
+                session.update(stats);
+            }
+        }
+    }
+
+    /**
+     * 重建每日统计
+     *
+     * 清空后先按日期计入已归档的消息，再按主键分批计入数据库中的消息，每批一个事务。
+     * 调用前须确保已入队的消息已提交，且重建期间没有新消息写入。
+     *
+     * @return 统计的消息数
+     */
+    public long rebuild() {
+        transactionTemplate.executeWithoutResult(status -> dailyStatsRepository.deleteAllStats());
+        long counted = 0;
+        for (LocalDate date : segmentStore.dates()) {
+            List<ChatMessageEntity> archived = segmentStore.read(date);
+            transactionTemplate.executeWithoutResult(status -> apply(archived));
+            counted += archived.size();
+        }
+        long cursor = 0;
+        while (true) {
+            long after = cursor;
+            List<ChatMessageEntity> batch = transactionTemplate.execute(status -> {
+                List<ChatMessageEntity> page = chatMessageRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                        after, Long.MAX_VALUE, Limit.of(REBUILD_BATCH_SIZE));
+                apply(page);
+                entityManager.flush();
+                entityManager.clear();
+                return page;
+            });
+            if (batch == null || batch.isEmpty()) {
+                break;
+            }
+            counted += batch.size();
+            cursor = batch.getLast().getId();
+        }
+        log.info("每日统计已重建：{} 条消息", counted);
+        return counted;
+    }
+
+    /**
+     * 把消息按天累加为增量
+     *
+     * @param messages 消息
+     * @return 按日期排序的增量
+     */
+    public static Map<LocalDate, DailyStatsEntity> accumulate(Collection<ChatMessageEntity> messages) {
+        Map<LocalDate, DailyStatsEntity> deltas = new TreeMap<>();
+        messages.forEach(message -> accumulate(deltas, message));
+        return deltas;
+    }
+
+    /**
+     * 把一条消息累加到当天的增量
+     *
+     * @param deltas  按天累加的增量
+     * @param message 消息
+     */
+    public static void accumulate(Map<LocalDate, DailyStatsEntity> deltas, ChatMessageEntity message) {
+        DailyStatsEntity delta = deltas.computeIfAbsent(message.getCreatedAt().toLocalDate(), DailyStatsEntity::new);
+        switch (message.getRole()) {
+            case "user" -> delta.setUserMessages(delta.getUserMessages() + 1);
+            case "tool" -> delta.setToolCalls(delta.getToolCalls() + 1);
+            default -> delta.setAssistantMessages(delta.getAssistantMessages() + 1);
+        }
+        delta.setCharacters(delta.getCharacters() + message.getContent().length());
+        if (message.getInputTokens() != null) {
+            delta.setInputTokens(delta.getInputTokens() + message.getInputTokens());
+        }
+        if (message.getOutputTokens() != null) {
+            delta.setOutputTokens(delta.getOutputTokens() + message.getOutputTokens());
+        }
+        if (message.getLatencyMs() != null) {
+            LatencyHistogram histogram = LatencyHistogram.decode(delta.getLatencyHistogram());
+            histogram.record(message.getLatencyMs());
+            delta.setLatencyHistogram(histogram.encode());
+        }
+    }
+
+    /**
+     * 把增量（或另一天的统计）合并到目标统计
+     *
+     * @param target 目标统计
+     * @param delta  增量
+     */
+    public static void merge(DailyStatsEntity target, DailyStatsEntity delta) {
+        target.setUserMessages(target.getUserMessages() + delta.getUserMessages());
+        target.setAssistantMessages(target.getAssistantMessages() + delta.getAssistantMessages());
+        target.setToolCalls(target.getToolCalls() + delta.getToolCalls());
+        target.setCharacters(target.getCharacters() + delta.getCharacters());
+        target.setInputTokens(target.getInputTokens() + delta.getInputTokens());
+        target.setOutputTokens(target.getOutputTokens() + delta.getOutputTokens());
+        if (delta.getLatencyHistogram() != null) {
+            LatencyHistogram histogram = LatencyHistogram.decode(target.getLatencyHistogram());
+            histogram.merge(LatencyHistogram.decode(delta.getLatencyHistogram()));
+            target.setLatencyHistogram(histogram.encode());
+        }
+    }
+}
@@ -0,0 +1,97 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.DailySummaryEntity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.Consumer;
+
+/**
+ * 每日总结批量补齐
+ *
+ * 各天在虚拟线程上并发生成总结，受两层相互独立的限制：
+ * - 同时处理的天数：本类的 slots 不超过 concurrency，每一天处理期间都持有当天消息的内存，
+ *   多出的天不必提前读入消息
+ * - 模型请求：{@link SummaryGenerator} 的请求许可（同样为 concurrency）和速率限制由全部总结请求共享；
+ *   处理中的一天可能在等待请求许可，按 map-reduce 生成的一天也可能同时占用多个许可
+ * 总耗时约为所需请求数除以请求并发数（或速率上限）。
+ *
+ * 每天的总结生成后立即保存，某一天失败不影响其他天。需要补齐的日期由
+ * {@link ChatHistoryService#getDaysNeedingSummary} 得到，再次执行时已补齐的天不再生成，从失败处继续。
+ */
+@Service
+public class DailySummaryBackfill {
+
+    private static final Logger log = LoggerFactory.getLogger(DailySummaryBackfill.class);
+
+    private final ChatHistoryService chatHistoryService;
+    private final int concurrency;
+
+    public DailySummaryBackfill(ChatHistoryService chatHistoryService, HistoryProperties historyProperties) {
+        this.chatHistoryService = chatHistoryService;
+        this.concurrency = Math.max(1, historyProperties.getSummary().getConcurrency());
+    }
+
+    /**
+     * 一天的处理结果
+     *
+     * @param completed 已处理的天数（含这一天）
+     * @param total     总天数
+     * @param date      日期
+     * @param summary   生成的总结，失败时为 null
+     * @param error     失败原因，成功时为 null
+     */
+    public record Progress(int completed, int total, LocalDate date, DailySummaryEntity summary, Exception error) {
+
+        public boolean failed() {
+            return error != null;
+        }
+    }
+
+    /**
+     * 并发生成各天的总结
+     *
+     * @param days     要生成总结的日期
+     * @param listener 每处理完一天调用一次（串行调用，completed 依次递增）
+     * @return 失败的日期（升序）
+     */
+    public List<LocalDate> backfill(List<LocalDate> days, Consumer<Progress> listener) {
+        Semaphore slots = new Semaphore(concurrency);
+        List<LocalDate> failed = new ArrayList<>();
+        int[] completed = {0};
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            for (LocalDate date : days) {
+                slots.acquireUninterruptibly();
+                executor.execute(() -> {
+                    DailySummaryEntity summary = null;
+                    Exception error = null;
+                    try {
+                        summary = chatHistoryService.generateDailySummary(date);
+                    } catch (Exception e) {
+                        // 失败原因随进度报告给调用方，这里只记录堆栈
+                        log.debug("生成 {} 的总结失败", date, e);
+                        error = e;
+                    } finally {
+                        slots.release();
+                    }
+                    synchronized (completed) {
+                        if (error != null) {
+                            failed.add(date);
+                        }
+                        listener.accept(new Progress(++completed[0], days.size(), date, summary, error));
+                    }
+                });
+            }
+        }
+        failed.sort(null);
+        return failed;
+    }
+}
@@ -0,0 +1,59 @@
+package io.ailink.agentforge.service;
+
+import com.fasterxml.jackson.annotation.JsonInclude;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.tool.ToolCall;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+/**
+ * 导出文件中的一条消息（JSONL 的一行）
+ *
+ * 不包含消息 ID：导入时由目标数据库重新分配，同一文件可以导入到已有历史的数据库中。
+ * sessionId 是导出时的会话 ID，导入时同一会话的消息归入目标数据库中新建的同一个会话。
+ * 工具调用信息以普通 JSON 写出（库中为 Smile 编码），只出现在工具调用和工具结果的行中；
+ * 模型响应的 Token 用量和耗时只出现在记录了这些指标的助手消息行中。
+ *
+ * @param sessionId  导出时所属会话的 ID（可能为 null）
+ * @param role       消息角色
+ * @param content    消息内容
+ * @param createdAt  消息创建时间
+ * @param toolCalls  助手消息的工具调用
+ * @param toolCallId 工具结果关联的调用 ID
+ * @param inputTokens  模型响应的输入 Token 数
+ * @param outputTokens 模型响应的输出 Token 数
+ * @param latencyMs    模型响应的耗时（毫秒）
+ */
+public record ExportedMessage(Long sessionId, String role, String content, LocalDateTime createdAt,
+                              @JsonInclude(JsonInclude.Include.NON_NULL) List<ToolCall> toolCalls,
+                              @JsonInclude(JsonInclude.Include.NON_NULL) String toolCallId,
+                              @JsonInclude(JsonInclude.Include.NON_NULL) Integer inputTokens,
+                              @JsonInclude(JsonInclude.Include.NON_NULL) Integer outputTokens,
+                              @JsonInclude(JsonInclude.Include.NON_NULL) Integer latencyMs) {
+
+    /**
+     * 由消息实体创建
+     *
+     * @param message 消息实体
+     * @param decoded 还原后的对话消息（含工具调用信息）
+     */
+    public static ExportedMessage from(ChatMessageEntity message, ChatMessage decoded) {
+        return new ExportedMessage(message.getSessionId(), message.getRole(), message.getContent(),
+                message.getCreatedAt(), decoded.toolCalls(), decoded.toolCallId(),
+                message.getInputTokens(), message.getOutputTokens(), message.getLatencyMs());
+    }
+
+    /**
+     * 转换为待保存的消息实体（不含工具调用信息，由调用方编码后设置）
+     */
+    public ChatMessageEntity toEntity() {
+        ChatMessageEntity message = new ChatMessageEntity(role, content);
+        message.setCreatedAt(createdAt);
+        message.setInputTokens(inputTokens);
+        message.setOutputTokens(outputTokens);
+        message.setLatencyMs(latencyMs);
+        return message;
+    }
+}
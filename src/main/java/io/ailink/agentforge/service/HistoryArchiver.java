@@ -0,0 +1,128 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.ArchiveProperties;
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.archive.SegmentStore;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 冷热分层归档
+ *
+ * 把保留窗口之前的消息逐天移出数据库：读取当天的消息（与已有的段合并），
+ * 写入新的段文件，读回校验一致后原子替换，然后在一个事务内删除数据库中当天的消息。
+ * 先写文件后删行，中途中断最多使消息同时存在于两处，读取时按 ID 去重，下次归档时合并；
+ * 写入或校验失败时不删除任何行。
+ *
+ * 归档会删除数据库中的行，默认只由 {@code history --archive} 显式执行；
+ * 开启 archive.enabled 后在应用启动后、执行命令之前自动归档一次。
+ * 全文检索的倒排记录保留，命中已归档的消息时从段文件中读取。
+ */
+@Service
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+public class HistoryArchiver {
+
+    private static final Logger log = LoggerFactory.getLogger(HistoryArchiver.class);
+
+    /**
+     * 删除已归档消息时每条语句的 ID 个数
+     */
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ChatMessageWriter chatMessageWriter;
+    private final SegmentStore segmentStore;
+    private final ArchiveProperties properties;
+    private final TransactionTemplate transactionTemplate;
+
+    public HistoryArchiver(ChatMessageRepository chatMessageRepository,
+                           ChatMessageWriter chatMessageWriter,
+                           SegmentStore segmentStore,
+                           HistoryProperties historyProperties,
+                           PlatformTransactionManager transactionManager) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.chatMessageWriter = chatMessageWriter;
+        this.segmentStore = segmentStore;
+        this.properties = historyProperties.getArchive();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStarted() {
+        if (!properties.isEnabled()) {
+            return;
+        }
+        try {
+            archiveExpired();
+        } catch (RuntimeException | IOException e) {
+            log.warn("归档历史消息失败: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * 第一个热数据日期：该日期之前的消息应归档
+     */
+    public LocalDate hotFrom() {
+        return LocalDate.now().minusDays(properties.getHotDays());
+    }
+
+    /**
+     * 归档保留窗口之前的全部消息
+     *
+     * @return 归档的消息数
+     */
+    public synchronized long archiveExpired() throws IOException {
+        chatMessageWriter.flush();
+        LocalDateTime cutoff = hotFrom().atStartOfDay();
+        long archived = 0;
+        Optional<ChatMessageEntity> oldest;
+        while ((oldest = chatMessageRepository.findFirstByCreatedAtLessThanOrderByCreatedAtAsc(cutoff)).isPresent()) {
+            archived += archiveDay(oldest.get().getCreatedAt().toLocalDate());
+        }
+        if (archived > 0) {
+            log.info("已归档 {} 条消息（{} 之前）", archived, hotFrom());
+        }
+        return archived;
+    }
+
+    /**
+     * 归档一天的消息
+     *
+     * @param date 日期
+     * @return 从数据库移出的消息数
+     */
+    private int archiveDay(LocalDate date) throws IOException {
+        LocalDateTime start = date.atStartOfDay();
+        LocalDateTime end = date.plusDays(1).atStartOfDay();
+        List<ChatMessageEntity> hot = chatMessageRepository.findByDateRange(start, end);
+        try {
+            segmentStore.write(date, SegmentStore.merge(segmentStore.read(date), hot));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // 段文件已读回校验，只删除写入其中的消息
+        List<Long> ids = hot.stream().map(ChatMessageEntity::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ids.size(); i += DELETE_CHUNK_SIZE) {
+                chatMessageRepository.deleteAllByIdInBatch(ids.subList(i, Math.min(i + DELETE_CHUNK_SIZE, ids.size())));
+            }
+        });
+        log.debug("归档 {}：{} 条消息", date, hot.size());
+        return hot.size();
+    }
+}
@@ -0,0 +1,545 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.llm.dto.TokenUsage;
+import io.ailink.agentforge.persistence.archive.DaySegment;
+import io.ailink.agentforge.persistence.archive.SegmentStore;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSummaryEntity;
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
+import io.ailink.agentforge.persistence.entity.DailySummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity.Period;
+import io.ailink.agentforge.persistence.jdbc.JdbcChatMessageRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcDailyStatsRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcDailySummaryRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcMessageTermRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcMessageTermRepository.ScoredMessage;
+import io.ailink.agentforge.persistence.jdbc.JdbcPeriodSummaryRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcSessionRepository;
+import io.ailink.agentforge.tool.ToolCall;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * 聊天历史服务实现（jdbc 后端）
+ *
+ * 功能与 {@link ChatHistoryServiceImpl} 相同，数据访问改为 JdbcTemplate 上的预编译语句，
+ * 应用启动时不创建 Hibernate 的 EntityManagerFactory，也不做实体与表结构的校验
+ * （表结构由 {@link io.ailink.agentforge.persistence.jdbc.SchemaMigrator} 按版本迁移，与 jpa 后端相同）。
+ * 两种后端使用相同的表结构和段文件，可以交替使用同一个数据库。
+ *
+ * 差异：
+ * - 消息同步写入（见 {@link JdbcHistoryWriter}），返回的实体 id 已分配
+ * - 全文检索在一条聚合查询中完成打分、排序和分页（见 {@link JdbcMessageTermRepository#search}）
+ *
+ * 依赖组件：
+ * - JdbcChatMessageRepository / JdbcSessionRepository: 消息、会话和对话摘要数据访问
+ * - JdbcHistoryWriter: 消息、倒排记录和每日统计的写入
+ * - JdbcMessageTermRepository: 全文检索
+ * - JdbcHistoryTransfer: JSONL 流式导入导出
+ * - JdbcHistoryMaintenance: 归档、索引和统计的重建
+ * - SegmentStore: 冷数据段的读取
+ * - JdbcDailyStatsRepository / JdbcDailySummaryRepository / JdbcPeriodSummaryRepository:
+ *   每日统计、每日总结和周/月汇总数据访问
+ * - SummaryGenerator: LLM总结生成
+ */
+@Service
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcChatHistoryService implements ChatHistoryService {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcChatHistoryService.class);
+
+    private final JdbcChatMessageRepository chatMessageRepository;
+    private final JdbcSessionRepository sessionRepository;
+    private final JdbcMessageTermRepository messageTermRepository;
+    private final JdbcDailyStatsRepository dailyStatsRepository;
+    private final JdbcDailySummaryRepository dailySummaryRepository;
+    private final JdbcPeriodSummaryRepository periodSummaryRepository;
+    private final JdbcHistoryWriter historyWriter;
+    private final JdbcHistoryTransfer historyTransfer;
+    private final JdbcHistoryMaintenance historyMaintenance;
+    private final ToolPayloadCodec toolPayloadCodec;
+    private final SegmentStore segmentStore;
+    private final SummaryGenerator summaryGenerator;
+
+    public JdbcChatHistoryService(JdbcChatMessageRepository chatMessageRepository,
+                                  JdbcSessionRepository sessionRepository,
+                                  JdbcMessageTermRepository messageTermRepository,
+                                  JdbcDailyStatsRepository dailyStatsRepository,
+                                  JdbcDailySummaryRepository dailySummaryRepository,
+                                  JdbcPeriodSummaryRepository periodSummaryRepository,
+                                  JdbcHistoryWriter historyWriter,
+                                  JdbcHistoryTransfer historyTransfer,
+                                  JdbcHistoryMaintenance historyMaintenance,
+                                  ToolPayloadCodec toolPayloadCodec,
+                                  SegmentStore segmentStore,
+                                  SummaryGenerator summaryGenerator) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.sessionRepository = sessionRepository;
+        this.messageTermRepository = messageTermRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.dailySummaryRepository = dailySummaryRepository;
+        this.periodSummaryRepository = periodSummaryRepository;
+        this.historyWriter = historyWriter;
+        this.historyTransfer = historyTransfer;
+        this.historyMaintenance = historyMaintenance;
+        this.toolPayloadCodec = toolPayloadCodec;
+        this.segmentStore = segmentStore;
+        this.summaryGenerator = summaryGenerator;
+    }
+
+    @Override
+    public ChatMessageEntity saveUserMessage(Long sessionId, String content) {
+        return historyWriter.write(new ChatMessageEntity(sessionId, "user", content));
+    }
+
+    @Override
+    public ChatMessageEntity saveAssistantMessage(Long sessionId, String content) {
+        return historyWriter.write(new ChatMessageEntity(sessionId, "assistant", content));
+    }
+
+    @Override
+    public ChatMessageEntity saveAssistantMessage(Long sessionId, String content, TokenUsage usage, long latencyMs) {
+        ChatMessageEntity message = new ChatMessageEntity(sessionId, "assistant", content);
+        setResponseMetrics(message, usage, latencyMs);
+        return historyWriter.write(message);
+    }
+
+    @Override
+    public ChatMessageEntity saveToolCalls(Long sessionId, String content, List<ToolCall> toolCalls,
+                                           TokenUsage usage, long latencyMs) {
+        ChatMessageEntity message = new ChatMessageEntity(sessionId, "assistant", content != null ? content : "");
+        message.setPayload(toolPayloadCodec.encode(toolCalls, null));
+        setResponseMetrics(message, usage, latencyMs);
+        return historyWriter.write(message);
+    }
+
+    private static void setResponseMetrics(ChatMessageEntity message, TokenUsage usage, long latencyMs) {
+        if (usage != null) {
+            message.setInputTokens(usage.inputTokens());
+            message.setOutputTokens(usage.outputTokens());
+        }
+        message.setLatencyMs((int) Math.min(latencyMs, Integer.MAX_VALUE));
+    }
+
+    @Override
+    public ChatMessageEntity saveToolResult(Long sessionId, String toolCallId, String content) {
+        ChatMessageEntity message = new ChatMessageEntity(sessionId, "tool", content);
+        message.setPayload(toolPayloadCodec.encode(null, toolCallId));
+        return historyWriter.write(message);
+    }
+
+    @Override
+    public ChatMessage toChatMessage(ChatMessageEntity message) {
+        return toolPayloadCodec.decode(message);
+    }
+
+    @Override
+    public ConversationSessionEntity startSession() {
+        return sessionRepository.insert(new ConversationSessionEntity(LocalDateTime.now()));
+    }
+
+    @Override
+    public ConversationSessionEntity getSession(Long sessionId) {
+        return sessionRepository.findById(sessionId).orElse(null);
+    }
+
+    @Override
+    public ConversationSessionEntity getLatestSession() {
+        return chatMessageRepository.findLatest(1).stream().findFirst()
+                .or(segmentStore::latest)
+                .map(ChatMessageEntity::getSessionId)
+                .flatMap(sessionRepository::findById)
+                .orElse(null);
+    }
+
+    @Override
+    public List<SessionOverview> getRecentSessions(int limit) {
+        return sessionRepository.findLatest(limit).stream()
+                .map(session -> new SessionOverview(session,
+                        chatMessageRepository.countBySessionId(session.getId()),
+                        chatMessageRepository.findFirstInSession(session.getId()).orElse(null),
+                        chatMessageRepository.findLatestInSession(session.getId(), 1).stream()
+                                .map(ChatMessageEntity::getCreatedAt).findFirst().orElse(null)))
+                .toList();
+    }
+
+    @Override
+    public List<ChatMessageEntity> getAllMessages() {
+        List<ChatMessageEntity> messages = new ArrayList<>();
+        for (LocalDate date : segmentStore.dates()) {
+            messages.addAll(segmentStore.read(date));
+        }
+        messages.addAll(chatMessageRepository.findAll());
+        return messages;
+    }
+
+    @Override
+    public List<ChatMessageEntity> getRecentChatMessages(int limit) {
+        return chatMessageRepository.findLatest(limit).reversed();
+    }
+
+    /**
+     * 获取游标之前的一页消息
+     *
+     * 数据库中的消息不足一页时，继续按日期倒序从归档中补足。
+     */
+    @Override
+    public List<ChatMessageEntity> getChatMessagesBefore(MessageCursor before, int limit) {
+        List<ChatMessageEntity> page = chatMessageRepository.findBefore(before.createdAt(), before.id(), limit).reversed();
+        if (page.size() >= limit || segmentStore.dates().isEmpty()) {
+            return page;
+        }
+        MessageCursor edge = page.isEmpty() ? before : MessageCursor.of(page.getFirst());
+        List<ChatMessageEntity> result = new ArrayList<>(page);
+        for (LocalDate date : segmentStore.dates().headSet(edge.createdAt().toLocalDate(), true).descendingSet()) {
+            List<ChatMessageEntity> older = segmentStore.read(date).stream()
+                    .filter(message -> isBefore(message, edge))
+                    .toList();
+            int take = Math.min(limit - result.size(), older.size());
+            result.addAll(0, older.subList(older.size() - take, older.size()));
+            if (result.size() >= limit) {
+                break;
+            }
+        }
+        return result;
+    }
+
+    @Override
+    public List<ChatMessageEntity> getRecentSessionMessages(Long sessionId, int limit) {
+        List<ChatMessageEntity> hot = chatMessageRepository.findLatestInSession(sessionId, limit).reversed();
+        return withArchivedSessionMessages(sessionId, null, hot, limit);
+    }
+
+    @Override
+    public List<ChatMessageEntity> getRecentSessionMessagesAfter(Long sessionId, MessageCursor after, int limit) {
+        List<ChatMessageEntity> hot = chatMessageRepository.findLatestInSessionAfter(
+                sessionId, after.createdAt(), after.id(), limit).reversed();
+        return withArchivedSessionMessages(sessionId, after, hot, limit);
+    }
+
+    /**
+     * 数据库中的会话消息不足 limit 条时，补充归档段中更早的消息（见 {@link ChatHistoryServiceImpl}）
+     */
+    private List<ChatMessageEntity> withArchivedSessionMessages(Long sessionId, MessageCursor after,
+                                                                List<ChatMessageEntity> hot, int limit) {
+        if (hot.size() >= limit || segmentStore.dates().isEmpty()) {
+            return hot;
+        }
+        ConversationSessionEntity session = sessionRepository.findById(sessionId).orElse(null);
+        if (session == null) {
+            return hot;
+        }
+        LocalDate from = session.getCreatedAt().toLocalDate();
+        if (after != null && after.createdAt().toLocalDate().isAfter(from)) {
+            from = after.createdAt().toLocalDate();
+        }
+        List<ChatMessageEntity> archived = segmentStore.findLatestInSession(sessionId, from,
+                message -> after == null || isBefore(after, message), limit);
+        if (archived.isEmpty()) {
+            return hot;
+        }
+        List<ChatMessageEntity> merged = SegmentStore.merge(archived, hot);
+        return merged.subList(Math.max(0, merged.size() - limit), merged.size());
+    }
+
+    @Override
+    public List<ChatMessageEntity> getMessagesByDate(LocalDate date) {
+        List<ChatMessageEntity> hot = chatMessageRepository.findByDateRange(
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        return SegmentStore.merge(segmentStore.read(date), hot);
+    }
+
+    @Override
+    public List<ChatMessageEntity> getMessagesByDate(LocalDate date, MessageCursor after, int limit) {
+        if (segmentStore.get(date).isPresent()) {
+            // 已归档的日期：读取整天后在内存中分页
+            List<ChatMessageEntity> day = getMessagesByDate(date);
+            int from = 0;
+            if (after != null) {
+                while (from < day.size() && !isBefore(after, day.get(from))) {
+                    from++;
+                }
+            }
+            return day.subList(from, Math.min(from + limit, day.size()));
+        }
+        LocalDateTime startOfDay = date.atStartOfDay();
+        LocalDateTime startOfNextDay = date.plusDays(1).atStartOfDay();
+        if (after == null) {
+            return chatMessageRepository.findByDateRange(startOfDay, startOfNextDay, limit);
+        }
+        return chatMessageRepository.findByDateRangeAfter(startOfDay, startOfNextDay, after.createdAt(), after.id(), limit);
+    }
+
+    @Override
+    public Stream<ChatMessageEntity> streamMessagesByDate(LocalDate date, int pageSize) {
+        if (segmentStore.get(date).isPresent()) {
+            return getMessagesByDate(date).stream();
+        }
+        return Stream.iterate(
+                        getMessagesByDate(date, null, pageSize),
+                        page -> !page.isEmpty(),
+                        page -> page.size() < pageSize ? List.of()
+                                : getMessagesByDate(date, MessageCursor.of(page.getLast()), pageSize))
+                .flatMap(List::stream);
+    }
+
+    /**
+     * 全文检索消息
+     *
+     * 先查询各词项的文档频率（任一词项不存在时直接返回空结果），再由一条聚合查询返回当前页，
+     * 最后只加载当前页的消息内容。索引为空而已有消息时，先建立一次索引。
+     */
+    @Override
+    public MessageSearchPage searchMessages(String query, int page, int pageSize) {
+        int currentPage = Math.max(1, page);
+        if (messageTermRepository.isEmpty() && getTotalMessageCount() > 0) {
+            log.info("检索索引为空，开始为已有消息建立索引");
+            historyMaintenance.rebuildSearchIndex();
+        }
+        List<String> terms = MessageTokenizer.queryTerms(query);
+        if (terms.isEmpty()) {
+            return MessageSearchPage.empty(currentPage, pageSize);
+        }
+        long totalMessages = Math.max(1, getTotalMessageCount());
+        Map<String, Double> idf = new LinkedHashMap<>();
+        for (String term : terms) {
+            long df = messageTermRepository.countByTerm(term);
+            if (df == 0) {
+                return MessageSearchPage.empty(currentPage, pageSize);
+            }
+            idf.put(term, Math.log(1 + (double) totalMessages / df));
+        }
+        long total = messageTermRepository.countMatches(terms);
+        if (total == 0) {
+            return MessageSearchPage.empty(currentPage, pageSize);
+        }
+        List<ScoredMessage> ranked = messageTermRepository.search(idf, (currentPage - 1) * pageSize, pageSize);
+
+        List<Long> pageIds = ranked.stream().map(ScoredMessage::messageId).toList();
+        Map<Long, ChatMessageEntity> messages = chatMessageRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(ChatMessageEntity::getId, Function.identity()));
+        if (messages.size() < pageIds.size()) {
+            List<Long> archived = pageIds.stream().filter(id -> !messages.containsKey(id)).toList();
+            segmentStore.findByIds(archived).forEach(message -> messages.put(message.getId(), message));
+        }
+        List<MessageSearchPage.Hit> hits = new ArrayList<>(ranked.size());
+        for (ScoredMessage scored : ranked) {
+            ChatMessageEntity message = messages.get(scored.messageId());
+            if (message != null) {
+                hits.add(new MessageSearchPage.Hit(message, scored.score()));
+            }
+        }
+        return new MessageSearchPage(hits, (int) total, currentPage, pageSize);
+    }
+
+    @Override
+    public int rebuildSearchIndex() {
+        return historyMaintenance.rebuildSearchIndex();
+    }
+
+    @Override
+    public long exportMessages(Path file) throws IOException {
+        return historyTransfer.exportTo(file);
+    }
+
+    @Override
+    public long importMessages(Path file) throws IOException {
+        return historyTransfer.importFrom(file);
+    }
+
+    @Override
+    public long getArchivedMessageCount() {
+        return segmentStore.totalCount();
+    }
+
+    @Override
+    public long archiveMessages() throws IOException {
+        return historyMaintenance.archiveExpired();
+    }
+
+    @Override
+    public long getMessageCountByDate(LocalDate date) {
+        return dailyStatsRepository.findById(date).map(DailyStatsEntity::getTotalMessages).orElse(0L);
+    }
+
+    @Override
+    public long getTotalMessageCount() {
+        return dailyStatsRepository.sumMessages();
+    }
+
+    @Override
+    public List<DailyStatsEntity> getDailyStats(LocalDate from, LocalDate to) {
+        return dailyStatsRepository.findBetween(from, to);
+    }
+
+    @Override
+    public long rebuildDailyStats() {
+        return historyMaintenance.rebuildDailyStats();
+    }
+
+    /**
+     * 消息 a 是否排在游标 b 之前（按 (createdAt, id)）
+     */
+    private static boolean isBefore(ChatMessageEntity a, MessageCursor b) {
+        int compare = a.getCreatedAt().compareTo(b.createdAt());
+        return compare < 0 || (compare == 0 && a.getId() < b.id());
+    }
+
+    /**
+     * 游标 a 是否排在消息 b 之前（按 (createdAt, id)）
+     */
+    private static boolean isBefore(MessageCursor a, ChatMessageEntity b) {
+        int compare = a.createdAt().compareTo(b.getCreatedAt());
+        return compare < 0 || (compare == 0 && a.id() < b.getId());
+    }
+
+    @Override
+    public DailySummaryEntity generateDailySummary(LocalDate date) {
+        DailySummaryEntity existing = dailySummaryRepository.findBySummaryDate(date).orElse(null);
+        if (existing != null && existing.getLastMessageId() != null
+                && countMessagesUpTo(date, existing.getLastMessageId()) == existing.getMessageCount()) {
+            List<ChatMessageEntity> newMessages = getMessagesByDateAfter(date, existing.getLastMessageId());
+            if (newMessages.isEmpty()) {
+                return existing;
+            }
+            existing.setSummary(summaryGenerator.updateSummary(existing.getSummary(), newMessages));
+            existing.setMessageCount(existing.getMessageCount() + newMessages.size());
+            existing.setLastMessageId(Math.max(existing.getLastMessageId(), lastMessageId(newMessages)));
+            existing.setUpdatedAt(LocalDateTime.now());
+            return dailySummaryRepository.save(existing);
+        }
+
+        List<ChatMessageEntity> messages = getMessagesByDate(date);
+        if (messages.isEmpty()) {
+            throw new IllegalArgumentException("No messages found for date: " + date);
+        }
+
+        String summaryText = summaryGenerator.generateSummary(messages);
+
+        if (existing != null) {
+            existing.setSummary(summaryText);
+            existing.setMessageCount(messages.size());
+            existing.setLastMessageId(lastMessageId(messages));
+            existing.setUpdatedAt(LocalDateTime.now());
+            return dailySummaryRepository.save(existing);
+        }
+        return dailySummaryRepository.save(
+                new DailySummaryEntity(date, summaryText, messages.size(), lastMessageId(messages)));
+    }
+
+    /**
+     * 查询指定日期 ID 大于 afterId 的消息（按时间升序），归档段的最大 ID 不超过 afterId 时不读取段文件
+     */
+    private List<ChatMessageEntity> getMessagesByDateAfter(LocalDate date, long afterId) {
+        List<ChatMessageEntity> hot = chatMessageRepository.findByDateRangeAndIdAfter(
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), afterId);
+        if (segmentStore.get(date).filter(segment -> segment.maxId() > afterId).isEmpty()) {
+            return hot;
+        }
+        List<ChatMessageEntity> archived = segmentStore.read(date).stream()
+                .filter(message -> message.getId() > afterId)
+                .toList();
+        return SegmentStore.merge(archived, hot);
+    }
+
+    /**
+     * 统计指定日期 ID 不超过 maxId 的消息数
+     *
+     * 与总结覆盖的消息数一致时高水位才有效。多个进程同时写入时，消息 ID 在各自预分配的区间内递增，
+     * 总结生成之后仍可能写入 ID 低于高水位的消息，此时整天重新生成。
+     */
+    private long countMessagesUpTo(LocalDate date, long maxId) {
+        long hot = chatMessageRepository.countByDateRangeAndIdAtMost(
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay(), maxId);
+        long archived = segmentStore.get(date)
+                .map(segment -> segment.maxId() <= maxId
+                        ? segment.messageCount()
+                        : segmentStore.read(date).stream().filter(message -> message.getId() <= maxId).count())
+                .orElse(0L);
+        return hot + archived;
+    }
+
+    private static long lastMessageId(List<ChatMessageEntity> messages) {
+        return messages.stream().mapToLong(ChatMessageEntity::getId).max().orElseThrow();
+    }
+
+    @Override
+    public List<LocalDate> getDaysNeedingSummary(LocalDate from, LocalDate to) {
+        NavigableMap<LocalDate, long[]> days = new TreeMap<>();
+        for (LocalDate date : segmentStore.dates().subSet(from, true, to, true)) {
+            DaySegment segment = segmentStore.get(date).orElseThrow();
+            days.put(date, new long[]{segment.messageCount(), segment.maxId()});
+        }
+        for (var day : chatMessageRepository.countByDay(from.atStartOfDay(), to.plusDays(1).atStartOfDay())) {
+            days.merge(day.date(), new long[]{day.messages(), day.maxId()},
+                    (archived, hot) -> new long[]{archived[0] + hot[0], Math.max(archived[1], hot[1])});
+        }
+        Map<LocalDate, DailySummaryEntity> summaries = getDailySummaries(from, to).stream()
+                .collect(Collectors.toMap(DailySummaryEntity::getSummaryDate, summary -> summary));
+        return days.entrySet().stream()
+                .filter(day -> {
+                    DailySummaryEntity summary = summaries.get(day.getKey());
+                    return summary == null || !summary.covers(day.getValue()[0], day.getValue()[1]);
+                })
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    @Override
+    public DailySummaryEntity getDailySummary(LocalDate date) {
+        return dailySummaryRepository.findBySummaryDate(date).orElse(null);
+    }
+
+    @Override
+    public ConversationSummaryEntity saveConversationSummary(Long sessionId, String summary,
+                                                             ChatMessageEntity coveredUntil, int foldedMessages) {
+        return sessionRepository.insertSummary(
+                new ConversationSummaryEntity(sessionId, summary, coveredUntil.getCreatedAt(), coveredUntil.getId(),
+                        foldedMessages));
+    }
+
+    @Override
+    public ConversationSummaryEntity getLatestConversationSummary(Long sessionId) {
+        return sessionRepository.findLatestSummary(sessionId).orElse(null);
+    }
+
+    @Override
+    public List<DailySummaryEntity> getAllDailySummaries() {
+        return dailySummaryRepository.findAllByOrderBySummaryDateDesc();
+    }
+
+    @Override
+    public List<DailySummaryEntity> getDailySummaries(LocalDate from, LocalDate to) {
+        return dailySummaryRepository.findBySummaryDateBetweenOrderBySummaryDateAsc(from, to);
+    }
+
+    @Override
+    public List<PeriodSummaryEntity> getPeriodSummaries(Period period, LocalDate from, LocalDate to) {
+        return periodSummaryRepository.findByPeriodAndPeriodStartBetween(period, from, to);
+    }
+
+    @Override
+    public PeriodSummaryEntity savePeriodSummary(PeriodSummaryEntity summary) {
+        return periodSummaryRepository.save(summary);
+    }
+}
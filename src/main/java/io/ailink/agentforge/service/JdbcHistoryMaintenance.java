@@ -0,0 +1,232 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.ArchiveProperties;
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.archive.SegmentStore;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import io.ailink.agentforge.persistence.jdbc.JdbcChatMessageRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcDailyStatsRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcMessageTermRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcSessionRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * 历史数据维护（jdbc 后端）
+ *
+ * 对应 JPA 后端的 {@link LegacySessionMigrator}、{@link DailyStatsRollup}、{@link HistoryArchiver}
+ * 和 {@link MessageSearchIndex#rebuild()}，算法相同，数据访问改为 JDBC。
+ *
+ * 应用启动后依次执行：把没有会话的历史消息归入一个会话、每日统计为空而已有消息时重建统计、
+ * 归档保留窗口之前的消息。
+ */
+@Service
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcHistoryMaintenance {
+
+    private static final Logger log = LoggerFactory.getLogger(JdbcHistoryMaintenance.class);
+
+    /**
+     * 重建索引和统计时每批处理的消息数
+     */
+    private static final int REBUILD_BATCH_SIZE = 1000;
+
+    /**
+     * 删除已归档消息时每条语句的 ID 个数
+     */
+    private static final int DELETE_CHUNK_SIZE = 1000;
+
+    private final JdbcChatMessageRepository chatMessageRepository;
+    private final JdbcSessionRepository sessionRepository;
+    private final JdbcMessageTermRepository messageTermRepository;
+    private final JdbcDailyStatsRepository dailyStatsRepository;
+    private final JdbcHistoryWriter historyWriter;
+    private final SegmentStore segmentStore;
+    private final ArchiveProperties archive;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcHistoryMaintenance(JdbcChatMessageRepository chatMessageRepository,
+                                  JdbcSessionRepository sessionRepository,
+                                  JdbcMessageTermRepository messageTermRepository,
+                                  JdbcDailyStatsRepository dailyStatsRepository,
+                                  JdbcHistoryWriter historyWriter,
+                                  SegmentStore segmentStore,
+                                  HistoryProperties historyProperties,
+                                  PlatformTransactionManager transactionManager) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.sessionRepository = sessionRepository;
+        this.messageTermRepository = messageTermRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.historyWriter = historyWriter;
+        this.segmentStore = segmentStore;
+        this.archive = historyProperties.getArchive();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    public void onStarted() {
+        assignLegacyMessages();
+        if (dailyStatsRepository.isEmpty() && (segmentStore.totalCount() > 0 || chatMessageRepository.findMaxId() != null)) {
+            log.info("每日统计为空，开始由已有消息生成");
+            rebuildDailyStats();
+        }
+        if (archive.isEnabled()) {
+            try {
+                archiveExpired();
+            } catch (RuntimeException | IOException e) {
+                log.warn("归档历史消息失败: {}", e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 把引入会话之前保存的消息和滚动摘要归入一个会话
+     */
+    private void assignLegacyMessages() {
+        Optional<ChatMessageEntity> first = chatMessageRepository.findFirstInSession(null);
+        if (first.isEmpty()) {
+            return;
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            ConversationSessionEntity session = sessionRepository.insert(
+                    new ConversationSessionEntity(first.get().getCreatedAt()));
+            int messages = chatMessageRepository.assignSessionToOrphans(session.getId());
+            sessionRepository.assignSummariesToOrphans(session.getId());
+            log.info("已将 {} 条历史消息归入会话 {}", messages, session.getId());
+        });
+    }
+
+    /**
+     * 第一个热数据日期：该日期之前的消息应归档
+     */
+    public LocalDate hotFrom() {
+        return LocalDate.now().minusDays(archive.getHotDays());
+    }
+
+    /**
+     * 归档保留窗口之前的全部消息
+     *
+     * 逐天读取数据库中的消息并与已有的段合并，写入段文件并读回校验后再删除数据库中的行。
+     *
+     * @return 归档的消息数
+     */
+    public synchronized long archiveExpired() throws IOException {
+        LocalDateTime cutoff = hotFrom().atStartOfDay();
+        long archived = 0;
+        Optional<ChatMessageEntity> oldest;
+        while ((oldest = chatMessageRepository.findFirstBefore(cutoff)).isPresent()) {
+            archived += archiveDay(oldest.get().getCreatedAt().toLocalDate());
+        }
+        if (archived > 0) {
+            log.info("已归档 {} 条消息（{} 之前）", archived, hotFrom());
+        }
+        return archived;
+    }
+
+    private int archiveDay(LocalDate date) throws IOException {
+        List<ChatMessageEntity> hot = chatMessageRepository.findByDateRange(
+                date.atStartOfDay(), date.plusDays(1).atStartOfDay());
+        try {
+            segmentStore.write(date, SegmentStore.merge(segmentStore.read(date), hot));
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+        // 段文件已读回校验，只删除写入其中的消息
+        List<Long> ids = hot.stream().map(ChatMessageEntity::getId).toList();
+        transactionTemplate.executeWithoutResult(status -> {
+            for (int i = 0; i < ids.size(); i += DELETE_CHUNK_SIZE) {
+                chatMessageRepository.deleteAllById(ids.subList(i, Math.min(i + DELETE_CHUNK_SIZE, ids.size())));
+            }
+        });
+        log.debug("归档 {}：{} 条消息", date, hot.size());
+        return hot.size();
+    }
+
+    /**
+     * 重建全文检索索引
+     *
+     * 为当前最大 ID 及之前的全部消息重新生成倒排记录：先按日期处理已归档的消息，
+     * 再按主键分批处理数据库中的消息，每批一个事务。
+     *
+     * @return 处理的消息数
+     */
+    public int rebuildSearchIndex() {
+        Long hotMaxId = chatMessageRepository.findMaxId();
+        long archivedMaxId = segmentStore.dates().stream()
+                .mapToLong(date -> segmentStore.get(date).orElseThrow().maxId())
+                .max().orElse(0);
+        long maxId = Math.max(hotMaxId != null ? hotMaxId : 0, archivedMaxId);
+        if (maxId == 0) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> messageTermRepository.deleteUpTo(maxId));
+
+        int indexed = 0;
+        for (LocalDate date : segmentStore.dates()) {
+            List<ChatMessageEntity> archived = segmentStore.read(date);
+            for (int i = 0; i < archived.size(); i += REBUILD_BATCH_SIZE) {
+                List<ChatMessageEntity> batch = archived.subList(i, Math.min(i + REBUILD_BATCH_SIZE, archived.size()));
+                transactionTemplate.executeWithoutResult(status -> historyWriter.index(batch));
+            }
+            indexed += archived.size();
+        }
+
+        long cursor = 0;
+        while (true) {
+            List<ChatMessageEntity> batch = chatMessageRepository.findByIdRange(cursor, maxId, REBUILD_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status -> historyWriter.index(batch));
+            indexed += batch.size();
+            cursor = batch.getLast().getId();
+        }
+        log.info("检索索引已重建：{} 条消息", indexed);
+        return indexed;
+    }
+
+    /**
+     * 重建每日统计
+     *
+     * 清空后先按日期计入已归档的消息，再按主键分批计入数据库中的消息，每批一个事务。
+     *
+     * @return 统计的消息数
+     */
+    public long rebuildDailyStats() {
+        transactionTemplate.executeWithoutResult(status -> dailyStatsRepository.deleteAll());
+        long counted = 0;
+        for (LocalDate date : segmentStore.dates()) {
+            List<ChatMessageEntity> archived = segmentStore.read(date);
+            transactionTemplate.executeWithoutResult(status ->
+                    historyWriter.applyStats(DailyStatsRollup.accumulate(archived)));
+            counted += archived.size();
+        }
+        long cursor = 0;
+        while (true) {
+            List<ChatMessageEntity> batch = chatMessageRepository.findByIdRange(cursor, Long.MAX_VALUE, REBUILD_BATCH_SIZE);
+            if (batch.isEmpty()) {
+                break;
+            }
+            transactionTemplate.executeWithoutResult(status ->
+                    historyWriter.applyStats(DailyStatsRollup.accumulate(batch)));
+            counted += batch.size();
+            cursor = batch.getLast().getId();
+        }
+        log.info("每日统计已重建：{} 条消息", counted);
+        return counted;
+    }
+}
@@ -0,0 +1,183 @@
+package io.ailink.agentforge.service;
+
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.archive.SegmentStore;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import io.ailink.agentforge.persistence.jdbc.JdbcChatMessageRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcSessionRepository;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 聊天历史导入导出（jdbc 后端，文件格式与 {@link ChatHistoryTransfer} 相同）
+ *
+ * - 导出：先按日期逐天读取已归档的消息，再按 id 顺序流式读取数据库中的消息，逐条写出
+ * - 导入：逐行解析，每 {@value #IMPORT_COMMIT_INTERVAL} 条在一个事务内批量插入消息、倒排记录和每日统计，
+ *   文件中的每个会话在目标数据库中新建一个会话
+ */
+@Service
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcHistoryTransfer {
+
+    /**
+     * 导出文件的写缓冲大小
+     */
+    private static final int EXPORT_BUFFER_SIZE = 64 * 1024;
+
+    /**
+     * 导入时每个事务提交的消息数
+     */
+    static final int IMPORT_COMMIT_INTERVAL = 500;
+
+    private final JdbcChatMessageRepository chatMessageRepository;
+    private final JdbcSessionRepository sessionRepository;
+    private final JdbcHistoryWriter historyWriter;
+    private final ToolPayloadCodec toolPayloadCodec;
+    private final SegmentStore segmentStore;
+    private final TransactionTemplate transactionTemplate;
+    private final ObjectWriter lineWriter;
+    private final ObjectReader lineReader;
+
+    public JdbcHistoryTransfer(JdbcChatMessageRepository chatMessageRepository,
+                               JdbcSessionRepository sessionRepository,
+                               JdbcHistoryWriter historyWriter,
+                               ToolPayloadCodec toolPayloadCodec,
+                               SegmentStore segmentStore,
+                               PlatformTransactionManager transactionManager,
+                               ObjectMapper objectMapper) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.sessionRepository = sessionRepository;
+        this.historyWriter = historyWriter;
+        this.toolPayloadCodec = toolPayloadCodec;
+        this.segmentStore = segmentStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.lineWriter = objectMapper.writerFor(ExportedMessage.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.lineReader = objectMapper.readerFor(ExportedMessage.class);
+    }
+
+    /**
+     * 导出全部消息
+     *
+     * @param file 目标文件（已存在时覆盖）
+     * @return 导出的消息数
+     */
+    public long exportTo(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+             OutputStream out = new BufferedOutputStream(Channels.newOutputStream(channel), EXPORT_BUFFER_SIZE);
+             SequenceWriter writer = lineWriter.withRootValueSeparator("\n").writeValues(out)) {
+            long[] count = {0};
+            for (LocalDate date : segmentStore.dates()) {
+                for (ChatMessageEntity message : segmentStore.read(date)) {
+                    writer.write(ExportedMessage.from(message, toolPayloadCodec.decode(message)));
+                    count[0]++;
+                }
+            }
+            chatMessageRepository.forEach(message -> {
+                try {
+                    writer.write(ExportedMessage.from(message, toolPayloadCodec.decode(message)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+                count[0]++;
+            });
+            if (count[0] > 0) {
+                // 行分隔符只写在记录之间，补上最后一行的换行
+                writer.flush();
+                out.write('\n');
+            }
+            return count[0];
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    /**
+     * 从导出文件导入消息
+     *
+     * 消息按文件顺序插入并分配新的 ID，会话同样重新分配 ID。中途出错时，已提交的部分保留，异常信息中给出已导入的条数。
+     *
+     * @param file 导出文件
+     * @return 导入的消息数
+     */
+    public long importFrom(Path file) throws IOException {
+        long count = 0;
+        long committed = 0;
+        Map<Long, Long> sessionIds = new HashMap<>();
+        List<ExportedMessage> batch = new ArrayList<>(IMPORT_COMMIT_INTERVAL);
+        try (BufferedReader reader = Files.newBufferedReader(file);
+             MappingIterator<ExportedMessage> lines = lineReader.readValues(reader)) {
+            while (lines.hasNextValue()) {
+                ExportedMessage line = lines.nextValue();
+                if (line.role() == null || line.content() == null || line.createdAt() == null) {
+                    throw new IllegalArgumentException("第 " + (count + 1) + " 条记录缺少 role、content 或 createdAt");
+                }
+                batch.add(line);
+                if (++count % IMPORT_COMMIT_INTERVAL == 0) {
+                    commit(batch, sessionIds);
+                    committed = count;
+                    batch.clear();
+                }
+            }
+            commit(batch, sessionIds);
+        } catch (IOException | RuntimeException e) {
+            throw new IOException("导入失败（已导入 " + committed + " 条）: " + e.getMessage(), e);
+        }
+        return count;
+    }
+
+    /**
+     * 在一个事务内插入一批导入的消息（及其中新出现的会话）
+     */
+    private void commit(List<ExportedMessage> lines, Map<Long, Long> sessionIds) {
+        if (lines.isEmpty()) {
+            return;
+        }
+        Map<Long, Long> created = new HashMap<>();
+        transactionTemplate.executeWithoutResult(status -> {
+            List<ChatMessageEntity> messages = new ArrayList<>(lines.size());
+            for (ExportedMessage line : lines) {
+                ChatMessageEntity message = line.toEntity();
+                message.setPayload(toolPayloadCodec.encode(line.toolCalls(), line.toolCallId()));
+                if (line.sessionId() != null) {
+                    Long sessionId = sessionIds.get(line.sessionId());
+                    if (sessionId == null) {
+                        sessionId = created.computeIfAbsent(line.sessionId(), exported ->
+                                sessionRepository.insert(new ConversationSessionEntity(line.createdAt())).getId());
+                    }
+                    message.setSessionId(sessionId);
+                }
+                messages.add(message);
+            }
+            historyWriter.writeAll(messages);
+        });
+        // 事务提交后新会话才可供后续批次使用
+        sessionIds.putAll(created);
+    }
+}
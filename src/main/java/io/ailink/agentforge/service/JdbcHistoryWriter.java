@@ -0,0 +1,110 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.CompressionProperties;
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
+import io.ailink.agentforge.persistence.jdbc.JdbcChatMessageRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcDailyStatsRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcMessageTermRepository;
+import io.ailink.agentforge.persistence.jdbc.JdbcMessageTermRepository.Posting;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 聊天消息写入（jdbc 后端）
+ *
+ * 一批消息在一个事务内写入：达到阈值的长内容先压缩，消息、全文检索倒排记录各自按批插入，
+ * 每日统计按天累加后逐天合并（以 SELECT ... FOR UPDATE 读取当天的行，不存在时插入）。
+ *
+ * 与 JPA 后端的 {@link ChatMessageWriter} 不同，这里同步写入：jdbc 后端面向短命令，
+ * 单条消息的写入只是几条预编译语句，不值得为它维护后台线程和队列。
+ */
+@Component
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jdbc")
+public class JdbcHistoryWriter {
+
+    private final JdbcChatMessageRepository chatMessageRepository;
+    private final JdbcMessageTermRepository messageTermRepository;
+    private final JdbcDailyStatsRepository dailyStatsRepository;
+    private final CompressionProperties compression;
+    private final TransactionTemplate transactionTemplate;
+
+    public JdbcHistoryWriter(JdbcChatMessageRepository chatMessageRepository,
+                             JdbcMessageTermRepository messageTermRepository,
+                             JdbcDailyStatsRepository dailyStatsRepository,
+                             HistoryProperties historyProperties,
+                             PlatformTransactionManager transactionManager) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.messageTermRepository = messageTermRepository;
+        this.dailyStatsRepository = dailyStatsRepository;
+        this.compression = historyProperties.getCompression();
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 保存单条消息
+     *
+     * @param message 待保存的消息（createdAt 已设置）
+     * @return 同一个实体，id 已分配
+     */
+    public ChatMessageEntity write(ChatMessageEntity message) {
+        writeAll(List.of(message));
+        return message;
+    }
+
+    /**
+     * 在一个事务内保存一批消息及其倒排记录、每日统计
+     *
+     * @param messages 待保存的消息
+     */
+    public void writeAll(List<ChatMessageEntity> messages) {
+        if (compression.isEnabled()) {
+            messages.forEach(message -> message.compressContent(compression.getMinChars()));
+        }
+        transactionTemplate.executeWithoutResult(status -> {
+            chatMessageRepository.insertAll(messages);
+            index(messages);
+            applyStats(DailyStatsRollup.accumulate(messages));
+        });
+    }
+
+    /**
+     * 为已分配 ID 的消息插入倒排记录，须在事务内调用
+     *
+     * @param messages 消息
+     */
+    public void index(Collection<ChatMessageEntity> messages) {
+        List<Posting> postings = new ArrayList<>();
+        for (ChatMessageEntity message : messages) {
+            MessageTokenizer.termFrequencies(message.getContent()).forEach((term, frequency) ->
+                    postings.add(new Posting(term, message.getId(), frequency)));
+        }
+        messageTermRepository.insertAll(postings);
+    }
+
+    /**
+     * 把按天累加的增量合并到每日统计，须在事务内调用
+     *
+     * @param deltas 按天累加的增量（见 {@link DailyStatsRollup#accumulate(Map, ChatMessageEntity)}）
+     */
+    public void applyStats(Map<LocalDate, DailyStatsEntity> deltas) {
+        for (DailyStatsEntity delta : deltas.values()) {
+            DailyStatsEntity stats = dailyStatsRepository.findByIdForUpdate(delta.getStatDate()).orElse(null);
+            if (stats == null) {
+                dailyStatsRepository.insert(delta);
+            } else {
+                DailyStatsRollup.merge(stats, delta);
+                dailyStatsRepository.update(stats);
+            }
+        }
+    }
+}
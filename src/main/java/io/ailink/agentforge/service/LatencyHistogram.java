@@ -0,0 +1,130 @@
+package io.ailink.agentforge.service;
+
+import java.nio.ByteBuffer;
+
+/**
+ * 响应耗时直方图
+ *
+ * 按对数分桶计数：第 i 个桶覆盖 (2^((i-1)/4), 2^(i/4)] 毫秒，每个桶的上界比前一个大约 19%，
+ * {@value #BUCKETS} 个桶覆盖 1 毫秒到约 15 分钟，更长的耗时计入最后一个桶。
+ * 分位数取所在桶的上界，相对误差不超过一个桶宽。
+ *
+ * 计数可以逐桶相加，因此每天保存一个直方图，任意日期区间的分位数由各天的直方图合并得到，
+ * 不需要保留每次响应的耗时。
+ */
+public final class LatencyHistogram {
+
+    /**
+     * 桶数
+     */
+    static final int BUCKETS = 80;
+
+    /**
+     * 每个 2 倍区间的桶数
+     */
+    private static final int BUCKETS_PER_DOUBLING = 4;
+
+    private final long[] counts = new long[BUCKETS];
+
+    /**
+     * 解码保存的直方图
+     *
+     * @param bytes 编码结果（可为 null，表示空直方图）
+     * @return 直方图
+     */
+    public static LatencyHistogram decode(byte[] bytes) {
+        LatencyHistogram histogram = new LatencyHistogram();
+        if (bytes != null) {
+            ByteBuffer in = ByteBuffer.wrap(bytes);
+            for (int i = 0; i < BUCKETS && in.remaining() >= Integer.BYTES; i++) {
+                histogram.counts[i] = Integer.toUnsignedLong(in.getInt());
+            }
+        }
+        return histogram;
+    }
+
+    /**
+     * 编码为字节数组（每桶一个 int，截去末尾的空桶）
+     *
+     * @return 编码结果，直方图为空时返回 null
+     */
+    public byte[] encode() {
+        int length = BUCKETS;
+        while (length > 0 && counts[length - 1] == 0) {
+            length--;
+        }
+        if (length == 0) {
+            return null;
+        }
+        ByteBuffer out = ByteBuffer.allocate(length * Integer.BYTES);
+        for (int i = 0; i < length; i++) {
+            out.putInt((int) Math.min(counts[i], 0xFFFFFFFFL));
+        }
+        return out.array();
+    }
+
+    /**
+     * 记录一次耗时
+     *
+     * @param millis 耗时（毫秒）
+     */
+    public void record(long millis) {
+        counts[bucketOf(millis)]++;
+    }
+
+    /**
+     * 合并另一个直方图的计数
+     *
+     * @param other 另一个直方图
+     */
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < BUCKETS; i++) {
+            counts[i] += other.counts[i];
+        }
+    }
+
+    /**
+     * 记录的耗时总数
+     */
+    public long count() {
+        long total = 0;
+        for (long count : counts) {
+            total += count;
+        }
+        return total;
+    }
+
+    /**
+     * 分位数
+     *
+     * @param quantile 分位（0 到 1，如 0.99）
+     * @return 分位数所在桶的上界（毫秒），直方图为空时返回 0
+     */
+    public long percentile(double quantile) {
+        long total = count();
+        if (total == 0) {
+            return 0;
+        }
+        long rank = Math.max(1, (long) Math.ceil(quantile * total));
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return upperBound(i);
+            }
+        }
+        return upperBound(BUCKETS - 1);
+    }
+
+    static int bucketOf(long millis) {
+        if (millis <= 1) {
+            return 0;
+        }
+        int bucket = (int) Math.ceil(BUCKETS_PER_DOUBLING * Math.log(millis) / Math.log(2));
+        return Math.min(bucket, BUCKETS - 1);
+    }
+
+    static long upperBound(int bucket) {
+        return Math.round(Math.pow(2, (double) bucket / BUCKETS_PER_DOUBLING));
+    }
+}
@@ -0,0 +1,59 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import io.ailink.agentforge.persistence.repository.ConversationSessionRepository;
+import io.ailink.agentforge.persistence.repository.ConversationSummaryRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Optional;
+
+/**
+ * 会话迁移
+ *
+ * 引入会话之前保存的消息和滚动摘要没有 sessionId。应用启动后（先于归档）把它们整体归入一个会话，
+ * 之后 chat --resume 可以像普通会话一样恢复这段历史。只在存在这样的消息时执行一次批量更新。
+ */
+@Service
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+public class LegacySessionMigrator {
+
+    private static final Logger log = LoggerFactory.getLogger(LegacySessionMigrator.class);
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final ConversationSessionRepository conversationSessionRepository;
+    private final ConversationSummaryRepository conversationSummaryRepository;
+
+    public LegacySessionMigrator(ChatMessageRepository chatMessageRepository,
+                                 ConversationSessionRepository conversationSessionRepository,
+                                 ConversationSummaryRepository conversationSummaryRepository) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.conversationSessionRepository = conversationSessionRepository;
+        this.conversationSummaryRepository = conversationSummaryRepository;
+    }
+
+    @EventListener(ApplicationStartedEvent.class)
+    @Order(Ordered.HIGHEST_PRECEDENCE)
+    @Transactional
+    public void onStarted() {
+        Optional<ChatMessageEntity> first = chatMessageRepository.findFirstBySessionIdOrderByCreatedAtAscIdAsc(null);
+        if (first.isEmpty()) {
+            return;
+        }
+        ConversationSessionEntity session = conversationSessionRepository.save(
+                new ConversationSessionEntity(first.get().getCreatedAt()));
+        int messages = chatMessageRepository.assignSessionToOrphans(session.getId());
+        conversationSummaryRepository.assignSessionToOrphans(session.getId());
+        log.info("已将 {} 条历史消息归入会话 {}", messages, session.getId());
+    }
+}
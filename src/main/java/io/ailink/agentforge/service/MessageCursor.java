@@ -0,0 +1,40 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSummaryEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 消息键集分页游标
+ *
+ * 消息列表按 (createdAt, id) 排序，翻页时以上一页边界消息的这两个值定位下一页。
+ *
+ * @param createdAt 边界消息的创建时间
+ * @param id        边界消息的 ID
+ */
+public record MessageCursor(LocalDateTime createdAt, Long id) {
+
+    /**
+     * 以消息为边界创建游标
+     *
+     * @param message 边界消息
+     * @return 游标
+     */
+    public static MessageCursor of(ChatMessageEntity message) {
+        return new MessageCursor(message.getCreatedAt(), message.getId());
+    }
+
+    /**
+     * 对话摘要覆盖到的位置
+     *
+     * 早期版本保存的摘要没有消息 ID，与覆盖时间同一时刻的消息都视为未覆盖。
+     *
+     * @param summary 对话摘要
+     * @return 游标
+     */
+    public static MessageCursor coveredBy(ConversationSummaryEntity summary) {
+        Long id = summary.getCoveredUntilId();
+        return new MessageCursor(summary.getCoveredUntil(), id != null ? id : Long.MIN_VALUE);
+    }
+}
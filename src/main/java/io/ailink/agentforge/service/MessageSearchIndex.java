@@ -0,0 +1,290 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.archive.SegmentStore;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.MessageTermEntity;
+import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import io.ailink.agentforge.persistence.repository.MessageTermRepository;
+import io.ailink.agentforge.persistence.repository.MessageTermRepository.Posting;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.data.domain.Limit;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 聊天消息全文检索
+ *
+ * 倒排索引保存在 message_terms 表中（见 {@link MessageTermEntity}），
+ * 消息批量写入时在同一事务内追加倒排记录（{@link #index}），无需扫描历史即可保持最新。
+ *
+ * 查询：
+ * - 查询文本按 {@link MessageTokenizer#queryTerms} 切分为词项，命中的消息须包含全部词项
+ * - 从文档频率最低的词项开始取倒排列表，候选集较小时其余词项只在候选消息中查找，候选集逐步缩小
+ * - 相关度按 TF-IDF 计算：Σ (1 + ln tf) × ln(1 + N / df)，同分时较新的消息在前
+ * - 消息总数 N 首次检索时统计一次，之后随写入事务提交累加，重建索引或导入后重新统计
+ * - 排序后只加载当前页的消息内容
+ *
+ * 消息归档后倒排记录保留，命中已归档的消息时从段文件中读取（见 {@link SegmentStore}）。
+ *
+ * H2 自带的全文检索按空白和标点切词，整段中文会成为一个词，因此这里自行维护倒排表。
+ */
+@Service
+@ConditionalOnProperty(name = HistoryProperties.BACKEND_PROPERTY, havingValue = "jpa", matchIfMissing = true)
+public class MessageSearchIndex {
+
+    private static final Logger log = LoggerFactory.getLogger(MessageSearchIndex.class);
+
+    /**
+     * 重建索引时每批处理的消息数
+     */
+    private static final int REBUILD_BATCH_SIZE = 500;
+
+    /**
+     * 候选消息不超过该数量时，只在候选消息中查找下一个词项（IN 查询），否则取完整倒排列表再过滤
+     */
+    private static final int MAX_CANDIDATE_LOOKUP = 500;
+
+    private final ChatMessageRepository chatMessageRepository;
+    private final MessageTermRepository messageTermRepository;
+    private final SegmentStore segmentStore;
+    private final TransactionTemplate transactionTemplate;
+
+    /**
+     * 已索引的消息总数（含已归档的消息），-1 表示尚未统计
+     */
+    private final AtomicLong documentCount = new AtomicLong(-1);
+
+    /**
+     * 已确认倒排表非空（重建只替换已有记录，之后不会再变为空）
+     */
+    private volatile boolean hasPostings;
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    public MessageSearchIndex(ChatMessageRepository chatMessageRepository,
+                              MessageTermRepository messageTermRepository,
+                              SegmentStore segmentStore,
+                              PlatformTransactionManager transactionManager) {
+        this.chatMessageRepository = chatMessageRepository;
+        this.messageTermRepository = messageTermRepository;
+        this.segmentStore = segmentStore;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+    }
+
+    /**
+     * 为已分配 ID 的消息追加倒排记录，须在保存消息的事务内调用
+     *
+     * @param messages 新保存的消息
+     */
+    public void index(List<ChatMessageEntity> messages) {
+        persistPostings(messages);
+        int added = messages.size();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            // 事务回滚（如批量写入失败后逐条重试）时不计数
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    documentCount.getAndUpdate(count -> count < 0 ? count : count + added);
+                }
+            });
+        } else {
+            documentCount.getAndUpdate(count -> count < 0 ? count : count + added);
+        }
+    }
+
+    /**
+     * 丢弃缓存的消息总数，下次检索时重新统计（绕过 {@link #index} 批量插入倒排记录后调用）
+     */
+    public void resetDocumentCount() {
+        documentCount.set(-1);
+    }
+
+    /**
+     * 生成一条消息的倒排记录
+     *
+     * @param message 已分配 ID 的消息
+     * @return 倒排记录（每个词项一条）
+     */
+    public List<MessageTermEntity> postings(ChatMessageEntity message) {
+        List<MessageTermEntity> postings = new ArrayList<>();
+        MessageTokenizer.termFrequencies(message.getContent()).forEach((term, frequency) ->
+                postings.add(new MessageTermEntity(term, message.getId(), frequency)));
+        return postings;
+    }
+
+    /**
+     * 检索消息
+     *
+     * @param query    查询文本
+     * @param page     页码（从 1 开始）
+     * @param pageSize 每页条数
+     * @return 一页结果
+     */
+    public MessageSearchPage search(String query, int page, int pageSize) {
+        List<String> terms = MessageTokenizer.queryTerms(query);
+        if (terms.isEmpty()) {
+            return MessageSearchPage.empty(page, pageSize);
+        }
+
+        Map<String, Long> documentFrequencies = new HashMap<>();
+        for (String term : terms) {
+            long df = messageTermRepository.countByTerm(term);
+            if (df == 0) {
+                return MessageSearchPage.empty(page, pageSize);
+            }
+            documentFrequencies.put(term, df);
+        }
+        List<String> byRarity = terms.stream()
+                .sorted(Comparator.comparing(documentFrequencies::get))
+                .toList();
+        long totalMessages = Math.max(1, documentCount());
+
+        // 消息 ID → 累计得分，按词项逐个求交集
+        Map<Long, Double> scores = null;
+        for (String term : byRarity) {
+            long df = documentFrequencies.get(term);
+            double idf = Math.log(1 + (double) totalMessages / df);
+            List<Posting> postings = scores == null || scores.size() > MAX_CANDIDATE_LOOKUP
+                    ? messageTermRepository.findPostings(term)
+                    : messageTermRepository.findPostings(term, scores.keySet());
+            Map<Long, Double> next = new HashMap<>(postings.size() * 2);
+            for (Posting posting : postings) {
+                double weight = (1 + Math.log(posting.frequency())) * idf;
+                if (scores == null) {
+                    next.put(posting.messageId(), weight);
+                } else {
+                    Double previous = scores.get(posting.messageId());
+                    if (previous != null) {
+                        next.put(posting.messageId(), previous + weight);
+                    }
+                }
+            }
+            scores = next;
+            if (scores.isEmpty()) {
+                return MessageSearchPage.empty(page, pageSize);
+            }
+        }
+
+        List<Map.Entry<Long, Double>> ranked = new ArrayList<>(scores.entrySet());
+        ranked.sort(Map.Entry.<Long, Double>comparingByValue().reversed()
+                .thenComparing(Map.Entry.<Long, Double>comparingByKey().reversed()));
+        int from = Math.min((page - 1) * pageSize, ranked.size());
+        int to = Math.min(from + pageSize, ranked.size());
+        List<Map.Entry<Long, Double>> pageEntries = ranked.subList(from, to);
+
+        List<Long> pageIds = pageEntries.stream().map(Map.Entry::getKey).toList();
+        Map<Long, ChatMessageEntity> messages = chatMessageRepository.findAllById(pageIds).stream()
+                .collect(Collectors.toMap(ChatMessageEntity::getId, Function.identity()));
+        if (messages.size() < pageIds.size()) {
+            List<Long> archived = pageIds.stream().filter(id -> !messages.containsKey(id)).toList();
+            segmentStore.findByIds(archived).forEach(message -> messages.put(message.getId(), message));
+        }
+        List<MessageSearchPage.Hit> hits = new ArrayList<>(pageEntries.size());
+        for (Map.Entry<Long, Double> entry : pageEntries) {
+            ChatMessageEntity message = messages.get(entry.getKey());
+            if (message != null) {
+                hits.add(new MessageSearchPage.Hit(message, entry.getValue()));
+            }
+        }
+        return new MessageSearchPage(hits, ranked.size(), page, pageSize);
+    }
+
+    /**
+     * 是否已有倒排记录
+     */
+    public boolean isEmpty() {
+        if (!hasPostings) {
+            hasPostings = messageTermRepository.count() > 0;
+        }
+        return !hasPostings;
+    }
+
+    private long documentCount() {
+        long count = documentCount.get();
+        if (count < 0) {
+            count = chatMessageRepository.count() + segmentStore.totalCount();
+            documentCount.compareAndSet(-1, count);
+        }
+        return count;
+    }
+
+    /**
+     * 重建索引
+     *
+     * 为当前最大 ID 及之前的全部消息重新生成倒排记录：先按日期处理已归档的消息，
+     * 再按主键分批处理数据库中的消息，每批一个事务。
+     * 之后新写入的消息 ID 更大，照常由写入事务索引，与重建互不影响。
+     * 调用前须确保已入队的消息已提交。
+     *
+     * @return 处理的消息数
+     */
+    public int rebuild() {
+        Long hotMaxId = chatMessageRepository.findMaxId();
+        long archivedMaxId = segmentStore.dates().stream()
+                .mapToLong(date -> segmentStore.get(date).orElseThrow().maxId())
+                .max().orElse(0);
+        long maxId = Math.max(hotMaxId != null ? hotMaxId : 0, archivedMaxId);
+        if (maxId == 0) {
+            return 0;
+        }
+        transactionTemplate.executeWithoutResult(status -> messageTermRepository.deleteUpTo(maxId));
+
+        int indexed = 0;
+        for (LocalDate date : segmentStore.dates()) {
+            List<ChatMessageEntity> archived = segmentStore.read(date);
+            for (int i = 0; i < archived.size(); i += REBUILD_BATCH_SIZE) {
+                indexBatch(archived.subList(i, Math.min(i + REBUILD_BATCH_SIZE, archived.size())));
+            }
+            indexed += archived.size();
+        }
+
+        long cursor = 0;
+        while (true) {
+            long after = cursor;
+            List<ChatMessageEntity> batch = chatMessageRepository.findByIdGreaterThanAndIdLessThanEqualOrderByIdAsc(
+                    after, maxId, Limit.of(REBUILD_BATCH_SIZE));
+            if (batch.isEmpty()) {
+                break;
+            }
+            indexBatch(batch);
+            indexed += batch.size();
+            cursor = batch.getLast().getId();
+        }
+        resetDocumentCount();
+        log.info("检索索引已重建：{} 条消息", indexed);
+        return indexed;
+    }
+
+    private void persistPostings(List<ChatMessageEntity> messages) {
+        for (ChatMessageEntity message : messages) {
+            postings(message).forEach(entityManager::persist);
+        }
+    }
+
+    private void indexBatch(List<ChatMessageEntity> batch) {
+        transactionTemplate.executeWithoutResult(status -> {
+            persistPostings(batch);
+            entityManager.flush();
+            entityManager.clear();
+        });
+    }
+}
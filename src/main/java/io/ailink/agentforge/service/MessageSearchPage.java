@@ -0,0 +1,57 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+
+import java.util.List;
+
+/**
+ * 全文检索的一页结果
+ *
+ * @param hits     本页命中的消息（按相关度降序）
+ * @param total    命中的消息总数
+ * @param page     页码（从 1 开始）
+ * @param pageSize 每页条数
+ */
+public record MessageSearchPage(List<Hit> hits, int total, int page, int pageSize) {
+
+    /**
+     * 空结果
+     */
+    public static MessageSearchPage empty(int page, int pageSize) {
+        return new MessageSearchPage(List.of(), 0, page, pageSize);
+    }
+
+    /**
+     * 总页数
+     */
+    public int totalPages() {
+        return (total + pageSize - 1) / pageSize;
+    }
+
+    /**
+     * 是否还有下一页
+     */
+    public boolean hasNext() {
+        return page < totalPages();
+    }
+
+    /**
+     * 一条命中的消息
+     *
+     * @param message 消息
+     * @param score   相关度得分
+     */
+    public record Hit(ChatMessageEntity message, double score) {
+
+        /**
+         * 消息内容摘录：合并空白为单个空格，超出长度时截断
+         *
+         * @param maxChars 最大字符数
+         * @return 摘录
+         */
+        public String snippet(int maxChars) {
+            String text = message.getContent().replaceAll("\\s+", " ").strip();
+            return text.length() <= maxChars ? text : text.substring(0, maxChars) + "...";
+        }
+    }
+}
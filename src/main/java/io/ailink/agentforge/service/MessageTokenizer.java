@@ -0,0 +1,105 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.persistence.entity.MessageTermEntity;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 全文检索分词器
+ *
+ * 中文没有空格分词，这里在单字之外再按相邻两字切分（bigram）：
+ * - 连续的字母、数字（含下划线）组成一个单词，转为小写
+ * - 中日韩文字：索引时每个字和相邻两字都建索引，如「上下文」→「上」「上下」「下」「下文」「文」
+ * - 其他字符（空白、标点、符号）作为分隔符
+ *
+ * 查询时中日韩片段只取相邻两字（{@link #queryTerms}）：查询「上下文」要求消息同时包含「上下」和「下文」，
+ * 并按这两个词项计算相关度；只有一个字的片段按单字查询，如「猫」可以匹配「小猫」。
+ */
+public final class MessageTokenizer {
+
+    private MessageTokenizer() {
+    }
+
+    /**
+     * 切分待索引的文本并统计词频（中日韩文字含单字和相邻两字）
+     *
+     * @param text 文本（可为 null）
+     * @return 词项 → 出现次数（按首次出现的顺序）
+     */
+    public static Map<String, Integer> termFrequencies(String text) {
+        return tokenize(text, true);
+    }
+
+    /**
+     * 切分查询文本（中日韩文字只取相邻两字，只有一个字的片段取单字）
+     *
+     * @param query 查询文本（可为 null）
+     * @return 词项（按首次出现的顺序，不重复）
+     */
+    public static List<String> queryTerms(String query) {
+        return List.copyOf(tokenize(query, false).keySet());
+    }
+
+    private static Map<String, Integer> tokenize(String text, boolean unigrams) {
+        Map<String, Integer> frequencies = new LinkedHashMap<>();
+        if (text == null) {
+            return frequencies;
+        }
+        int length = text.length();
+        int i = 0;
+        while (i < length) {
+            int codePoint = text.codePointAt(i);
+            if (isCjk(codePoint)) {
+                int start = i;
+                int previous = -1;
+                int count = 0;
+                while (i < length && isCjk(codePoint = text.codePointAt(i))) {
+                    if (previous >= 0) {
+                        add(frequencies, new StringBuilder().appendCodePoint(previous).appendCodePoint(codePoint));
+                    }
+                    if (unigrams) {
+                        add(frequencies, Character.toString(codePoint));
+                    }
+                    previous = codePoint;
+                    count++;
+                    i += Character.charCount(codePoint);
+                }
+                if (count == 1 && !unigrams) {
+                    add(frequencies, text.substring(start, i));
+                }
+            } else if (isWordChar(codePoint)) {
+                int start = i;
+                while (i < length && isWordChar(codePoint = text.codePointAt(i)) && !isCjk(codePoint)) {
+                    i += Character.charCount(codePoint);
+                }
+                add(frequencies, text.substring(start, i).toLowerCase(Locale.ROOT));
+            } else {
+                i += Character.charCount(codePoint);
+            }
+        }
+        return frequencies;
+    }
+
+    private static void add(Map<String, Integer> frequencies, CharSequence term) {
+        String value = term.toString();
+        if (value.length() > MessageTermEntity.MAX_TERM_LENGTH) {
+            value = value.substring(0, MessageTermEntity.MAX_TERM_LENGTH);
+        }
+        frequencies.merge(value, 1, Integer::sum);
+    }
+
+    private static boolean isWordChar(int codePoint) {
+        return Character.isLetterOrDigit(codePoint) || codePoint == '_';
+    }
+
+    private static boolean isCjk(int codePoint) {
+        Character.UnicodeScript script = Character.UnicodeScript.of(codePoint);
+        return script == Character.UnicodeScript.HAN
+                || script == Character.UnicodeScript.HIRAGANA
+                || script == Character.UnicodeScript.KATAKANA
+                || script == Character.UnicodeScript.HANGUL;
+    }
+}
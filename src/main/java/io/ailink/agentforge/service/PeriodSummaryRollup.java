@@ -0,0 +1,109 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.persistence.entity.DailySummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity.Period;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+
+/**
+ * 周/月汇总总结
+ *
+ * 汇总由周期内的每日总结生成（见 {@link SummaryGenerator#generateRollup}），缓存在 period_summaries 表。
+ * 查询一个日期区间时，读取区间内的每日总结和已缓存的汇总，逐个周期比较：
+ * 每日总结的天数或最晚更新时间与缓存不一致（某天新生成或更新了总结）的周期重新生成，其余直接使用缓存。
+ * 需要重新生成的周期在虚拟线程上并发生成，模型请求受 SummaryGenerator 的并发和速率限制。
+ *
+ * 没有任何每日总结的周期不生成汇总；缺少的每日总结可先用 history --summary --from --to 补齐。
+ */
+@Service
+public class PeriodSummaryRollup {
+
+    private static final Logger log = LoggerFactory.getLogger(PeriodSummaryRollup.class);
+
+    private final ChatHistoryService chatHistoryService;
+    private final SummaryGenerator summaryGenerator;
+
+    public PeriodSummaryRollup(ChatHistoryService chatHistoryService, SummaryGenerator summaryGenerator) {
+        this.chatHistoryService = chatHistoryService;
+        this.summaryGenerator = summaryGenerator;
+    }
+
+    /**
+     * 获取与日期区间相交的各周期的汇总总结，过期或缺少的先重新生成
+     *
+     * @param period 周期类型
+     * @param from   起始日期（包含）
+     * @param to     结束日期（包含）
+     * @return 有每日总结的各周期的汇总，按周期升序排列
+     */
+    public List<PeriodSummaryEntity> getSummaries(Period period, LocalDate from, LocalDate to) {
+        LocalDate firstStart = period.start(from);
+        LocalDate lastStart = period.start(to);
+        Map<LocalDate, List<DailySummaryEntity>> days = chatHistoryService
+                .getDailySummaries(firstStart, period.next(lastStart).minusDays(1)).stream()
+                .collect(Collectors.groupingBy(day -> period.start(day.getSummaryDate()), TreeMap::new,
+                        Collectors.toList()));
+        Map<LocalDate, PeriodSummaryEntity> cached = chatHistoryService
+                .getPeriodSummaries(period, firstStart, lastStart).stream()
+                .collect(Collectors.toMap(PeriodSummaryEntity::getPeriodStart, Function.identity()));
+
+        List<PeriodSummaryEntity> result = new ArrayList<>(days.size());
+        List<CompletableFuture<PeriodSummaryEntity>> refreshes = new ArrayList<>();
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            days.forEach((start, daySummaries) -> {
+                PeriodSummaryEntity summary = cached.get(start);
+                if (summary != null && summary.isUpToDate(daySummaries.size(), lastUpdatedAt(daySummaries))) {
+                    result.add(summary);
+                } else {
+                    PeriodSummaryEntity target = summary != null ? summary : new PeriodSummaryEntity(period, start);
+                    refreshes.add(CompletableFuture.supplyAsync(() -> refresh(target, daySummaries), executor));
+                }
+            });
+            if (!refreshes.isEmpty()) {
+                log.info("重新生成 {} 个{}汇总总结", refreshes.size(), period.label());
+            }
+            refreshes.forEach(refresh -> result.add(refresh.join()));
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+        result.sort(Comparator.comparing(PeriodSummaryEntity::getPeriodStart));
+        return result;
+    }
+
+    /**
+     * 由周期内的每日总结重新生成汇总并保存
+     */
+    private PeriodSummaryEntity refresh(PeriodSummaryEntity summary, List<DailySummaryEntity> days) {
+        String label = summary.getPeriodStart() + " ~ " + summary.getPeriodEnd()
+                + (summary.getPeriod() == Period.WEEK ? " 这一周" : " 这个月");
+        summary.setSummary(summaryGenerator.generateRollup(label, days));
+        summary.setDayCount(days.size());
+        summary.setMessageCount(days.stream().mapToInt(DailySummaryEntity::getMessageCount).sum());
+        summary.setSourceUpdatedAt(lastUpdatedAt(days));
+        summary.setUpdatedAt(LocalDateTime.now());
+        return chatHistoryService.savePeriodSummary(summary);
+    }
+
+    private static LocalDateTime lastUpdatedAt(List<DailySummaryEntity> days) {
+        return days.stream().map(DailySummaryEntity::getUpdatedAt).max(Comparator.naturalOrder()).orElseThrow();
+    }
+}
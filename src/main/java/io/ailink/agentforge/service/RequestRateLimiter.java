@@ -0,0 +1,45 @@
+package io.ailink.agentforge.service;
+
+import java.time.Duration;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 请求速率限制
+ *
+ * 每分钟最多 requestsPerMinute 次：请求按固定间隔（60 秒 / requestsPerMinute）依次取得发出时间，
+ * 取得的时间未到时调用线程等待。等待的调用方按到达顺序排队，适合在虚拟线程上调用。
+ */
+final class RequestRateLimiter {
+
+    private final long intervalNanos;
+
+    /**
+     * 下一个请求最早的发出时间（System.nanoTime），由 this 保护
+     */
+    private long nextSlot = System.nanoTime();
+
+    /**
+     * @param requestsPerMinute 每分钟最多的请求数，不大于 0 时不限制
+     */
+    RequestRateLimiter(int requestsPerMinute) {
+        this.intervalNanos = requestsPerMinute > 0 ? Duration.ofMinutes(1).toNanos() / requestsPerMinute : 0;
+    }
+
+    /**
+     * 等待直到可以发出下一个请求
+     */
+    void acquire() {
+        if (intervalNanos == 0) {
+            return;
+        }
+        long slot;
+        synchronized (this) {
+            slot = Math.max(nextSlot, System.nanoTime());
+            nextSlot = slot + intervalNanos;
+        }
+        long wait;
+        while ((wait = slot - System.nanoTime()) > 0) {
+            LockSupport.parkNanos(wait);
+        }
+    }
+}
@@ -0,0 +1,34 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+
+import java.time.LocalDateTime;
+
+/**
+ * 会话概览（列出会话时使用）
+ *
+ * 只统计保留窗口内（数据库中）的消息。
+ *
+ * @param session      会话
+ * @param messageCount 会话中的消息数
+ * @param firstMessage 会话的第一条消息（可能为 null）
+ * @param lastActiveAt 最后一条消息的创建时间（可能为 null）
+ */
+public record SessionOverview(ConversationSessionEntity session, long messageCount,
+                              ChatMessageEntity firstMessage, LocalDateTime lastActiveAt) {
+
+    /**
+     * 会话标题：第一条消息的开头部分
+     *
+     * @param maxChars 最多保留的字符数
+     * @return 标题，会话没有消息时为空字符串
+     */
+    public String title(int maxChars) {
+        if (firstMessage == null) {
+            return "";
+        }
+        String text = firstMessage.getContent().replaceAll("\\s+", " ").strip();
+        return text.length() <= maxChars ? text : text.substring(0, maxChars) + "…";
+    }
+}
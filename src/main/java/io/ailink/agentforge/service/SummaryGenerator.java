@@ -1,54 +1,364 @@
 package io.ailink.agentforge.service;
 
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.config.SummaryProperties;
 import io.ailink.agentforge.llm.LlmProvider;
+import io.ailink.agentforge.llm.TokenEstimator;
 import io.ailink.agentforge.llm.dto.ChatMessage;
 import io.ailink.agentforge.llm.dto.ChatRequest;
 import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
-import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import io.ailink.agentforge.persistence.entity.DailySummaryEntity;
+import io.ailink.agentforge.template.PromptRenderer;
+import io.ailink.agentforge.tool.ToolCall;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Service;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
-import java.util.stream.Collectors;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.function.UnaryOperator;
 
+/**
+ * LLM 总结生成
+ *
+ * 每日总结：一天的对话放得进一个提示词（{@link SummaryProperties#getChunkTokens()}）时直接总结；
+ * 否则按 map-reduce 生成：
+ * - 切分：消息按估算 Token 数依次装入若干段，单条超长的消息截断到一段的预算以内
+ * - map：各段的要点在虚拟线程上并发生成
+ * - reduce：要点按同样的预算分组合并（每组至少两条，每层的条数至少减半），逐层进行，
+ *   直到全部要点放得进一个提示词，再生成最终总结
+ *
+ * 全部总结请求（包括并发生成的多天和对话滚动摘要）共享一个并发上限（concurrency）和速率限制（requestsPerMinute）。
+ *
+ * 已有总结之后又有新消息时，{@link #updateSummary} 只总结新消息并与已有总结合并。
+ * 周/月汇总由 {@link #generateRollup} 从每日总结生成，不读取原始消息。
+ *
+ * 对话滚动摘要见 {@link #summarizeConversation}。
+ *
+ * 提示词由 {@link PromptRenderer} 渲染 resources/prompts/ 下的 summarizer*.md 等模板，可在覆盖目录中修改。
+ */
 @Service
 public class SummaryGenerator {
 
     private static final Logger log = LoggerFactory.getLogger(SummaryGenerator.class);
 
+    /**
+     * 滚动摘要中单条消息保留的最大 Token 数（估算值）
+     */
+    private static final int MAX_MESSAGE_TOKENS = 1000;
+
+    /**
+     * 提示词模板（见 resources/prompts/）
+     */
+    private static final String SYSTEM_TEMPLATE = "summarizer-system.md";
+    private static final String DAILY_TEMPLATE = "summarizer.md";
+    private static final String CHUNK_TEMPLATE = "summarizer-chunk.md";
+    private static final String MERGE_TEMPLATE = "summarizer-merge.md";
+    private static final String FINAL_TEMPLATE = "summarizer-final.md";
+    private static final String UPDATE_TEMPLATE = "summarizer-update.md";
+    private static final String UPDATE_FINAL_TEMPLATE = "summarizer-update-final.md";
+    private static final String ROLLUP_TEMPLATE = "summarizer-rollup.md";
+    private static final String CONVERSATION_TEMPLATE = "conversation-summary.md";
+
+    private static final String SEPARATOR = "\n\n";
+
     private final LlmProvider llmProvider;
-    private final ChatMessageRepository chatMessageRepository;
+    private final PromptRenderer promptRenderer;
+    private final SummaryProperties properties;
+
+    /**
+     * 所有总结请求共享的并发和速率限制
+     */
+    private final Semaphore permits;
+    private final RequestRateLimiter rateLimiter;
 
-    public SummaryGenerator(LlmProvider llmProvider,
-                            ChatMessageRepository chatMessageRepository) {
+    public SummaryGenerator(LlmProvider llmProvider, PromptRenderer promptRenderer,
+                            HistoryProperties historyProperties) {
         this.llmProvider = llmProvider;
-        this.chatMessageRepository = chatMessageRepository;
+        this.promptRenderer = promptRenderer;
+        this.properties = historyProperties.getSummary();
+        this.permits = new Semaphore(Math.max(1, properties.getConcurrency()), true);
+        this.rateLimiter = new RequestRateLimiter(properties.getRequestsPerMinute());
     }
 
+    /**
+     * 生成每日总结
+     *
+     * @param messages 当天的消息（按时间升序）
+     * @return 总结
+     */
     public String generateSummary(List<ChatMessageEntity> messages) {
         if (messages == null || messages.isEmpty()) {
             throw new IllegalArgumentException("Messages list cannot be empty");
         }
+        return summarize(toLines(messages),
+                content -> render(DAILY_TEMPLATE, Map.of("messages", content)),
+                parts -> render(FINAL_TEMPLATE, Map.of("parts", parts)));
+    }
+
+    /**
+     * 增量更新每日总结：把已有总结和之后的新消息一起交给模型
+     *
+     * 新消息较多时同样按 map-reduce 生成，新消息的要点与已有总结在最后一步合并。
+     *
+     * @param previousSummary 已有的总结
+     * @param newMessages     已有总结之后的新消息（按时间升序）
+     * @return 更新后的总结
+     */
+    public String updateSummary(String previousSummary, List<ChatMessageEntity> newMessages) {
+        if (newMessages == null || newMessages.isEmpty()) {
+            throw new IllegalArgumentException("Messages list cannot be empty");
+        }
+        if (newMessages.stream().allMatch(m -> m.getContent().isBlank())) {
+            return previousSummary;
+        }
+        return summarize(toLines(newMessages),
+                content -> render(UPDATE_TEMPLATE, Map.of("previous", previousSummary, "messages", content)),
+                parts -> render(UPDATE_FINAL_TEMPLATE, Map.of("previous", previousSummary, "parts", parts)));
+    }
+
+    /**
+     * 由一段时间内的每日总结生成周/月汇总总结
+     *
+     * @param periodLabel 周期的描述，如「2025-03-03 ~ 2025-03-09 这一周」
+     * @param days        周期内的每日总结（按日期升序）
+     * @return 汇总总结
+     */
+    public String generateRollup(String periodLabel, List<DailySummaryEntity> days) {
+        if (days == null || days.isEmpty()) {
+            throw new IllegalArgumentException("Daily summaries cannot be empty");
+        }
+        List<String> lines = days.stream()
+                .map(day -> day.getSummaryDate() + ": " + day.getSummary())
+                .toList();
+        return summarize(lines,
+                content -> render(ROLLUP_TEMPLATE, Map.of("period", periodLabel, "summaries", content)),
+                parts -> render(ROLLUP_TEMPLATE, Map.of("period", periodLabel, "summaries", parts)));
+    }
 
-        String conversationText = messages.stream()
+    private static List<String> toLines(List<ChatMessageEntity> messages) {
+        return messages.stream()
+                .filter(m -> !m.getContent().isBlank())
                 .map(m -> m.getRole() + ": " + m.getContent())
-                .collect(Collectors.joining("\n\n"));
+                .toList();
+    }
+
+    /**
+     * 总结一组文本（消息或每日总结）
+     *
+     * @param lines        文本（按时间升序）
+     * @param directPrompt 全部文本放得进一个提示词时使用的提示词（参数为对话内容）
+     * @param finalPrompt  map-reduce 最后一步的提示词（参数为各部分要点）
+     * @return 总结
+     */
+    private String summarize(List<String> lines, UnaryOperator<String> directPrompt,
+                             UnaryOperator<String> finalPrompt) {
+        if (!properties.isMapReduce()) {
+            return complete(directPrompt.apply(String.join(SEPARATOR, lines)), null);
+        }
+
+        TokenEstimator estimator = llmProvider.tokenEstimator();
+        // 分段数不会超过消息数，以此估算段号所占的 Token
+        String chunkTemplate = chunkPrompt(lines.size(), lines.size(), "");
+        int chunkBudget = Math.min(contentBudget(estimator, directPrompt.apply("")),
+                contentBudget(estimator, chunkTemplate));
+        List<String> chunks = group(lines, chunkBudget, 1, estimator);
+        if (chunks.size() <= 1) {
+            return complete(directPrompt.apply(chunks.isEmpty() ? "" : chunks.getFirst()), null);
+        }
+
+        log.info("对话分为 {} 段生成总结（并发 {}）", chunks.size(), properties.getConcurrency());
+        int total = chunks.size();
+        List<String> prompts = new ArrayList<>(total);
+        for (int i = 0; i < total; i++) {
+            prompts.add(chunkPrompt(i + 1, total, chunks.get(i)));
+        }
+        List<String> partials = completeAll(prompts);
 
-        String summarizationPrompt = String.format(
-                "你是一个对话总结专家。请简洁地总结以下对话的要点：\n1. 用户主要询问了什么问题？\n2. AI给出了什么关键回答？\n请用2-3句话总结。\n\n对话内容：\n%s",
-                conversationText);
+        // 逐层合并，直到全部要点放得进最终总结的提示词
+        int finalBudget = contentBudget(estimator, finalPrompt.apply(""));
+        int mergeBudget = Math.min(finalBudget, contentBudget(estimator, mergePrompt("")));
+        while (true) {
+            List<String> groups = group(partials, mergeBudget, 2, estimator);
+            if (groups.size() == 1) {
+                return complete(finalPrompt.apply(groups.getFirst()), null);
+            }
+            log.debug("合并 {} 段要点为 {} 段", partials.size(), groups.size());
+            partials = completeAll(groups.stream().map(this::mergePrompt).toList());
+        }
+    }
+
+    private String chunkPrompt(int index, int total, String messages) {
+        return render(CHUNK_TEMPLATE, Map.of("index", index, "total", total, "messages", messages));
+    }
+
+    private String mergePrompt(String parts) {
+        return render(MERGE_TEMPLATE, Map.of("parts", parts));
+    }
 
+    private String render(String template, Map<String, ?> context) {
+        return promptRenderer.render(template, context);
+    }
+
+    /**
+     * 提示词中内容之外的部分占用 Token 后，剩余可用于内容的 Token 数
+     *
+     * @param emptyPrompt 内容为空时的提示词
+     */
+    private int contentBudget(TokenEstimator estimator, String emptyPrompt) {
+        return Math.max(1, properties.getChunkTokens() - estimator.estimate(emptyPrompt));
+    }
+
+    /**
+     * 按 Token 预算把文本依次装入若干组，组内以空行分隔
+     *
+     * 每条文本先截断到 budget / minPerGroup 以内，一组装满 minPerGroup 条之后才会因超出预算而开始新的一组，
+     * 因此每组都不超过预算，且（文本多于一条时）每组至少有 minPerGroup 条。
+     *
+     * @param texts       文本
+     * @param budget      每组的 Token 预算
+     * @param minPerGroup 每组至少的条数
+     * @param estimator   Token 估算器
+     * @return 各组拼接后的文本
+     */
+    static List<String> group(List<String> texts, int budget, int minPerGroup, TokenEstimator estimator) {
+        int separatorTokens = estimator.estimate(SEPARATOR);
+        int maxItemTokens = Math.max(1, budget / minPerGroup - separatorTokens);
+        List<String> groups = new ArrayList<>();
+        StringBuilder current = new StringBuilder();
+        int currentTokens = 0;
+        int currentItems = 0;
+        for (String text : texts) {
+            String item = truncate(text, maxItemTokens, estimator);
+            int tokens = estimator.estimate(item) + separatorTokens;
+            if (currentItems >= minPerGroup && currentTokens + tokens > budget) {
+                groups.add(current.toString());
+                current.setLength(0);
+                currentTokens = 0;
+                currentItems = 0;
+            }
+            if (!current.isEmpty()) {
+                current.append(SEPARATOR);
+            }
+            current.append(item);
+            currentTokens += tokens;
+            currentItems++;
+        }
+        if (!current.isEmpty()) {
+            groups.add(current.toString());
+        }
+        return groups;
+    }
+
+    /**
+     * 把文本截断到估算 Token 数不超过 maxTokens
+     */
+    private static String truncate(String text, int maxTokens, TokenEstimator estimator) {
+        if (text == null) {
+            return "";
+        }
+        int tokens = estimator.estimate(text);
+        if (tokens <= maxTokens) {
+            return text;
+        }
+        String truncated = text;
+        while (tokens > maxTokens && truncated.length() > 1) {
+            int length = (int) Math.max(1, (long) truncated.length() * maxTokens / (tokens + 1));
+            truncated = truncated.substring(0, Math.min(length, truncated.length() - 1));
+            tokens = estimator.estimate(truncated) + estimator.estimate("…");
+        }
+        return truncated + "…";
+    }
+
+    /**
+     * 并发完成一组提示词
+     *
+     * @param prompts 提示词
+     * @return 按提示词顺序排列的回答
+     */
+    private List<String> completeAll(List<String> prompts) {
+        try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+            List<CompletableFuture<String>> futures = prompts.stream()
+                    .map(prompt -> CompletableFuture.supplyAsync(() -> complete(prompt, null), executor))
+                    .toList();
+            return futures.stream().map(CompletableFuture::join).toList();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
+    /**
+     * 完成一个总结提示词，受 concurrency 和 requestsPerMinute 限制（所有调用方共享）
+     *
+     * @param prompt 提示词
+     * @param model  使用的模型（为 null 时使用 Provider 默认模型）
+     */
+    private String complete(String prompt, String model) {
         ChatRequest request = ChatRequest.builder()
-                .system("你是一个对话总结专家。")
-                .messages(List.of(ChatMessage.user(summarizationPrompt)))
+                .model(model)
+                .system(render(SYSTEM_TEMPLATE, Map.of()))
+                .messages(List.of(ChatMessage.user(prompt)))
                 .build();
 
         StringBuilder summaryBuilder = new StringBuilder();
-        llmProvider.chatStream(request)
-                .doOnNext(chunk -> summaryBuilder.append(chunk))
-                .blockLast();
+        permits.acquireUninterruptibly();
+        try {
+            rateLimiter.acquire();
+            llmProvider.chatStream(request)
+                    .doOnNext(chunk -> summaryBuilder.append(chunk))
+                    .blockLast();
+        } finally {
+            permits.release();
+        }
 
         return summaryBuilder.toString().trim();
     }
+
+    /**
+     * 生成对话滚动摘要
+     *
+     * 把之前的摘要与新折叠的对话合并为一段新的摘要，供后续请求作为背景上下文。
+     * 单条消息过长时截断到估算 Token 数以内，保证摘要请求本身的大小有上限。
+     * 与每日总结共享并发和速率限制。
+     *
+     * @param previousSummary 之前的摘要（可为 null）
+     * @param messages        要折叠的对话消息
+     * @param model           使用的模型（为 null 时使用 Provider 默认模型）
+     * @return 新的摘要
+     */
+    public String summarizeConversation(String previousSummary, List<ChatMessage> messages, String model) {
+        if (messages == null || messages.isEmpty()) {
+            throw new IllegalArgumentException("Messages list cannot be empty");
+        }
+
+        TokenEstimator estimator = llmProvider.tokenEstimator();
+        StringBuilder conversationText = new StringBuilder();
+        for (ChatMessage message : messages) {
+            if (!conversationText.isEmpty()) {
+                conversationText.append("\n\n");
+            }
+            conversationText.append(message.role()).append(": ").append(truncate(message.content(), MAX_MESSAGE_TOKENS, estimator));
+            if (message.hasToolCalls()) {
+                for (ToolCall toolCall : message.toolCalls()) {
+                    conversationText.append("\n[调用工具 ").append(toolCall.name()).append("] ")
+                            .append(truncate(toolCall.arguments().json(), MAX_MESSAGE_TOKENS, estimator));
+                }
+            }
+        }
+
+        Map<String, Object> context = new HashMap<>();
+        context.put("previous", previousSummary);
+        context.put("messages", conversationText.toString());
+        return complete(render(CONVERSATION_TEMPLATE, context), model);
+    }
 }
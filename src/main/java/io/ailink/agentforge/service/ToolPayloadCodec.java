@@ -0,0 +1,101 @@
+package io.ailink.agentforge.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.databind.SmileMapper;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.tool.ToolCall;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+
+/**
+ * 工具调用的存储编码
+ *
+ * 助手消息的工具调用（ID、名称、参数）和工具结果关联的调用 ID 以 Smile（二进制 JSON）
+ * 编码后保存在消息的 payload 列：重复的字段名只写一次，数值和结构以二进制表示，
+ * 比 JSON 文本更紧凑，解码时也不需要逐字符扫描。
+ *
+ * 参数按树结构编码（{@link io.ailink.agentforge.tool.ToolArguments} 的原始文本只能写入 JSON 生成器），
+ * 解码得到的参数在下一次请求序列化时才生成 JSON 文本。
+ */
+@Component
+public class ToolPayloadCodec {
+
+    private final ObjectWriter writer;
+    private final ObjectReader reader;
+
+    public ToolPayloadCodec() {
+        SmileMapper mapper = new SmileMapper();
+        this.writer = mapper.writerFor(Payload.class);
+        this.reader = mapper.readerFor(Payload.class);
+    }
+
+    /**
+     * 编码工具调用信息
+     *
+     * @param toolCalls  助手消息的工具调用（可为 null）
+     * @param toolCallId 工具结果关联的调用 ID（可为 null）
+     * @return 编码结果，两者都为空时返回 null
+     */
+    public byte[] encode(List<ToolCall> toolCalls, String toolCallId) {
+        boolean hasCalls = toolCalls != null && !toolCalls.isEmpty();
+        if (!hasCalls && toolCallId == null) {
+            return null;
+        }
+        List<StoredCall> calls = hasCalls
+                ? toolCalls.stream().map(call -> new StoredCall(call.id(), call.name(), call.arguments().node())).toList()
+                : null;
+        try {
+            return writer.writeValueAsBytes(new Payload(calls, toolCallId));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * 把保存的消息还原为对话历史中的消息
+     *
+     * @param message 消息实体
+     * @return 对话消息（含工具调用或关联的调用 ID）
+     */
+    public ChatMessage decode(ChatMessageEntity message) {
+        byte[] payload = message.getPayload();
+        if (payload == null) {
+            return new ChatMessage(message.getRole(), message.getContent(), null, null);
+        }
+        Payload decoded;
+        try {
+            decoded = reader.readValue(payload);
+        } catch (IOException e) {
+            throw new UncheckedIOException("消息 " + message.getId() + " 的工具调用信息无法解码", e);
+        }
+        List<ToolCall> toolCalls = decoded.toolCalls() == null ? null : decoded.toolCalls().stream()
+                .map(call -> ToolCall.of(call.id(), call.name(), call.arguments()))
+                .toList();
+        return new ChatMessage(message.getRole(), message.getContent(), toolCalls, decoded.toolCallId());
+    }
+
+    /**
+     * payload 列的内容
+     *
+     * @param toolCalls  助手消息的工具调用
+     * @param toolCallId 工具结果关联的调用 ID
+     */
+    private record Payload(List<StoredCall> toolCalls, String toolCallId) {
+    }
+
+    /**
+     * 一次工具调用
+     *
+     * @param id        调用 ID
+     * @param name      工具名称
+     * @param arguments 参数
+     */
+    private record StoredCall(String id, String name, JsonNode arguments) {
+    }
+}
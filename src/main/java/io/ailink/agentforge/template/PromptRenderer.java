@@ -1,33 +1,70 @@
 package io.ailink.agentforge.template;
 
 import com.hubspot.jinjava.Jinjava;
-import org.springframework.core.io.ClassPathResource;
+import com.hubspot.jinjava.JinjavaConfig;
+import com.hubspot.jinjava.interpret.AutoCloseableSupplier.AutoCloseableImpl;
+import com.hubspot.jinjava.interpret.Context;
+import com.hubspot.jinjava.interpret.FatalTemplateErrorsException;
+import com.hubspot.jinjava.interpret.JinjavaInterpreter;
+import com.hubspot.jinjava.interpret.TemplateError;
+import com.hubspot.jinjava.interpret.TemplateError.ErrorType;
 import org.springframework.stereotype.Component;
 
-import java.io.IOException;
-import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
 
+/**
+ * Prompt 模板渲染
+ *
+ * 模板的语法树来自 {@link PromptTemplateCache}，每次渲染只创建解释器并求值，不读取文件、不重新解析。
+ * 渲染过程会向上层上下文记录已求值的表达式，因此与 Jinjava 一样以全局上下文的副本作为上层上下文；
+ * 复制需要重新注册全部过滤器和函数，开销比渲染一个短模板还大，副本在渲染后 reset 并放回池中复用。
+ * 变量值原样输出，不会再被当作模板解释。
+ *
+ * 与 Jinja2 的默认行为（keep_trailing_newline=False）一致，去掉模板文件末尾的一个换行。
+ * 注意这与改造前不同：Jinjava 本身保留末尾换行，改造前的渲染结果以模板文件的换行结尾；
+ * 去掉后，由 String.format 迁移到模板的各个 Prompt 与原来的文本逐字相同。
+ * 需要以换行结尾的模板在文件末尾多留一个空行。
+ */
 @Component
 public class PromptRenderer {
 
     private final Jinjava jinjava;
+    private final PromptTemplateCache templates;
 
-    public PromptRenderer(Jinjava jinjava) {
-        this.jinjava = jinjava;
-    }
+    /**
+     * 空闲的全局上下文副本，数量不超过同时渲染的线程数
+     */
+    private final Queue<Context> globalContexts = new ConcurrentLinkedQueue<>();
 
-    public String render(String templatePath, Map<String, Object> context) {
-        String template = loadTemplate(templatePath);
-        return jinjava.render(template, context);
+    public PromptRenderer(Jinjava jinjava, PromptTemplateCache templates) {
+        this.jinjava = jinjava;
+        this.templates = templates;
     }
 
-    private String loadTemplate(String templatePath) {
-        try {
-            ClassPathResource resource = new ClassPathResource("prompts/" + templatePath);
-            return resource.getContentAsString(StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new RuntimeException("Failed to load prompt template: " + templatePath, e);
+    public String render(String templatePath, Map<String, ?> context) {
+        JinjavaConfig config = jinjava.getGlobalConfig();
+        Context globalContext = globalContexts.poll();
+        if (globalContext == null) {
+            globalContext = jinjava.getGlobalContextCopy();
+        }
+        Context bindings = new Context(globalContext, context, config.getDisabled());
+        try (AutoCloseableImpl<JinjavaInterpreter> current = JinjavaInterpreter.closeablePushCurrent(
+                config.getInterpreterFactory().newInstance(jinjava, bindings, config)).get()) {
+            JinjavaInterpreter interpreter = current.value();
+            String output = interpreter.render(templates.get(templatePath));
+            List<TemplateError> fatalErrors = interpreter.getErrors().stream()
+                    .filter(error -> error.getSeverity() == ErrorType.FATAL)
+                    .toList();
+            if (!fatalErrors.isEmpty()) {
+                throw new FatalTemplateErrorsException(templatePath, fatalErrors);
+            }
+            return output.endsWith("\n") ? output.substring(0, output.length() - 1) : output;
+        } finally {
+            globalContext.reset();
+            globalContexts.offer(globalContext);
         }
     }
 }
@@ -0,0 +1,202 @@
+package io.ailink.agentforge.template;
+
+import com.hubspot.jinjava.Jinjava;
+import com.hubspot.jinjava.interpret.AutoCloseableSupplier.AutoCloseableImpl;
+import com.hubspot.jinjava.interpret.FatalTemplateErrorsException;
+import com.hubspot.jinjava.interpret.JinjavaInterpreter;
+import com.hubspot.jinjava.interpret.TemplateError;
+import com.hubspot.jinjava.interpret.TemplateError.ErrorType;
+import com.hubspot.jinjava.tree.Node;
+import io.ailink.agentforge.config.PromptProperties;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
+import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
+import static java.nio.file.StandardWatchEventKinds.OVERFLOW;
+
+/**
+ * 已解析的 Prompt 模板缓存
+ *
+ * 模板按路径（相对 prompts/ 的路径，如 summarizer.md）读取并由 Jinjava 解析为语法树，
+ * 之后的渲染直接使用缓存的语法树，不再读取文件和重新解析。
+ *
+ * 查找顺序：{@link PromptProperties#getOverrideDirectories()} 中的目录依次优先，找不到时使用 classpath 的 prompts/。
+ * 开启监听时，后台线程通过 WatchService 监听启动时已存在的覆盖目录（含子目录），
+ * 文件新增、修改或删除时移除对应路径的缓存，下次渲染时重新加载；删除覆盖文件后回落到内置模板。
+ * 解析失败的模板不会缓存，修正文件后下次渲染即可恢复。
+ */
+@Component
+public class PromptTemplateCache implements InitializingBean, DisposableBean {
+
+    private static final Logger log = LoggerFactory.getLogger(PromptTemplateCache.class);
+
+    private static final String CLASSPATH_PREFIX = "prompts/";
+
+    private final Jinjava jinjava;
+    private final List<Path> overrideDirectories;
+    private final Map<String, Node> templates = new ConcurrentHashMap<>();
+    private final boolean watch;
+    private WatchService watchService;
+
+    public PromptTemplateCache(Jinjava jinjava, PromptProperties properties) {
+        this.jinjava = jinjava;
+        this.overrideDirectories = properties.getOverrideDirectories().stream()
+                .map(directory -> Path.of(directory).toAbsolutePath().normalize())
+                .toList();
+        this.watch = properties.isWatch();
+    }
+
+    /**
+     * 构造完成后再启动监听线程，避免线程在对象初始化完成前访问它
+     */
+    @Override
+    public void afterPropertiesSet() {
+        if (watch) {
+            watchService = startWatching();
+        }
+    }
+
+    /**
+     * 获取模板的语法树，未缓存时读取并解析
+     *
+     * @param templatePath 模板路径（相对 prompts/）
+     * @return 模板的语法树（只读，可在多个线程上同时渲染）
+     */
+    public Node get(String templatePath) {
+        return templates.computeIfAbsent(templatePath, this::load);
+    }
+
+    /**
+     * 移除模板的缓存，下次获取时重新加载
+     *
+     * @param templatePath 模板路径（相对 prompts/）
+     */
+    public void invalidate(String templatePath) {
+        if (templates.remove(templatePath) != null) {
+            log.info("Prompt 模板 {} 已变更，下次渲染时重新加载", templatePath);
+        }
+    }
+
+    private Node load(String templatePath) {
+        String source = read(templatePath);
+        try (AutoCloseableImpl<JinjavaInterpreter> current = JinjavaInterpreter.closeablePushCurrent(jinjava.newInterpreter()).get()) {
+            JinjavaInterpreter interpreter = current.value();
+            Node root = interpreter.parse(source);
+            List<TemplateError> fatalErrors = interpreter.getErrors().stream()
+                    .filter(error -> error.getSeverity() == ErrorType.FATAL)
+                    .toList();
+            if (!fatalErrors.isEmpty()) {
+                throw new FatalTemplateErrorsException(source, fatalErrors);
+            }
+            return root;
+        }
+    }
+
+    private String read(String templatePath) {
+        try {
+            for (Path directory : overrideDirectories) {
+                Path file = directory.resolve(templatePath).normalize();
+                if (file.startsWith(directory) && Files.isRegularFile(file)) {
+                    log.debug("使用覆盖目录中的 Prompt 模板 {}", file);
+                    return Files.readString(file, StandardCharsets.UTF_8);
+                }
+            }
+            ClassPathResource resource = new ClassPathResource(CLASSPATH_PREFIX + templatePath);
+            return resource.getContentAsString(StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new RuntimeException("Failed to load prompt template: " + templatePath, e);
+        }
+    }
+
+    // ==================== 热加载 ====================
+
+    private WatchService startWatching() {
+        List<Path> existing = overrideDirectories.stream().filter(Files::isDirectory).toList();
+        if (existing.isEmpty()) {
+            return null;
+        }
+        try {
+            WatchService service = FileSystems.getDefault().newWatchService();
+            for (Path directory : existing) {
+                register(service, directory);
+            }
+            Thread.ofPlatform().name("prompt-template-watcher").daemon().start(() -> watchLoop(service));
+            return service;
+        } catch (IOException e) {
+            log.warn("无法监听 Prompt 模板目录，模板变更需重启后生效: {}", e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * 注册目录及其所有子目录
+     */
+    private static void register(WatchService service, Path directory) throws IOException {
+        try (Stream<Path> directories = Files.walk(directory)) {
+            for (Path dir : directories.filter(Files::isDirectory).toList()) {
+                dir.register(service, ENTRY_CREATE, ENTRY_MODIFY, ENTRY_DELETE);
+            }
+        }
+    }
+
+    private void watchLoop(WatchService service) {
+        try {
+            while (true) {
+                WatchKey key = service.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == OVERFLOW) {
+                        // 丢失了部分事件，无法确定哪些文件变了
+                        templates.clear();
+                        continue;
+                    }
+                    Path changed = dir.resolve((Path) event.context());
+                    if (event.kind() == ENTRY_CREATE && Files.isDirectory(changed)) {
+                        register(service, changed);
+                        templates.clear();
+                        continue;
+                    }
+                    for (Path directory : overrideDirectories) {
+                        if (changed.startsWith(directory)) {
+                            invalidate(directory.relativize(changed).toString().replace('\\', '/'));
+                        }
+                    }
+                }
+                key.reset();
+            }
+        } catch (ClosedWatchServiceException e) {
+            // 应用关闭
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        } catch (IOException e) {
+            log.warn("Prompt 模板目录监听已停止: {}", e.getMessage());
+        }
+    }
+
+    @Override
+    public void destroy() throws IOException {
+        if (watchService != null) {
+            watchService.close();
+        }
+    }
+}
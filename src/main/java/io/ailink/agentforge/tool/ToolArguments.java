@@ -0,0 +1,154 @@
+package io.ailink.agentforge.tool;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.databind.DeserializationContext;
+import com.fasterxml.jackson.databind.JsonDeserializer;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.JsonSerializable;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
+import com.fasterxml.jackson.databind.jsontype.TypeSerializer;
+import com.fasterxml.jackson.databind.node.JsonNodeFactory;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.StringWriter;
+
+/**
+ * 工具参数
+ *
+ * 以原始 JSON 文本保存 LLM 生成的参数，从 Provider 响应经 {@link ToolCall}
+ * 原样带到下一轮请求：Claude 请求中作为 input 对象直接写出原始 JSON，
+ * OpenAI 请求中作为 arguments 字符串直接使用，都不经过 JsonNode / Map 转换。
+ *
+ * 只有工具真正执行时才通过 {@link #node()} 解析为 JsonNode（解析一次后缓存），
+ * 解析使用创建时传入的 ObjectCodec（即 Spring 注入的 ObjectMapper 或其 ObjectReader）。
+ */
+@JsonDeserialize(using = ToolArguments.Deserializer.class)
+public final class ToolArguments implements JsonSerializable {
+
+    private static final Logger log = LoggerFactory.getLogger(ToolArguments.class);
+
+    private static final String EMPTY_JSON = "{}";
+
+    private volatile String json;
+    private volatile JsonNode node;
+    private final ObjectCodec codec;
+
+    private ToolArguments(String json, JsonNode node, ObjectCodec codec) {
+        this.json = json;
+        this.node = node;
+        this.codec = codec;
+    }
+
+    /**
+     * 从原始 JSON 文本创建（空白文本视为空对象）
+     *
+     * @param json  参数 JSON 文本
+     * @param codec 延迟解析使用的 ObjectCodec
+     * @return 工具参数
+     */
+    public static ToolArguments ofJson(String json, ObjectCodec codec) {
+        if (json == null || json.isBlank()) {
+            return empty();
+        }
+        return new ToolArguments(json, null, codec);
+    }
+
+    /**
+     * 从已有的 JsonNode 创建，原始文本在首次需要时生成
+     *
+     * @param node 参数节点
+     * @return 工具参数
+     */
+    public static ToolArguments of(JsonNode node) {
+        if (node == null) {
+            return empty();
+        }
+        return new ToolArguments(null, node, null);
+    }
+
+    /**
+     * 空参数对象
+     */
+    public static ToolArguments empty() {
+        return new ToolArguments(EMPTY_JSON, JsonNodeFactory.instance.objectNode(), null);
+    }
+
+    /**
+     * 原始 JSON 文本
+     */
+    public String json() {
+        String value = json;
+        if (value == null) {
+            value = node.toString();
+            json = value;
+        }
+        return value;
+    }
+
+    /**
+     * 解析后的 JsonNode（首次调用时解析）
+     *
+     * 参数不是合法 JSON 时记录警告并返回空对象，由工具自行报告缺少参数；
+     * 原始文本同时替换为 {}，避免把非法 JSON 原样写入下一轮请求。
+     */
+    public JsonNode node() {
+        JsonNode value = node;
+        if (value == null) {
+            value = parse();
+            node = value;
+        }
+        return value;
+    }
+
+    private JsonNode parse() {
+        try (JsonParser parser = codec.getFactory().createParser(json)) {
+            JsonNode parsed = codec.readTree(parser);
+            return parsed != null ? parsed : JsonNodeFactory.instance.objectNode();
+        } catch (IOException e) {
+            log.warn("Failed to parse tool arguments: {}", json, e);
+            json = EMPTY_JSON;
+            return JsonNodeFactory.instance.objectNode();
+        }
+    }
+
+    @Override
+    public void serialize(JsonGenerator gen, SerializerProvider serializers) throws IOException {
+        String value = json;
+        if (value != null) {
+            gen.writeRawValue(value);
+        } else {
+            gen.writeTree(node);
+        }
+    }
+
+    @Override
+    public void serializeWithType(JsonGenerator gen, SerializerProvider serializers, TypeSerializer typeSer)
+            throws IOException {
+        serialize(gen, serializers);
+    }
+
+    @Override
+    public String toString() {
+        return json();
+    }
+
+    /**
+     * 反序列化：把参数对象逐 token 复制为紧凑的 JSON 文本，不构建 JsonNode / Map
+     */
+    static final class Deserializer extends JsonDeserializer<ToolArguments> {
+
+        @Override
+        public ToolArguments deserialize(JsonParser parser, DeserializationContext ctxt) throws IOException {
+            StringWriter writer = new StringWriter();
+            try (JsonGenerator generator = parser.getCodec().getFactory().createGenerator(writer)) {
+                generator.copyCurrentStructure(parser);
+            }
+            return ofJson(writer.toString(), parser.getCodec());
+        }
+    }
+}
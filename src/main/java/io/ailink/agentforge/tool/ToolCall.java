@@ -10,13 +10,13 @@ import com.fasterxml.jackson.databind.JsonNode;
  *
  * @param id        调用 ID (用于关联工具结果)
  * @param name      工具名称
- * @param arguments 工具参数 (JSON 对象)
+ * @param arguments 工具参数（原始 JSON，执行时才解析，见 {@link ToolArguments}）
  */
 @JsonInclude(JsonInclude.Include.NON_NULL)
 public record ToolCall(
         String id,
         String name,
-        JsonNode arguments
+        ToolArguments arguments
 ) {
 
     /**
@@ -28,6 +28,6 @@ public record ToolCall(
      * @return 工具调用实例
      */
     public static ToolCall of(String id, String name, JsonNode arguments) {
-        return new ToolCall(id, name, arguments);
+        return new ToolCall(id, name, ToolArguments.of(arguments));
     }
 }
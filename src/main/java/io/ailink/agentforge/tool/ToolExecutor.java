@@ -1,17 +1,27 @@
 package io.ailink.agentforge.tool;
 
+import jakarta.annotation.PreDestroy;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
 
-import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
+/**
+ * 工具执行器
+ *
+ * 工具在虚拟线程上执行：每次调用一个虚拟线程，I/O 密集型工具阻塞时不占用平台线程。
+ * 同一轮的多个工具调用并发执行，一轮耗时取决于最慢的工具，而不是所有工具耗时之和。
+ */
 @Component
 public class ToolExecutor {
 
     private static final Logger log = LoggerFactory.getLogger(ToolExecutor.class);
 
     private final ToolRegistry toolRegistry;
+    private final ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor();
 
     public ToolExecutor(ToolRegistry toolRegistry) {
         this.toolRegistry = toolRegistry;
@@ -26,7 +36,7 @@ public class ToolExecutor {
         return toolRegistry.getTool(toolName)
                 .map(tool -> {
                     try {
-                        return tool.execute(toolCall.arguments());
+                        return tool.execute(toolCall.arguments().node());
                     } catch (Exception e) {
                         log.error("Tool execution failed: {}", toolName, e);
                         return ToolResult.error(callId, "Execution error: " + e.getMessage());
@@ -38,9 +48,18 @@ public class ToolExecutor {
                 });
     }
 
-    public List<ToolResult> executeAll(List<ToolCall> toolCalls) {
-        return toolCalls.stream()
-                .map(this::execute)
-                .toList();
+    /**
+     * 在虚拟线程上异步执行工具
+     *
+     * @param toolCall 工具调用
+     * @return 执行结果
+     */
+    public CompletableFuture<ToolResult> submit(ToolCall toolCall) {
+        return CompletableFuture.supplyAsync(() -> execute(toolCall), executor);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        executor.shutdownNow();
     }
 }
@@ -13,6 +13,11 @@ public class ToolRegistry {
 
     private final Map<String, Tool> tools = new LinkedHashMap<>();
 
+    /**
+     * 工具定义缓存，每轮请求都会携带，注册工具时失效
+     */
+    private volatile List<ToolDefinition> toolDefinitions;
+
     public ToolRegistry(Optional<List<Tool>> toolList) {
         toolList.ifPresent(list -> {
             for (Tool tool : list) {
@@ -21,12 +26,13 @@ public class ToolRegistry {
         });
     }
 
-    public void register(Tool tool) {
+    public final void register(Tool tool) {
         String name = tool.name();
         if (tools.containsKey(name)) {
             log.warn("Tool '{}' already registered, overwriting", name);
         }
         tools.put(name, tool);
+        toolDefinitions = null;
         log.debug("Registered tool: {}", name);
     }
 
@@ -35,9 +41,14 @@ public class ToolRegistry {
     }
 
     public List<ToolDefinition> getToolDefinitions() {
-        return tools.values().stream()
-                .map(ToolDefinition::from)
-                .toList();
+        List<ToolDefinition> definitions = toolDefinitions;
+        if (definitions == null) {
+            definitions = tools.values().stream()
+                    .map(ToolDefinition::from)
+                    .toList();
+            toolDefinitions = definitions;
+        }
+        return definitions;
     }
 
     public boolean hasTools() {
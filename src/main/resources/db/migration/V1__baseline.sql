@@ -0,0 +1,77 @@
+-- 基线表结构，两种后端共用；jpa 后端启动时由 Hibernate 校验实体与之一致（ddl-auto: validate）。
+-- 全部语句带 IF NOT EXISTS：早期版本由 Hibernate（ddl-auto: update）创建的数据库也可以直接执行，
+-- 缺少的列在这里补齐。
+
+CREATE SEQUENCE IF NOT EXISTS chat_messages_seq START WITH 1 INCREMENT BY 50;
+
+CREATE TABLE IF NOT EXISTS chat_messages (
+    id                 BIGINT       NOT NULL,
+    session_id         BIGINT,
+    role               VARCHAR(20)  NOT NULL,
+    content            TEXT         NOT NULL,
+    compressed_content VARBINARY,
+    payload            VARBINARY,
+    input_tokens       INTEGER,
+    output_tokens      INTEGER,
+    latency_ms         INTEGER,
+    created_at         TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS session_id BIGINT;
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS compressed_content VARBINARY;
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS payload VARBINARY;
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS input_tokens INTEGER;
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS output_tokens INTEGER;
+ALTER TABLE chat_messages ADD COLUMN IF NOT EXISTS latency_ms INTEGER;
+CREATE INDEX IF NOT EXISTS idx_created_at_id ON chat_messages (created_at, id);
+CREATE INDEX IF NOT EXISTS idx_session_created_at_id ON chat_messages (session_id, created_at, id);
+CREATE INDEX IF NOT EXISTS idx_role ON chat_messages (role);
+
+CREATE TABLE IF NOT EXISTS conversation_sessions (
+    id         BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    created_at TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS conversation_summaries (
+    id              BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    session_id      BIGINT,
+    summary         TEXT         NOT NULL,
+    covered_until   TIMESTAMP(6) NOT NULL,
+    folded_messages INTEGER      NOT NULL,
+    created_at      TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+ALTER TABLE conversation_summaries ADD COLUMN IF NOT EXISTS session_id BIGINT;
+CREATE INDEX IF NOT EXISTS idx_summary_session_id ON conversation_summaries (session_id, id);
+
+CREATE TABLE IF NOT EXISTS daily_summaries (
+    id            BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    summary_date  DATE         NOT NULL UNIQUE,
+    summary       TEXT         NOT NULL,
+    message_count INTEGER      NOT NULL,
+    created_at    TIMESTAMP(6) NOT NULL,
+    updated_at    TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id)
+);
+
+CREATE TABLE IF NOT EXISTS message_terms (
+    term       VARCHAR(32) NOT NULL,
+    message_id BIGINT      NOT NULL,
+    frequency  INTEGER     NOT NULL,
+    PRIMARY KEY (message_id, term)
+);
+CREATE INDEX IF NOT EXISTS idx_term_postings ON message_terms (term, message_id, frequency);
+CREATE INDEX IF NOT EXISTS idx_term_message_id ON message_terms (message_id);
+
+CREATE TABLE IF NOT EXISTS daily_stats (
+    stat_date          DATE   NOT NULL,
+    user_messages      BIGINT NOT NULL,
+    assistant_messages BIGINT NOT NULL,
+    tool_calls         BIGINT NOT NULL,
+    characters         BIGINT NOT NULL,
+    input_tokens       BIGINT NOT NULL,
+    output_tokens      BIGINT NOT NULL,
+    latency_histogram  VARBINARY,
+    PRIMARY KEY (stat_date)
+);
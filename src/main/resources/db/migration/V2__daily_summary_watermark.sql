@@ -0,0 +1,4 @@
+-- 每日总结的高水位：总结覆盖到的最大消息 ID，再次生成时只总结之后的新消息。
+-- 已有的总结为 NULL，下次生成时整天重新总结。
+
+ALTER TABLE daily_summaries ADD COLUMN IF NOT EXISTS last_message_id BIGINT;
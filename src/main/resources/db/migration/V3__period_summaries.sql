@@ -0,0 +1,15 @@
+-- 周/月汇总总结：由每日总结生成并缓存，每个周期一行。
+
+CREATE TABLE IF NOT EXISTS period_summaries (
+    id                BIGINT GENERATED BY DEFAULT AS IDENTITY,
+    period            VARCHAR(10)  NOT NULL,
+    period_start      DATE         NOT NULL,
+    summary           TEXT         NOT NULL,
+    day_count         INTEGER      NOT NULL,
+    message_count     INTEGER      NOT NULL,
+    source_updated_at TIMESTAMP(6) NOT NULL,
+    created_at        TIMESTAMP(6) NOT NULL,
+    updated_at        TIMESTAMP(6) NOT NULL,
+    PRIMARY KEY (id),
+    CONSTRAINT uk_period_start UNIQUE (period, period_start)
+);
@@ -0,0 +1,4 @@
+-- 对话滚动摘要的覆盖位置改为 (covered_until, covered_until_id)：同一时刻保存的多条消息按 ID 区分。
+-- 已有的摘要为 NULL，恢复会话时与 covered_until 同一时刻的消息都会重新加载。
+
+ALTER TABLE conversation_summaries ADD COLUMN IF NOT EXISTS covered_until_id BIGINT;
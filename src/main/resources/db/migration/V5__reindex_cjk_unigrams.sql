@@ -0,0 +1,4 @@
+-- 中日韩文字改为同时按单字建索引，已有的倒排记录缺少单字词项。
+-- 清空后首次检索时按新规则为全部消息重建索引（也可手动执行 history --reindex）。
+
+DELETE FROM message_terms;
@@ -0,0 +1,39 @@
+package io.ailink.agentforge;
+
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.env.MapPropertySource;
+import org.springframework.core.env.StandardEnvironment;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Starts a separate application context for tests that need their own database or archive directory,
+ * or that restart the application against the same database.
+ * The given properties take precedence over application.yml
+ * (SpringApplicationBuilder#properties only supplies defaults, which application.yml overrides).
+ */
+public final class TestApplication {
+
+    private TestApplication() {
+    }
+
+    /**
+     * @param properties key=value pairs, e.g. "spring.datasource.url=jdbc:h2:mem:test;DB_CLOSE_DELAY=-1"
+     * @return the running context (close it at the end of the test)
+     */
+    public static ConfigurableApplicationContext start(String... properties) {
+        Map<String, Object> values = new LinkedHashMap<>();
+        values.put("agentforge.prompts.watch", "false");
+        for (String property : properties) {
+            int separator = property.indexOf('=');
+            values.put(property.substring(0, separator), property.substring(separator + 1));
+        }
+        StandardEnvironment environment = new StandardEnvironment();
+        environment.getPropertySources().addFirst(new MapPropertySource("test", values));
+        return new SpringApplicationBuilder(AgentForgeApplication.class)
+                .environment(environment)
+                .run();
+    }
+}
@@ -0,0 +1,167 @@
+package io.ailink.agentforge.cli.chat;
+
+import io.ailink.agentforge.config.ContextWindowProperties;
+import io.ailink.agentforge.llm.TokenEstimator;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.tool.ToolArguments;
+import io.ailink.agentforge.tool.ToolCall;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ContextWindowManager.
+ * Trimming removes whole turns from the front of the history: the kept history
+ * starts with a user message, and every tool call stays together with its results.
+ */
+class ContextWindowManagerTest {
+
+    /**
+     * One token per character plus the default per-message overhead
+     */
+    private final TokenEstimator estimator = text -> text == null ? 0 : text.length();
+
+    private ContextWindowProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        properties = new ContextWindowProperties();
+        properties.setTrimRatio(0.75);
+    }
+
+    // ==================== Within Budget ====================
+
+    @Test
+    void testNoTrimWithinBudget() {
+        ConversationState state = new ConversationState();
+        addToolTurn(state, 1, 2);
+        addToolTurn(state, 2, 1);
+        int size = state.getConversationHistory().size();
+        properties.setMaxTokens(1_000_000);
+
+        int trimmed = new ContextWindowManager(estimator, properties).fit(state, "system", null);
+
+        assertEquals(0, trimmed);
+        assertEquals(size, state.getConversationHistory().size());
+    }
+
+    // ==================== Tool Pairs ====================
+
+    @Test
+    void testTrimKeepsToolCallsWithResults() {
+        ConversationState state = new ConversationState();
+        for (int turn = 1; turn <= 6; turn++) {
+            addToolTurn(state, turn, turn % 3 + 1);
+        }
+        ContextWindowManager manager = new ContextWindowManager(estimator, properties);
+        long total = manager.historyTokens(state.getConversationHistory());
+        // 预算约为整段历史的一半，裁剪点必然落在中间某一轮
+        properties.setMaxTokens((int) (total / 2));
+
+        int trimmed = manager.fit(state, null, null);
+
+        assertTrue(trimmed > 0);
+        List<ChatMessage> history = state.getConversationHistory();
+        assertEquals("user", history.getFirst().role());
+        assertTrue(manager.historyTokens(history) <= properties.getMaxTokens() * properties.getTrimRatio());
+        assertToolPairsIntact(history);
+    }
+
+    @Test
+    void testTrimAtEveryBudget() {
+        ConversationState template = new ConversationState();
+        for (int turn = 1; turn <= 5; turn++) {
+            addToolTurn(template, turn, turn % 2 + 1);
+        }
+        List<ChatMessage> messages = template.getConversationHistory();
+        long total = new ContextWindowManager(estimator, properties).historyTokens(messages);
+
+        for (int budget = 1; budget <= total; budget += 7) {
+            ConversationState state = new ConversationState(messages);
+            properties.setMaxTokens(budget);
+            new ContextWindowManager(estimator, properties).fit(state, null, null);
+
+            List<ChatMessage> history = state.getConversationHistory();
+            assertFalse(history.isEmpty(), "budget " + budget);
+            assertEquals("user", history.getFirst().role(), "budget " + budget);
+            assertToolPairsIntact(history);
+        }
+    }
+
+    @Test
+    void testLatestTurnKeptWhenOverBudget() {
+        ConversationState state = new ConversationState();
+        addToolTurn(state, 1, 1);
+        addToolTurn(state, 2, 3);
+        properties.setMaxTokens(1);
+
+        new ContextWindowManager(estimator, properties).fit(state, null, null);
+
+        List<ChatMessage> history = state.getConversationHistory();
+        assertEquals("user", history.getFirst().role());
+        assertEquals("question 2", history.getFirst().content());
+        // 用户消息 + 带工具调用的助手消息 + 3 条工具结果 + 最终回答
+        assertEquals(6, history.size());
+        assertToolPairsIntact(history);
+    }
+
+    @Test
+    void testLeadingPartialTurnRemoved() {
+        // 加载的最近消息从半轮开始：孤立的工具结果和助手回答在第一条用户消息之前
+        ConversationState source = new ConversationState();
+        addToolTurn(source, 1, 2);
+        addToolTurn(source, 2, 1);
+        List<ChatMessage> loaded = source.getConversationHistory().subList(2, source.getConversationHistory().size());
+        ConversationState state = new ConversationState(loaded);
+        properties.setMaxTokens(1_000_000);
+
+        int trimmed = new ContextWindowManager(estimator, properties).fit(state, null, null);
+
+        assertEquals(3, trimmed);
+        assertEquals("question 2", state.getConversationHistory().getFirst().content());
+        assertToolPairsIntact(state.getConversationHistory());
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * 一轮对话：用户提问 → 助手发起 toolCalls 个工具调用 → 各工具结果 → 助手回答
+     */
+    private static void addToolTurn(ConversationState state, int turn, int toolCalls) {
+        state.addUserMessage("question " + turn);
+        List<ToolCall> calls = new ArrayList<>();
+        for (int i = 0; i < toolCalls; i++) {
+            calls.add(new ToolCall("call_" + turn + "_" + i, "calculator",
+                    ToolArguments.ofJson("{\"expression\": \"" + turn + " * " + i + "\"}", null)));
+        }
+        state.addAssistantMessageWithTools("let me calculate " + turn, calls);
+        for (ToolCall call : calls) {
+            state.addToolResult(call.id(), "result of " + call.id() + " ".repeat(turn * 10));
+        }
+        state.addAssistantMessage("answer " + turn);
+    }
+
+    /**
+     * 每个工具结果之前都有发起它的工具调用，每个工具调用之后都有对应的结果
+     */
+    private static void assertToolPairsIntact(List<ChatMessage> history) {
+        Set<String> called = new HashSet<>();
+        Set<String> answered = new HashSet<>();
+        for (ChatMessage message : history) {
+            if (message.hasToolCalls()) {
+                message.toolCalls().forEach(call -> called.add(call.id()));
+            }
+            if (message.toolCallId() != null) {
+                assertTrue(called.contains(message.toolCallId()), "orphan tool result " + message.toolCallId());
+                answered.add(message.toolCallId());
+            }
+        }
+        assertEquals(called, answered);
+    }
+}
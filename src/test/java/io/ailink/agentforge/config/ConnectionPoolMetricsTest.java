@@ -0,0 +1,142 @@
+package io.ailink.agentforge.config;
+
+import com.sun.net.httpserver.HttpServer;
+import io.ailink.agentforge.config.ConnectionPoolMetrics.PoolSnapshot;
+import io.ailink.agentforge.llm.LlmHttpProperties;
+import io.micrometer.core.instrument.Metrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.reactive.function.client.WebClient;
+import reactor.core.publisher.Flux;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ConnectionPoolMetrics.
+ * Requests through a WebClientFactory client show up in the per-pool snapshot (connections,
+ * and waits once the pool is full), and the in-memory registry leaves the global registry when destroyed.
+ */
+class ConnectionPoolMetricsTest {
+
+    /**
+     * /slow 的响应延迟
+     */
+    private static final long SLOW_MILLIS = 200;
+
+    private HttpServer server;
+    private ExecutorService executor;
+    private ConnectionPoolMetrics metrics;
+    private WebClientFactory factory;
+
+    @BeforeEach
+    void setUp() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        executor = Executors.newFixedThreadPool(4);
+        server.setExecutor(executor);
+        server.createContext("/", exchange -> {
+            if (exchange.getRequestURI().getPath().equals("/slow")) {
+                sleep(SLOW_MILLIS);
+            }
+            byte[] body = "ok".getBytes(StandardCharsets.UTF_8);
+            exchange.sendResponseHeaders(200, body.length);
+            exchange.getResponseBody().write(body);
+            exchange.close();
+        });
+        server.start();
+        metrics = new ConnectionPoolMetrics();
+        factory = new WebClientFactory(WebClient.builder(), metrics);
+    }
+
+    @AfterEach
+    void tearDown() {
+        factory.dispose();
+        metrics.destroy();
+        server.stop(0);
+        executor.shutdownNow();
+    }
+
+    // ==================== Snapshot ====================
+
+    @Test
+    void testSnapshotAfterRequests() {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        LlmHttpProperties http = new LlmHttpProperties();
+        WebClient client = factory.create("pool-test", baseUrl, http);
+
+        for (int i = 0; i < 3; i++) {
+            assertEquals("ok", client.get().uri(baseUrl + "/").retrieve().bodyToMono(String.class).block());
+        }
+
+        PoolSnapshot pool = find(metrics.snapshot(), "agentforge-pool-test");
+        // 顺序请求有空闲连接可用，从不排队（连接异步归还，偶尔会新建第二个连接）
+        assertTrue(pool.totalConnections() >= 1, pool.toString());
+        assertEquals(http.getMaxConnections(), pool.maxConnections(), pool.toString());
+        assertEquals(0, pool.pendingAcquires(), pool.toString());
+        assertEquals(0, pool.waits(), pool.toString());
+    }
+
+    @Test
+    void testWaitsRecordedWhenPoolFull() {
+        String baseUrl = "http://127.0.0.1:" + server.getAddress().getPort();
+        LlmHttpProperties http = new LlmHttpProperties();
+        http.setMaxConnections(1);
+        WebClient client = factory.create("pool-full", baseUrl, http);
+
+        // 只有一个连接，同时发出的其余请求排队等待
+        List<String> bodies = Flux.range(0, 3)
+                .flatMap(i -> client.get().uri(baseUrl + "/slow").retrieve().bodyToMono(String.class))
+                .collectList()
+                .block();
+
+        assertEquals(List.of("ok", "ok", "ok"), bodies);
+        PoolSnapshot pool = find(metrics.snapshot(), "agentforge-pool-full");
+        assertEquals(1, pool.totalConnections(), pool.toString());
+        assertEquals(2, pool.waits(), pool.toString());
+        assertTrue(pool.waitMaxMillis() >= SLOW_MILLIS, pool.toString());
+        assertTrue(pool.waitMaxMillis() >= pool.waitMeanMillis(), pool.toString());
+    }
+
+    @Test
+    void testNoPoolsBeforeFirstConnection() {
+        factory.create("unused", "http://127.0.0.1:" + server.getAddress().getPort(), new LlmHttpProperties());
+
+        assertTrue(metrics.snapshot().stream().noneMatch(pool -> pool.name().equals("agentforge-unused")));
+    }
+
+    // ==================== Global Registry ====================
+
+    @Test
+    void testDestroyRemovesRegistryFromGlobal() {
+        ConnectionPoolMetrics other = new ConnectionPoolMetrics();
+        int registries = Metrics.globalRegistry.getRegistries().size();
+
+        other.destroy();
+
+        assertEquals(registries - 1, Metrics.globalRegistry.getRegistries().size());
+    }
+
+    // ==================== Helpers ====================
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static PoolSnapshot find(List<PoolSnapshot> pools, String name) {
+        return pools.stream()
+                .filter(pool -> pool.name().equals(name))
+                .findFirst()
+                .orElseThrow(() -> new AssertionError("no pool " + name + " in " + pools));
+    }
+}
@@ -0,0 +1,221 @@
+package io.ailink.agentforge.llm;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ailink.agentforge.llm.claude.ClaudeStreamAssembler;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
+import io.ailink.agentforge.llm.openai.OpenAiStreamAssembler;
+import org.junit.jupiter.api.Test;
+import org.springframework.core.io.buffer.DefaultDataBufferFactory;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SseJsonDecoder with the Claude and OpenAI assemblers.
+ * Network chunks may end anywhere: inside a field name, inside a JSON string token,
+ * or between the bytes of a multi-byte UTF-8 character. Every split must decode
+ * to the same events as the unsplit stream.
+ */
+class SseJsonDecoderTest {
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+
+    private static final String CLAUDE_STREAM = frame("message_start",
+            "{\"type\":\"message_start\",\"message\":{\"id\":\"msg_01\",\"type\":\"message\",\"role\":\"assistant\","
+                    + "\"content\":[],\"model\":\"claude-sonnet-4\",\"usage\":{\"input_tokens\":12,\"output_tokens\":1}}}")
+            + frame("content_block_start",
+            "{\"type\":\"content_block_start\",\"index\":0,\"content_block\":{\"type\":\"text\",\"text\":\"\"}}")
+            + frame("ping", "{\"type\": \"ping\"}")
+            + frame("content_block_delta",
+            "{\"type\":\"content_block_delta\",\"index\":0,\"delta\":{\"type\":\"text_delta\",\"text\":\"你好，\"}}")
+            + frame("content_block_delta",
+            "{\"type\":\"content_block_delta\",\"index\":0,\"delta\":{\"type\":\"text_delta\",\"text\":\"计算 1+1 🙂\"}}")
+            + frame("content_block_stop", "{\"type\":\"content_block_stop\",\"index\":0}")
+            + frame("content_block_start", "{\"type\":\"content_block_start\",\"index\":1,"
+            + "\"content_block\":{\"type\":\"tool_use\",\"id\":\"toolu_01\",\"name\":\"calculator\",\"input\":{}}}")
+            + frame("content_block_delta", "{\"type\":\"content_block_delta\",\"index\":1,"
+            + "\"delta\":{\"type\":\"input_json_delta\",\"partial_json\":\"{\\\"expression\\\": \\\"1\"}}")
+            + frame("content_block_delta", "{\"type\":\"content_block_delta\",\"index\":1,"
+            + "\"delta\":{\"type\":\"input_json_delta\",\"partial_json\":\"+1\\\", \\\"note\\\": \\\"加法\\\"}\"}}")
+            + frame("content_block_stop", "{\"type\":\"content_block_stop\",\"index\":1}")
+            + frame("message_delta", "{\"type\":\"message_delta\",\"delta\":{\"stop_reason\":\"tool_use\","
+            + "\"stop_sequence\":null},\"usage\":{\"output_tokens\":34}}")
+            + frame("message_stop", "{\"type\":\"message_stop\"}");
+
+    private static final String OPENAI_PREFIX = "{\"id\":\"chatcmpl-01\",\"object\":\"chat.completion.chunk\","
+            + "\"model\":\"gpt-4o\",\"choices\":[{\"index\":0,\"delta\":{";
+
+    private static final String OPENAI_STREAM = frame(null, OPENAI_PREFIX
+            + "\"role\":\"assistant\",\"content\":\"\",\"refusal\":null},\"finish_reason\":null}],\"usage\":null}")
+            + frame(null, OPENAI_PREFIX + "\"content\":\"你好，\"},\"finish_reason\":null}],\"usage\":null}")
+            + frame(null, OPENAI_PREFIX + "\"content\":\"计算 1+1 🙂\"},\"finish_reason\":null}],\"usage\":null}")
+            + frame(null, OPENAI_PREFIX + "\"tool_calls\":[{\"index\":0,\"id\":\"call_01\",\"type\":\"function\","
+            + "\"function\":{\"name\":\"calculator\",\"arguments\":\"\"}}]},\"finish_reason\":null}],\"usage\":null}")
+            + frame(null, OPENAI_PREFIX + "\"tool_calls\":[{\"index\":0,"
+            + "\"function\":{\"arguments\":\"{\\\"expression\\\": \\\"1\"}}]},\"finish_reason\":null}],\"usage\":null}")
+            + frame(null, OPENAI_PREFIX + "\"tool_calls\":[{\"index\":0,"
+            + "\"function\":{\"arguments\":\"+1\\\", \\\"note\\\": \\\"加法\\\"}\"}}]},\"finish_reason\":null}],\"usage\":null}")
+            + frame(null, OPENAI_PREFIX + "},\"finish_reason\":\"tool_calls\"}],\"usage\":null}")
+            + frame(null, "{\"id\":\"chatcmpl-01\",\"object\":\"chat.completion.chunk\",\"model\":\"gpt-4o\","
+            + "\"choices\":[],\"usage\":{\"prompt_tokens\":12,\"completion_tokens\":34,\"total_tokens\":46}}")
+            + frame(null, "[DONE]");
+
+    // ==================== Whole Stream ====================
+
+    @Test
+    void testClaudeWholeStream() {
+        List<String> events = decode(CLAUDE_STREAM, () -> new ClaudeStreamAssembler(objectMapper), Integer.MAX_VALUE);
+
+        assertEquals("你好，计算 1+1 🙂", text(events));
+        assertTrue(events.contains("tool:1:toolu_01:calculator:{\"expression\": \"1+1\", \"note\": \"加法\"}"),
+                events.toString());
+        assertEquals("stop:tool_use", stop(events));
+    }
+
+    @Test
+    void testOpenAiWholeStream() {
+        List<String> events = decode(OPENAI_STREAM, () -> new OpenAiStreamAssembler(objectMapper), Integer.MAX_VALUE);
+
+        assertEquals("你好，计算 1+1 🙂", text(events));
+        assertTrue(events.contains("tool:0:call_01:calculator:{\"expression\": \"1+1\", \"note\": \"加法\"}"),
+                events.toString());
+        assertEquals("stop:tool_calls", stop(events));
+    }
+
+    // ==================== Split Chunks ====================
+
+    @Test
+    void testClaudeSplitAtEveryOffset() {
+        assertSplitsMatch(CLAUDE_STREAM, () -> new ClaudeStreamAssembler(objectMapper));
+    }
+
+    @Test
+    void testOpenAiSplitAtEveryOffset() {
+        assertSplitsMatch(OPENAI_STREAM, () -> new OpenAiStreamAssembler(objectMapper));
+    }
+
+    @Test
+    void testClaudeSplitInsideMultiByteCharacter() {
+        byte[] bytes = CLAUDE_STREAM.getBytes(StandardCharsets.UTF_8);
+        // "你" 是 3 字节，"🙂" 是 4 字节（UTF-16 代理对）
+        for (String character : List.of("你", "🙂")) {
+            int start = indexOf(bytes, character.getBytes(StandardCharsets.UTF_8));
+            for (int split = start + 1; split < start + character.getBytes(StandardCharsets.UTF_8).length; split++) {
+                List<String> events = decode(bytes, () -> new ClaudeStreamAssembler(objectMapper), split);
+                assertEquals("你好，计算 1+1 🙂", text(events), "split at " + split);
+            }
+        }
+    }
+
+    @Test
+    void testOpenAiSplitInsideJsonToken() {
+        byte[] bytes = OPENAI_STREAM.getBytes(StandardCharsets.UTF_8);
+        int start = indexOf(bytes, "\"finish_reason\"".getBytes(StandardCharsets.UTF_8));
+        int value = indexOf(bytes, "\"calculator\"".getBytes(StandardCharsets.UTF_8));
+        for (int split : new int[]{start + 1, start + 7, value + 5}) {
+            List<String> events = decode(bytes, () -> new OpenAiStreamAssembler(objectMapper), split);
+            assertEquals("你好，计算 1+1 🙂", text(events), "split at " + split);
+            assertTrue(events.contains("tool:0:call_01:calculator:{\"expression\": \"1+1\", \"note\": \"加法\"}"),
+                    "split at " + split);
+        }
+    }
+
+    @Test
+    void testSingleByteChunks() {
+        List<String> whole = decode(CLAUDE_STREAM, () -> new ClaudeStreamAssembler(objectMapper), Integer.MAX_VALUE);
+        List<String> bytewise = decode(CLAUDE_STREAM, () -> new ClaudeStreamAssembler(objectMapper), 1);
+
+        assertEquals(whole.stream().filter(e -> !e.startsWith("text:")).toList(),
+                bytewise.stream().filter(e -> !e.startsWith("text:")).toList());
+        assertEquals(text(whole), text(bytewise));
+    }
+
+    // ==================== Helpers ====================
+
+    private void assertSplitsMatch(String stream, Supplier<StreamEventAssembler> assembler) {
+        byte[] bytes = stream.getBytes(StandardCharsets.UTF_8);
+        List<String> expected = decode(bytes, assembler, Integer.MAX_VALUE);
+        for (int split = 1; split < bytes.length; split++) {
+            List<String> events = decode(bytes, assembler, split);
+            // 文本增量可能在切分处被拆成两段，只比较拼接后的文本
+            assertEquals(text(expected), text(events), "split at " + split);
+            assertEquals(expected.stream().filter(e -> !e.startsWith("text:")).toList(),
+                    events.stream().filter(e -> !e.startsWith("text:")).toList(), "split at " + split);
+        }
+    }
+
+    private static List<String> decode(String stream, Supplier<StreamEventAssembler> assembler, int chunkSize) {
+        return decode(stream.getBytes(StandardCharsets.UTF_8), assembler, chunkSize);
+    }
+
+    /**
+     * chunkSize 为 1 时逐字节输入；否则在 chunkSize 处切为两块
+     */
+    private static List<String> decode(byte[] bytes, Supplier<StreamEventAssembler> assembler, int chunkSize) {
+        List<byte[]> chunks = new ArrayList<>();
+        if (chunkSize == 1) {
+            for (byte b : bytes) {
+                chunks.add(new byte[]{b});
+            }
+        } else if (chunkSize >= bytes.length) {
+            chunks.add(bytes);
+        } else {
+            chunks.add(Arrays.copyOfRange(bytes, 0, chunkSize));
+            chunks.add(Arrays.copyOfRange(bytes, chunkSize, bytes.length));
+        }
+
+        List<ChatStreamEvent> events = new ArrayList<>();
+        try (SseJsonDecoder decoder = new SseJsonDecoder(new ObjectMapper().getFactory(), assembler.get())) {
+            for (byte[] chunk : chunks) {
+                events.addAll(decoder.decode(DefaultDataBufferFactory.sharedInstance.wrap(chunk)));
+            }
+            events.addAll(decoder.complete());
+        }
+        return events.stream().map(SseJsonDecoderTest::describe).toList();
+    }
+
+    private static String describe(ChatStreamEvent event) {
+        return switch (event) {
+            case ChatStreamEvent.MessageStart start -> "start:" + start.id() + ":" + start.model();
+            case ChatStreamEvent.TextDelta delta -> "text:" + delta.text();
+            case ChatStreamEvent.ToolCallStart start -> "toolStart:" + start.index() + ":" + start.id() + ":" + start.name();
+            case ChatStreamEvent.ToolCallDelta delta -> "toolDelta:" + delta.index() + ":" + delta.argumentsDelta();
+            case ChatStreamEvent.ToolCallComplete complete -> "tool:" + complete.index() + ":" + complete.toolCall().id()
+                    + ":" + complete.toolCall().name() + ":" + complete.toolCall().arguments().json();
+            case ChatStreamEvent.Stop stop -> "stop:" + stop.stopReason() + ":" + stop.usage();
+        };
+    }
+
+    private static String text(List<String> events) {
+        StringBuilder text = new StringBuilder();
+        events.stream().filter(e -> e.startsWith("text:")).forEach(e -> text.append(e, 5, e.length()));
+        return text.toString();
+    }
+
+    private static String stop(List<String> events) {
+        String stop = events.stream().filter(e -> e.startsWith("stop:")).findFirst().orElseThrow();
+        return stop.substring(0, stop.indexOf(':', 5));
+    }
+
+    private static int indexOf(byte[] bytes, byte[] pattern) {
+        outer:
+        for (int i = 0; i <= bytes.length - pattern.length; i++) {
+            for (int j = 0; j < pattern.length; j++) {
+                if (bytes[i + j] != pattern[j]) {
+                    continue outer;
+                }
+            }
+            return i;
+        }
+        throw new IllegalArgumentException("pattern not found");
+    }
+
+    private static String frame(String event, String data) {
+        return (event != null ? "event: " + event + "\n" : "") + "data: " + data + "\n\n";
+    }
+}
@@ -0,0 +1,194 @@
+package io.ailink.agentforge.persistence.archive;
+
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for DaySegment.
+ * Tests the write/read round trip of every message field across several blocks,
+ * lookup by id, and that truncated or corrupted files are rejected with an IOException.
+ */
+class DaySegmentTest {
+
+    private static final LocalDate DATE = LocalDate.of(2025, 3, 14);
+
+    @TempDir
+    Path directory;
+
+    // ==================== Round Trip ====================
+
+    @Test
+    void testRoundTripAllFields() throws IOException {
+        List<ChatMessageEntity> messages = messages(500);
+        Path file = directory.resolve(DATE + ".seg");
+
+        DaySegment written = DaySegment.write(file, DATE, messages);
+        DaySegment opened = DaySegment.open(file);
+
+        assertEquals(DATE, opened.date());
+        assertEquals(500, opened.messageCount());
+        assertEquals(written.minId(), opened.minId());
+        assertEquals(written.maxId(), opened.maxId());
+        assertMessagesEqual(messages, opened.readAll());
+        assertFalse(Files.exists(directory.resolve(DATE + ".seg.tmp")));
+    }
+
+    @Test
+    void testRoundTripEmptyDay() throws IOException {
+        Path file = directory.resolve(DATE + ".seg");
+
+        DaySegment.write(file, DATE, List.of());
+        DaySegment opened = DaySegment.open(file);
+
+        assertEquals(0, opened.messageCount());
+        assertTrue(opened.readAll().isEmpty());
+        assertFalse(opened.mayContain(1));
+    }
+
+    @Test
+    void testFindById() throws IOException {
+        List<ChatMessageEntity> messages = messages(500);
+        DaySegment segment = DaySegment.write(directory.resolve(DATE + ".seg"), DATE, messages);
+
+        for (ChatMessageEntity message : List.of(messages.getFirst(), messages.get(250), messages.getLast())) {
+            ChatMessageEntity found = segment.find(message.getId()).orElseThrow();
+            assertMessagesEqual(List.of(message), List.of(found));
+        }
+        // 范围内但不存在的 ID（消息 ID 为偶数）
+        assertTrue(segment.find(messages.get(10).getId() + 1).isEmpty());
+        assertTrue(segment.find(segment.maxId() + 1).isEmpty());
+    }
+
+    @Test
+    void testRewriteReplacesFile() throws IOException {
+        Path file = directory.resolve(DATE + ".seg");
+        DaySegment.write(file, DATE, messages(3));
+
+        List<ChatMessageEntity> replacement = messages(5);
+        DaySegment.write(file, DATE, replacement);
+
+        assertMessagesEqual(replacement, DaySegment.open(file).readAll());
+    }
+
+    // ==================== Damaged Files ====================
+
+    @Test
+    void testTruncatedFileRejected() throws IOException {
+        Path file = directory.resolve(DATE + ".seg");
+        DaySegment.write(file, DATE, messages(500));
+        byte[] bytes = Files.readAllBytes(file);
+
+        // 文件头、块索引、数据块内的每个截断位置（数据区按步长抽样）
+        Path truncated = directory.resolve("truncated.seg");
+        for (int length = 0; length < bytes.length; length += length < 200 ? 1 : 997) {
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            int at = length;
+            assertThrows(IOException.class, () -> DaySegment.open(truncated).readAll(), "truncated at " + at);
+        }
+        Files.write(truncated, Arrays.copyOf(bytes, bytes.length - 1));
+        assertThrows(IOException.class, () -> DaySegment.open(truncated));
+    }
+
+    @Test
+    void testCorruptedBlockRejected() throws IOException {
+        Path file = directory.resolve(DATE + ".seg");
+        DaySegment.write(file, DATE, messages(50));
+        byte[] bytes = Files.readAllBytes(file);
+        // 第一个数据块的偏移在块索引第一项的第 20 字节处
+        long offset = ByteBuffer.wrap(bytes).getLong(4 + 2 + 8 + 4 + 4 + 8 + 8 + 4);
+        for (int i = 0; i < 16; i++) {
+            bytes[(int) offset + 8 + i] ^= (byte) 0x5A;
+        }
+        Files.write(file, bytes);
+
+        DaySegment segment = DaySegment.open(file);
+
+        assertThrows(IOException.class, segment::readAll);
+    }
+
+    @Test
+    void testWrongMagicOrVersionRejected() throws IOException {
+        Path file = directory.resolve(DATE + ".seg");
+        DaySegment.write(file, DATE, messages(3));
+        byte[] bytes = Files.readAllBytes(file);
+
+        byte[] badMagic = bytes.clone();
+        badMagic[0] = 'X';
+        Files.write(file, badMagic);
+        assertThrows(IOException.class, () -> DaySegment.open(file));
+
+        byte[] badVersion = bytes.clone();
+        badVersion[5] = 9;
+        Files.write(file, badVersion);
+        assertThrows(IOException.class, () -> DaySegment.open(file));
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * 生成当天的消息：ID 为偶数，覆盖会话、payload、响应指标有无的各种组合，总大小超过一个数据块
+     */
+    static List<ChatMessageEntity> messages(int count) {
+        List<ChatMessageEntity> messages = new ArrayList<>(count);
+        LocalDateTime start = DATE.atTime(8, 0);
+        for (int i = 0; i < count; i++) {
+            String role = switch (i % 3) {
+                case 0 -> "user";
+                case 1 -> "assistant";
+                default -> "tool";
+            };
+            ChatMessageEntity message = new ChatMessageEntity(i % 5 == 0 ? null : 7L + i / 100, role,
+                    "第 " + i + " 条消息：上下文窗口按整轮裁剪 " + "x".repeat(i % 400));
+            message.setId(1000L + 2L * i);
+            message.setCreatedAt(start.plusSeconds(i).plusNanos(i * 1_000_001L % 1_000_000_000));
+            if (i % 4 == 1) {
+                message.setPayload(new byte[]{(byte) i, 0, -1, 42});
+            } else if (i % 4 == 2) {
+                message.setPayload(new byte[0]);
+            }
+            if (role.equals("assistant")) {
+                message.setInputTokens(i * 10);
+                message.setOutputTokens(i % 7 == 0 ? null : i);
+                message.setLatencyMs(i % 11 == 0 ? 0 : 100 + i);
+            }
+            if (i % 50 == 0) {
+                // 已压缩存储的长消息，段文件中保存解压后的内容
+                message.setContent("长消息 ".repeat(2000) + i);
+                message.compressContent(2048);
+            }
+            messages.add(message);
+        }
+        return messages;
+    }
+
+    static void assertMessagesEqual(List<ChatMessageEntity> expected, List<ChatMessageEntity> actual) {
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            ChatMessageEntity e = expected.get(i);
+            ChatMessageEntity a = actual.get(i);
+            String at = "message " + e.getId();
+            assertEquals(e.getId(), a.getId(), at);
+            assertEquals(e.getSessionId(), a.getSessionId(), at);
+            assertEquals(e.getCreatedAt(), a.getCreatedAt(), at);
+            assertEquals(e.getRole(), a.getRole(), at);
+            assertEquals(e.getContent(), a.getContent(), at);
+            assertArrayEquals(e.getPayload(), a.getPayload(), at);
+            assertEquals(e.getInputTokens(), a.getInputTokens(), at);
+            assertEquals(e.getOutputTokens(), a.getOutputTokens(), at);
+            assertEquals(e.getLatencyMs(), a.getLatencyMs(), at);
+        }
+    }
+}
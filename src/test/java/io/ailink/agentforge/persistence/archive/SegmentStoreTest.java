@@ -0,0 +1,131 @@
+package io.ailink.agentforge.persistence.archive;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.LongStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SegmentStore.
+ * Tests round trips through the store (including reopening the directory),
+ * lookup by id across days, merging with hot rows, and handling of truncated segment files.
+ */
+class SegmentStoreTest {
+
+    private static final LocalDate DAY1 = LocalDate.of(2025, 1, 1);
+    private static final LocalDate DAY2 = LocalDate.of(2025, 1, 2);
+
+    @TempDir
+    Path directory;
+
+    // ==================== Round Trip ====================
+
+    @Test
+    void testWriteAndReopen() throws IOException {
+        List<ChatMessageEntity> day1 = day(DAY1, 1, 40);
+        List<ChatMessageEntity> day2 = day(DAY2, 100, 25);
+        SegmentStore store = store();
+        store.write(DAY1, day1);
+        store.write(DAY2, day2);
+
+        SegmentStore reopened = store();
+
+        assertEquals(List.of(DAY1, DAY2), List.copyOf(reopened.dates()));
+        assertEquals(65, reopened.totalCount());
+        DaySegmentTest.assertMessagesEqual(day1, reopened.read(DAY1));
+        DaySegmentTest.assertMessagesEqual(day2, reopened.read(DAY2));
+        assertTrue(reopened.read(DAY2.plusDays(1)).isEmpty());
+    }
+
+    @Test
+    void testFindByIdsAcrossDays() throws IOException {
+        SegmentStore store = store();
+        store.write(DAY1, day(DAY1, 1, 40));
+        store.write(DAY2, day(DAY2, 100, 25));
+
+        List<ChatMessageEntity> found = store.findByIds(List.of(5L, 110L, 99L, 1000L));
+
+        assertEquals(List.of(5L, 110L), found.stream().map(ChatMessageEntity::getId).sorted().toList());
+    }
+
+    @Test
+    void testLeftoverTempFileRemoved() throws IOException {
+        SegmentStore store = store();
+        store.write(DAY1, day(DAY1, 1, 3));
+        Path temp = directory.resolve(DAY2 + ".seg.tmp");
+        Files.write(temp, new byte[]{1, 2, 3});
+
+        SegmentStore reopened = store();
+
+        assertFalse(Files.exists(temp));
+        assertEquals(List.of(DAY1), List.copyOf(reopened.dates()));
+    }
+
+    // ==================== Truncated Files ====================
+
+    @Test
+    void testTruncatedSegmentSkippedAndNotOverwritten() throws IOException {
+        SegmentStore store = store();
+        store.write(DAY1, day(DAY1, 1, 40));
+        store.write(DAY2, day(DAY2, 100, 25));
+        Path file = directory.resolve(DAY2 + ".seg");
+        byte[] truncated = Arrays.copyOf(Files.readAllBytes(file), (int) Files.size(file) / 2);
+        Files.write(file, truncated);
+
+        SegmentStore reopened = store();
+
+        // 完好的段照常加载，截断的段跳过
+        assertEquals(List.of(DAY1), List.copyOf(reopened.dates()));
+        assertEquals(40, reopened.totalCount());
+        // 截断的日期不接受写入，文件保持原样
+        assertThrows(IOException.class, () -> reopened.write(DAY2, day(DAY2, 200, 1)));
+        assertArrayEquals(truncated, Files.readAllBytes(file));
+    }
+
+    // ==================== Merge ====================
+
+    @Test
+    void testMergeDeduplicatesById() {
+        List<ChatMessageEntity> archived = day(DAY1, 1, 5);
+        List<ChatMessageEntity> hot = day(DAY1, 4, 4);
+
+        List<ChatMessageEntity> merged = SegmentStore.merge(archived, hot);
+
+        assertEquals(List.of(1L, 2L, 3L, 4L, 5L, 6L, 7L), merged.stream().map(ChatMessageEntity::getId).toList());
+        assertEquals(merged.stream().sorted(SegmentStore.MESSAGE_ORDER).toList(), merged);
+    }
+
+    // ==================== Helpers ====================
+
+    private SegmentStore store() throws IOException {
+        HistoryProperties properties = new HistoryProperties();
+        properties.getArchive().setDirectory(directory.toString());
+        return new SegmentStore(properties);
+    }
+
+    private static List<ChatMessageEntity> day(LocalDate date, long firstId, int count) {
+        LocalDateTime start = date.atTime(9, 0);
+        return LongStream.range(firstId, firstId + count)
+                .mapToObj(id -> {
+                    ChatMessageEntity message = new ChatMessageEntity(3L, id % 2 == 0 ? "assistant" : "user",
+                            "消息 " + id);
+                    message.setId(id);
+                    message.setCreatedAt(start.plusMinutes(id));
+                    return message;
+                })
+                .sorted(Comparator.comparing(ChatMessageEntity::getCreatedAt))
+                .toList();
+    }
+}
@@ -0,0 +1,86 @@
+package io.ailink.agentforge.persistence.entity;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ContentCompression and ChatMessageEntity.compressContent.
+ * Tests the compress/decompress round trip, content too short to shrink, damaged input,
+ * and the minimum length below which content is stored as plain text.
+ */
+class ContentCompressionTest {
+
+    // ==================== Round Trip ====================
+
+    @Test
+    void testRoundTrip() {
+        String content = "工具输出：计算 1+1 = 2 🙂\n".repeat(500);
+
+        byte[] compressed = ContentCompression.compress(content);
+
+        assertNotNull(compressed);
+        assertTrue(compressed.length < content.length());
+        assertEquals(content, ContentCompression.decompress(compressed));
+    }
+
+    @Test
+    void testShortContentReturnsNull() {
+        // 长度前缀加 Deflate 块头已不比原文小
+        assertNull(ContentCompression.compress(""));
+        assertNull(ContentCompression.compress("ok"));
+        assertNull(ContentCompression.compress("好的"));
+    }
+
+    @Test
+    void testTruncatedDataRejected() {
+        byte[] compressed = ContentCompression.compress("abcdefgh".repeat(200));
+        assertNotNull(compressed);
+        byte[] truncated = Arrays.copyOf(compressed, compressed.length / 2);
+
+        assertThrows(IllegalStateException.class, () -> ContentCompression.decompress(truncated));
+    }
+
+    // ==================== Entity Threshold ====================
+
+    @Test
+    void testContentBelowMinCharsNotCompressed() {
+        ChatMessageEntity message = new ChatMessageEntity("tool", "x".repeat(999));
+
+        assertFalse(message.compressContent(1000));
+
+        assertNull(message.getCompressedContent());
+        assertEquals("x".repeat(999), message.getContent());
+    }
+
+    @Test
+    void testContentAtMinCharsCompressed() {
+        String content = "x".repeat(1000);
+        ChatMessageEntity message = new ChatMessageEntity("tool", content);
+
+        assertTrue(message.compressContent(1000));
+
+        assertNotNull(message.getCompressedContent());
+        assertEquals(content, message.getContent());
+        // 再次调用不会重复压缩
+        assertTrue(message.compressContent(1000));
+
+        // 从数据库加载时只设置压缩字段，读取时解压
+        ChatMessageEntity loaded = new ChatMessageEntity("tool", "");
+        loaded.setCompressedContent(message.getCompressedContent());
+        assertEquals(content, loaded.getContent());
+    }
+
+    @Test
+    void testSetContentClearsCompression() {
+        ChatMessageEntity message = new ChatMessageEntity("tool", "y".repeat(2000));
+        assertTrue(message.compressContent(1000));
+
+        message.setContent("short");
+
+        assertNull(message.getCompressedContent());
+        assertEquals("short", message.getContent());
+    }
+}
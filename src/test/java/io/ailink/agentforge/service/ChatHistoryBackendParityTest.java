@@ -0,0 +1,163 @@
+package io.ailink.agentforge.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.ailink.agentforge.TestApplication;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.llm.dto.TokenUsage;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSummaryEntity;
+import io.ailink.agentforge.persistence.entity.DailyStatsEntity;
+import io.ailink.agentforge.tool.ToolArguments;
+import io.ailink.agentforge.tool.ToolCall;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Parity tests for the jpa and jdbc history backends.
+ * Runs the same service operations against both backends and compares what they return,
+ * and alternates the backends on one database, whose schema comes only from the migrations.
+ */
+class ChatHistoryBackendParityTest {
+
+    @TempDir
+    Path archiveDirectory;
+
+    // ==================== Same Operations ====================
+
+    @Test
+    void testBackendsReturnSameResults() {
+        List<String> jpa;
+        try (ConfigurableApplicationContext context = start("jpa", newDatabase())) {
+            jpa = observe(context, writeConversation(context));
+        }
+        List<String> jdbc;
+        try (ConfigurableApplicationContext context = start("jdbc", newDatabase())) {
+            jdbc = observe(context, writeConversation(context));
+        }
+
+        assertTrue(jpa.contains("total: 6, today: 6"), jpa.toString());
+        assertEquals(jpa, jdbc);
+    }
+
+    // ==================== Shared Database ====================
+
+    @Test
+    void testBackendsShareDatabase() {
+        String url = newDatabase();
+        Long sessionId;
+        List<String> written;
+        try (ConfigurableApplicationContext context = start("jpa", url)) {
+            sessionId = writeConversation(context);
+            written = observe(context, sessionId);
+        }
+
+        // jdbc 后端读取 jpa 后端写入的数据，结果相同
+        try (ConfigurableApplicationContext context = start("jdbc", url)) {
+            assertEquals(written, observe(context, sessionId));
+            context.getBean(ChatHistoryService.class).saveUserMessage(sessionId, "jdbc 后端追加的消息");
+        }
+
+        // jpa 后端重新启动：表结构校验通过，主键不与 jdbc 后端写入的行冲突
+        try (ConfigurableApplicationContext context = start("jpa", url)) {
+            ChatHistoryService service = context.getBean(ChatHistoryService.class);
+            ChatMessageEntity saved = service.saveUserMessage(sessionId, "jpa 后端追加的消息");
+            flush(context);
+
+            List<ChatMessageEntity> messages = service.getRecentSessionMessages(sessionId, 2);
+            assertEquals(List.of("jdbc 后端追加的消息", "jpa 后端追加的消息"),
+                    messages.stream().map(ChatMessageEntity::getContent).toList());
+            assertTrue(saved.getId() > messages.getFirst().getId());
+            assertEquals(8, service.getTotalMessageCount());
+        }
+    }
+
+    // ==================== Helpers ====================
+
+    private ConfigurableApplicationContext start(String backend, String url) {
+        return TestApplication.start(
+                "spring.datasource.url=" + url,
+                "agentforge.history.backend=" + backend,
+                "agentforge.history.archive.directory=" + archiveDirectory.resolve(backend));
+    }
+
+    private static String newDatabase() {
+        return "jdbc:h2:mem:parity-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+    }
+
+    /**
+     * 一段带工具调用和长内容（压缩保存）的对话，以及覆盖前 4 条消息的滚动摘要
+     */
+    private static Long writeConversation(ConfigurableApplicationContext context) {
+        ChatHistoryService service = context.getBean(ChatHistoryService.class);
+        ConversationSessionEntity session = service.startSession();
+        Long sessionId = session.getId();
+        ToolCall call = new ToolCall("call_1", "calculator",
+                ToolArguments.ofJson("{\"expression\": \"12 * 34\"}", new ObjectMapper()));
+        service.saveUserMessage(sessionId, "帮我计算 12 * 34");
+        service.saveToolCalls(sessionId, "", List.of(call), new TokenUsage(20, 8, 28), 120);
+        service.saveToolResult(sessionId, "call_1", "408");
+        ChatMessageEntity answer = service.saveAssistantMessage(sessionId, "计算结果是 408",
+                new TokenUsage(30, 6, 36), 300);
+        service.saveUserMessage(sessionId, "这是一份很长的日志：" + "第一行 第二行 第三行\n".repeat(400));
+        service.saveAssistantMessage(sessionId, "日志已阅读");
+        flush(context);
+        service.saveConversationSummary(sessionId, "用户请求计算 12 * 34，结果为 408", answer, 4);
+        return sessionId;
+    }
+
+    /**
+     * 依次调用服务的读取方法，把结果转换为与主键取值无关的文本
+     */
+    private static List<String> observe(ConfigurableApplicationContext context, Long sessionId) {
+        ChatHistoryService service = context.getBean(ChatHistoryService.class);
+        LocalDate today = LocalDate.now();
+        List<String> observed = new ArrayList<>();
+
+        List<ChatMessageEntity> session = service.getRecentSessionMessages(sessionId, 10);
+        for (ChatMessageEntity message : session) {
+            ChatMessage restored = service.toChatMessage(message);
+            observed.add(message.getRole() + " | " + message.getContent() + " | " + restored.toolCallId()
+                    + " | " + (restored.hasToolCalls() ? restored.toolCalls().getFirst().arguments().json() : null)
+                    + " | " + message.getInputTokens() + "/" + message.getOutputTokens() + "/" + message.getLatencyMs());
+        }
+        observed.add("last 3: " + contents(service.getRecentSessionMessages(sessionId, 3)));
+        observed.add("after 2nd: " + contents(
+                service.getRecentSessionMessagesAfter(sessionId, MessageCursor.of(session.get(1)), 10)).size());
+        observed.add("latest session: " + sessionId.equals(service.getLatestSession().getId()));
+        observed.add("recent: " + contents(service.getRecentChatMessages(2)));
+        observed.add("by date: " + contents(service.getMessagesByDate(today)).size());
+        observed.add("total: " + service.getTotalMessageCount() + ", today: " + service.getMessageCountByDate(today));
+        for (SessionOverview overview : service.getRecentSessions(5)) {
+            observed.add("session: " + overview.title(20) + " | " + overview.messageCount());
+        }
+        MessageSearchPage page = service.searchMessages("计算", 1, 10);
+        observed.add("search: " + page.total() + " " + page.hits().stream().map(hit -> hit.snippet(20)).sorted().toList());
+        for (DailyStatsEntity stats : service.getDailyStats(today, today)) {
+            observed.add("stats: " + stats.getUserMessages() + "/" + stats.getAssistantMessages() + "/"
+                    + stats.getToolCalls() + "/" + stats.getCharacters() + "/"
+                    + stats.getInputTokens() + "/" + stats.getOutputTokens());
+        }
+        ConversationSummaryEntity summary = service.getLatestConversationSummary(sessionId);
+        observed.add("summary: " + summary.getSummary() + " | " + summary.getFoldedMessages()
+                + " | " + MessageCursor.coveredBy(summary).equals(MessageCursor.of(session.get(3))));
+        return observed;
+    }
+
+    private static List<String> contents(List<ChatMessageEntity> messages) {
+        return messages.stream().map(ChatMessageEntity::getContent).toList();
+    }
+
+    private static void flush(ConfigurableApplicationContext context) {
+        context.getBeanProvider(ChatMessageWriter.class).ifAvailable(ChatMessageWriter::flush);
+    }
+}
@@ -0,0 +1,201 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.TestApplication;
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for ChatMessageWriter.
+ * Tests write-behind ordering (messages commit in enqueue order and are visible after flush)
+ * and the primary key sequence alignment against rows written with larger ids.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:chat-message-writer;DB_CLOSE_DELAY=-1",
+        "agentforge.history.write-behind.max-batch-size=16",
+        "agentforge.prompts.watch=false"
+})
+class ChatMessageWriterTest {
+
+    @Autowired
+    private ChatMessageWriter writer;
+
+    @Autowired
+    private ChatMessageRepository chatMessageRepository;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    @Autowired
+    private DailyStatsRollup dailyStatsRollup;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // ==================== Flush Ordering ====================
+
+    @Test
+    void testFlushMakesQueuedMessagesVisible() {
+        String marker = UUID.randomUUID().toString();
+        LocalDateTime start = LocalDateTime.now();
+        // 多于一批（16 条），跨越多次提交
+        for (int i = 0; i < 100; i++) {
+            writer.write(message(marker, i, start.plusNanos(i * 1000L)));
+        }
+
+        writer.flush();
+
+        List<ChatMessageEntity> saved = find(marker);
+        assertEquals(100, saved.size());
+    }
+
+    @Test
+    void testMessagesCommitInEnqueueOrder() {
+        String marker = UUID.randomUUID().toString();
+        // 创建时间相同，id 顺序即写入顺序
+        LocalDateTime createdAt = LocalDateTime.now();
+        List<ChatMessageEntity> written = new ArrayList<>();
+        for (int i = 0; i < 60; i++) {
+            written.add(writer.write(message(marker, i, createdAt)));
+        }
+
+        writer.flush();
+
+        List<ChatMessageEntity> saved = find(marker);
+        saved.sort(Comparator.comparing(ChatMessageEntity::getId));
+        for (int i = 0; i < saved.size(); i++) {
+            assertEquals(marker + " " + i, saved.get(i).getContent());
+        }
+        // 写入返回的实体在提交后带有分配的 id
+        written.forEach(message -> assertNotNull(message.getId()));
+    }
+
+    @Test
+    void testFlushWithEmptyQueueReturns() {
+        writer.flush();
+        writer.flush();
+    }
+
+    // ==================== Sequence Alignment ====================
+
+    @Test
+    void testAlignSequenceAboveExistingMaxId() {
+        String url = "jdbc:h2:mem:writer-align;DB_CLOSE_DELAY=-1";
+        long legacyId;
+        try (ConfigurableApplicationContext context = TestApplication.start("spring.datasource.url=" + url)) {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            context.getBean(ChatMessageWriter.class).write(new ChatMessageEntity("user", "before upgrade"));
+            context.getBean(ChatMessageWriter.class).flush();
+            // 早期版本由自增列分配的主键，远大于序列的当前值
+            legacyId = jdbc.queryForObject("select max(id) from chat_messages", Long.class) + 100_000;
+            jdbc.update("insert into chat_messages (id, role, content, created_at) values (?, ?, ?, ?)",
+                    legacyId, "user", "legacy", LocalDateTime.now());
+        }
+
+        // 重新启动时序列被重置到最大 id 之后，新消息不会与旧主键冲突
+        try (ConfigurableApplicationContext context = TestApplication.start("spring.datasource.url=" + url)) {
+            ChatMessageWriter restarted = context.getBean(ChatMessageWriter.class);
+            ChatMessageEntity saved = restarted.write(new ChatMessageEntity("user", "after upgrade"));
+            restarted.flush();
+
+            assertNotNull(saved.getId());
+            assertTrue(saved.getId() > legacyId, saved.getId() + " <= " + legacyId);
+        }
+    }
+
+    @Test
+    void testJdbcAlignSequenceAboveExistingMaxId() {
+        String url = "jdbc:h2:mem:writer-align-jdbc;DB_CLOSE_DELAY=-1";
+        long legacyId;
+        try (ConfigurableApplicationContext context = TestApplication.start("spring.datasource.url=" + url,
+                "agentforge.history.backend=jdbc")) {
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            context.getBean(ChatHistoryService.class).saveUserMessage(null, "before upgrade");
+            legacyId = jdbc.queryForObject("select max(id) from chat_messages", Long.class) + 100_000;
+            jdbc.update("insert into chat_messages (id, role, content, created_at) values (?, ?, ?, ?)",
+                    legacyId, "user", "legacy", LocalDateTime.now());
+        }
+
+        try (ConfigurableApplicationContext context = TestApplication.start("spring.datasource.url=" + url,
+                "agentforge.history.backend=jdbc")) {
+            ChatMessageEntity saved = context.getBean(ChatHistoryService.class).saveUserMessage(null, "after upgrade");
+
+            assertTrue(saved.getId() > legacyId, saved.getId() + " <= " + legacyId);
+        }
+    }
+
+    @Test
+    void testAlignSequenceKeepsSequenceAhead() {
+        writer.write(new ChatMessageEntity("user", "before"));
+        writer.flush();
+        Long next = peekSequence(jdbcTemplate);
+
+        HistoryProperties synchronous = new HistoryProperties();
+        synchronous.getWriteBehind().setEnabled(false);
+        new ChatMessageWriter(chatMessageRepository, messageSearchIndex, dailyStatsRollup, transactionManager,
+                jdbcTemplate, synchronous);
+
+        // 序列已在最大 id 之后，既不回拨也不推进
+        assertEquals(next, peekSequence(jdbcTemplate));
+        Long maxId = jdbcTemplate.queryForObject("select max(id) from chat_messages", Long.class);
+        assertTrue(next - ChatMessageEntity.ID_ALLOCATION_SIZE >= maxId, next + " overlaps " + maxId);
+    }
+
+    @Test
+    void testRestartWithoutWritesKeepsSequence() {
+        String url = "jdbc:h2:mem:writer-restart-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1";
+        try (ConfigurableApplicationContext context = TestApplication.start("spring.datasource.url=" + url)) {
+            context.getBean(ChatMessageWriter.class).write(new ChatMessageEntity("user", "first run"));
+            context.getBean(ChatMessageWriter.class).flush();
+        }
+        Long afterWrite;
+        try (ConfigurableApplicationContext context = TestApplication.start("spring.datasource.url=" + url)) {
+            afterWrite = peekSequence(context.getBean(JdbcTemplate.class));
+        }
+
+        // 只读取历史的启动（如 history --count）不消耗主键
+        try (ConfigurableApplicationContext context = TestApplication.start("spring.datasource.url=" + url)) {
+            assertEquals(afterWrite, peekSequence(context.getBean(JdbcTemplate.class)));
+        }
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * 序列下一次分配的值，不推进序列
+     */
+    private static Long peekSequence(JdbcTemplate jdbc) {
+        return jdbc.queryForObject("select base_value from information_schema.sequences where sequence_name = ?",
+                Long.class, ChatMessageEntity.ID_SEQUENCE.toUpperCase(Locale.ROOT));
+    }
+
+    private static ChatMessageEntity message(String marker, int index, LocalDateTime createdAt) {
+        ChatMessageEntity message = new ChatMessageEntity(index % 2 == 0 ? "user" : "assistant", marker + " " + index);
+        message.setCreatedAt(createdAt);
+        return message;
+    }
+
+    private List<ChatMessageEntity> find(String marker) {
+        return new ArrayList<>(chatMessageRepository.findAll().stream()
+                .filter(message -> message.getContent().startsWith(marker))
+                .toList());
+    }
+}
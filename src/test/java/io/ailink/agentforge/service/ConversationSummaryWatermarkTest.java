@@ -0,0 +1,104 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.TestApplication;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSummaryEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the conversation summary watermark.
+ * Messages saved at the same instant as the last covered message are loaded after the summary,
+ * in the database and in archived segments, on both storage backends.
+ */
+class ConversationSummaryWatermarkTest {
+
+    @TempDir
+    Path archiveDirectory;
+
+    @Test
+    void testJpaWatermarkWithSharedTimestamp() throws IOException {
+        assertWatermarkWithSharedTimestamp("jpa");
+    }
+
+    @Test
+    void testJdbcWatermarkWithSharedTimestamp() throws IOException {
+        assertWatermarkWithSharedTimestamp("jdbc");
+    }
+
+    private void assertWatermarkWithSharedTimestamp(String backend) throws IOException {
+        try (ConfigurableApplicationContext context = TestApplication.start(
+                "spring.datasource.url=jdbc:h2:mem:summary-watermark-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "agentforge.history.backend=" + backend,
+                "agentforge.history.archive.directory=" + archiveDirectory)) {
+            ChatHistoryService service = context.getBean(ChatHistoryService.class);
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            LocalDateTime now = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+            Long hot = writeSession(context, now);
+            Long archived = writeSession(context, now.minusDays(200));
+            assertEquals(5, service.archiveMessages());
+
+            for (Long sessionId : List.of(hot, archived)) {
+                List<ChatMessageEntity> messages = service.getRecentSessionMessages(sessionId, 10);
+                assertEquals(List.of("m0", "m1", "m2", "m3", "m4"), contents(messages));
+
+                // 摘要覆盖到 m2：同一时刻保存的 m3、m4 仍然加载
+                service.saveConversationSummary(sessionId, "摘要 1", messages.get(2), 3);
+                assertEquals(List.of("m3", "m4"), resume(service, sessionId));
+
+                // 再次生成摘要，覆盖到 m3
+                service.saveConversationSummary(sessionId, "摘要 2", messages.get(3), 1);
+                assertEquals(List.of("m4"), resume(service, sessionId));
+
+                // 早期版本保存的摘要没有消息 ID：同一时刻的消息全部重新加载，不会遗漏
+                jdbc.update("update conversation_summaries set covered_until_id = null where session_id = ?", sessionId);
+                assertEquals(List.of("m0", "m1", "m2", "m3", "m4"), resume(service, sessionId));
+            }
+        }
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * 一个会话的 5 条消息，创建时间相同
+     */
+    private static Long writeSession(ConfigurableApplicationContext context, LocalDateTime createdAt) {
+        ChatHistoryService service = context.getBean(ChatHistoryService.class);
+        Long sessionId = service.startSession().getId();
+        for (int i = 0; i < 5; i++) {
+            if (i % 2 == 0) {
+                service.saveUserMessage(sessionId, "m" + i);
+            } else {
+                service.saveAssistantMessage(sessionId, "m" + i);
+            }
+        }
+        context.getBeanProvider(ChatMessageWriter.class).ifAvailable(ChatMessageWriter::flush);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+        jdbc.update("update chat_messages set created_at = ? where session_id = ?", createdAt, sessionId);
+        jdbc.update("update conversation_sessions set created_at = ? where id = ?", createdAt, sessionId);
+        return sessionId;
+    }
+
+    /**
+     * 与恢复会话相同：从最新摘要覆盖到的位置之后加载消息
+     */
+    private static List<String> resume(ChatHistoryService service, Long sessionId) {
+        ConversationSummaryEntity summary = service.getLatestConversationSummary(sessionId);
+        return contents(service.getRecentSessionMessagesAfter(sessionId, MessageCursor.coveredBy(summary), 10));
+    }
+
+    private static List<String> contents(List<ChatMessageEntity> messages) {
+        return messages.stream().map(ChatMessageEntity::getContent).toList();
+    }
+}
@@ -0,0 +1,100 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.llm.LlmProvider;
+import io.ailink.agentforge.llm.TokenEstimator;
+import io.ailink.agentforge.llm.dto.ChatRequest;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for DailySummaryBackfill.
+ * Tests that a day whose summary fails is reported in the returned list
+ * while the summaries of the other days are generated and saved.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:daily-summary-backfill;DB_CLOSE_DELAY=-1",
+        "agentforge.history.summary.concurrency=2",
+        "agentforge.history.summary.requests-per-minute=0",
+        "agentforge.prompts.watch=false"
+})
+class DailySummaryBackfillTest {
+
+    @MockitoBean(name = "primaryLlmProvider")
+    private LlmProvider llmProvider;
+
+    @Autowired
+    private DailySummaryBackfill backfill;
+
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+
+    @Autowired
+    private ChatMessageWriter writer;
+
+    @BeforeEach
+    void setUp() {
+        TokenEstimator estimator = text -> text == null ? 0 : text.length();
+        when(llmProvider.tokenEstimator()).thenReturn(estimator);
+        // 含「无法总结」的对话请求失败
+        when(llmProvider.chatStream(any())).thenAnswer(invocation -> {
+            ChatRequest request = invocation.getArgument(0);
+            String prompt = request.messages().getFirst().content();
+            if (prompt.contains("无法总结")) {
+                return Flux.error(new IllegalStateException("模型请求失败"));
+            }
+            return Flux.just("当天的总结");
+        });
+    }
+
+    @Test
+    void testFailedDayReportedOthersSaved() {
+        LocalDate start = LocalDate.now().minusDays(10);
+        List<LocalDate> days = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            LocalDate date = start.plusDays(i);
+            days.add(date);
+            write(date, i == 2 ? "这一天的对话无法总结" : "第 " + i + " 天的问题");
+        }
+        LocalDate failing = days.get(2);
+        List<DailySummaryBackfill.Progress> progress = new ArrayList<>();
+
+        List<LocalDate> failed = backfill.backfill(days, progress::add);
+
+        assertEquals(List.of(failing), failed);
+        // 每天报告一次进度，completed 依次递增
+        assertEquals(days.size(), progress.size());
+        for (int i = 0; i < progress.size(); i++) {
+            assertEquals(i + 1, progress.get(i).completed());
+            assertEquals(progress.get(i).date().equals(failing), progress.get(i).failed());
+        }
+        for (LocalDate date : days) {
+            if (date.equals(failing)) {
+                assertNull(chatHistoryService.getDailySummary(date));
+            } else {
+                assertEquals("当天的总结", chatHistoryService.getDailySummary(date).getSummary());
+            }
+        }
+        // 再次补齐时只剩失败的那一天
+        assertEquals(List.of(failing), chatHistoryService.getDaysNeedingSummary(days.getFirst(), days.getLast()));
+    }
+
+    private void write(LocalDate date, String content) {
+        ChatMessageEntity message = new ChatMessageEntity("user", content);
+        message.setCreatedAt(date.atTime(10, 0));
+        writer.write(message);
+        writer.flush();
+    }
+}
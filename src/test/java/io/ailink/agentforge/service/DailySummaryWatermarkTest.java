@@ -0,0 +1,97 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.llm.LlmProvider;
+import io.ailink.agentforge.llm.TokenEstimator;
+import io.ailink.agentforge.llm.dto.ChatRequest;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.DailySummaryEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+import reactor.core.publisher.Flux;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+/**
+ * Unit tests for the daily summary watermark.
+ * Regeneration summarizes only messages above the last covered id,
+ * including messages saved at the same instant as the watermark message.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:daily-summary-watermark;DB_CLOSE_DELAY=-1",
+        "agentforge.history.summary.requests-per-minute=0",
+        "agentforge.prompts.watch=false"
+})
+class DailySummaryWatermarkTest {
+
+    @MockitoBean(name = "primaryLlmProvider")
+    private LlmProvider llmProvider;
+
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+
+    @Autowired
+    private ChatMessageWriter writer;
+
+    /**
+     * 每次总结请求的提示词
+     */
+    private final List<String> prompts = new CopyOnWriteArrayList<>();
+
+    @BeforeEach
+    void setUp() {
+        TokenEstimator estimator = text -> text == null ? 0 : text.length();
+        when(llmProvider.tokenEstimator()).thenReturn(estimator);
+        when(llmProvider.chatStream(any())).thenAnswer(invocation -> {
+            ChatRequest request = invocation.getArgument(0);
+            prompts.add(request.messages().getFirst().content());
+            return Flux.just("总结 " + prompts.size());
+        });
+    }
+
+    @Test
+    void testRegenerationIncludesMessagesAtWatermarkTime() {
+        LocalDate date = LocalDate.now().minusDays(3);
+        LocalDateTime createdAt = date.atTime(9, 30);
+        write(createdAt, "第一个问题", "第一个回答", "第二个问题");
+
+        DailySummaryEntity first = chatHistoryService.generateDailySummary(date);
+        assertEquals(3, first.getMessageCount());
+        assertEquals(1, prompts.size());
+
+        // 新消息与高水位消息的创建时间相同，只能按 ID 区分
+        write(createdAt, "第二个回答", "第三个问题");
+        DailySummaryEntity updated = chatHistoryService.generateDailySummary(date);
+
+        assertEquals(5, updated.getMessageCount());
+        assertEquals(2, prompts.size());
+        String prompt = prompts.getLast();
+        assertTrue(prompt.contains("总结 1"), prompt);
+        assertTrue(prompt.contains("第二个回答") && prompt.contains("第三个问题"), prompt);
+        assertFalse(prompt.contains("第一个问题") || prompt.contains("第二个问题"), prompt);
+        assertTrue(updated.getLastMessageId() > first.getLastMessageId());
+
+        // 没有新消息时不再请求模型
+        DailySummaryEntity unchanged = chatHistoryService.generateDailySummary(date);
+        assertEquals(2, prompts.size());
+        assertEquals(updated.getSummary(), unchanged.getSummary());
+    }
+
+    private void write(LocalDateTime createdAt, String... contents) {
+        for (int i = 0; i < contents.length; i++) {
+            ChatMessageEntity message = new ChatMessageEntity(i % 2 == 0 ? "user" : "assistant", contents[i]);
+            message.setCreatedAt(createdAt);
+            writer.write(message);
+        }
+        writer.flush();
+    }
+}
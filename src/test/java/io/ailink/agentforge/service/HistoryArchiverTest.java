@@ -0,0 +1,91 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.TestApplication;
+import io.ailink.agentforge.persistence.archive.SegmentStore;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.repository.ChatMessageRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for HistoryArchiver.
+ * Tests that expired days move from the database into segment files,
+ * and that rows are kept when the segment for their day cannot be written.
+ */
+class HistoryArchiverTest {
+
+    @TempDir
+    Path archiveDirectory;
+
+    @Test
+    void testArchiveMovesExpiredDays() throws IOException {
+        LocalDate old = LocalDate.now().minusDays(200);
+        LocalDate older = LocalDate.now().minusDays(300);
+        try (ConfigurableApplicationContext context = start()) {
+            ChatMessageWriter writer = context.getBean(ChatMessageWriter.class);
+            write(writer, old, "old 1", "old 2", "old 3");
+            write(writer, older, "older 1", "older 2");
+            write(writer, LocalDate.now(), "recent");
+
+            long archived = context.getBean(HistoryArchiver.class).archiveExpired();
+
+            assertEquals(5, archived);
+            assertEquals(1, context.getBean(ChatMessageRepository.class).count());
+            SegmentStore segmentStore = context.getBean(SegmentStore.class);
+            assertEquals(List.of(older, old), List.copyOf(segmentStore.dates()));
+            assertEquals(List.of("old 1", "old 2", "old 3"),
+                    segmentStore.read(old).stream().map(ChatMessageEntity::getContent).toList());
+            // 读取路径透明地合并归档与数据库中的消息
+            ChatHistoryService service = context.getBean(ChatHistoryService.class);
+            assertEquals(3, service.getMessagesByDate(old).size());
+            assertEquals(6, service.getTotalMessageCount());
+        }
+    }
+
+    @Test
+    void testRowsKeptWhenSegmentCannotBeWritten() throws IOException {
+        LocalDate old = LocalDate.now().minusDays(200);
+        // 已有但无法读取的段文件（例如复制时被截断）
+        Path damaged = archiveDirectory.resolve(old + ".seg");
+        byte[] truncated = {0x41, 0x46, 0x53, 0x47, 0, 1, 0};
+        Files.write(damaged, truncated);
+
+        try (ConfigurableApplicationContext context = start()) {
+            write(context.getBean(ChatMessageWriter.class), old, "kept 1", "kept 2");
+
+            assertThrows(IOException.class, () -> context.getBean(HistoryArchiver.class).archiveExpired());
+
+            assertEquals(2, context.getBean(ChatMessageRepository.class).count());
+            assertArrayEquals(truncated, Files.readAllBytes(damaged));
+        }
+    }
+
+    // ==================== Helpers ====================
+
+    private ConfigurableApplicationContext start() {
+        return TestApplication.start(
+                "spring.datasource.url=jdbc:h2:mem:archiver-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "agentforge.history.archive.directory=" + archiveDirectory);
+    }
+
+    private static void write(ChatMessageWriter writer, LocalDate date, String... contents) {
+        LocalDateTime time = date.atTime(10, 0);
+        for (String content : contents) {
+            ChatMessageEntity message = new ChatMessageEntity("user", content);
+            message.setCreatedAt(time = time.plusMinutes(1));
+            writer.write(message);
+        }
+        writer.flush();
+    }
+}
@@ -0,0 +1,223 @@
+package io.ailink.agentforge.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import io.ailink.agentforge.TestApplication;
+import io.ailink.agentforge.llm.dto.TokenUsage;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.tool.ToolArguments;
+import io.ailink.agentforge.tool.ToolCall;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Round-trip tests for history export and import (ChatHistoryTransfer and JdbcHistoryTransfer).
+ * Exports archived and hot messages with tool calls and compressed content, imports them into a fresh database
+ * and compares the re-exported file; a malformed line after the first commit keeps the committed rows.
+ */
+class HistoryTransferTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    /**
+     * 超过压缩阈值（min-chars 2048）的长内容
+     */
+    private static final String LONG_CONTENT = "这是一份很长的日志：" + "第一行 第二行 第三行\n".repeat(400);
+
+    @TempDir
+    Path directory;
+
+    // ==================== Round Trip ====================
+
+    @Test
+    void testJpaRoundTrip() throws IOException {
+        assertRoundTrip("jpa");
+    }
+
+    @Test
+    void testJdbcRoundTrip() throws IOException {
+        assertRoundTrip("jdbc");
+    }
+
+    private void assertRoundTrip(String backend) throws IOException {
+        Path exported = directory.resolve(backend + "-exported.jsonl");
+        Path reexported = directory.resolve(backend + "-reexported.jsonl");
+
+        try (ConfigurableApplicationContext context = start(backend, "source")) {
+            ChatHistoryService service = context.getBean(ChatHistoryService.class);
+            writeHistory(context);
+            assertEquals(3, service.archiveMessages());
+
+            assertEquals(8, service.exportMessages(exported));
+        }
+        String file = Files.readString(exported);
+        assertTrue(file.endsWith("}\n"), "exported file should end with one newline");
+        assertEquals(8, file.lines().count());
+
+        try (ConfigurableApplicationContext context = start(backend, "target")) {
+            ChatHistoryService service = context.getBean(ChatHistoryService.class);
+            // 目标库已有一个会话，导入的会话 ID 与导出时不同
+            service.saveUserMessage(service.startSession().getId(), "目标库已有的消息");
+            flush(context);
+
+            assertEquals(8, service.importMessages(exported));
+
+            assertEquals(9, service.getTotalMessageCount());
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            assertEquals(1, jdbc.queryForObject(
+                    "select count(*) from chat_messages where compressed_content is not null", Integer.class));
+            assertEquals(1, service.searchMessages("日志", 1, 10).total());
+
+            service.exportMessages(reexported);
+        }
+
+        List<JsonNode> original = lines(exported);
+        List<JsonNode> imported = lines(reexported);
+        assertEquals("目标库已有的消息", imported.getFirst().get("content").asText());
+        imported = imported.subList(1, imported.size());
+        assertNotEquals(sessionIds(original), sessionIds(imported));
+        assertEquals(withSessionOrdinals(original), withSessionOrdinals(imported));
+        // 工具调用与结果、Token 用量原样保留
+        JsonNode call = original.stream().filter(line -> line.has("toolCalls")).findFirst().orElseThrow();
+        assertEquals("call_1", call.get("toolCalls").get(0).get("id").asText());
+        assertEquals(28, call.get("inputTokens").asInt() + call.get("outputTokens").asInt());
+        assertTrue(original.stream().anyMatch(line -> "call_1".equals(line.path("toolCallId").asText(null))));
+    }
+
+    // ==================== Partial Import ====================
+
+    @Test
+    void testJpaFailureKeepsCommittedRows() throws IOException {
+        assertFailureKeepsCommittedRows("jpa", ChatHistoryTransfer.IMPORT_COMMIT_INTERVAL);
+    }
+
+    @Test
+    void testJdbcFailureKeepsCommittedRows() throws IOException {
+        assertFailureKeepsCommittedRows("jdbc", JdbcHistoryTransfer.IMPORT_COMMIT_INTERVAL);
+    }
+
+    private void assertFailureKeepsCommittedRows(String backend, int commitInterval) throws IOException {
+        // 第一次提交之后、下一次提交之前出现一行损坏的记录
+        Path file = directory.resolve(backend + "-malformed.jsonl");
+        LocalDateTime createdAt = LocalDateTime.now().truncatedTo(ChronoUnit.SECONDS);
+        StringBuilder content = new StringBuilder();
+        for (int i = 0; i < commitInterval + 10; i++) {
+            content.append(line(7L, i % 2 == 0 ? "user" : "assistant", "message " + i, createdAt)).append('\n');
+        }
+        content.append("{\"sessionId\": 7, \"role\": \"user\", \"content\": \n");
+        content.append(line(7L, "user", "after malformed", createdAt)).append('\n');
+        Files.writeString(file, content);
+
+        try (ConfigurableApplicationContext context = start(backend, "partial")) {
+            ChatHistoryService service = context.getBean(ChatHistoryService.class);
+
+            IOException error = assertThrows(IOException.class, () -> service.importMessages(file));
+
+            assertTrue(error.getMessage().contains("已导入 " + commitInterval + " 条"), error.getMessage());
+            assertEquals(commitInterval, service.getTotalMessageCount());
+            List<ChatMessageEntity> recent = service.getRecentChatMessages(1);
+            assertEquals("message " + (commitInterval - 1), recent.getFirst().getContent());
+            // 已提交的消息属于同一个新建的会话
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            assertEquals(1, jdbc.queryForObject(
+                    "select count(distinct session_id) from chat_messages", Integer.class));
+        }
+    }
+
+    // ==================== Helpers ====================
+
+    private ConfigurableApplicationContext start(String backend, String name) {
+        return TestApplication.start(
+                "spring.datasource.url=jdbc:h2:mem:transfer-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "agentforge.history.backend=" + backend,
+                "agentforge.history.archive.directory=" + directory.resolve(backend + "-" + name));
+    }
+
+    /**
+     * 两个会话：200 天前的会话（导出前归档），今天带工具调用和长内容的会话；另有一条不属于会话的消息
+     */
+    private static void writeHistory(ConfigurableApplicationContext context) {
+        ChatHistoryService service = context.getBean(ChatHistoryService.class);
+        JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+
+        Long old = service.startSession().getId();
+        List<ChatMessageEntity> archived = List.of(
+                service.saveUserMessage(old, "很久以前的问题"),
+                service.saveAssistantMessage(old, "很久以前的回答", new TokenUsage(10, 5, 15), 80),
+                service.saveUserMessage(old, "很久以前的追问"));
+
+        Long current = service.startSession().getId();
+        ToolCall call = new ToolCall("call_1", "calculator",
+                ToolArguments.ofJson("{\"expression\": \"12 * 34\"}", new ObjectMapper()));
+        service.saveUserMessage(current, "帮我计算 12 * 34");
+        service.saveToolCalls(current, "", List.of(call), new TokenUsage(20, 8, 28), 120);
+        service.saveToolResult(current, "call_1", "408");
+        service.saveAssistantMessage(current, LONG_CONTENT);
+        service.saveUserMessage(null, "不属于会话的消息");
+        flush(context);
+
+        LocalDateTime oldTime = LocalDateTime.now().minusDays(200).truncatedTo(ChronoUnit.SECONDS);
+        jdbc.update("update conversation_sessions set created_at = ? where id = ?", oldTime, old);
+        for (int i = 0; i < archived.size(); i++) {
+            jdbc.update("update chat_messages set created_at = ? where id = ?",
+                    oldTime.plusMinutes(i), archived.get(i).getId());
+        }
+    }
+
+    private static void flush(ConfigurableApplicationContext context) {
+        context.getBeanProvider(ChatMessageWriter.class).ifAvailable(ChatMessageWriter::flush);
+    }
+
+    private static String line(Long sessionId, String role, String content, LocalDateTime createdAt) {
+        ObjectNode node = MAPPER.createObjectNode()
+                .put("sessionId", sessionId)
+                .put("role", role)
+                .put("content", content)
+                .put("createdAt", createdAt.toString());
+        return node.toString();
+    }
+
+    private static List<JsonNode> lines(Path file) throws IOException {
+        List<JsonNode> lines = new ArrayList<>();
+        for (String line : Files.readAllLines(file)) {
+            lines.add(MAPPER.readTree(line));
+        }
+        return lines;
+    }
+
+    private static List<Long> sessionIds(List<JsonNode> lines) {
+        return lines.stream().map(line -> line.get("sessionId").isNull() ? null : line.get("sessionId").asLong()).toList();
+    }
+
+    /**
+     * 把会话 ID 替换为会话首次出现的序号，其余字段不变
+     */
+    private static List<JsonNode> withSessionOrdinals(List<JsonNode> lines) {
+        Map<Long, Integer> ordinals = new HashMap<>();
+        List<JsonNode> normalized = new ArrayList<>();
+        for (JsonNode line : lines) {
+            ObjectNode copy = line.deepCopy();
+            if (!line.get("sessionId").isNull()) {
+                copy.put("sessionId", ordinals.computeIfAbsent(line.get("sessionId").asLong(), id -> ordinals.size()));
+            }
+            normalized.add(copy);
+        }
+        return normalized;
+    }
+}
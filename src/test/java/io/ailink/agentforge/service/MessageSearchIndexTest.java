@@ -0,0 +1,180 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MessageSearchIndex.
+ * Tests conjunctive matching (including one-character CJK queries), TF-IDF ranking,
+ * tie-breaking by recency, paging, and that the cached message count follows newly written messages.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:message-search-index;DB_CLOSE_DELAY=-1",
+        "agentforge.prompts.watch=false"
+})
+class MessageSearchIndexTest {
+
+    @Autowired
+    private ChatMessageWriter writer;
+
+    @Autowired
+    private MessageSearchIndex messageSearchIndex;
+
+    /**
+     * 每个测试独有的词，查询时带上它以排除其他测试写入的消息
+     */
+    private String marker;
+
+    @BeforeEach
+    void setUp() {
+        marker = "m" + UUID.randomUUID().toString().replace("-", "");
+    }
+
+    // ==================== Matching ====================
+
+    @Test
+    void testAllTermsRequired() {
+        long both = write(marker + " alpha beta");
+        write(marker + " alpha");
+        write(marker + " beta gamma");
+
+        MessageSearchPage page = messageSearchIndex.search(marker + " alpha beta", 1, 10);
+
+        assertEquals(1, page.total());
+        assertEquals(both, page.hits().getFirst().message().getId());
+    }
+
+    @Test
+    void testCjkQueryMatchesBigrams() {
+        long match = write(marker + " 上下文窗口按整轮裁剪");
+        write(marker + " 上文和下文");
+
+        MessageSearchPage page = messageSearchIndex.search(marker + " 上下文", 1, 10);
+
+        assertEquals(List.of(match), ids(page));
+    }
+
+    @Test
+    void testSingleCjkCharacterQuery() {
+        long inWord = write(marker + " 小猫在睡觉");
+        long alone = write(marker + " 猫");
+        write(marker + " 小狗在睡觉");
+
+        MessageSearchPage page = messageSearchIndex.search(marker + " 猫", 1, 10);
+
+        assertEquals(List.of(alone, inWord), ids(page));
+    }
+
+    @Test
+    void testUnknownTermReturnsEmpty() {
+        write(marker + " alpha");
+
+        MessageSearchPage page = messageSearchIndex.search(marker + " nonexistentterm" + marker, 1, 10);
+
+        assertEquals(0, page.total());
+        assertTrue(page.hits().isEmpty());
+    }
+
+    // ==================== Ranking ====================
+
+    @Test
+    void testTermFrequencyRanking() {
+        long once = write(marker + " context budget");
+        long thrice = write(marker + " context context context budget");
+
+        MessageSearchPage page = messageSearchIndex.search(marker + " context", 1, 10);
+
+        assertEquals(List.of(thrice, once), ids(page));
+        assertTrue(page.hits().get(0).score() > page.hits().get(1).score());
+    }
+
+    @Test
+    void testRareTermWeighsMore() {
+        String common = "c" + marker;
+        String rare = "r" + marker;
+        for (int i = 0; i < 20; i++) {
+            write(common + " filler");
+        }
+        long commonHeavy = write(common + " " + common + " " + common + " " + rare);
+        long rareHeavy = write(common + " " + rare + " " + rare + " " + rare);
+
+        MessageSearchPage page = messageSearchIndex.search(common + " " + rare, 1, 10);
+
+        assertEquals(List.of(rareHeavy, commonHeavy), ids(page));
+    }
+
+    @Test
+    void testTiesRankNewerFirst() {
+        long older = write(marker + " same text");
+        long newer = write(marker + " same text");
+
+        MessageSearchPage page = messageSearchIndex.search(marker + " same", 1, 10);
+
+        assertEquals(List.of(newer, older), ids(page));
+        assertEquals(page.hits().get(0).score(), page.hits().get(1).score());
+    }
+
+    @Test
+    void testPaging() {
+        for (int i = 0; i < 7; i++) {
+            write(marker + " page");
+        }
+
+        MessageSearchPage first = messageSearchIndex.search(marker, 1, 3);
+        MessageSearchPage last = messageSearchIndex.search(marker, 3, 3);
+
+        assertEquals(7, first.total());
+        assertEquals(3, first.totalPages());
+        assertEquals(3, first.hits().size());
+        assertTrue(first.hasNext());
+        assertEquals(1, last.hits().size());
+        assertFalse(last.hasNext());
+    }
+
+    // ==================== Message Count ====================
+
+    @Test
+    void testMessageCountFollowsWrites() {
+        long id = write(marker + " idf");
+        double before = messageSearchIndex.search(marker, 1, 10).hits().getFirst().score();
+
+        // 消息总数增大而该词的文档频率不变，IDF 随之增大
+        for (int i = 0; i < 50; i++) {
+            write("filler " + i);
+        }
+        MessageSearchPage page = messageSearchIndex.search(marker, 1, 10);
+
+        assertEquals(List.of(id), ids(page));
+        assertTrue(page.hits().getFirst().score() > before, page.hits().getFirst().score() + " <= " + before);
+    }
+
+    @Test
+    void testMessageCountAfterRebuild() {
+        write(marker + " rebuild");
+        double before = messageSearchIndex.search(marker, 1, 10).hits().getFirst().score();
+
+        messageSearchIndex.rebuild();
+
+        assertEquals(before, messageSearchIndex.search(marker, 1, 10).hits().getFirst().score(), 1e-9);
+    }
+
+    // ==================== Helpers ====================
+
+    private long write(String content) {
+        ChatMessageEntity message = writer.write(new ChatMessageEntity("user", content));
+        writer.flush();
+        return message.getId();
+    }
+
+    private static List<Long> ids(MessageSearchPage page) {
+        return page.hits().stream().map(hit -> hit.message().getId()).toList();
+    }
+}
@@ -0,0 +1,103 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.persistence.entity.MessageTermEntity;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for MessageTokenizer.
+ * CJK text is indexed as single characters plus overlapping bigrams and queried by bigrams,
+ * ASCII words are lowercased, and everything else acts as a separator.
+ */
+class MessageTokenizerTest {
+
+    // ==================== CJK Index Terms ====================
+
+    @Test
+    void testCjkCharactersAndBigramsIndexed() {
+        Map<String, Integer> terms = MessageTokenizer.termFrequencies("上下文窗口");
+
+        assertEquals(List.of("上", "上下", "下", "下文", "文", "文窗", "窗", "窗口", "口"), List.copyOf(terms.keySet()));
+    }
+
+    @Test
+    void testSingleCjkCharacter() {
+        Map<String, Integer> terms = MessageTokenizer.termFrequencies("好，的");
+
+        assertEquals(Map.of("好", 1, "的", 1), terms);
+    }
+
+    @Test
+    void testCjkTermFrequencies() {
+        Map<String, Integer> terms = MessageTokenizer.termFrequencies("上下文，上下文");
+
+        assertEquals(Map.of("上", 2, "上下", 2, "下", 2, "下文", 2, "文", 2), terms);
+    }
+
+    // ==================== CJK Query Terms ====================
+
+    @Test
+    void testCjkQueryUsesBigrams() {
+        assertEquals(List.of("上下", "下文", "文窗", "窗口"), MessageTokenizer.queryTerms("上下文窗口"));
+    }
+
+    @Test
+    void testSingleCjkCharacterQuery() {
+        // 单字查询按单字匹配，索引中每个字都有对应词项
+        assertEquals(List.of("猫"), MessageTokenizer.queryTerms("猫"));
+        assertTrue(MessageTokenizer.termFrequencies("小猫在睡觉").containsKey("猫"));
+    }
+
+    @Test
+    void testJapaneseAndKorean() {
+        assertEquals(List.of("ひら", "らが", "がな"), MessageTokenizer.queryTerms("ひらがな"));
+        assertEquals(List.of("한국", "국어"), MessageTokenizer.queryTerms("한국어"));
+    }
+
+    @Test
+    void testSupplementaryCjkCharacters() {
+        // 扩展 B 区汉字是 UTF-16 代理对，按码点而不是 char 切分
+        assertEquals(List.of("𠀀𠀁", "𠀁𠀂"), MessageTokenizer.queryTerms("𠀀𠀁𠀂"));
+        assertEquals(List.of("𠀀", "𠀀𠀁", "𠀁"), List.copyOf(MessageTokenizer.termFrequencies("𠀀𠀁").keySet()));
+    }
+
+    // ==================== ASCII Words ====================
+
+    @Test
+    void testAsciiWordsLowercased() {
+        Map<String, Integer> terms = MessageTokenizer.termFrequencies("Trim the Context, trim_ratio=0.75!");
+
+        assertEquals(List.of("trim", "the", "context", "trim_ratio", "0"), List.copyOf(terms.keySet()).subList(0, 5));
+        assertEquals(1, terms.get("trim"));
+        assertEquals(1, terms.get("75"));
+    }
+
+    @Test
+    void testMixedScriptsSplitAtBoundary() {
+        assertEquals(List.of("用", "json", "格式", "式输", "输出", "token", "数"),
+                MessageTokenizer.queryTerms("用JSON格式输出token数"));
+        assertEquals(List.of("用", "json", "格", "格式", "式", "式输", "输", "输出", "出", "token", "数"),
+                List.copyOf(MessageTokenizer.termFrequencies("用JSON格式输出token数").keySet()));
+    }
+
+    @Test
+    void testSeparatorsOnly() {
+        assertTrue(MessageTokenizer.termFrequencies(" ，。!? \n\t").isEmpty());
+        assertTrue(MessageTokenizer.termFrequencies("").isEmpty());
+        assertTrue(MessageTokenizer.termFrequencies(null).isEmpty());
+        assertTrue(MessageTokenizer.queryTerms(null).isEmpty());
+    }
+
+    @Test
+    void testLongWordTruncated() {
+        String word = "a".repeat(MessageTermEntity.MAX_TERM_LENGTH + 10);
+
+        Map<String, Integer> terms = MessageTokenizer.termFrequencies(word);
+
+        assertEquals(Map.of("a".repeat(MessageTermEntity.MAX_TERM_LENGTH), 1), terms);
+    }
+}
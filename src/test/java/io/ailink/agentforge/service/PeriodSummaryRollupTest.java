@@ -0,0 +1,172 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.llm.LlmProvider;
+import io.ailink.agentforge.persistence.entity.DailySummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity;
+import io.ailink.agentforge.persistence.entity.PeriodSummaryEntity.Period;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.bean.override.mockito.MockitoBean;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PeriodSummaryRollup.
+ * Tests that an up-to-date cached rollup is reused without a model call,
+ * and that a period is regenerated when one of its days is added (day count changes)
+ * or updated (latest updatedAt changes), while the other periods keep their cached rollup.
+ */
+@SpringBootTest(properties = {
+        "spring.datasource.url=jdbc:h2:mem:period-summary-rollup;DB_CLOSE_DELAY=-1",
+        "agentforge.history.summary.requests-per-minute=0",
+        "agentforge.prompts.watch=false"
+})
+class PeriodSummaryRollupTest {
+
+    private static final LocalDate FIRST_WEEK = LocalDate.of(2025, 3, 3);
+    private static final LocalDate SECOND_WEEK = LocalDate.of(2025, 3, 10);
+
+    @MockitoBean(name = "primaryLlmProvider")
+    private LlmProvider llmProvider;
+
+    @Autowired
+    private ChatHistoryService chatHistoryService;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    private CountingSummaryGenerator generator;
+    private PeriodSummaryRollup rollup;
+
+    @BeforeEach
+    void setUp() {
+        jdbcTemplate.update("delete from period_summaries");
+        jdbcTemplate.update("delete from daily_summaries");
+        generator = new CountingSummaryGenerator();
+        rollup = new PeriodSummaryRollup(chatHistoryService, generator);
+
+        // 第一周两天，第二周一天
+        saveDay(FIRST_WEEK, LocalDateTime.of(2025, 3, 3, 22, 0));
+        saveDay(FIRST_WEEK.plusDays(1), LocalDateTime.of(2025, 3, 4, 22, 0));
+        saveDay(SECOND_WEEK, LocalDateTime.of(2025, 3, 10, 22, 0));
+    }
+
+    // ==================== Cache ====================
+
+    @Test
+    void testUpToDateRollupReused() {
+        List<PeriodSummaryEntity> first = rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+
+        assertEquals(2, generator.calls.size());
+        assertEquals(List.of(FIRST_WEEK, SECOND_WEEK), first.stream().map(PeriodSummaryEntity::getPeriodStart).toList());
+        assertEquals(2, first.getFirst().getDayCount());
+        assertEquals(LocalDateTime.of(2025, 3, 4, 22, 0), first.getFirst().getSourceUpdatedAt());
+
+        List<PeriodSummaryEntity> second = rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+
+        // 每日总结没有变化，不再请求模型
+        assertEquals(2, generator.calls.size());
+        assertEquals(first.stream().map(PeriodSummaryEntity::getSummary).toList(),
+                second.stream().map(PeriodSummaryEntity::getSummary).toList());
+    }
+
+    @Test
+    void testWeekAndMonthCachedSeparately() {
+        rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+        assertEquals(2, generator.calls.size());
+
+        List<PeriodSummaryEntity> months = rollup.getSummaries(Period.MONTH, FIRST_WEEK, SECOND_WEEK);
+
+        assertEquals(3, generator.calls.size());
+        assertEquals(3, months.getFirst().getDayCount());
+        rollup.getSummaries(Period.MONTH, FIRST_WEEK, SECOND_WEEK);
+        rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+        assertEquals(3, generator.calls.size());
+    }
+
+    // ==================== Refresh ====================
+
+    @Test
+    void testNewDayRegeneratesItsPeriod() {
+        rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+        generator.calls.clear();
+
+        // 新的一天的更新时间早于周内已有的最晚更新时间，只有天数不同
+        saveDay(FIRST_WEEK.plusDays(2), LocalDateTime.of(2025, 3, 4, 8, 0));
+        List<PeriodSummaryEntity> summaries = rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+
+        assertEquals(1, generator.calls.size());
+        assertTrue(generator.calls.getFirst().startsWith(FIRST_WEEK + " ~ "), generator.calls.getFirst());
+        assertEquals(3, summaries.getFirst().getDayCount());
+        assertEquals(LocalDateTime.of(2025, 3, 4, 22, 0), summaries.getFirst().getSourceUpdatedAt());
+        assertEquals(1, summaries.get(1).getDayCount());
+    }
+
+    @Test
+    void testUpdatedDayRegeneratesItsPeriod() {
+        rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+        generator.calls.clear();
+
+        // 天数不变，第二周那天的总结被更新
+        LocalDateTime updatedAt = LocalDateTime.of(2025, 3, 11, 9, 0);
+        jdbcTemplate.update("update daily_summaries set summary = ?, updated_at = ? where summary_date = ?",
+                "更新后的总结", updatedAt, SECOND_WEEK);
+        List<PeriodSummaryEntity> summaries = rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+
+        assertEquals(1, generator.calls.size());
+        assertTrue(generator.calls.getFirst().startsWith(SECOND_WEEK + " ~ "), generator.calls.getFirst());
+        assertEquals(1, summaries.get(1).getDayCount());
+        assertEquals(updatedAt, summaries.get(1).getSourceUpdatedAt());
+
+        rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+        assertEquals(1, generator.calls.size());
+    }
+
+    @Test
+    void testOlderUpdateTimeKeepsCache() {
+        rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+        generator.calls.clear();
+
+        // 天数不变且最晚更新时间没有变晚，沿用缓存
+        jdbcTemplate.update("update daily_summaries set updated_at = ? where summary_date = ?",
+                LocalDateTime.of(2025, 3, 3, 12, 0), FIRST_WEEK);
+        rollup.getSummaries(Period.WEEK, FIRST_WEEK, SECOND_WEEK);
+
+        assertEquals(0, generator.calls.size());
+    }
+
+    // ==================== Helpers ====================
+
+    private void saveDay(LocalDate date, LocalDateTime updatedAt) {
+        jdbcTemplate.update("insert into daily_summaries (summary_date, summary, message_count, last_message_id, "
+                        + "created_at, updated_at) values (?, ?, ?, ?, ?, ?)",
+                date, date + " 的总结", 4, 0L, updatedAt, updatedAt);
+    }
+
+    /**
+     * 记录每次 generateRollup 的周期，不请求模型
+     */
+    private static class CountingSummaryGenerator extends SummaryGenerator {
+
+        final List<String> calls = new CopyOnWriteArrayList<>();
+
+        CountingSummaryGenerator() {
+            super(null, null, new HistoryProperties());
+        }
+
+        @Override
+        public String generateRollup(String periodLabel, List<DailySummaryEntity> days) {
+            calls.add(periodLabel);
+            return periodLabel + " 第 " + calls.size() + " 次汇总（" + days.size() + " 天）";
+        }
+    }
+}
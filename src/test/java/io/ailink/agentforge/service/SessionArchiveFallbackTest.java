@@ -0,0 +1,87 @@
+package io.ailink.agentforge.service;
+
+import io.ailink.agentforge.TestApplication;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.persistence.entity.ConversationSessionEntity;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for loading session messages across the archive boundary.
+ * A resumed session whose earlier messages were archived still loads them,
+ * merged with the messages kept in the database, on both storage backends.
+ */
+class SessionArchiveFallbackTest {
+
+    @TempDir
+    Path archiveDirectory;
+
+    @Test
+    void testJpaSessionMessagesIncludeArchive() throws IOException {
+        assertSessionMessagesIncludeArchive("jpa");
+    }
+
+    @Test
+    void testJdbcSessionMessagesIncludeArchive() throws IOException {
+        assertSessionMessagesIncludeArchive("jdbc");
+    }
+
+    private void assertSessionMessagesIncludeArchive(String backend) throws IOException {
+        try (ConfigurableApplicationContext context = TestApplication.start(
+                "spring.datasource.url=jdbc:h2:mem:session-archive-" + UUID.randomUUID() + ";DB_CLOSE_DELAY=-1",
+                "agentforge.history.backend=" + backend,
+                "agentforge.history.archive.directory=" + archiveDirectory)) {
+            ChatHistoryService service = context.getBean(ChatHistoryService.class);
+            JdbcTemplate jdbc = context.getBean(JdbcTemplate.class);
+            LocalDateTime old = LocalDateTime.now().minusDays(200).truncatedTo(ChronoUnit.SECONDS);
+
+            // 200 天前开始的会话：前 4 条消息超出保留窗口，最后 2 条是今天继续的对话
+            ConversationSessionEntity session = service.startSession();
+            List<ChatMessageEntity> saved = List.of(
+                    service.saveUserMessage(session.getId(), "old question 1"),
+                    service.saveAssistantMessage(session.getId(), "old answer 1"),
+                    service.saveUserMessage(session.getId(), "old question 2"),
+                    service.saveAssistantMessage(session.getId(), "old answer 2"),
+                    service.saveUserMessage(session.getId(), "new question"),
+                    service.saveAssistantMessage(session.getId(), "new answer"));
+            context.getBeanProvider(ChatMessageWriter.class).ifAvailable(ChatMessageWriter::flush);
+            jdbc.update("update conversation_sessions set created_at = ? where id = ?", old, session.getId());
+            for (int i = 0; i < 4; i++) {
+                jdbc.update("update chat_messages set created_at = ? where id = ?",
+                        old.plusMinutes(i), saved.get(i).getId());
+            }
+
+            assertEquals(4, service.archiveMessages());
+
+            assertEquals(List.of("old question 1", "old answer 1", "old question 2", "old answer 2",
+                            "new question", "new answer"),
+                    contents(service.getRecentSessionMessages(session.getId(), 10)));
+            // 只取最近的 limit 条，跨越归档边界
+            assertEquals(List.of("old answer 2", "new question", "new answer"),
+                    contents(service.getRecentSessionMessages(session.getId(), 3)));
+            // 数据库中的消息已够 limit 条时不读取归档
+            assertEquals(List.of("new question", "new answer"),
+                    contents(service.getRecentSessionMessages(session.getId(), 2)));
+            assertEquals(List.of("old question 2", "old answer 2", "new question", "new answer"),
+                    contents(service.getRecentSessionMessagesAfter(session.getId(),
+                            new MessageCursor(old.plusMinutes(1), saved.get(1).getId()), 10)));
+            // 全部消息都已归档时仍能找到最近的会话
+            assertEquals(session.getId(), service.getLatestSession().getId());
+        }
+    }
+
+    private static List<String> contents(List<ChatMessageEntity> messages) {
+        return messages.stream().map(ChatMessageEntity::getContent).toList();
+    }
+}
@@ -0,0 +1,190 @@
+package io.ailink.agentforge.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.hubspot.jinjava.Jinjava;
+import io.ailink.agentforge.config.HistoryProperties;
+import io.ailink.agentforge.config.PromptProperties;
+import io.ailink.agentforge.config.TemplateConfig;
+import io.ailink.agentforge.llm.LlmProvider;
+import io.ailink.agentforge.llm.TokenEstimator;
+import io.ailink.agentforge.llm.dto.ChatMessage;
+import io.ailink.agentforge.llm.dto.ChatRequest;
+import io.ailink.agentforge.llm.dto.ChatResponse;
+import io.ailink.agentforge.llm.dto.ChatStreamEvent;
+import io.ailink.agentforge.persistence.entity.ChatMessageEntity;
+import io.ailink.agentforge.template.PromptRenderer;
+import io.ailink.agentforge.template.PromptTemplateCache;
+import io.ailink.agentforge.tool.ToolArguments;
+import io.ailink.agentforge.tool.ToolCall;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Function;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for SummaryGenerator.
+ * Tests that grouping keeps every group within budget while at least halving the count,
+ * that the map-reduce loop terminates when every merge answer is larger than the budget,
+ * and that rolling conversation summaries go through the shared completion path.
+ */
+class SummaryGeneratorTest {
+
+    /**
+     * 每个字符一个 Token
+     */
+    private static final TokenEstimator ESTIMATOR = text -> text == null ? 0 : text.length();
+
+    private PromptTemplateCache templates;
+    private PromptRenderer renderer;
+    private HistoryProperties properties;
+
+    @BeforeEach
+    void setUp() {
+        Jinjava jinjava = new TemplateConfig().jinjava();
+        PromptProperties promptProperties = new PromptProperties();
+        promptProperties.setWatch(false);
+        templates = new PromptTemplateCache(jinjava, promptProperties);
+        renderer = new PromptRenderer(jinjava, templates);
+        properties = new HistoryProperties();
+        properties.getSummary().setRequestsPerMinute(0);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        templates.destroy();
+    }
+
+    // ==================== Grouping ====================
+
+    @Test
+    void testGroupKeepsBudgetAndMinimum() {
+        List<String> texts = new ArrayList<>();
+        for (int i = 0; i < 25; i++) {
+            // 长短混合，其中几条单独就超过预算
+            texts.add("item " + i + " " + "x".repeat(i % 5 == 0 ? 500 : i * 3));
+        }
+
+        for (int minPerGroup = 1; minPerGroup <= 3; minPerGroup++) {
+            List<String> groups = SummaryGenerator.group(texts, 120, minPerGroup, ESTIMATOR);
+
+            for (String group : groups) {
+                assertTrue(ESTIMATOR.estimate(group) <= 120, group.length() + " > 120");
+            }
+            if (minPerGroup >= 2) {
+                // 每组至少 minPerGroup 条（最后一组可能不足），组数至少按此比例减少
+                assertTrue(groups.size() <= (texts.size() + minPerGroup - 1) / minPerGroup + 1,
+                        "groups " + groups.size());
+            }
+            assertEquals(String.join("", texts.stream().map(text -> text.substring(0, 7)).toList()),
+                    String.join("", groups.stream()
+                            .flatMap(group -> List.of(group.split("\n\n")).stream())
+                            .map(text -> text.substring(0, 7)).toList()));
+        }
+    }
+
+    @Test
+    void testGroupSingleOversizedText() {
+        List<String> groups = SummaryGenerator.group(List.of("y".repeat(1000)), 50, 2, ESTIMATOR);
+
+        assertEquals(1, groups.size());
+        assertTrue(ESTIMATOR.estimate(groups.getFirst()) <= 50);
+    }
+
+    // ==================== Map-Reduce ====================
+
+    @Test
+    void testMergeTerminatesWhenAnswersStayOverBudget() {
+        properties.getSummary().setChunkTokens(3000);
+        // 每个回答都远超预算：每层合并后要点仍然放不进一个提示词
+        List<ChatRequest> requests = new CopyOnWriteArrayList<>();
+        SummaryGenerator generator = new SummaryGenerator(provider(request -> {
+            requests.add(request);
+            return "要点".repeat(5000);
+        }), renderer, properties);
+        List<ChatMessageEntity> messages = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            messages.add(new ChatMessageEntity(i % 2 == 0 ? "user" : "assistant", "第 " + i + " 条消息 " + "内容".repeat(300)));
+        }
+
+        String summary = assertTimeoutPreemptively(Duration.ofSeconds(30), () -> generator.generateSummary(messages));
+
+        assertFalse(summary.isEmpty());
+        // 分段数不超过消息数，每层合并至少减半：总请求数不超过 2 × 分段数 + 1
+        assertTrue(requests.size() <= 2 * messages.size() + 1, "requests " + requests.size());
+        for (ChatRequest request : requests) {
+            assertTrue(ESTIMATOR.estimate(request.messages().getFirst().content()) <= 3000);
+        }
+    }
+
+    // ==================== Conversation Summary ====================
+
+    @Test
+    void testConversationSummaryUsesModelAndTruncates() {
+        List<ChatRequest> requests = new CopyOnWriteArrayList<>();
+        SummaryGenerator generator = new SummaryGenerator(provider(request -> {
+            requests.add(request);
+            return "  新的摘要  ";
+        }), renderer, properties);
+        ToolCall call = new ToolCall("call_1", "calculator",
+                ToolArguments.ofJson("{\"expression\": \"" + "9".repeat(5000) + "\"}", new ObjectMapper()));
+        List<ChatMessage> messages = List.of(
+                ChatMessage.user("很长的问题" + "问".repeat(10_000)),
+                ChatMessage.assistantWithTools("", List.of(call)),
+                ChatMessage.toolResult("call_1", "结果"));
+
+        String summary = generator.summarizeConversation("之前的摘要", messages, "summary-model");
+
+        assertEquals("新的摘要", summary);
+        assertEquals(1, requests.size());
+        ChatRequest request = requests.getFirst();
+        assertEquals("summary-model", request.model());
+        String prompt = request.messages().getFirst().content();
+        assertTrue(prompt.contains("之前的摘要"));
+        // 超长的消息和工具参数各自截断到单条上限以内
+        assertTrue(prompt.length() < 4000, "prompt " + prompt.length());
+    }
+
+    // ==================== Helpers ====================
+
+    /**
+     * 只支持流式调用的 Provider，按请求返回固定回答
+     */
+    private static LlmProvider provider(Function<ChatRequest, String> answer) {
+        return new LlmProvider() {
+            @Override
+            public ChatResponse<?> chat(ChatRequest request) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Mono<? extends ChatResponse<?>> chatAsync(ChatRequest request) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public Flux<String> chatStream(ChatRequest request) {
+                return Flux.just(answer.apply(request));
+            }
+
+            @Override
+            public Flux<ChatStreamEvent> chatStreamEvents(ChatRequest request) {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public TokenEstimator tokenEstimator() {
+                return ESTIMATOR;
+            }
+        };
+    }
+}
@@ -0,0 +1,179 @@
+package io.ailink.agentforge.template;
+
+import com.hubspot.jinjava.Jinjava;
+import io.ailink.agentforge.config.PromptProperties;
+import io.ailink.agentforge.config.TemplateConfig;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for PromptRenderer.
+ * Every prompt moved out of String.format renders to exactly the text the format string produced,
+ * and state created by one render ({% set %} variables, macros) is not visible to the next render
+ * that reuses the pooled global context.
+ */
+class PromptRendererTest {
+
+    // ==================== String.format Prompts ====================
+
+    private static final String DAILY_PROMPT = "你是一个对话总结专家。请简洁地总结以下对话的要点：\n1. 用户主要询问了什么问题？\n"
+            + "2. AI给出了什么关键回答？\n请用2-3句话总结。\n\n对话内容：\n%s";
+
+    private static final String CHUNK_PROMPT = "下面是某一天对话的第 %d/%d 部分。请提炼这一部分的要点：用户询问了哪些问题、AI 给出了哪些关键回答、"
+            + "工具调用得到的关键结果。用要点列出，不超过 200 字。\n\n对话内容：\n%s";
+
+    private static final String MERGE_PROMPT = "下面是同一天对话中连续几部分的要点。请合并为一份要点，去掉重复内容，不超过 300 字。\n\n各部分要点：\n%s";
+
+    private static final String FINAL_PROMPT = "下面是某一天对话各部分的要点。请简洁地总结当天对话的要点：\n1. 用户主要询问了什么问题？\n2. AI给出了什么关键回答？\n"
+            + "请用2-3句话总结。\n\n各部分要点：\n%s";
+
+    private static final String UPDATE_PROMPT = "你是一个对话总结专家。下面是当天对话此前的总结，以及之后新增的对话。请结合两者更新当天的总结：\n"
+            + "1. 用户主要询问了什么问题？\n2. AI给出了什么关键回答？\n请用2-3句话总结。\n\n"
+            + "此前的总结：\n%s\n\n新增的对话内容：\n%s";
+
+    private static final String UPDATE_FINAL_PROMPT = "下面是当天对话此前的总结，以及之后新增对话各部分的要点。请结合两者更新当天的总结：\n"
+            + "1. 用户主要询问了什么问题？\n2. AI给出了什么关键回答？\n请用2-3句话总结。\n\n"
+            + "此前的总结：\n%s\n\n新增对话各部分要点：\n%s";
+
+    private static final String ROLLUP_PROMPT = "下面是%s每天的对话总结。请概括这段时间对话的主要内容：用户关注的主要问题、AI 给出的关键结论和进展。"
+            + "请用3-5句话总结。\n\n每日总结：\n%s";
+
+    private static final String CONVERSATION_PROMPT = "请把下面的已有摘要和新的对话内容合并为一段新的摘要，供后续对话作为背景参考。\n"
+            + "保留：用户的目标与偏好、已确认的事实与结论、工具调用得到的关键结果、尚未解决的问题。\n"
+            + "省略寒暄和重复内容，不超过 300 字。\n\n已有摘要：\n%s\n\n新的对话内容：\n%s";
+
+    private static final String SUMMARIZER_SYSTEM = "你是一个对话总结专家。";
+
+    private static final String CHAT_SYSTEM = "你是一个知识问答助手，请根据用户的问题提供准确、有用的回答。";
+
+    private static final String SUMMARY_SUFFIX = "\n\n以下是此前对话的摘要，可作为背景参考：\n";
+
+    /**
+     * 对话内容中的模板语法原样输出，不会被再次解释
+     */
+    private static final String MESSAGES = "user: {{ 1+1 }} {% if %}\n\nassistant: 50% 的情况 %s";
+
+    @TempDir
+    Path overrideDirectory;
+
+    private PromptTemplateCache templates;
+    private PromptRenderer renderer;
+
+    @BeforeEach
+    void setUp() {
+        Jinjava jinjava = new TemplateConfig().jinjava();
+        PromptProperties properties = new PromptProperties();
+        properties.setWatch(false);
+        properties.setOverrideDirectories(List.of(overrideDirectory.toString()));
+        templates = new PromptTemplateCache(jinjava, properties);
+        renderer = new PromptRenderer(jinjava, templates);
+    }
+
+    @AfterEach
+    void tearDown() throws IOException {
+        templates.destroy();
+    }
+
+    @Test
+    void testDailyPromptsMatchFormat() {
+        assertEquals(String.format(DAILY_PROMPT, MESSAGES),
+                renderer.render("summarizer.md", Map.of("messages", MESSAGES)));
+        assertEquals(String.format(CHUNK_PROMPT, 3, 12, MESSAGES),
+                renderer.render("summarizer-chunk.md", Map.of("index", 3, "total", 12, "messages", MESSAGES)));
+        assertEquals(String.format(MERGE_PROMPT, MESSAGES),
+                renderer.render("summarizer-merge.md", Map.of("parts", MESSAGES)));
+        assertEquals(String.format(FINAL_PROMPT, MESSAGES),
+                renderer.render("summarizer-final.md", Map.of("parts", MESSAGES)));
+    }
+
+    @Test
+    void testUpdateAndRollupPromptsMatchFormat() {
+        assertEquals(String.format(UPDATE_PROMPT, "此前 {{ x }}", MESSAGES),
+                renderer.render("summarizer-update.md", Map.of("previous", "此前 {{ x }}", "messages", MESSAGES)));
+        assertEquals(String.format(UPDATE_FINAL_PROMPT, "此前", MESSAGES),
+                renderer.render("summarizer-update-final.md", Map.of("previous", "此前", "parts", MESSAGES)));
+        String period = "2025-03-03 ~ 2025-03-09 这一周";
+        assertEquals(String.format(ROLLUP_PROMPT, period, MESSAGES),
+                renderer.render("summarizer-rollup.md", Map.of("period", period, "summaries", MESSAGES)));
+        assertEquals(SUMMARIZER_SYSTEM, renderer.render("summarizer-system.md", Map.of()));
+    }
+
+    @Test
+    void testConversationPromptMatchesFormat() {
+        assertEquals(String.format(CONVERSATION_PROMPT, "已有", MESSAGES),
+                renderer.render("conversation-summary.md", Map.of("previous", "已有", "messages", MESSAGES)));
+
+        // 没有已有摘要时显示（无）
+        Map<String, Object> context = new HashMap<>();
+        context.put("previous", null);
+        context.put("messages", MESSAGES);
+        assertEquals(String.format(CONVERSATION_PROMPT, "（无）", MESSAGES),
+                renderer.render("conversation-summary.md", context));
+    }
+
+    @Test
+    void testChatSystemPromptMatchesConcatenation() {
+        Map<String, Object> context = new HashMap<>();
+        context.put("system", null);
+        context.put("summary", null);
+        assertEquals(CHAT_SYSTEM, renderer.render("chat-system.md", context));
+
+        context.put("system", "自定义 {{ x }}");
+        assertEquals("自定义 {{ x }}", renderer.render("chat-system.md", context));
+
+        context.put("summary", "摘要 {{ x }}");
+        assertEquals("自定义 {{ x }}" + SUMMARY_SUFFIX + "摘要 {{ x }}", renderer.render("chat-system.md", context));
+
+        context.put("system", null);
+        assertEquals(CHAT_SYSTEM + SUMMARY_SUFFIX + "摘要 {{ x }}", renderer.render("chat-system.md", context));
+    }
+
+    // ==================== Trailing Newline ====================
+
+    @Test
+    void testOneTrailingNewlineRemoved() throws IOException {
+        Files.writeString(overrideDirectory.resolve("one.md"), "A {{ x }}\n");
+        Files.writeString(overrideDirectory.resolve("two.md"), "A {{ x }}\n\n");
+
+        assertEquals("A 1", renderer.render("one.md", Map.of("x", 1)));
+        assertEquals("A 1\n", renderer.render("two.md", Map.of("x", 1)));
+        // 变量值末尾的换行不受影响，只去掉模板本身的一个换行
+        assertEquals("A 1\n", renderer.render("one.md", Map.of("x", "1\n")));
+    }
+
+    // ==================== Pooled Context ====================
+
+    @Test
+    void testSetAndMacroNotVisibleToNextRender() throws IOException {
+        Files.writeString(overrideDirectory.resolve("define.md"),
+                "{% set leaked = 'first' %}{% macro greet(name) %}hi {{ name }}{% endmacro %}"
+                        + "{{ leaked }} {{ greet('a') }}\n");
+        Files.writeString(overrideDirectory.resolve("use.md"),
+                "[{{ leaked }}] [{% if greet is defined %}macro{% endif %}] [{{ value }}]\n");
+
+        assertEquals("first hi a", renderer.render("define.md", Map.of()));
+        // 同一线程顺序渲染复用同一个全局上下文副本，上一次渲染定义的变量和宏不可见
+        assertEquals("[] [] [second]", renderer.render("use.md", Map.of("value", "second")));
+        assertEquals("first hi a", renderer.render("define.md", Map.of()));
+        assertEquals("[] [] [third]", renderer.render("use.md", Map.of("value", "third")));
+    }
+
+    @Test
+    void testContextValuesNotVisibleToNextRender() throws IOException {
+        Files.writeString(overrideDirectory.resolve("value.md"), "[{{ value }}]\n");
+
+        assertEquals("[first]", renderer.render("value.md", Map.of("value", "first")));
+        assertEquals("[]", renderer.render("value.md", Map.of()));
+    }
+}